@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+#
+# Queue-wait percentiles per priority while one channel is saturated with LOW bulk traffic.
+#
+#   ./scripts/priority-saturation.sh [low-recipients] [critical-sends]
+#
+# Starts target/design-patterns-*.jar with one SMS sender slot and rate limiting off, streams
+# LOW recipients into the SMS bulk endpoint, sends CRITICAL notifications while the LOW queue is
+# full, then prints /notifications/scheduler/latency. CRITICAL p99 should stay in the order of a
+# single send while LOW p99 grows with the backlog.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+LOW="${1:-200000}"
+CRITICAL="${2:-500}"
+PORT="${PORT:-18081}"
+BASE="http://localhost:${PORT}/notifications"
+
+JAR=$(ls target/design-patterns-*.jar 2>/dev/null | grep -v -- '-plain' | head -n 1 || true)
+if [[ -z "$JAR" ]]; then
+  echo "build the jar first: ./mvnw -DskipTests package" >&2
+  exit 1
+fi
+
+java -jar "$JAR" --server.port="$PORT" --logger.sink.enabled=false \
+  --notifications.rate-limit.enabled=false --notifications.outbox.enabled=false \
+  --notifications.dispatch.concurrency.SMS=1 --notifications.dispatch.queue-capacity=1000 >/dev/null 2>&1 &
+APP=$!
+trap 'kill "$APP" 2>/dev/null || true' EXIT
+until curl -sf -o /dev/null "${BASE}/scheduler/latency"; do
+  sleep 0.1
+done
+
+seq 1 "$LOW" | awk '{ printf "{\"to\":\"+1555%07d\",\"message\":\"bulk\"}\n", $1 }' |
+  curl -s -o /dev/null -H 'Content-Type: application/x-ndjson' --data-binary @- "${BASE}/SMS/bulk?priority=LOW" &
+BULK=$!
+
+sleep 2
+curl -s -o /dev/null "${BASE}/scheduler/latency?reset=true"
+for ((i = 1; i <= CRITICAL; i++)); do
+  curl -s -o /dev/null -X POST "${BASE}/SMS?to=%2B1999000${i}&message=critical&priority=CRITICAL"
+  sleep 0.01
+done
+
+curl -s "${BASE}/scheduler/latency"
+echo
+kill "$BULK" 2>/dev/null || true
@@ -0,0 +1,62 @@
+#!/usr/bin/env bash
+#
+# Time-to-first-request for the JVM, AOT+CDS and native builds.
+#
+#   ./scripts/startup-benchmark.sh [runs]
+#
+# Expects the artifacts to be built beforehand:
+#   ./mvnw -DskipTests package                 -> target/design-patterns-*.jar
+#   ./mvnw -Pcds -DskipTests package           -> target/cds/design-patterns-*.jar + application.jsa
+#   ./mvnw -Pnative -DskipTests native:compile -> target/design-patterns
+# Variants whose artifact is missing are skipped.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+PORT="${PORT:-18080}"
+URL="http://localhost:${PORT}/api/singleton/logs?limit=1"
+COMMON_ARGS=("--server.port=${PORT}" "--logger.sink.enabled=false")
+
+now_ms() {
+  date +%s%3N
+}
+
+measure() {
+  local name="$1"
+  shift
+  local total=0
+  for ((i = 1; i <= RUNS; i++)); do
+    local start
+    start=$(now_ms)
+    "$@" "${COMMON_ARGS[@]}" >/dev/null 2>&1 &
+    local pid=$!
+    until curl -sf -o /dev/null "$URL"; do
+      if ! kill -0 "$pid" 2>/dev/null; then
+        echo "${name}: process exited before serving a request" >&2
+        return 1
+      fi
+      sleep 0.01
+    done
+    local elapsed=$(($(now_ms) - start))
+    total=$((total + elapsed))
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    printf '%-8s run %d: %5d ms\n' "$name" "$i" "$elapsed"
+  done
+  printf '%-8s mean  : %5d ms\n\n' "$name" $((total / RUNS))
+}
+
+JAR=$(ls target/design-patterns-*.jar 2>/dev/null | grep -v -- '-plain' | head -n 1 || true)
+CDS_JAR=$(ls target/cds/design-patterns-*.jar 2>/dev/null | head -n 1 || true)
+NATIVE=target/design-patterns
+
+if [[ -n "$JAR" ]]; then
+  measure jvm java -jar "$JAR"
+fi
+if [[ -n "$CDS_JAR" && -f target/cds/application.jsa ]]; then
+  measure cds java -XX:SharedArchiveFile=target/cds/application.jsa -Dspring.aot.enabled=true -jar "$CDS_JAR"
+fi
+if [[ -x "$NATIVE" ]]; then
+  measure native "$NATIVE"
+fi
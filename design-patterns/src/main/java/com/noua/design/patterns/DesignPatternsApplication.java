@@ -1,9 +1,12 @@
 package com.noua.design.patterns;
 
+import com.noua.design.patterns.aot.DesignPatternsRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(DesignPatternsRuntimeHints.class)
 public class DesignPatternsApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,49 @@
+package com.noua.design.patterns.aot;
+
+import com.noua.design.patterns.factoryMethod.factory.factoryImpl.*;
+import com.noua.design.patterns.prototype.config.AlertPrototypeProperties;
+import com.noua.design.patterns.prototype.domain.Alert;
+import com.noua.design.patterns.prototype.dto.AlertRequest;
+import com.noua.design.patterns.singleton.dto.LogEntryResponse;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.util.stream.Stream;
+
+/**
+ * Reflection hints for the native image. Controller signatures are covered by Spring AOT; this adds
+ * what it cannot see: types serialized by hand (NDJSON lines, the alert prototype file), the Lombok
+ * builder behind the alert prototypes and the factory implementations looked up by type.
+ */
+public class DesignPatternsRuntimeHints implements RuntimeHintsRegistrar {
+
+    private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingHints.registerReflectionHints(hints.reflection(),
+                LogEntryResponse.class,
+                AlertRequest.class,
+                Alert.class,
+                AlertPrototypeProperties.Definition.class);
+
+        hints.reflection().registerType(Alert.AlertBuilder.class,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        Stream.of(
+                BankPaymentFactory.class,
+                CryptoPaymentFactory.class,
+                PaypalPaymentFactory.class,
+                StripePaymentFactory.class,
+                EmailNotificationFactory.class,
+                InAppNotificationFactory.class,
+                SmsNotificationFactory.class,
+                WhatsappNotificationFactory.class
+        ).forEach(type -> hints.reflection().registerType(type,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS));
+    }
+}
@@ -1,27 +1,44 @@
 package com.noua.design.patterns.factoryMethod.config;
 
-import com.noua.design.patterns.factoryMethod.domain.PaymentType;
-import com.noua.design.patterns.factoryMethod.factory.PaymentGatewayFactory;
+import com.noua.design.patterns.factoryMethod.ledger.PaymentLedger;
+import com.noua.design.patterns.factoryMethod.outbox.NotificationOutbox;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-
 @Configuration
+@EnableCaching
+@EnableConfigurationProperties({NotificationDispatchProperties.class, NotificationRateLimitProperties.class,
+        NotificationOutboxProperties.class, NotificationTemplateProperties.class, PaymentIdempotencyProperties.class,
+        PaymentSettlementProperties.class, PaymentResilienceProperties.class, PaymentRoutingProperties.class,
+        PaymentLedgerProperties.class, PaymentReconciliationProperties.class, PaymentSplitProperties.class})
 public class FactoryConfig {
 
-    @Bean
-    public Map<PaymentType, PaymentGatewayFactory> paymentFactories(
-            List<PaymentGatewayFactory> factories) {
+    @Bean(destroyMethod = "close")
+    public NotificationOutbox notificationOutbox(NotificationOutboxProperties properties) {
+        NotificationOutbox outbox = new NotificationOutbox(
+                properties.directory(),
+                properties.segmentSize().toBytes(),
+                properties.maxBatch(),
+                properties.checkpointInterval(),
+                properties.appendTimeout());
+        if (properties.enabled()) {
+            outbox.start();
+        }
+        return outbox;
+    }
 
-        return factories.stream()
-                .collect(Collectors.toMap(
-                        PaymentGatewayFactory::getType,
-                        Function.identity()
-                ));
+    @Bean(destroyMethod = "close")
+    public PaymentLedger paymentLedger(PaymentLedgerProperties properties) {
+        PaymentLedger ledger = new PaymentLedger(
+                properties.directory(),
+                properties.segmentSize().toBytes(),
+                properties.scale(),
+                properties.flushInterval());
+        if (properties.enabled()) {
+            ledger.start();
+        }
+        return ledger;
     }
 }
-
@@ -0,0 +1,36 @@
+package com.noua.design.patterns.factoryMethod.config;
+
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
+import com.noua.design.patterns.factoryMethod.domain.SchedulingMode;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "notifications.dispatch")
+public record NotificationDispatchProperties(
+        @DefaultValue("10000") int queueCapacity,
+        @DefaultValue("0ms") Duration offerTimeout,
+        @DefaultValue("16") int defaultConcurrency,
+        Map<NotificationType, Integer> concurrency,
+        @DefaultValue("100000") int statusRetention,
+        @DefaultValue("500") int bulkBatchSize,
+        @DefaultValue("4") int bulkBatchesInFlight,
+        @DefaultValue("WEIGHTED") SchedulingMode scheduling,
+        Map<AlertPriority, Integer> weights,
+        @DefaultValue("5s") Duration maxQueueWait
+) {
+    public NotificationDispatchProperties {
+        weights = weights == null ? Map.of(
+                AlertPriority.CRITICAL, 8,
+                AlertPriority.HIGH, 4,
+                AlertPriority.MEDIUM, 2,
+                AlertPriority.LOW, 1) : weights;
+    }
+
+    public int concurrencyFor(NotificationType type) {
+        return concurrency == null ? defaultConcurrency : concurrency.getOrDefault(type, defaultConcurrency);
+    }
+}
@@ -0,0 +1,21 @@
+package com.noua.design.patterns.factoryMethod.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "notifications.outbox")
+public record NotificationOutboxProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("data/outbox") Path directory,
+        @DefaultValue("64MB") DataSize segmentSize,
+        @DefaultValue("1024") int maxBatch,
+        @DefaultValue("1s") Duration checkpointInterval,
+        @DefaultValue("5s") Duration appendTimeout,
+        @DefaultValue("5") int maxAttempts,
+        @DefaultValue("500ms") Duration initialBackoff,
+        @DefaultValue("5m") Duration maxBackoff
+) {}
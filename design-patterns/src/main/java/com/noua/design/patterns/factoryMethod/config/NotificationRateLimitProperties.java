@@ -0,0 +1,32 @@
+package com.noua.design.patterns.factoryMethod.config;
+
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "notifications.rate-limit")
+public record NotificationRateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        Limit recipient,
+        Limit defaultChannel,
+        Map<NotificationType, Limit> channel,
+        @DefaultValue("30s") Duration idleSweepInterval
+) {
+    public NotificationRateLimitProperties {
+        recipient = recipient == null ? new Limit(1, 5) : recipient;
+        defaultChannel = defaultChannel == null ? new Limit(1000, 1000) : defaultChannel;
+        channel = channel == null ? Map.of() : channel;
+    }
+
+    public record Limit(
+            double permitsPerSecond,
+            int burst
+    ) {}
+
+    public Limit channelLimit(NotificationType type) {
+        return channel.getOrDefault(type, defaultChannel);
+    }
+}
@@ -0,0 +1,56 @@
+package com.noua.design.patterns.factoryMethod.config;
+
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "notifications.templates")
+public record NotificationTemplateProperties(
+        @DefaultValue("64") int bufferPoolSize,
+        @DefaultValue("8192") int maxPooledBufferChars,
+        Map<NotificationType, Integer> maxLength,
+        Map<String, Template> definitions
+) {
+    public NotificationTemplateProperties {
+        maxLength = maxLength == null ? Map.of(NotificationType.SMS, 160, NotificationType.WHATSAPP, 4096) : maxLength;
+        definitions = definitions == null ? Map.of() : definitions;
+    }
+
+    /**
+     * A named template: {@code body} (and optional {@code subject}) apply to every channel unless
+     * {@code channels} overrides them for a specific {@link NotificationType}. A channel variant
+     * that leaves out its subject or body keeps the template's; an empty subject turns it off.
+     */
+    public record Template(
+            String subject,
+            String body,
+            Map<NotificationType, Variant> channels
+    ) {
+        public Template {
+            Map<NotificationType, Variant> variants = new EnumMap<>(NotificationType.class);
+            if (channels != null) {
+                channels.forEach((type, variant) -> variants.put(type, new Variant(
+                        variant.subject() != null ? variant.subject() : subject,
+                        variant.body() != null ? variant.body() : body)));
+            }
+            channels = variants;
+        }
+
+        public Variant variant(NotificationType type) {
+            Variant variant = channels.get(type);
+            return variant != null ? variant : new Variant(subject, body);
+        }
+    }
+
+    public record Variant(
+            String subject,
+            String body
+    ) {}
+
+    public int maxLengthFor(NotificationType type) {
+        return maxLength.getOrDefault(type, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,42 @@
+package com.noua.design.patterns.factoryMethod.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "payments.idempotency")
+public record PaymentIdempotencyProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("24h") Duration ttl,
+        @DefaultValue("100000") int maxEntries,
+        @DefaultValue("32MB") DataSize memoryBudget,
+        @DefaultValue("30s") Duration waitTimeout,
+        @DefaultValue("1m") Duration sweepInterval,
+        @DefaultValue("255") int maxKeyLength,
+        Spill spill
+) {
+    public PaymentIdempotencyProperties {
+        spill = spill == null
+                ? new Spill(false, Path.of("data/idempotency/keys.log"), 1_000_000, DataSize.ofMegabytes(64))
+                : spill;
+    }
+
+    /**
+     * Completed results are also appended to segments named after {@code file}; entries evicted
+     * from memory stay answerable from them and live entries are reloaded on startup.
+     *
+     * @param maxKeys     bound of the on-heap index of spilled keys, about 40 bytes each; beyond it
+     *                    the oldest keys are forgotten before their TTL
+     * @param segmentSize size at which a new segment is started; whole segments are deleted once
+     *                    every key in them has expired or been forgotten
+     */
+    public record Spill(
+            boolean enabled,
+            Path file,
+            @DefaultValue("1000000") int maxKeys,
+            @DefaultValue("64MB") DataSize segmentSize
+    ) {}
+}
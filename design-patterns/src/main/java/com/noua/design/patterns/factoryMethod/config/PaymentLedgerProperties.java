@@ -0,0 +1,20 @@
+package com.noua.design.patterns.factoryMethod.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * @param scale decimals kept per amount, i.e. amounts are stored in units of 10^-scale
+ */
+@ConfigurationProperties(prefix = "payments.ledger")
+public record PaymentLedgerProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("data/ledger") Path directory,
+        @DefaultValue("16MB") DataSize segmentSize,
+        @DefaultValue("2") int scale,
+        @DefaultValue("200ms") Duration flushInterval
+) {}
@@ -0,0 +1,33 @@
+package com.noua.design.patterns.factoryMethod.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * @param inbox            directory the provider settlement files are read from
+ * @param workDirectory    scratch space for the partition spill files of a running job
+ * @param bucket           time bucket records are partitioned by; one bucket of one payment type
+ *                         is matched in memory
+ * @param clockSkew        how far apart local and provider timestamps of the same payment may be
+ * @param maxDrift         largest amount difference still reported as drift of one payment rather
+ *                         than as two missing records
+ * @param chunkSize        size of the file regions mapped and parsed by one task
+ * @param parallelism      fork-join parallelism, {@code 0} for the number of processors
+ * @param maxDiscrepancies discrepancies listed in a report; all are counted
+ */
+@ConfigurationProperties(prefix = "payments.reconciliation")
+public record PaymentReconciliationProperties(
+        @DefaultValue("data/reconciliation/inbox") Path inbox,
+        @DefaultValue("data/reconciliation/work") Path workDirectory,
+        @DefaultValue("1h") Duration bucket,
+        @DefaultValue("5s") Duration clockSkew,
+        @DefaultValue("1.00") BigDecimal maxDrift,
+        @DefaultValue("64MB") DataSize chunkSize,
+        @DefaultValue("0") int parallelism,
+        @DefaultValue("1000") int maxDiscrepancies
+) {}
@@ -0,0 +1,53 @@
+package com.noua.design.patterns.factoryMethod.config;
+
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Bulkhead, timeout and circuit-breaker settings per payment gateway. Entries under
+ * {@code gateways} override {@code defaults} field by field.
+ */
+@ConfigurationProperties(prefix = "payments.resilience")
+public record PaymentResilienceProperties(
+        Settings defaults,
+        Map<PaymentType, Settings> gateways
+) {
+    private static final Settings BUILT_IN = new Settings(
+            20, Duration.ZERO, Duration.ofSeconds(2), 50, 20, 50f, Duration.ofSeconds(30), 5);
+
+    public PaymentResilienceProperties {
+        defaults = defaults == null ? BUILT_IN : defaults.or(BUILT_IN);
+        gateways = gateways == null ? Map.of() : gateways;
+    }
+
+    public record Settings(
+            Integer maxConcurrentCalls,
+            Duration maxWaitForPermit,
+            Duration timeout,
+            Integer slidingWindowSize,
+            Integer minimumCalls,
+            Float failureRateThreshold,
+            Duration openDuration,
+            Integer halfOpenCalls
+    ) {
+        Settings or(Settings fallback) {
+            return new Settings(
+                    maxConcurrentCalls != null ? maxConcurrentCalls : fallback.maxConcurrentCalls,
+                    maxWaitForPermit != null ? maxWaitForPermit : fallback.maxWaitForPermit,
+                    timeout != null ? timeout : fallback.timeout,
+                    slidingWindowSize != null ? slidingWindowSize : fallback.slidingWindowSize,
+                    minimumCalls != null ? minimumCalls : fallback.minimumCalls,
+                    failureRateThreshold != null ? failureRateThreshold : fallback.failureRateThreshold,
+                    openDuration != null ? openDuration : fallback.openDuration,
+                    halfOpenCalls != null ? halfOpenCalls : fallback.halfOpenCalls);
+        }
+    }
+
+    public Settings settingsFor(PaymentType type) {
+        Settings override = gateways.get(type);
+        return override == null ? defaults : override.or(defaults);
+    }
+}
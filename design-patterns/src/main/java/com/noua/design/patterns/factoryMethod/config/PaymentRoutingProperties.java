@@ -0,0 +1,54 @@
+package com.noua.design.patterns.factoryMethod.config;
+
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Gateway scores are expressed in milliseconds: the expected latency (EWMA latency times the calls
+ * already in flight plus one), plus {@code error-penalty} scaled by the EWMA error rate, plus
+ * {@code cost-weight} per currency unit of fee.
+ *
+ * @param eligible       gateways {@code AUTO} may choose from
+ * @param decay          weight of the newest sample in the latency and error averages, in (0, 1]
+ * @param initialLatency latency assumed for a gateway before its first sample
+ * @param idleHalfLife   how fast an idle gateway's averages drift back to the initial latency and
+ *                       no errors
+ * @param errorPenalty   score added for a gateway whose recent calls all failed
+ * @param costWeight     score added per currency unit of fee
+ * @param costs          fee model per gateway; gateways without an entry are free
+ */
+@ConfigurationProperties(prefix = "payments.routing")
+public record PaymentRoutingProperties(
+        @DefaultValue({"STRIPE", "PAYPAL"}) Set<PaymentType> eligible,
+        @DefaultValue("0.2") double decay,
+        @DefaultValue("50ms") Duration initialLatency,
+        @DefaultValue("10s") Duration idleHalfLife,
+        @DefaultValue("2000") double errorPenalty,
+        @DefaultValue("100") double costWeight,
+        Map<PaymentType, Cost> costs
+) {
+    public PaymentRoutingProperties {
+        costs = costs == null ? Map.of() : costs;
+    }
+
+    /**
+     * @param fixed   flat fee per payment
+     * @param percent fee as a percentage of the amount
+     */
+    public record Cost(BigDecimal fixed, BigDecimal percent) {
+        public Cost {
+            fixed = fixed == null ? BigDecimal.ZERO : fixed;
+            percent = percent == null ? BigDecimal.ZERO : percent;
+        }
+
+        public double feeFor(BigDecimal amount) {
+            return fixed.doubleValue() + amount.doubleValue() * percent.doubleValue() / 100;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.noua.design.patterns.factoryMethod.config;
+
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * @param batched payment types settled in micro-batches; the others are paid one call per request
+ * @param linger  how long the first payment of a batch waits for more to join it
+ */
+@ConfigurationProperties(prefix = "payments.settlement")
+public record PaymentSettlementProperties(
+        @DefaultValue({"BANK", "CRYPTO"}) Set<PaymentType> batched,
+        @DefaultValue("100") int maxBatchSize,
+        @DefaultValue("20ms") Duration linger,
+        @DefaultValue("10000") int queueCapacity,
+        @DefaultValue("30s") Duration resultTimeout
+) {}
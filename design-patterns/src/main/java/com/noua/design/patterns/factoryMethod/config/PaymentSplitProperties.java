@@ -0,0 +1,17 @@
+package com.noua.design.patterns.factoryMethod.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param deadline how long all legs of a split payment together may take; legs still running then
+ *                 are cancelled, except batched legs already sent, which report their real outcome
+ * @param maxLegs  most legs accepted in one split payment
+ */
+@ConfigurationProperties(prefix = "payments.split")
+public record PaymentSplitProperties(
+        @DefaultValue("10s") Duration deadline,
+        @DefaultValue("8") int maxLegs
+) {}
@@ -1,22 +1,83 @@
 package com.noua.design.patterns.factoryMethod.controller;
 
+import com.noua.design.patterns.factoryMethod.dispatch.BulkNotificationService;
+import com.noua.design.patterns.factoryMethod.dispatch.NotificationDispatcher;
 import com.noua.design.patterns.factoryMethod.domain.NotificationType;
-import com.noua.design.patterns.factoryMethod.factory.NotificationFactoryProvider;
+import com.noua.design.patterns.factoryMethod.dto.BulkNotificationResult;
+import com.noua.design.patterns.factoryMethod.dto.LatencySnapshot;
+import com.noua.design.patterns.factoryMethod.dto.NotificationStatus;
+import com.noua.design.patterns.factoryMethod.ratelimit.NotificationRateLimiter;
+import com.noua.design.patterns.factoryMethod.template.NotificationTemplateService;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/notifications")
 @RequiredArgsConstructor
 public class NotificationController {
-    private final NotificationFactoryProvider factoryProvider;
+    private final NotificationDispatcher dispatcher;
+    private final BulkNotificationService bulkNotificationService;
+    private final NotificationRateLimiter rateLimiter;
+    private final NotificationTemplateService templateService;
 
     @PostMapping("/{type}")
-    public String sendNotification(@PathVariable NotificationType type, @RequestParam String to, @RequestParam String message){
-       factoryProvider.getFactory(type)
-               .createNotificationSender()
-               .sendNotification(to, message);
+    public ResponseEntity<NotificationStatus> sendNotification(@PathVariable NotificationType type, @RequestParam String to, @RequestParam String message,
+                                                               @RequestParam(defaultValue = "MEDIUM") AlertPriority priority){
+       rateLimiter.acquire(type, to);
+       NotificationStatus status = dispatcher.submit(type, priority, to, message);
+
+       return ResponseEntity.accepted()
+               .location(URI.create("/notifications/status/" + status.trackingId()))
+               .body(status);
+    }
+
+    /**
+     * Renders the named template's variant for {@code type} with the variables in the body.
+     */
+    @PostMapping("/{type}/templates/{template}")
+    public ResponseEntity<NotificationStatus> sendTemplated(@PathVariable NotificationType type, @PathVariable String template,
+                                                            @RequestParam String to, @RequestParam(defaultValue = "MEDIUM") AlertPriority priority,
+                                                            @RequestBody Map<String, String> variables){
+       String message = templateService.render(type, template, variables);
+       return sendNotification(type, to, message, priority);
+    }
+
+    /**
+     * Body: one recipient per line, either NDJSON {@code {"to":..,"message":..}} or CSV
+     * {@code to,message}, with an optional {@code to,message} header row and a message quoted when
+     * it holds commas. The {@code message} parameter is used for lines without one. With
+     * {@code template}, each message is rendered from that template with the line's
+     * {@code variables} (NDJSON only) plus {@code to}.
+     */
+    @PostMapping(value = "/{type}/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, BulkNotificationService.TEXT_CSV_VALUE})
+    public BulkNotificationResult sendBulk(@PathVariable NotificationType type,
+                                           @RequestParam(required = false) String message,
+                                           @RequestParam(required = false) String template,
+                                           @RequestParam(defaultValue = "LOW") AlertPriority priority,
+                                           @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                           InputStream body) throws IOException {
+        return bulkNotificationService.send(type, priority, body, contentType, message, template);
+    }
+
+    /**
+     * Queue wait per priority; {@code reset=true} starts a new measurement window.
+     */
+    @GetMapping("/scheduler/latency")
+    public Map<AlertPriority, LatencySnapshot> getSchedulerLatency(@RequestParam(defaultValue = "false") boolean reset){
+        return dispatcher.latencies(reset);
+    }
 
-       return "Notification sent successfully via "+type;
+    @GetMapping("/status/{trackingId}")
+    public ResponseEntity<NotificationStatus> getStatus(@PathVariable String trackingId){
+        return ResponseEntity.of(dispatcher.status(trackingId));
     }
 }
@@ -2,25 +2,142 @@ package com.noua.design.patterns.factoryMethod.controller;
 
 import com.noua.design.patterns.factoryMethod.domain.NotificationType;
 import com.noua.design.patterns.factoryMethod.domain.PaymentType;
-import com.noua.design.patterns.factoryMethod.factory.PaymentGatewayFactoryProvider;
+import com.noua.design.patterns.factoryMethod.dto.GatewayHealth;
+import com.noua.design.patterns.factoryMethod.dto.LedgerTotals;
+import com.noua.design.patterns.factoryMethod.dto.ReconciliationReport;
+import com.noua.design.patterns.factoryMethod.dto.RouteStats;
+import com.noua.design.patterns.factoryMethod.dto.SettlementStats;
+import com.noua.design.patterns.factoryMethod.dto.SplitLeg;
+import com.noua.design.patterns.factoryMethod.dto.SplitPaymentResult;
+import com.noua.design.patterns.factoryMethod.idempotency.IdempotencyCache;
+import com.noua.design.patterns.factoryMethod.idempotency.IdempotentResult;
+import com.noua.design.patterns.factoryMethod.ledger.PaymentLedger;
+import com.noua.design.patterns.factoryMethod.reconciliation.ReconciliationEngine;
+import com.noua.design.patterns.factoryMethod.resilience.GatewayGuard;
+import com.noua.design.patterns.factoryMethod.routing.PaymentRouter;
+import com.noua.design.patterns.factoryMethod.settlement.PaymentSettlementService;
+import com.noua.design.patterns.factoryMethod.split.SplitPaymentService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/v1/payments")
 public class PaymentController {
 
-    private final PaymentGatewayFactoryProvider provider;
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
 
+    private final PaymentSettlementService settlementService;
+    private final IdempotencyCache idempotencyCache;
+    private final GatewayGuard gatewayGuard;
+    private final PaymentRouter paymentRouter;
+    private final PaymentLedger paymentLedger;
+    private final ReconciliationEngine reconciliationEngine;
+    private final SplitPaymentService splitPaymentService;
+
+    /**
+     * With an {@code Idempotency-Key} header, a retry of the same payment returns the first
+     * result (flagged by {@code Idempotent-Replayed: true}) instead of charging again. Batched
+     * payment types respond once their micro-batch has been settled.
+     */
     @PostMapping("/{type}")
-    public String payment(@PathVariable PaymentType type, @RequestParam BigDecimal amount){
-        provider.getPaymentGatewayFactory(type).createPaymentGateway().pay(amount);
+    public ResponseEntity<String> payment(@PathVariable PaymentType type, @RequestParam BigDecimal amount,
+                                          @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey){
+        paymentLedger.requireValidAmount(amount);
+        String fingerprint = type + ":" + amount.stripTrailingZeros().toPlainString();
+        IdempotentResult result = idempotencyCache.execute(idempotencyKey, fingerprint, () -> {
+            settlementService.settle(type, amount);
+
+            return String.format("Payment successful for type %s for amount %s", type,amount);
+        });
+        return ResponseEntity.ok()
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.replayed()))
+                .body(result.body());
+    }
+
+    /**
+     * Lets the router pick the gateway from {@code payments.routing.eligible}; the response names
+     * the gateway that took the payment.
+     */
+    @PostMapping("/auto")
+    public ResponseEntity<String> autoPayment(@RequestParam BigDecimal amount,
+                                              @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey){
+        paymentLedger.requireValidAmount(amount);
+        String fingerprint = "AUTO:" + amount.stripTrailingZeros().toPlainString();
+        IdempotentResult result = idempotencyCache.execute(idempotencyKey, fingerprint, () -> {
+            PaymentType type = paymentRouter.pay(amount, settlementService::settle);
+
+            return String.format("Payment successful for type %s for amount %s", type,amount);
+        });
+        return ResponseEntity.ok()
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.replayed()))
+                .body(result.body());
+    }
+
+    /**
+     * Pays one order from several gateways concurrently, e.g.
+     * {@code [{"type":"STRIPE","amount":60},{"type":"PAYPAL","amount":40}]}. Responds 200 when every
+     * leg settled; otherwise the legs that took money are refunded and the result comes back with
+     * 504 if the deadline passed, 502 if not.
+     */
+    @PostMapping("/split")
+    public ResponseEntity<SplitPaymentResult> splitPayment(@RequestBody List<SplitLeg> legs){
+        SplitPaymentResult result = splitPaymentService.pay(legs);
+        HttpStatus status = result.settled() ? HttpStatus.OK
+                : result.deadlineExceeded() ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.BAD_GATEWAY;
+        return ResponseEntity.status(status).body(result);
+    }
+
+    @GetMapping("/settlement")
+    public List<SettlementStats> getSettlementStats(){
+        return settlementService.stats();
+    }
 
-        return String.format("Payment successful for type %s for amount %s", type,amount);
+    /**
+     * Circuit-breaker state and bulkhead usage per gateway.
+     */
+    @GetMapping("/gateways")
+    public List<GatewayHealth> getGatewayHealth(){
+        return gatewayGuard.health();
     }
 
+    @GetMapping("/routing")
+    public List<RouteStats> getRouteStats(){
+        return paymentRouter.stats();
+    }
 
+    /**
+     * Ledger totals per payment type: all-time running totals, or those recorded in
+     * {@code [from, to)} when both ISO-8601 instants are given.
+     */
+    @GetMapping("/ledger")
+    public List<LedgerTotals> getLedgerTotals(@RequestParam(required = false) Instant from,
+                                              @RequestParam(required = false) Instant to){
+        if (from == null && to == null) {
+            return paymentLedger.totals();
+        }
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from and to must both be given, from before to");
+        }
+        return paymentLedger.totals(from, to);
+    }
+
+    /**
+     * Reconciles the ledger against a provider settlement CSV from the reconciliation inbox,
+     * optionally limited to {@code [from, to)}, e.g. one day.
+     */
+    @PostMapping("/reconciliation")
+    public ReconciliationReport reconcile(@RequestParam String file,
+                                          @RequestParam(required = false) Instant from,
+                                          @RequestParam(required = false) Instant to){
+        return reconciliationEngine.reconcile(file, from, to);
+    }
 }
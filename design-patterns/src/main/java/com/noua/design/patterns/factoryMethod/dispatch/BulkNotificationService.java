@@ -0,0 +1,224 @@
+package com.noua.design.patterns.factoryMethod.dispatch;
+
+import com.noua.design.patterns.factoryMethod.config.NotificationDispatchProperties;
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
+import com.noua.design.patterns.factoryMethod.dto.BatchProgress;
+import com.noua.design.patterns.factoryMethod.dto.BulkNotificationResult;
+import com.noua.design.patterns.factoryMethod.dto.BulkRecipient;
+import com.noua.design.patterns.factoryMethod.ratelimit.NotificationRateLimiter;
+import com.noua.design.patterns.factoryMethod.template.MissingTemplateVariableException;
+import com.noua.design.patterns.factoryMethod.template.NotificationTemplateService;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fans a streamed recipient list out to one channel. The body is read line by line (NDJSON objects
+ * or {@code to,message} CSV rows) and cut into micro-batches; a bounded number of batches are sent
+ * concurrently while the next one is being parsed, so only those batches are ever held in memory.
+ * Recipients over their own rate limit are skipped; the channel limit paces the stream instead.
+ * With a template, each line's message is rendered from it while parsing.
+ * <p>
+ * CSV rows follow RFC 4180 on a single line: a field may be quoted, with {@code ""} for a quote,
+ * so a message can hold commas. A row with more than two fields, an unterminated quote or a quote
+ * inside an unquoted field is counted as invalid. A first row whose first field is {@code to} is
+ * a header and skipped without being counted.
+ */
+@Service
+@RequiredArgsConstructor
+public class BulkNotificationService {
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType(TEXT_CSV_VALUE);
+
+    private final NotificationDispatcher dispatcher;
+    private final NotificationDispatchProperties properties;
+    private final NotificationRateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final NotificationTemplateService templateService;
+
+    public BulkNotificationResult send(NotificationType type, AlertPriority priority, InputStream body, String contentType,
+                                       String defaultMessage, String template) throws IOException {
+        if (template != null && !templateService.exists(template)) {
+            throw new NotificationTemplateService.TemplateNotFoundException(template);
+        }
+        boolean csv = TEXT_CSV.isCompatibleWith(MediaType.parseMediaType(contentType));
+        Deque<CompletableFuture<BatchProgress>> inFlight = new ArrayDeque<>();
+        List<BatchProgress> batches = new ArrayList<>();
+        List<BulkRecipient> batch = new ArrayList<>(properties.bulkBatchSize());
+        long received = 0;
+        long invalid = 0;
+        long rateLimited = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            boolean firstRow = true;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> fields = csv ? csvFields(line) : null;
+                if (csv && firstRow && fields != null && fields.getFirst().equalsIgnoreCase("to")) {
+                    firstRow = false;
+                    continue; // header row
+                }
+                firstRow = false;
+                BulkRecipient recipient = csv ? parseCsv(fields) : parseJson(line);
+                if (recipient != null) {
+                    recipient = complete(type, recipient, defaultMessage, template);
+                }
+                if (recipient == null) {
+                    invalid++;
+                    continue;
+                }
+                received++;
+                if (rateLimiter.tryAcquireRecipient(type, recipient.to()) > 0) {
+                    rateLimited++;
+                    continue;
+                }
+                awaitChannel(type);
+                batch.add(recipient);
+                if (batch.size() == properties.bulkBatchSize()) {
+                    submit(type, priority, batch, inFlight, batches);
+                    batch = new ArrayList<>(properties.bulkBatchSize());
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            submit(type, priority, batch, inFlight, batches);
+        }
+        while (!inFlight.isEmpty()) {
+            batches.add(inFlight.poll().join());
+        }
+
+        long sent = batches.stream().mapToLong(BatchProgress::sent).sum();
+        return new BulkNotificationResult(type, received, sent, received - rateLimited - sent, rateLimited, invalid, batches);
+    }
+
+    private void awaitChannel(NotificationType type) throws InterruptedIOException {
+        try {
+            rateLimiter.awaitChannel(type);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while pacing bulk notifications");
+        }
+    }
+
+    private void submit(NotificationType type, AlertPriority priority, List<BulkRecipient> batch,
+                        Deque<CompletableFuture<BatchProgress>> inFlight, List<BatchProgress> batches) {
+        while (inFlight.size() >= properties.bulkBatchesInFlight()) {
+            batches.add(inFlight.poll().join());
+        }
+        int number = batches.size() + inFlight.size() + 1;
+        inFlight.add(dispatcher.sendBatch(type, priority, number, batch)
+                .exceptionally(e -> new BatchProgress(number, batch.size(), 0, batch.size())));
+    }
+
+    private BulkRecipient parseJson(String line) {
+        try {
+            return objectMapper.readValue(line, BulkRecipient.class);
+        } catch (JacksonException e) {
+            return null;
+        }
+    }
+
+    private static BulkRecipient parseCsv(List<String> fields) {
+        if (fields == null || fields.size() > 2) {
+            return null;
+        }
+        return new BulkRecipient(fields.getFirst(), fields.size() == 2 ? fields.get(1) : null, null);
+    }
+
+    /**
+     * Splits one CSV row into its fields. Unquoted fields are stripped; blanks around a quoted field
+     * are ignored.
+     *
+     * @return the fields, or {@code null} when the row is malformed
+     */
+    static List<String> csvFields(String line) {
+        List<String> fields = new ArrayList<>(2);
+        StringBuilder field = new StringBuilder();
+        int length = line.length();
+        int position = 0;
+        while (true) {
+            field.setLength(0);
+            int start = position;
+            while (position < length && Character.isWhitespace(line.charAt(position))) {
+                position++;
+            }
+            if (position < length && line.charAt(position) == '"') {
+                position++;
+                while (true) {
+                    if (position == length) {
+                        return null; // unterminated, or a quoted line break
+                    }
+                    char c = line.charAt(position++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (position < length && line.charAt(position) == '"') {
+                        field.append('"');
+                        position++;
+                    } else {
+                        break;
+                    }
+                }
+                while (position < length && Character.isWhitespace(line.charAt(position))) {
+                    position++;
+                }
+                if (position < length && line.charAt(position) != ',') {
+                    return null; // text after the closing quote
+                }
+                fields.add(field.toString());
+            } else {
+                position = start;
+                while (position < length && line.charAt(position) != ',') {
+                    char c = line.charAt(position++);
+                    if (c == '"') {
+                        return null;
+                    }
+                    field.append(c);
+                }
+                fields.add(field.toString().strip());
+            }
+            if (position == length) {
+                return fields;
+            }
+            position++; // the comma
+        }
+    }
+
+    private BulkRecipient complete(NotificationType type, BulkRecipient recipient, String defaultMessage, String template) {
+        String to = recipient.to();
+        if (to == null || to.isBlank()) {
+            return null;
+        }
+        if (template != null) {
+            Map<String, String> variables = recipient.variables() == null ? new HashMap<>() : new HashMap<>(recipient.variables());
+            variables.putIfAbsent("to", to);
+            try {
+                return new BulkRecipient(to, templateService.render(type, template, variables), null);
+            } catch (MissingTemplateVariableException e) {
+                return null;
+            }
+        }
+        String message = recipient.message();
+        String text = message == null || message.isEmpty() ? defaultMessage : message;
+        return text == null ? null : new BulkRecipient(to, text, null);
+    }
+}
@@ -0,0 +1,361 @@
+package com.noua.design.patterns.factoryMethod.dispatch;
+
+import com.noua.design.patterns.factoryMethod.config.NotificationDispatchProperties;
+import com.noua.design.patterns.factoryMethod.config.NotificationOutboxProperties;
+import com.noua.design.patterns.factoryMethod.domain.DispatchStatus;
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
+import com.noua.design.patterns.factoryMethod.dto.BatchProgress;
+import com.noua.design.patterns.factoryMethod.dto.BulkRecipient;
+import com.noua.design.patterns.factoryMethod.dto.LatencySnapshot;
+import com.noua.design.patterns.factoryMethod.dto.NotificationStatus;
+import com.noua.design.patterns.factoryMethod.factory.NotificationFactoryProvider;
+import com.noua.design.patterns.factoryMethod.outbox.NotificationOutbox;
+import com.noua.design.patterns.factoryMethod.outbox.OutboxRecord;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends notifications off the request thread. Every {@link NotificationType} gets its own
+ * {@link PriorityScheduler} (one bounded queue per {@link AlertPriority}) drained by a virtual
+ * thread, which hands each notification to a new virtual thread once a permit of that channel's
+ * concurrency limit is free. A slow provider therefore only backs up its own queues, a full queue
+ * is reported to the caller instead of growing the heap, and bulk LOW traffic cannot hold back a
+ * CRITICAL notification on the same channel.
+ * <p>
+ * Single notifications are journaled in the {@link NotificationOutbox} before they are queued and
+ * acknowledged once delivered or dead-lettered; failed sends are retried with exponential backoff.
+ * Notifications still pending in the outbox at startup are queued again (at-least-once delivery).
+ */
+@Component
+public class NotificationDispatcher {
+
+    private final NotificationFactoryProvider factoryProvider;
+    private final NotificationDispatchProperties properties;
+    private final NotificationOutbox outbox;
+    private final NotificationOutboxProperties outboxProperties;
+    private final Map<NotificationType, Channel> channels = new EnumMap<>(NotificationType.class);
+    private final Map<String, NotificationStatus> statuses = new ConcurrentHashMap<>();
+    private final Queue<String> statusOrder = new ConcurrentLinkedQueue<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService retries;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[AlertPriority.values().length];
+
+    /**
+     * A queued send: either a tracked single notification ({@code batch == null}) or one recipient
+     * of a bulk batch, which skips the outbox, retries and status tracking.
+     */
+    private record Job(OutboxRecord record, int attempt, Batch batch) {
+        String trackingId() {
+            return record.id().toString();
+        }
+
+        Job next() {
+            return new Job(record, attempt + 1, null);
+        }
+    }
+
+    private record Channel(PriorityScheduler<Job> scheduler, Semaphore permits, Thread drainer) {}
+
+    private static final class Batch {
+        private final int number;
+        private final int size;
+        private final AtomicInteger sent = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final CompletableFuture<BatchProgress> progress = new CompletableFuture<>();
+
+        Batch(int number, int size) {
+            this.number = number;
+            this.size = size;
+            this.remaining = new AtomicInteger(size);
+            if (size == 0) {
+                progress.complete(new BatchProgress(number, 0, 0, 0));
+            }
+        }
+
+        void done(boolean success) {
+            if (success) {
+                sent.incrementAndGet();
+            }
+            if (remaining.decrementAndGet() == 0) {
+                progress.complete(new BatchProgress(number, size, sent.get(), size - sent.get()));
+            }
+        }
+    }
+
+    public NotificationDispatcher(NotificationFactoryProvider factoryProvider, NotificationDispatchProperties properties,
+                                  NotificationOutbox outbox, NotificationOutboxProperties outboxProperties) {
+        this.factoryProvider = factoryProvider;
+        this.properties = properties;
+        this.outbox = outbox;
+        this.outboxProperties = outboxProperties;
+        this.retries = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+        for (NotificationType type : NotificationType.values()) {
+            PriorityScheduler<Job> scheduler = new PriorityScheduler<>(properties.scheduling(), properties.queueCapacity(),
+                    properties.weights(), properties.maxQueueWait().toNanos(), latencies);
+            Semaphore permits = new Semaphore(properties.concurrencyFor(type));
+            Thread drainer = Thread.ofVirtual()
+                    .name("notification-" + type.name().toLowerCase())
+                    .start(() -> drain(type, scheduler, permits));
+            channels.put(type, new Channel(scheduler, permits, drainer));
+        }
+        if (outboxProperties.enabled()) {
+            List<OutboxRecord> recovered = outbox.takeRecovered();
+            if (!recovered.isEmpty()) {
+                Thread.ofVirtual().name("notification-outbox-recovery").start(() -> recover(recovered));
+            }
+        }
+    }
+
+    /**
+     * Journals the notification in the outbox, then queues it at {@code priority}, waiting up to the
+     * configured offer timeout for room.
+     *
+     * @throws ResponseStatusException 503 when the channel's queue for that priority stays full
+     */
+    public NotificationStatus submit(NotificationType type, AlertPriority priority, String to, String message) {
+        OutboxRecord record = new OutboxRecord(UUID.randomUUID(), type, priority, to, message);
+        String trackingId = record.id().toString();
+        NotificationStatus status = new NotificationStatus(trackingId, type, to, DispatchStatus.QUEUED, null, Instant.now(), null);
+        track(status);
+        if (outboxProperties.enabled()) {
+            outbox.append(record);
+        }
+        boolean accepted;
+        try {
+            accepted = channels.get(type).scheduler().offer(priority, new Job(record, 1, null),
+                    properties.offerTimeout().toNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            // left to age out with the other statuses, the caller never sees this id
+            update(trackingId, DispatchStatus.FAILED, "queue full");
+            settle(record);
+            throw new ChannelSaturatedException(type);
+        }
+        return status;
+    }
+
+    /**
+     * Queues one micro-batch at {@code priority}, blocking while that priority's queue is full so
+     * the bulk reader is paced by the channel. No per-recipient status is tracked.
+     */
+    public CompletableFuture<BatchProgress> sendBatch(NotificationType type, AlertPriority priority, int number,
+                                                      List<BulkRecipient> recipients) {
+        Batch batch = new Batch(number, recipients.size());
+        PriorityScheduler<Job> scheduler = channels.get(type).scheduler();
+        for (int i = 0; i < recipients.size(); i++) {
+            BulkRecipient recipient = recipients.get(i);
+            try {
+                scheduler.put(priority, new Job(new OutboxRecord(null, type, priority, recipient.to(), recipient.message()), 1, batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (int unsent = i; unsent < recipients.size(); unsent++) {
+                    batch.done(false);
+                }
+                break;
+            }
+        }
+        return batch.progress;
+    }
+
+    public Optional<NotificationStatus> status(String trackingId) {
+        return Optional.ofNullable(statuses.get(trackingId));
+    }
+
+    /**
+     * Time spent queued before dispatch, including the wait for a free send permit, per priority
+     * across all channels.
+     *
+     * @param reset start a new measurement window after taking the snapshot
+     */
+    public Map<AlertPriority, LatencySnapshot> latencies(boolean reset) {
+        Map<AlertPriority, LatencySnapshot> snapshots = new EnumMap<>(AlertPriority.class);
+        for (AlertPriority priority : AlertPriority.values()) {
+            LatencyHistogram histogram = latencies[priority.ordinal()];
+            int queued = channels.values().stream().mapToInt(channel -> channel.scheduler().size(priority)).sum();
+            snapshots.put(priority, new LatencySnapshot(histogram.count(), queued, millis(histogram.percentile(50)),
+                    millis(histogram.percentile(99)), millis(histogram.max())));
+            if (reset) {
+                histogram.reset();
+            }
+        }
+        return snapshots;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        channels.values().forEach(channel -> channel.drainer().interrupt());
+        retries.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    private void drain(NotificationType type, PriorityScheduler<Job> scheduler, Semaphore permits) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                // pick the job only once it can be sent, so a higher priority arriving while every
+                // permit is busy still goes first, and the recorded queue wait includes that time
+                permits.acquire();
+                Job job;
+                try {
+                    job = scheduler.take();
+                } catch (InterruptedException e) {
+                    permits.release();
+                    throw e;
+                }
+                senders.execute(() -> {
+                    try {
+                        send(type, job);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void send(NotificationType type, Job job) {
+        if (job.batch() != null) {
+            sendBatched(type, job);
+            return;
+        }
+        update(job.trackingId(), DispatchStatus.SENDING, null);
+        try {
+            factoryProvider.getFactory(type)
+                    .createNotificationSender()
+                    .sendNotification(job.record().to(), job.record().message());
+            update(job.trackingId(), DispatchStatus.SENT, null);
+            settle(job.record());
+        } catch (RuntimeException e) {
+            retryOrDeadLetter(job, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private void sendBatched(NotificationType type, Job job) {
+        boolean sent = false;
+        try {
+            factoryProvider.getFactory(type)
+                    .createNotificationSender()
+                    .sendNotification(job.record().to(), job.record().message());
+            sent = true;
+        } catch (RuntimeException ignored) {
+            // counted as failed in the batch progress
+        } finally {
+            job.batch().done(sent);
+        }
+    }
+
+    private void retryOrDeadLetter(Job job, String error) {
+        if (job.attempt() < outboxProperties.maxAttempts()) {
+            update(job.trackingId(), DispatchStatus.RETRYING, error);
+            retries.schedule(() -> senders.execute(() -> requeue(job.next())),
+                    backoff(job.attempt()).toNanos(), TimeUnit.NANOSECONDS);
+            return;
+        }
+        update(job.trackingId(), DispatchStatus.FAILED, error);
+        if (outboxProperties.enabled()) {
+            outbox.deadLetter(job.record(), job.attempt(), error);
+        }
+    }
+
+    /**
+     * Exponential backoff with jitter: a random delay between half and all of
+     * {@code initialBackoff * 2^(attempt - 1)}, capped at {@code maxBackoff}.
+     */
+    private Duration backoff(int attempt) {
+        long initial = outboxProperties.initialBackoff().toNanos();
+        long ceiling = Math.min(outboxProperties.maxBackoff().toNanos(), initial << Math.min(attempt - 1, 20));
+        return Duration.ofNanos(ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1));
+    }
+
+    private void requeue(Job job) {
+        try {
+            channels.get(job.record().type()).scheduler().put(job.record().priority(), job);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // still pending in the outbox, picked up on restart
+        }
+    }
+
+    private void recover(List<OutboxRecord> records) {
+        for (OutboxRecord record : records) {
+            track(new NotificationStatus(record.id().toString(), record.type(), record.to(),
+                    DispatchStatus.QUEUED, null, Instant.now(), null));
+            requeue(new Job(record, 1, null));
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    private void settle(OutboxRecord record) {
+        if (outboxProperties.enabled()) {
+            outbox.acknowledge(record.id());
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private void track(NotificationStatus status) {
+        statuses.put(status.trackingId(), status);
+        statusOrder.add(status.trackingId());
+        while (statuses.size() > properties.statusRetention()) {
+            String oldest = statusOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            statuses.remove(oldest);
+        }
+    }
+
+    private void update(String trackingId, DispatchStatus status, String error) {
+        statuses.computeIfPresent(trackingId, (id, current) -> current.with(status, error));
+    }
+
+    public static class ChannelSaturatedException extends ResponseStatusException {
+        public ChannelSaturatedException(NotificationType type) {
+            super(HttpStatus.SERVICE_UNAVAILABLE, "Notification queue for " + type + " is full");
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, "1");
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.noua.design.patterns.factoryMethod.dispatch;
+
+import com.noua.design.patterns.factoryMethod.domain.SchedulingMode;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One bounded FIFO per {@link AlertPriority} in front of a channel's senders. Each priority has its
+ * own capacity, so a flood of LOW traffic can fill only the LOW queue and never blocks a CRITICAL
+ * offer.
+ * <p>
+ * {@link SchedulingMode#WEIGHTED} interleaves non-empty priorities by weight (smooth weighted
+ * round-robin), so every priority gets its share and none can starve.
+ * {@link SchedulingMode#STRICT} serves the highest non-empty priority, except that a head waiting
+ * longer than {@code maxWait} is served next; at most every other take goes to such a head, so a
+ * saturated low priority delays a higher one by a single item at most. The time each item spent
+ * queued is recorded per priority.
+ */
+class PriorityScheduler<T> {
+
+    private static final AlertPriority[] PRIORITIES = AlertPriority.values();
+
+    private record Entry<T>(T item, long enqueuedNanos) {}
+
+    private final SchedulingMode mode;
+    private final int capacity;
+    private final int[] weights;
+    private final int[] current;
+    private final long maxWaitNanos;
+    private final LatencyHistogram[] latencies;
+    private final ArrayDeque<Entry<T>>[] queues;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition[] notFull;
+    private int size;
+    private boolean servedStarved;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    PriorityScheduler(SchedulingMode mode, int capacity, Map<AlertPriority, Integer> weights, long maxWaitNanos,
+                      LatencyHistogram[] latencies) {
+        this.mode = mode;
+        this.capacity = capacity;
+        this.maxWaitNanos = maxWaitNanos;
+        this.latencies = latencies;
+        this.weights = new int[PRIORITIES.length];
+        this.current = new int[PRIORITIES.length];
+        this.queues = new ArrayDeque[PRIORITIES.length];
+        this.notFull = new Condition[PRIORITIES.length];
+        for (AlertPriority priority : PRIORITIES) {
+            this.weights[priority.ordinal()] = Math.max(1, weights.getOrDefault(priority, 1));
+            this.queues[priority.ordinal()] = new ArrayDeque<>();
+            this.notFull[priority.ordinal()] = lock.newCondition();
+        }
+    }
+
+    /**
+     * @return {@code false} when the priority's queue stayed full for {@code timeoutNanos}
+     */
+    boolean offer(AlertPriority priority, T item, long timeoutNanos) throws InterruptedException {
+        int index = priority.ordinal();
+        lock.lockInterruptibly();
+        try {
+            long remaining = timeoutNanos;
+            while (queues[index].size() >= capacity) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = notFull[index].awaitNanos(remaining);
+            }
+            enqueue(index, item);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(AlertPriority priority, T item) throws InterruptedException {
+        int index = priority.ordinal();
+        lock.lockInterruptibly();
+        try {
+            while (queues[index].size() >= capacity) {
+                notFull[index].await();
+            }
+            enqueue(index, item);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    T take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            long now = System.nanoTime();
+            int index = -1;
+            if (mode == SchedulingMode.STRICT && !servedStarved) {
+                index = starved(now);
+            }
+            servedStarved = index >= 0;
+            if (index < 0) {
+                index = mode == SchedulingMode.STRICT ? highest() : weighted();
+            }
+            Entry<T> entry = queues[index].poll();
+            size--;
+            notFull[index].signal();
+            latencies[index].record(now - entry.enqueuedNanos());
+            return entry.item();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size(AlertPriority priority) {
+        lock.lock();
+        try {
+            return queues[priority.ordinal()].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(int index, T item) {
+        queues[index].add(new Entry<>(item, System.nanoTime()));
+        size++;
+        notEmpty.signal();
+    }
+
+    /**
+     * @return the priority whose head has waited longest beyond {@code maxWait}, or {@code -1}
+     */
+    private int starved(long now) {
+        int oldest = -1;
+        long oldestWait = maxWaitNanos;
+        for (int index = 0; index < queues.length; index++) {
+            Entry<T> head = queues[index].peek();
+            if (head != null && now - head.enqueuedNanos() > oldestWait) {
+                oldest = index;
+                oldestWait = now - head.enqueuedNanos();
+            }
+        }
+        return oldest;
+    }
+
+    private int highest() {
+        for (int index = queues.length - 1; index > 0; index--) {
+            if (!queues[index].isEmpty()) {
+                return index;
+            }
+        }
+        return 0;
+    }
+
+    private int weighted() {
+        int selected = -1;
+        int total = 0;
+        for (int index = queues.length - 1; index >= 0; index--) {
+            if (queues[index].isEmpty()) {
+                continue;
+            }
+            current[index] += weights[index];
+            total += weights[index];
+            if (selected < 0 || current[index] > current[selected]) {
+                selected = index;
+            }
+        }
+        current[selected] -= total;
+        return selected;
+    }
+}
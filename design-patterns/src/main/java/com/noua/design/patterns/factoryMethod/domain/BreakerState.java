@@ -0,0 +1,7 @@
+package com.noua.design.patterns.factoryMethod.domain;
+
+public enum BreakerState {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+}
@@ -0,0 +1,8 @@
+package com.noua.design.patterns.factoryMethod.domain;
+
+public enum DiscrepancyKind {
+    STATUS_MISMATCH,
+    AMOUNT_DRIFT,
+    MISSING_AT_PROVIDER,
+    MISSING_LOCALLY
+}
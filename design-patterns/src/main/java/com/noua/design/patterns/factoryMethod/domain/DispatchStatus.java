@@ -0,0 +1,9 @@
+package com.noua.design.patterns.factoryMethod.domain;
+
+public enum DispatchStatus {
+    QUEUED,
+    SENDING,
+    RETRYING,
+    SENT,
+    FAILED
+}
@@ -0,0 +1,10 @@
+package com.noua.design.patterns.factoryMethod.domain;
+
+public enum LegStatus {
+    SETTLED,
+    FAILED,
+    /** no answer before the deadline; the gateway may still have charged */
+    TIMED_OUT,
+    COMPENSATED,
+    COMPENSATION_FAILED
+}
@@ -0,0 +1,16 @@
+package com.noua.design.patterns.factoryMethod.domain;
+
+public record PaymentOutcome(
+        boolean settled,
+        String error
+) {
+    private static final PaymentOutcome SETTLED = new PaymentOutcome(true, null);
+
+    public static PaymentOutcome success() {
+        return SETTLED;
+    }
+
+    public static PaymentOutcome failure(String error) {
+        return new PaymentOutcome(false, error);
+    }
+}
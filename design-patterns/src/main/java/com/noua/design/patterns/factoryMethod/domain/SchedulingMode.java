@@ -0,0 +1,6 @@
+package com.noua.design.patterns.factoryMethod.domain;
+
+public enum SchedulingMode {
+    STRICT,
+    WEIGHTED
+}
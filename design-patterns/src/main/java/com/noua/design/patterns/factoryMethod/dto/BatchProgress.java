@@ -0,0 +1,8 @@
+package com.noua.design.patterns.factoryMethod.dto;
+
+public record BatchProgress(
+        int batch,
+        int size,
+        int sent,
+        int failed
+) {}
@@ -0,0 +1,15 @@
+package com.noua.design.patterns.factoryMethod.dto;
+
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
+
+import java.util.List;
+
+public record BulkNotificationResult(
+        NotificationType type,
+        long received,
+        long sent,
+        long failed,
+        long rateLimited,
+        long invalidLines,
+        List<BatchProgress> batches
+) {}
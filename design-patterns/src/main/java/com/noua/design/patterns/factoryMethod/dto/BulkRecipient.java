@@ -0,0 +1,9 @@
+package com.noua.design.patterns.factoryMethod.dto;
+
+import java.util.Map;
+
+public record BulkRecipient(
+        String to,
+        String message,
+        Map<String, String> variables
+) {}
@@ -0,0 +1,22 @@
+package com.noua.design.patterns.factoryMethod.dto;
+
+import com.noua.design.patterns.factoryMethod.domain.DiscrepancyKind;
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One unreconciled record or pair; the local or provider fields are {@code null} for records
+ * missing on that side.
+ */
+public record Discrepancy(
+        DiscrepancyKind kind,
+        PaymentType type,
+        Instant localTime,
+        BigDecimal localAmount,
+        Boolean localSettled,
+        Instant providerTime,
+        BigDecimal providerAmount,
+        Boolean providerSettled
+) {}
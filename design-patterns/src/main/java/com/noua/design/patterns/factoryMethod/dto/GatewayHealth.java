@@ -0,0 +1,16 @@
+package com.noua.design.patterns.factoryMethod.dto;
+
+import com.noua.design.patterns.factoryMethod.domain.BreakerState;
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+
+public record GatewayHealth(
+        PaymentType type,
+        BreakerState state,
+        float failureRate,
+        int bufferedCalls,
+        int failedCalls,
+        long notPermittedCalls,
+        long timedOutCalls,
+        int activeCalls,
+        int maxConcurrentCalls
+) {}
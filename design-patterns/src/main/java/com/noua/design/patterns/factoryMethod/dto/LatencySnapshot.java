@@ -0,0 +1,9 @@
+package com.noua.design.patterns.factoryMethod.dto;
+
+public record LatencySnapshot(
+        long count,
+        int queued,
+        double p50Millis,
+        double p99Millis,
+        double maxMillis
+) {}
@@ -0,0 +1,13 @@
+package com.noua.design.patterns.factoryMethod.dto;
+
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+
+import java.math.BigDecimal;
+
+public record LedgerTotals(
+        PaymentType type,
+        long settledCount,
+        BigDecimal settledAmount,
+        long failedCount,
+        BigDecimal failedAmount
+) {}
@@ -0,0 +1,21 @@
+package com.noua.design.patterns.factoryMethod.dto;
+
+import com.noua.design.patterns.factoryMethod.domain.DispatchStatus;
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
+
+import java.time.Instant;
+
+public record NotificationStatus(
+        String trackingId,
+        NotificationType type,
+        String to,
+        DispatchStatus status,
+        String error,
+        Instant queuedAt,
+        Instant completedAt
+) {
+    public NotificationStatus with(DispatchStatus status, String error) {
+        Instant completed = status == DispatchStatus.SENT || status == DispatchStatus.FAILED ? Instant.now() : null;
+        return new NotificationStatus(trackingId, type, to, status, error, queuedAt, completed);
+    }
+}
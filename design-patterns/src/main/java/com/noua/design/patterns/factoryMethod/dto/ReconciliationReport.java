@@ -0,0 +1,16 @@
+package com.noua.design.patterns.factoryMethod.dto;
+
+import java.util.List;
+
+/**
+ * @param discrepancies the first {@code payments.reconciliation.max-discrepancies} discrepancies;
+ *                      {@code truncated} tells whether the summaries count more
+ */
+public record ReconciliationReport(
+        List<ReconciliationSummary> types,
+        List<Discrepancy> discrepancies,
+        boolean truncated,
+        long malformedLines,
+        int partitions,
+        long elapsedMillis
+) {}
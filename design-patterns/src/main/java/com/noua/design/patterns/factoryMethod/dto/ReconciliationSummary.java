@@ -0,0 +1,22 @@
+package com.noua.design.patterns.factoryMethod.dto;
+
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+
+import java.math.BigDecimal;
+
+/**
+ * @param driftAmount provider minus local amount, summed over the {@code amountDrifts} pairs
+ */
+public record ReconciliationSummary(
+        PaymentType type,
+        long localRecords,
+        long providerRecords,
+        long matched,
+        long statusMismatches,
+        long amountDrifts,
+        long missingAtProvider,
+        long missingLocally,
+        BigDecimal localSettledAmount,
+        BigDecimal providerSettledAmount,
+        BigDecimal driftAmount
+) {}
@@ -0,0 +1,12 @@
+package com.noua.design.patterns.factoryMethod.dto;
+
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+
+public record RouteStats(
+        PaymentType type,
+        boolean available,
+        double latencyMillis,
+        double errorRate,
+        int inFlight,
+        long routed
+) {}
@@ -0,0 +1,17 @@
+package com.noua.design.patterns.factoryMethod.dto;
+
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+
+public record SettlementStats(
+        PaymentType type,
+        boolean batched,
+        long batches,
+        long payments,
+        long failed,
+        int queued,
+        double averageBatchSize,
+        long maxBatchSize,
+        double averageLingerMillis,
+        double maxLingerMillis,
+        double paymentsPerSecond
+) {}
@@ -0,0 +1,10 @@
+package com.noua.design.patterns.factoryMethod.dto;
+
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+
+import java.math.BigDecimal;
+
+public record SplitLeg(
+        PaymentType type,
+        BigDecimal amount
+) {}
@@ -0,0 +1,14 @@
+package com.noua.design.patterns.factoryMethod.dto;
+
+import com.noua.design.patterns.factoryMethod.domain.LegStatus;
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+
+import java.math.BigDecimal;
+
+public record SplitLegResult(
+        PaymentType type,
+        BigDecimal amount,
+        LegStatus status,
+        String error,
+        double elapsedMillis
+) {}
@@ -0,0 +1,16 @@
+package com.noua.design.patterns.factoryMethod.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * @param settled          every leg settled; otherwise the legs that took money were reversed
+ * @param deadlineExceeded at least one leg was still running when the deadline passed
+ */
+public record SplitPaymentResult(
+        boolean settled,
+        boolean deadlineExceeded,
+        BigDecimal total,
+        double elapsedMillis,
+        List<SplitLegResult> legs
+) {}
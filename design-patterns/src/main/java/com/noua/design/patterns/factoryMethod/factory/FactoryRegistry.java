@@ -0,0 +1,64 @@
+package com.noua.design.patterns.factoryMethod.factory;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
+
+import java.lang.annotation.Annotation;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Dispatch table from an enum to the factory registered for it with a type-level annotation such
+ * as {@link NotificationFactoryFor}. Factories are stored in an array indexed by ordinal, so a
+ * lookup is one array read with no hashing; the read is still bounds-checked. Building the table
+ * fails when a constant has no factory, when two factories claim the same constant or when a
+ * factory is not annotated, which stops the application context at startup instead of returning
+ * {@code null} on the first request.
+ */
+public final class FactoryRegistry<K extends Enum<K>, F> {
+
+    private final Object[] factories;
+
+    private FactoryRegistry(Object[] factories) {
+        this.factories = factories;
+    }
+
+    public static <K extends Enum<K>, F, A extends Annotation> FactoryRegistry<K, F> of(
+            Class<K> keyType, Class<A> annotation, Function<A, K> keyOf, Collection<? extends F> candidates) {
+        K[] keys = keyType.getEnumConstants();
+        Object[] factories = new Object[keys.length];
+        for (F factory : candidates) {
+            Class<?> factoryClass = ClassUtils.getUserClass(factory);
+            A registration = AnnotatedElementUtils.findMergedAnnotation(factoryClass, annotation);
+            if (registration == null) {
+                throw new IllegalStateException(factoryClass.getName() + " is not annotated with @"
+                        + annotation.getSimpleName());
+            }
+            K key = keyOf.apply(registration);
+            Object previous = factories[key.ordinal()];
+            if (previous != null) {
+                throw new IllegalStateException("Both " + ClassUtils.getUserClass(previous).getName() + " and "
+                        + factoryClass.getName() + " are registered for " + keyType.getSimpleName() + "." + key);
+            }
+            factories[key.ordinal()] = factory;
+        }
+        Set<K> missing = EnumSet.noneOf(keyType);
+        for (K key : keys) {
+            if (factories[key.ordinal()] == null) {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("No @" + annotation.getSimpleName() + " factory for "
+                    + keyType.getSimpleName() + " " + missing);
+        }
+        return new FactoryRegistry<>(factories);
+    }
+
+    @SuppressWarnings("unchecked")
+    public F get(K key) {
+        return (F) factories[key.ordinal()];
+    }
+}
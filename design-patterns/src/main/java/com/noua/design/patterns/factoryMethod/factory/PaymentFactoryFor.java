@@ -0,0 +1,21 @@
+package com.noua.design.patterns.factoryMethod.factory;
+
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Registers a {@link PaymentGatewayFactory} bean as the factory for one {@link PaymentType}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Component
+public @interface PaymentFactoryFor {
+    PaymentType value();
+}
@@ -1,13 +1,13 @@
 package com.noua.design.patterns.factoryMethod.factory.factoryImpl;
 
 import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import com.noua.design.patterns.factoryMethod.factory.PaymentFactoryFor;
 import com.noua.design.patterns.factoryMethod.factory.PaymentGatewayFactory;
 import com.noua.design.patterns.factoryMethod.service.PaymentGateway;
 import com.noua.design.patterns.factoryMethod.service.serviceImpl.CryptoPayment;
 import lombok.RequiredArgsConstructor;
-import org.springframework.stereotype.Component;
 
-@Component("cryptoFactory")
+@PaymentFactoryFor(PaymentType.CRYPTO)
 @RequiredArgsConstructor
 public class CryptoPaymentFactory implements PaymentGatewayFactory {
 
@@ -19,12 +19,4 @@ public class CryptoPaymentFactory implements PaymentGatewayFactory {
     public PaymentGateway createPaymentGateway() {
         return cryptoPayment;
     }
-
-    /**
-     * @return
-     */
-    @Override
-    public PaymentType getType() {
-        return PaymentType.CRYPTO;
-    }
 }
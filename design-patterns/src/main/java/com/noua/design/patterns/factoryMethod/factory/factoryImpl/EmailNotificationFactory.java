@@ -1,12 +1,14 @@
 package com.noua.design.patterns.factoryMethod.factory.factoryImpl;
 
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
 import com.noua.design.patterns.factoryMethod.factory.NotificationFactory;
+import com.noua.design.patterns.factoryMethod.factory.NotificationFactoryFor;
 import com.noua.design.patterns.factoryMethod.service.NotificationSender;
 import com.noua.design.patterns.factoryMethod.service.serviceImpl.EmailNotificationSender;
 import lombok.RequiredArgsConstructor;
-import org.springframework.stereotype.Component;
 
 @RequiredArgsConstructor
+@NotificationFactoryFor(NotificationType.EMAIL)
 public class EmailNotificationFactory implements NotificationFactory {
 
     private final EmailNotificationSender emailNotificationSender;
@@ -1,12 +1,14 @@
 package com.noua.design.patterns.factoryMethod.factory.factoryImpl;
 
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
 import com.noua.design.patterns.factoryMethod.factory.NotificationFactory;
+import com.noua.design.patterns.factoryMethod.factory.NotificationFactoryFor;
 import com.noua.design.patterns.factoryMethod.service.NotificationSender;
 import com.noua.design.patterns.factoryMethod.service.serviceImpl.InAppNotificationSender;
 import lombok.RequiredArgsConstructor;
-import org.springframework.stereotype.Component;
 
 @RequiredArgsConstructor
+@NotificationFactoryFor(NotificationType.IN_APP)
 public class InAppNotificationFactory implements NotificationFactory {
 
     private final InAppNotificationSender inAppNotificationSender;
@@ -1,14 +1,14 @@
 package com.noua.design.patterns.factoryMethod.factory.factoryImpl;
 
 import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import com.noua.design.patterns.factoryMethod.factory.PaymentFactoryFor;
 import com.noua.design.patterns.factoryMethod.factory.PaymentGatewayFactory;
 import com.noua.design.patterns.factoryMethod.service.PaymentGateway;
 import com.noua.design.patterns.factoryMethod.service.serviceImpl.PaypalPayment;
 import lombok.RequiredArgsConstructor;
-import org.springframework.stereotype.Component;
 
 @RequiredArgsConstructor
-@Component("paypalFactory")
+@PaymentFactoryFor(PaymentType.PAYPAL)
 public class PaypalPaymentFactory implements PaymentGatewayFactory {
 
     private final PaypalPayment paypalPayment;
@@ -19,12 +19,4 @@ public class PaypalPaymentFactory implements PaymentGatewayFactory {
     public PaymentGateway createPaymentGateway() {
         return paypalPayment;
     }
-
-    /**
-     * @return
-     */
-    @Override
-    public PaymentType getType() {
-        return PaymentType.PAYPAL;
-    }
 }
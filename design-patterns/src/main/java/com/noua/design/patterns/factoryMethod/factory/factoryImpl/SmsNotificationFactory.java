@@ -1,13 +1,14 @@
 package com.noua.design.patterns.factoryMethod.factory.factoryImpl;
 
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
 import com.noua.design.patterns.factoryMethod.factory.NotificationFactory;
+import com.noua.design.patterns.factoryMethod.factory.NotificationFactoryFor;
 import com.noua.design.patterns.factoryMethod.service.NotificationSender;
 import com.noua.design.patterns.factoryMethod.service.serviceImpl.SmsNotificationSender;
 import lombok.RequiredArgsConstructor;
-import org.springframework.stereotype.Component;
 
 @RequiredArgsConstructor
-@Component("SmsFactory")
+@NotificationFactoryFor(NotificationType.SMS)
 public class SmsNotificationFactory implements NotificationFactory {
 
     private final SmsNotificationSender smsNotificationSender;
@@ -1,14 +1,14 @@
 package com.noua.design.patterns.factoryMethod.factory.factoryImpl;
 
 import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import com.noua.design.patterns.factoryMethod.factory.PaymentFactoryFor;
 import com.noua.design.patterns.factoryMethod.factory.PaymentGatewayFactory;
 import com.noua.design.patterns.factoryMethod.service.PaymentGateway;
 import com.noua.design.patterns.factoryMethod.service.serviceImpl.StripePayment;
 import lombok.RequiredArgsConstructor;
-import org.springframework.stereotype.Component;
 
 @RequiredArgsConstructor
-@Component("stripeFactory")
+@PaymentFactoryFor(PaymentType.STRIPE)
 public class StripePaymentFactory implements PaymentGatewayFactory {
 
     private final StripePayment stripePayment;
@@ -19,12 +19,4 @@ public class StripePaymentFactory implements PaymentGatewayFactory {
     public PaymentGateway createPaymentGateway() {
         return stripePayment;
     }
-
-    /**
-     * @return
-     */
-    @Override
-    public PaymentType getType() {
-        return PaymentType.STRIPE;
-    }
 }
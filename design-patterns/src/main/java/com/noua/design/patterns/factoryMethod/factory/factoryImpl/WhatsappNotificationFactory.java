@@ -1,12 +1,13 @@
 package com.noua.design.patterns.factoryMethod.factory.factoryImpl;
 
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
 import com.noua.design.patterns.factoryMethod.factory.NotificationFactory;
+import com.noua.design.patterns.factoryMethod.factory.NotificationFactoryFor;
 import com.noua.design.patterns.factoryMethod.service.NotificationSender;
 import com.noua.design.patterns.factoryMethod.service.serviceImpl.WhatsappNotificationService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.stereotype.Component;
 
-@Component("WhatsappFactory")
+@NotificationFactoryFor(NotificationType.WHATSAPP)
 @RequiredArgsConstructor
 public class WhatsappNotificationFactory implements NotificationFactory {
 
@@ -0,0 +1,263 @@
+package com.noua.design.patterns.factoryMethod.idempotency;
+
+import com.noua.design.patterns.factoryMethod.config.PaymentIdempotencyProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs an operation at most once per idempotency key while its result is retained.
+ * <p>
+ * The first request for a key claims it with a single {@code putIfAbsent} and runs the operation;
+ * concurrent duplicates wait on the same future instead of running it again, later duplicates get
+ * the stored result. A key reused with a different request fingerprint is rejected.
+ * <p>
+ * A failure that certainly happened before the operation took effect, a 4xx or 503 rejection such
+ * as an open circuit or a full queue, releases the key so the request can be retried with it. Any
+ * other failure, a gateway timeout above all, may have charged: it is kept like a result, and
+ * retries get {@link IdempotentOutcomeUnknownException} with its status instead of running again.
+ * <p>
+ * Completed results expire after the TTL and are evicted oldest-first beyond {@code max-entries}
+ * or the approximate {@code memory-budget}. With spilling enabled they are also appended to local
+ * segment files: evicted keys keep answering from them through a bounded index of
+ * {@code spill.max-keys}, live keys are reloaded on startup, and segments are deleted as their keys
+ * expire.
+ */
+@Component
+public class IdempotencyCache {
+
+    /**
+     * Rough per-entry cost beyond the strings: map node, entry, future and queue node.
+     */
+    private static final int ENTRY_OVERHEAD = 200;
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private volatile long expiresAtMillis = Long.MAX_VALUE;
+        private volatile int weight;
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private final PaymentIdempotencyProperties properties;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<String> completionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final IdempotencySpillFile spill;
+    private final ScheduledExecutorService sweeper;
+
+    public IdempotencyCache(PaymentIdempotencyProperties properties) {
+        this.properties = properties;
+        if (properties.enabled() && properties.spill().enabled()) {
+            spill = new IdempotencySpillFile(properties.spill().file(), properties.spill().maxKeys(),
+                    properties.spill().segmentSize().toBytes());
+            spill.open(System.currentTimeMillis());
+        } else {
+            spill = null;
+        }
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.sweepInterval().toMillis();
+        sweeper.scheduleWithFixedDelay(this::evictExpired, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param key         client-supplied idempotency key, or {@code null} to just run the operation
+     * @param fingerprint what the key must keep meaning, e.g. the request parameters
+     * @throws IdempotencyKeyReusedException 422 when the key was used for a different request
+     * @throws IdempotencyKeyInProgressException 409 when the first request is still running after
+     *                                           the wait timeout
+     * @throws IdempotentOutcomeUnknownException the first request's status when it failed with an
+     *                                           unknown outcome
+     */
+    public IdempotentResult execute(String key, String fingerprint, Supplier<String> operation) {
+        if (key == null || !properties.enabled()) {
+            return new IdempotentResult(operation.get(), false);
+        }
+        if (key.isBlank() || key.length() > properties.maxKeyLength()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency key must be 1 to " + properties.maxKeyLength() + " characters");
+        }
+        while (true) {
+            Entry claimed = new Entry(fingerprint);
+            Entry existing = entries.putIfAbsent(key, claimed);
+            if (existing == null) {
+                return run(key, claimed, operation);
+            }
+            if (existing.expiresAtMillis <= System.currentTimeMillis()) {
+                entries.remove(key, existing);
+                continue;
+            }
+            return await(existing, fingerprint);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        if (spill != null) {
+            spill.close();
+        }
+    }
+
+    private IdempotentResult run(String key, Entry claimed, Supplier<String> operation) {
+        IdempotencySpillFile.Stored stored;
+        try {
+            stored = spill == null ? null : spill.find(key, System.currentTimeMillis());
+            if (stored != null && !stored.fingerprint().equals(claimed.fingerprint)) {
+                throw new IdempotencyKeyReusedException();
+            }
+        } catch (RuntimeException e) {
+            release(key, claimed, e);
+            throw e;
+        }
+        if (stored != null) {
+            complete(claimed, stored, false);
+            if (stored.status() != 0) {
+                throw new IdempotentOutcomeUnknownException(stored.status(), stored.body());
+            }
+            return new IdempotentResult(stored.body(), true);
+        }
+
+        long expiresAtMillis = System.currentTimeMillis() + properties.ttl().toMillis();
+        String body;
+        try {
+            body = operation.get();
+        } catch (RuntimeException e) {
+            int status = e instanceof ResponseStatusException rejected ? rejected.getStatusCode().value() : 500;
+            if (status == HttpStatus.SERVICE_UNAVAILABLE.value() || (status >= 400 && status < 500)) {
+                release(key, claimed, e);
+            } else {
+                String reason = e instanceof ResponseStatusException failed ? failed.getReason() : e.getMessage();
+                complete(claimed, new IdempotencySpillFile.Stored(key, claimed.fingerprint, expiresAtMillis, status,
+                        String.valueOf(reason)), true);
+            }
+            throw e;
+        }
+        complete(claimed, new IdempotencySpillFile.Stored(key, claimed.fingerprint, expiresAtMillis, 0, body), true);
+        return new IdempotentResult(body, false);
+    }
+
+    /**
+     * Gives the key up so the request can be retried with it; concurrent duplicates fail alike.
+     */
+    private void release(String key, Entry claimed, RuntimeException failure) {
+        entries.remove(key, claimed);
+        claimed.result.completeExceptionally(failure);
+    }
+
+    /**
+     * Retains the outcome for the TTL, spilling it unless it was read back from the spill file.
+     */
+    private void complete(Entry claimed, IdempotencySpillFile.Stored stored, boolean spillIt) {
+        String key = stored.key();
+        claimed.expiresAtMillis = stored.expiresAtMillis();
+        claimed.weight = ENTRY_OVERHEAD + 2 * (key.length() + claimed.fingerprint.length() + stored.body().length());
+        if (stored.status() == 0) {
+            claimed.result.complete(stored.body());
+        } else {
+            claimed.result.completeExceptionally(new IdempotentOutcomeUnknownException(stored.status(), stored.body()));
+        }
+        if (spill != null && spillIt) {
+            spill.append(stored);
+        }
+        retainedBytes.addAndGet(claimed.weight);
+        completionOrder.add(key);
+        enforceBudget();
+    }
+
+    private IdempotentResult await(Entry existing, String fingerprint) {
+        if (!existing.fingerprint.equals(fingerprint)) {
+            throw new IdempotencyKeyReusedException();
+        }
+        try {
+            String body = existing.result.get(properties.waitTimeout().toNanos(), TimeUnit.NANOSECONDS);
+            return new IdempotentResult(body, true);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInProgressException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException();
+        } catch (ExecutionException e) {
+            // the original failed; duplicates of it fail the same way
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void enforceBudget() {
+        long budget = properties.memoryBudget().toBytes();
+        while (retainedBytes.get() > budget || entries.size() > properties.maxEntries()) {
+            String oldest = completionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            Entry entry = entries.get(oldest);
+            if (entry != null && entry.result.isDone() && entries.remove(oldest, entry)) {
+                retainedBytes.addAndGet(-entry.weight);
+            }
+        }
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(mapping -> {
+            Entry entry = mapping.getValue();
+            if (entry.result.isDone() && entry.expiresAtMillis <= now) {
+                retainedBytes.addAndGet(-entry.weight);
+                return true;
+            }
+            return false;
+        });
+        if (spill != null) {
+            spill.evictExpired(now);
+        }
+        completionOrder.removeIf(key -> !entries.containsKey(key));
+    }
+
+    public static class IdempotencyKeyReusedException extends ResponseStatusException {
+        public IdempotencyKeyReusedException() {
+            super(HttpStatusCode.valueOf(422), "Idempotency key was already used for a different request");
+        }
+    }
+
+    /**
+     * The first request with this key failed in a way that may still have taken effect, e.g. a
+     * gateway timeout; retries get its status back rather than risking a second charge.
+     */
+    public static class IdempotentOutcomeUnknownException extends ResponseStatusException {
+        public IdempotentOutcomeUnknownException(int status, String reason) {
+            super(HttpStatusCode.valueOf(status),
+                    "The first request with this idempotency key failed with an unknown outcome: " + reason);
+        }
+    }
+
+    public static class IdempotencyKeyInProgressException extends ResponseStatusException {
+        public IdempotencyKeyInProgressException() {
+            super(HttpStatus.CONFLICT, "A request with this idempotency key is still in progress");
+        }
+    }
+}
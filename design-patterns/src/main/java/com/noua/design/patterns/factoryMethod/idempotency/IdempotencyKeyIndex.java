@@ -0,0 +1,151 @@
+package com.noua.design.patterns.factoryMethod.idempotency;
+
+import java.util.Arrays;
+
+/**
+ * Bounded index from idempotency key to spill address, kept in primitive arrays: a ring of entries
+ * in insertion order, which is also expiry order since every key gets the same TTL, and a linear
+ * probing table from key hash to ring position. About 40 bytes per key, where a map of strings
+ * costs several hundred, and nothing allocated per key.
+ * <p>
+ * Keys are known by a 64-bit hash only; callers check the key stored at the address. Beyond
+ * {@code capacity} the oldest entry is dropped. Not thread-safe.
+ */
+final class IdempotencyKeyIndex {
+
+    static final long ABSENT = -1;
+
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int capacity;
+    private long[] hashes;
+    private long[] addresses;
+    private long[] expiries;
+    private int head;
+    private int size;
+    private int[] table;
+    private int mask;
+
+    IdempotencyKeyIndex(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        allocate(Math.min(capacity, INITIAL_CAPACITY));
+    }
+
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Maps the hash to the address, superseding any earlier address for it.
+     */
+    void put(long hash, long address, long expiresAtMillis) {
+        if (size == capacity) {
+            evictOldest();
+        } else if (size == hashes.length) {
+            grow();
+        }
+        int position = (head + size) % hashes.length;
+        hashes[position] = hash;
+        addresses[position] = address;
+        expiries[position] = expiresAtMillis;
+        size++;
+        int slot = slot(hash);
+        while (table[slot] != EMPTY && hashes[table[slot]] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = position;
+    }
+
+    /**
+     * @return the latest address put for the hash, or {@link #ABSENT}
+     */
+    long find(long hash) {
+        for (int slot = slot(hash); table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (hashes[table[slot]] == hash) {
+                return addresses[table[slot]];
+            }
+        }
+        return ABSENT;
+    }
+
+    void evictExpired(long nowMillis) {
+        while (size > 0 && expiries[head] <= nowMillis) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * @return the address of the oldest entry, or {@link #ABSENT} when empty
+     */
+    long oldestAddress() {
+        return size == 0 ? ABSENT : addresses[head];
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void evictOldest() {
+        int position = head;
+        for (int slot = slot(hashes[position]); table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (table[slot] == position) {
+                remove(slot);
+                break;
+            }
+        }
+        head = (head + 1) % hashes.length;
+        size--;
+    }
+
+    /**
+     * Backward-shift deletion: moves later entries of the probe run into the hole so lookups never
+     * need tombstones.
+     */
+    private void remove(int slot) {
+        int hole = slot;
+        for (int next = (hole + 1) & mask; table[next] != EMPTY; next = (next + 1) & mask) {
+            int home = slot(hashes[table[next]]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table[hole] = table[next];
+                hole = next;
+            }
+        }
+        table[hole] = EMPTY;
+    }
+
+    private void grow() {
+        long[] oldHashes = hashes;
+        long[] oldAddresses = addresses;
+        long[] oldExpiries = expiries;
+        int oldHead = head;
+        int oldSize = size;
+        allocate((int) Math.min(capacity, 2L * oldHashes.length));
+        for (int i = 0; i < oldSize; i++) {
+            int position = (oldHead + i) % oldHashes.length;
+            put(oldHashes[position], oldAddresses[position], oldExpiries[position]);
+        }
+    }
+
+    private void allocate(int entries) {
+        hashes = new long[entries];
+        addresses = new long[entries];
+        expiries = new long[entries];
+        head = 0;
+        size = 0;
+        table = new int[Integer.highestOneBit(Math.max(2, entries) * 2 - 1) << 1];
+        Arrays.fill(table, EMPTY);
+        mask = table.length - 1;
+    }
+
+    private int slot(long hash) {
+        return (int) ((hash * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,335 @@
+package com.noua.design.patterns.factoryMethod.idempotency;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Append-only segments of completed idempotent results, {@code <file>.<n>}. Each segment starts
+ * with {@code int magic | int version}, followed by records
+ * {@code int length | long expiresAtMillis | int status | int keyLength | key |
+ * int fingerprintLength | fingerprint | int bodyLength | body}. Not forced per append: a process
+ * restart keeps the page cache, only a host crash can lose the tail.
+ * <p>
+ * Keys are found through a bounded {@link IdempotencyKeyIndex} of segment and offset. Every key has
+ * the same TTL, so the index drops entries in the order they were appended, and a segment is
+ * deleted as a whole once the index no longer reaches into it. The disk therefore holds roughly one
+ * TTL of results plus a segment, and nothing is rewritten.
+ * <p>
+ * The single headerless file of the first format (no {@code status}) is migrated into a segment
+ * when opened; segments or files of an unknown version are refused rather than misread.
+ */
+class IdempotencySpillFile {
+
+    static final int MAGIC = 0x49444D50; // "IDMP"
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    /**
+     * An address is the segment number above the offset within it.
+     */
+    private static final int OFFSET_BITS = 40;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+
+    /**
+     * @param status {@code 0} for a completed result, otherwise the HTTP status of a failure whose
+     *               effect is unknown, with {@code body} holding its reason
+     */
+    record Stored(String key, String fingerprint, long expiresAtMillis, int status, String body) {}
+
+    private record Framed(Stored stored, int length) {}
+
+    private final Path file;
+    private final long segmentSize;
+    private final IdempotencyKeyIndex index;
+    private final ConcurrentSkipListMap<Long, FileChannel> segments = new ConcurrentSkipListMap<>();
+    private long current;
+    private FileChannel channel;
+
+    /**
+     * @param file        legacy single file; segments are created beside it
+     * @param maxKeys     bound of the key index
+     * @param segmentSize size at which a new segment is started
+     */
+    IdempotencySpillFile(Path file, int maxKeys, long segmentSize) {
+        this.file = file;
+        this.segmentSize = segmentSize;
+        this.index = new IdempotencyKeyIndex(maxKeys);
+    }
+
+    /**
+     * Indexes the entries of the existing segments still live at {@code nowMillis}, migrates a
+     * legacy file, deletes segments holding nothing live and starts a new segment for appending.
+     *
+     * @throws IllegalStateException when a segment was written by an unknown format version
+     */
+    synchronized void open(long nowMillis) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            for (Map.Entry<Long, Path> segment : existingSegments().entrySet()) {
+                FileChannel existing = FileChannel.open(segment.getValue(), StandardOpenOption.READ);
+                segments.put(segment.getKey(), existing);
+                current = segment.getKey();
+                if (version(existing, segment.getValue()) != VERSION) {
+                    throw new IllegalStateException(segment.getValue() + " has no idempotency spill header");
+                }
+                scan(existing, HEADER_BYTES, VERSION, (stored, offset) -> {
+                    if (stored.expiresAtMillis() > nowMillis) {
+                        index.put(IdempotencyKeyIndex.hash(stored.key()), address(segment.getKey(), offset),
+                                stored.expiresAtMillis());
+                    }
+                });
+            }
+            roll();
+            if (Files.exists(file)) {
+                try (FileChannel legacy = FileChannel.open(file, StandardOpenOption.READ)) {
+                    int version = version(legacy, file);
+                    scan(legacy, version == 1 ? 0 : HEADER_BYTES, version, (stored, offset) -> {
+                        if (stored.expiresAtMillis() > nowMillis) {
+                            append(stored);
+                        }
+                    });
+                }
+                channel.force(true);
+                Files.delete(file);
+            }
+            index.evictExpired(nowMillis);
+            dropUnreachableSegments();
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Unable to open idempotency spill segments of " + file, e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the result and indexes it, superseding any earlier result for its key.
+     */
+    synchronized void append(Stored stored) {
+        try {
+            if (channel.position() > HEADER_BYTES && channel.position() >= segmentSize) {
+                roll();
+            }
+            long offset = channel.position();
+            write(channel, stored);
+            index.put(IdempotencyKeyIndex.hash(stored.key()), address(current, offset), stored.expiresAtMillis());
+            dropUnreachableSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to append to idempotency spill segment " + current, e);
+        }
+    }
+
+    /**
+     * @return the latest result stored for the key if it is still live, otherwise {@code null}
+     */
+    Stored find(String key, long nowMillis) {
+        long address;
+        FileChannel segment;
+        synchronized (this) {
+            address = index.find(IdempotencyKeyIndex.hash(key));
+            if (address == IdempotencyKeyIndex.ABSENT) {
+                return null;
+            }
+            segment = segments.get(address >>> OFFSET_BITS);
+        }
+        if (segment == null) {
+            return null;
+        }
+        Framed framed;
+        try {
+            framed = read(segment, address & OFFSET_MASK, VERSION);
+        } catch (IOException e) {
+            // deleted by a concurrent sweep, so expired anyway
+            return null;
+        }
+        if (framed == null || !framed.stored().key().equals(key) || framed.stored().expiresAtMillis() <= nowMillis) {
+            return null;
+        }
+        return framed.stored();
+    }
+
+    /**
+     * Drops expired keys from the index and deletes the segments no longer reachable from it.
+     */
+    synchronized void evictExpired(long nowMillis) {
+        index.evictExpired(nowMillis);
+        dropUnreachableSegments();
+    }
+
+    synchronized void close() {
+        for (FileChannel segment : segments.values()) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                System.err.println("Unable to close idempotency spill segment: " + e.getMessage());
+            }
+        }
+        segments.clear();
+        channel = null;
+    }
+
+    private void roll() throws IOException {
+        current++;
+        Path path = segment(current);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        segments.put(current, channel);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    private void dropUnreachableSegments() {
+        long oldest = index.oldestAddress();
+        long keep = oldest == IdempotencyKeyIndex.ABSENT ? current : oldest >>> OFFSET_BITS;
+        Iterator<Map.Entry<Long, FileChannel>> unreachable = segments.headMap(keep).entrySet().iterator();
+        while (unreachable.hasNext()) {
+            Map.Entry<Long, FileChannel> segment = unreachable.next();
+            unreachable.remove();
+            try {
+                segment.getValue().close();
+                Files.deleteIfExists(segment(segment.getKey()));
+            } catch (IOException e) {
+                System.err.println("Unable to delete idempotency spill segment " + segment.getKey() + ": "
+                        + e.getMessage());
+            }
+        }
+    }
+
+    private Map<Long, Path> existingSegments() throws IOException {
+        Map<Long, Path> existing = new TreeMap<>();
+        String prefix = file.getFileName() + ".";
+        try (DirectoryStream<Path> siblings = Files.newDirectoryStream(file.toAbsolutePath().getParent(),
+                prefix + "*")) {
+            for (Path sibling : siblings) {
+                String suffix = sibling.getFileName().toString().substring(prefix.length());
+                if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit)) {
+                    existing.put(Long.parseLong(suffix), sibling);
+                }
+            }
+        }
+        return existing;
+    }
+
+    private Path segment(long number) {
+        return file.resolveSibling(file.getFileName() + "." + number);
+    }
+
+    private static long address(long segment, long offset) {
+        return segment << OFFSET_BITS | offset;
+    }
+
+    private interface RecordVisitor {
+        void visit(Stored stored, long offset) throws IOException;
+    }
+
+    private static void scan(FileChannel source, long offset, int version, RecordVisitor visitor) throws IOException {
+        Framed framed;
+        while ((framed = read(source, offset, version)) != null) {
+            visitor.visit(framed.stored(), offset);
+            offset += Integer.BYTES + framed.length();
+        }
+    }
+
+    private static void write(FileChannel target, Stored stored) throws IOException {
+        byte[] key = stored.key().getBytes(StandardCharsets.UTF_8);
+        byte[] fingerprint = stored.fingerprint().getBytes(StandardCharsets.UTF_8);
+        byte[] body = stored.body().getBytes(StandardCharsets.UTF_8);
+        int length = Long.BYTES + 4 * Integer.BYTES + key.length + fingerprint.length + body.length;
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + length)
+                .putInt(length)
+                .putLong(stored.expiresAtMillis())
+                .putInt(stored.status())
+                .putInt(key.length).put(key)
+                .putInt(fingerprint.length).put(fingerprint)
+                .putInt(body.length).put(body)
+                .flip();
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    /**
+     * @return the format version of an existing file; {@code 1} for the headerless first format
+     */
+    private static int version(FileChannel source, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (readFully(source, header, 0) < HEADER_BYTES || header.flip().getInt() != MAGIC) {
+            return 1;
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IllegalStateException(path + " has idempotency spill format version " + version
+                    + ", this build reads up to " + VERSION + "; move it away to start without it");
+        }
+        return version;
+    }
+
+    /**
+     * Positional read, safe alongside appends. Returns {@code null} at the end of the file or on a
+     * torn last record.
+     */
+    private static Framed read(FileChannel source, long offset, int version) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        if (readFully(source, header, offset) < Integer.BYTES) {
+            return null;
+        }
+        int length = header.flip().getInt();
+        int fixed = Long.BYTES + (version == 1 ? 3 : 4) * Integer.BYTES;
+        if (length < fixed || length > source.size() - offset - Integer.BYTES) {
+            return null;
+        }
+        ByteBuffer record = ByteBuffer.allocate(length);
+        if (readFully(source, record, offset + Integer.BYTES) < length) {
+            return null;
+        }
+        record.flip();
+        long expiresAtMillis = record.getLong();
+        int status = version == 1 ? 0 : record.getInt();
+        String key = string(record);
+        String fingerprint = string(record);
+        String body = string(record);
+        if (key == null || fingerprint == null || body == null) {
+            return null;
+        }
+        return new Framed(new Stored(key, fingerprint, expiresAtMillis, status, body), length);
+    }
+
+    private static String string(ByteBuffer record) {
+        if (record.remaining() < Integer.BYTES) {
+            return null;
+        }
+        int length = record.getInt();
+        if (length < 0 || length > record.remaining()) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readFully(FileChannel source, ByteBuffer target, long offset) throws IOException {
+        int total = 0;
+        while (target.hasRemaining()) {
+            int read = source.read(target, offset + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
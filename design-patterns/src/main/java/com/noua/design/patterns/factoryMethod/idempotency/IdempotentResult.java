@@ -0,0 +1,9 @@
+package com.noua.design.patterns.factoryMethod.idempotency;
+
+/**
+ * @param replayed {@code true} when {@code body} is the stored result of an earlier request
+ */
+public record IdempotentResult(
+        String body,
+        boolean replayed
+) {}
@@ -0,0 +1,78 @@
+package com.noua.design.patterns.factoryMethod.ledger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Binary layout of {@link PaymentLedger} segments, shared with readers that scan them directly.
+ * <p>
+ * Record (18 bytes): {@code long epochMillis | long amount in minor units | byte type ordinal |
+ * byte settled}. A zero timestamp marks unused space at the end of a segment.
+ */
+public final class LedgerRecords {
+
+    public static final int RECORD_BYTES = 2 * Long.BYTES + 2;
+    private static final int AMOUNT_OFFSET = Long.BYTES;
+    private static final int TYPE_OFFSET = 2 * Long.BYTES;
+    private static final int SETTLED_OFFSET = TYPE_OFFSET + 1;
+
+    private static final String SEGMENT_PREFIX = "ledger-";
+    private static final String SEGMENT_SUFFIX = ".bin";
+
+    private LedgerRecords() {
+    }
+
+    public static long epochMillis(ByteBuffer records, int position) {
+        return records.getLong(position);
+    }
+
+    public static long amountMinor(ByteBuffer records, int position) {
+        return records.getLong(position + AMOUNT_OFFSET);
+    }
+
+    public static int typeOrdinal(ByteBuffer records, int position) {
+        return records.get(position + TYPE_OFFSET);
+    }
+
+    public static boolean settled(ByteBuffer records, int position) {
+        return records.get(position + SETTLED_OFFSET) != 0;
+    }
+
+    /**
+     * Writes one record at {@code position}, the timestamp last.
+     */
+    public static void put(ByteBuffer records, int position, long epochMillis, long amountMinor, int typeOrdinal,
+                           boolean settled) {
+        records.putLong(position + AMOUNT_OFFSET, amountMinor);
+        records.put(position + TYPE_OFFSET, (byte) typeOrdinal);
+        records.put(position + SETTLED_OFFSET, (byte) (settled ? 1 : 0));
+        records.putLong(position, epochMillis);
+    }
+
+    /**
+     * @return the segment files in {@code directory}, oldest first
+     */
+    public static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> listing = Files.list(directory)) {
+            return listing.filter(LedgerRecords::isSegment).sorted().toList();
+        }
+    }
+
+    public static String segmentName(long index) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+
+    static long segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+}
@@ -0,0 +1,357 @@
+package com.noua.design.patterns.factoryMethod.ledger;
+
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import com.noua.design.patterns.factoryMethod.dto.LedgerTotals;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Append-only record of every payment outcome, kept in fixed-size, memory-mapped segment files.
+ * <p>
+ * Records use the fixed 18-byte layout of {@link LedgerRecords}. Amounts are fixed-point with {@code scale} decimals, so no {@link BigDecimal} is
+ * stored or rebuilt per record. The timestamp is written last and a zero timestamp marks the end of
+ * a segment. Timestamps never go backwards across the ledger, so a time-range query binary-searches
+ * its bounds and sums the records in between straight from the mapped bytes.
+ * <p>
+ * Running totals per {@link PaymentType} live in {@link LongAdder}s, rebuilt from the segments on
+ * {@link #start()}. Segments are forced to disk every {@code flushInterval} and on {@link #close()}.
+ */
+public class PaymentLedger {
+
+    private static final int RECORD_BYTES = LedgerRecords.RECORD_BYTES;
+    private static final PaymentType[] TYPES = PaymentType.values();
+
+    private static final class Segment {
+        private final MappedByteBuffer records;
+        private final int capacity;
+        private volatile int count;
+
+        private Segment(MappedByteBuffer records) {
+            this.records = records;
+            this.capacity = records.capacity() / RECORD_BYTES;
+        }
+
+        private long millisAt(int index) {
+            return LedgerRecords.epochMillis(records, index * RECORD_BYTES);
+        }
+    }
+
+    private static final class Totals {
+        private final LongAdder settledCount = new LongAdder();
+        private final LongAdder settledMinor = new LongAdder();
+        private final LongAdder failedCount = new LongAdder();
+        private final LongAdder failedMinor = new LongAdder();
+
+        private void add(long minor, boolean settled) {
+            if (settled) {
+                settledCount.increment();
+                settledMinor.add(minor);
+            } else {
+                failedCount.increment();
+                failedMinor.add(minor);
+            }
+        }
+    }
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final int scale;
+    private final Duration flushInterval;
+    private final LongSupplier clock;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final Totals[] totals = new Totals[TYPES.length];
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final LongAdder lost = new LongAdder();
+
+    private volatile boolean running;
+    private ScheduledExecutorService flusher;
+    private Segment current;
+    private long nextSegmentIndex;
+    private long lastMillis;
+    private boolean dirty;
+
+    public PaymentLedger(Path directory, long segmentSize, int scale, Duration flushInterval) {
+        this(directory, segmentSize, scale, flushInterval, System::currentTimeMillis);
+    }
+
+    PaymentLedger(Path directory, long segmentSize, int scale, Duration flushInterval, LongSupplier clock) {
+        long records = segmentSize / RECORD_BYTES;
+        if (records < 1 || records * RECORD_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segment size must hold 1 to " + Integer.MAX_VALUE / RECORD_BYTES
+                    + " records: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentRecords = (int) records;
+        this.scale = scale;
+        this.flushInterval = flushInterval;
+        this.clock = clock;
+        for (PaymentType type : TYPES) {
+            totals[type.ordinal()] = new Totals();
+        }
+    }
+
+    /**
+     * Maps the existing segments, rebuilds the running totals from them and starts the flusher.
+     * Until then outcomes only update the in-memory totals.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            for (Path file : LedgerRecords.segments(directory)) {
+                Segment segment = open(file);
+                replay(segment);
+                segments.add(segment);
+                nextSegmentIndex = LedgerRecords.segmentIndex(file) + 1;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open payment ledger in " + directory, e);
+        }
+        if (!segments.isEmpty()) {
+            current = segments.getLast();
+            if (current.count > 0) {
+                lastMillis = current.millisAt(current.count - 1);
+            }
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-ledger-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    /**
+     * Records one gateway outcome. Amounts beyond {@code scale} decimals are rounded half-even.
+     * Never throws, since the gateway has already been called: an outcome that cannot be recorded
+     * is logged and counted in {@link #lostCount()}.
+     */
+    public void append(PaymentType type, BigDecimal amount, boolean settled) {
+        long minor;
+        try {
+            minor = toMinorUnits(amount);
+        } catch (ArithmeticException e) {
+            lost.increment();
+            System.err.println("Payment ledger append failed, " + amount + " does not fit in minor units: " + e);
+            return;
+        }
+        totals[type.ordinal()].add(minor, settled);
+        if (!running) {
+            return;
+        }
+        appendLock.lock();
+        try {
+            if (current == null || current.count == current.capacity) {
+                roll();
+            }
+            long millis = Math.max(clock.getAsLong(), lastMillis);
+            int position = current.count * RECORD_BYTES;
+            LedgerRecords.put(current.records, position, millis, minor, type.ordinal(), settled);
+            lastMillis = millis;
+            dirty = true;
+            current.count++;
+        } catch (IOException | RuntimeException e) {
+            lost.increment();
+            System.err.println("Payment ledger append failed: " + e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Totals since the ledger was created, read from the running counters.
+     */
+    public List<LedgerTotals> totals() {
+        List<LedgerTotals> result = new ArrayList<>(TYPES.length);
+        for (PaymentType type : TYPES) {
+            Totals counters = totals[type.ordinal()];
+            result.add(new LedgerTotals(type, counters.settledCount.sum(),
+                    fromMinorUnits(counters.settledMinor.sum()), counters.failedCount.sum(),
+                    fromMinorUnits(counters.failedMinor.sum())));
+        }
+        return result;
+    }
+
+    /**
+     * Totals of the records written in {@code [from, to)}, summed from the mapped records.
+     */
+    public List<LedgerTotals> totals(Instant from, Instant to) {
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        long[] settledCount = new long[TYPES.length];
+        long[] settledMinor = new long[TYPES.length];
+        long[] failedCount = new long[TYPES.length];
+        long[] failedMinor = new long[TYPES.length];
+        for (Segment segment : segments) {
+            int count = segment.count;
+            if (count == 0 || segment.millisAt(0) >= toMillis || segment.millisAt(count - 1) < fromMillis) {
+                continue;
+            }
+            int end = firstAtOrAfter(segment, count, toMillis);
+            MappedByteBuffer records = segment.records;
+            for (int index = firstAtOrAfter(segment, count, fromMillis); index < end; index++) {
+                int position = index * RECORD_BYTES;
+                int type = LedgerRecords.typeOrdinal(records, position);
+                long minor = LedgerRecords.amountMinor(records, position);
+                if (LedgerRecords.settled(records, position)) {
+                    settledCount[type]++;
+                    settledMinor[type] += minor;
+                } else {
+                    failedCount[type]++;
+                    failedMinor[type] += minor;
+                }
+            }
+        }
+        List<LedgerTotals> result = new ArrayList<>(TYPES.length);
+        for (PaymentType type : TYPES) {
+            int index = type.ordinal();
+            result.add(new LedgerTotals(type, settledCount[index], fromMinorUnits(settledMinor[index]),
+                    failedCount[index], fromMinorUnits(failedMinor[index])));
+        }
+        return result;
+    }
+
+    /**
+     * Outcomes that could not be recorded. Those that only failed to reach a segment are still in
+     * the running totals; those whose amount does not fit in minor units are in neither.
+     */
+    public long lostCount() {
+        return lost.sum();
+    }
+
+    /**
+     * Rejects an amount the gateways must not be charged because the ledger could not record it:
+     * one that rounds to less than one minor unit or does not fit in a {@code long} of them. Check
+     * every amount of a request before anything is charged.
+     *
+     * @throws ResponseStatusException 400 naming what is wrong with {@code amount}
+     */
+    public void requireValidAmount(BigDecimal amount) {
+        long minor;
+        try {
+            minor = toMinorUnits(amount);
+        } catch (ArithmeticException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "amount is too large");
+        }
+        if (minor <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "amount must be at least " + fromMinorUnits(1));
+        }
+    }
+
+    /**
+     * @throws ArithmeticException when {@code amount} does not fit in a {@code long} of minor units
+     */
+    public long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(scale, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    public BigDecimal fromMinorUnits(long minor) {
+        return BigDecimal.valueOf(minor, scale);
+    }
+
+    public void close() {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+        flusher.shutdownNow();
+        flush();
+    }
+
+    private void flush() {
+        appendLock.lock();
+        try {
+            if (dirty && current != null) {
+                current.records.force();
+                dirty = false;
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Payment ledger flush failed: " + e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void roll() throws IOException {
+        if (current != null) {
+            current.records.force();
+        }
+        Path file = directory.resolve(LedgerRecords.segmentName(nextSegmentIndex++));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            current = new Segment(channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) segmentRecords * RECORD_BYTES));
+        }
+        segments.add(current);
+    }
+
+    private static Segment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size() - channel.size() % RECORD_BYTES;
+            return new Segment(channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    private void replay(Segment segment) {
+        MappedByteBuffer records = segment.records;
+        int count = 0;
+        long previous = lastMillis;
+        while (count < segment.capacity) {
+            int position = count * RECORD_BYTES;
+            long millis = LedgerRecords.epochMillis(records, position);
+            int type = LedgerRecords.typeOrdinal(records, position);
+            if (millis == 0 || millis < previous || type < 0 || type >= TYPES.length) {
+                break;
+            }
+            totals[type].add(LedgerRecords.amountMinor(records, position), LedgerRecords.settled(records, position));
+            previous = millis;
+            count++;
+        }
+        segment.count = count;
+        lastMillis = previous;
+    }
+
+    /**
+     * @return the index of the first of the {@code count} records at or after {@code millis}
+     */
+    private static int firstAtOrAfter(Segment segment, int count, long millis) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (segment.millisAt(middle) < millis) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,480 @@
+package com.noua.design.patterns.factoryMethod.outbox;
+
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * File-backed outbox for notifications, so a notification accepted by the API survives a crash
+ * and is delivered at least once without an external broker.
+ * <p>
+ * Every change is a record in an append-only journal split into segments named after their start
+ * offset: {@code ENQUEUE} when a notification is accepted, {@code ACK} once it was delivered or
+ * given up on. A single writer thread drains all pending appends, writes them with one call and
+ * forces the file once per batch (group commit); {@link #append} returns once its batch is durable.
+ * An {@code ENQUEUE} only counts as pending once its batch was written and forced; a failed batch
+ * is cut off the segment again, so the next one starts at the same offset. Callers wait at most
+ * {@code appendTimeout}.
+ * The checkpoint is the offset of the oldest unacknowledged {@code ENQUEUE}: it is persisted
+ * periodically, segments entirely below it are deleted, and recovery replays from it.
+ * <p>
+ * Segments start with {@code int magic | int version}, followed by records laid out as
+ * {@code int length | int crc32c | byte kind | long idHigh | long idLow | payload}, where the
+ * {@code ENQUEUE} payload is {@code byte type | byte priority | int toLength | to |
+ * int messageLength | message}. Segments written before the header was added have none; their
+ * {@code ENQUEUE} payloads either carry the priority byte or, in the first layout, lack it and are
+ * replayed at {@code MEDIUM}, the API default. The payload length tells the two apart. A record
+ * that does not decode exactly, or a segment of an unknown version, fails the start rather than
+ * being misread. Notifications that exhaust their retries are appended to {@code dead-letter.log}.
+ */
+public class NotificationOutbox {
+
+    private static final byte ENQUEUE = 1;
+    private static final byte ACK = 2;
+    private static final int MAGIC = 0x4F555442; // "OUTB"
+    private static final int VERSION = 2;
+    private static final int SEGMENT_HEADER = Integer.BYTES * 2;
+    private static final int FRAME_HEADER = Integer.BYTES * 2;
+    private static final String SEGMENT_PREFIX = "outbox-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String DEAD_LETTER = "dead-letter.log";
+    private static final NotificationType[] TYPES = NotificationType.values();
+    private static final AlertPriority[] PRIORITIES = AlertPriority.values();
+
+    private record Write(ByteBuffer frame, UUID enqueued, CompletableFuture<Void> done) {}
+
+    private final Path directory;
+    private final long segmentSize;
+    private final int maxBatch;
+    private final long checkpointIntervalNanos;
+    private final long appendTimeoutNanos;
+
+    private final BlockingQueue<Write> writes = new LinkedBlockingQueue<>();
+    private final Map<UUID, Long> pending = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Long> pendingOffsets = new ConcurrentSkipListSet<>();
+    private final List<OutboxRecord> recovered = new ArrayList<>();
+
+    private volatile boolean running;
+    private Thread writer;
+    private FileChannel segment;
+    private long segmentBase;
+    private long writeOffset;
+    private long lastCheckpoint = -1;
+
+    public NotificationOutbox(Path directory, long segmentSize, int maxBatch, Duration checkpointInterval,
+                              Duration appendTimeout) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxBatch = maxBatch;
+        this.checkpointIntervalNanos = checkpointInterval.toNanos();
+        this.appendTimeoutNanos = appendTimeout.toNanos();
+    }
+
+    /**
+     * Replays the journal from the last checkpoint and starts the writer. Notifications that were
+     * accepted but never acknowledged are handed out once by {@link #takeRecovered()}.
+     *
+     * @throws IllegalStateException when a segment was written in an unknown format
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            long checkpoint = readCheckpoint();
+            Map<UUID, Map.Entry<Long, OutboxRecord>> unacknowledged = new LinkedHashMap<>();
+            for (Path file : segments()) {
+                replay(file, checkpoint, unacknowledged);
+            }
+            unacknowledged.forEach((id, entry) -> {
+                pending.put(id, entry.getKey());
+                pendingOffsets.add(entry.getKey());
+                recovered.add(entry.getValue());
+            });
+            openSegment(writeOffset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to recover notification outbox from " + directory, e);
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "notification-outbox-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * @return the unacknowledged notifications found by {@link #start()}, in journal order
+     */
+    public synchronized List<OutboxRecord> takeRecovered() {
+        List<OutboxRecord> records = List.copyOf(recovered);
+        recovered.clear();
+        return records;
+    }
+
+    /**
+     * Journals the notification and waits until it is on disk.
+     *
+     * @throws OutboxUnavailableException 503 when the outbox is closed, the write failed or it was
+     *                                    not durable within the append timeout
+     */
+    public void append(OutboxRecord record) {
+        if (!running) {
+            throw new OutboxUnavailableException("the outbox is not running");
+        }
+        byte[] to = record.to().getBytes(StandardCharsets.UTF_8);
+        byte[] message = record.message().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(2 + Integer.BYTES + to.length + Integer.BYTES + message.length);
+        payload.put((byte) record.type().ordinal())
+                .put((byte) record.priority().ordinal())
+                .putInt(to.length).put(to)
+                .putInt(message.length).put(message)
+                .flip();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Write write = new Write(frame(ENQUEUE, record.id(), payload), record.id(), done);
+        writes.add(write);
+        try {
+            done.get(appendTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw new OutboxUnavailableException("the journal write failed: " + e.getCause().getMessage());
+        } catch (TimeoutException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (!writes.remove(write)) {
+                // already being written: settle it as soon as it is, so it does not pin the checkpoint
+                done.thenRun(() -> acknowledge(record.id()));
+            }
+            throw new OutboxUnavailableException("the journal write did not complete in time");
+        }
+    }
+
+    /**
+     * Marks the notification as settled. Not awaited: a lost acknowledgement only means a
+     * redelivery after a crash.
+     */
+    public void acknowledge(UUID id) {
+        writes.add(new Write(frame(ACK, id, ByteBuffer.allocate(0)), null, null));
+    }
+
+    /**
+     * Records a notification that exhausted its retries, then acknowledges it.
+     */
+    public void deadLetter(OutboxRecord record, int attempts, String error) {
+        String line = String.format("%s\t%s\t%s\t%s\t%d\t%s\t%s%n", Instant.now(), record.id(), record.type(),
+                record.to(), attempts, sanitize(error), sanitize(record.message()));
+        try {
+            Files.writeString(directory.resolve(DEAD_LETTER), line, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write dead letter for " + record.id(), e);
+        }
+        acknowledge(record.id());
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    public void close() throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            thread = writer;
+        }
+        // no interrupt: it would close the journal channel mid-write; the writer polls with a timeout
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void writeLoop() {
+        List<Write> batch = new ArrayList<>(maxBatch);
+        long nextCheckpoint = System.nanoTime() + checkpointIntervalNanos;
+        while (running || !writes.isEmpty()) {
+            try {
+                Write first = writes.poll(checkpointIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    writes.drainTo(batch, maxBatch - 1);
+                    flush(batch);
+                    batch.clear();
+                }
+                if (System.nanoTime() - nextCheckpoint >= 0) {
+                    checkpoint();
+                    nextCheckpoint = System.nanoTime() + checkpointIntervalNanos;
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (IOException | RuntimeException e) {
+                batch.forEach(write -> {
+                    if (write.done() != null) {
+                        write.done().completeExceptionally(e);
+                    }
+                });
+                batch.clear();
+            }
+        }
+        IllegalStateException closed = new IllegalStateException("Notification outbox closed");
+        List<Write> abandoned = new ArrayList<>();
+        writes.drainTo(abandoned);
+        abandoned.forEach(write -> {
+            if (write.done() != null) {
+                write.done().completeExceptionally(closed);
+            }
+        });
+        try {
+            checkpoint();
+            segment.close();
+        } catch (IOException e) {
+            System.err.println("Unable to close notification outbox: " + e);
+        }
+    }
+
+    private void flush(List<Write> batch) throws IOException {
+        if (writeOffset - segmentBase >= segmentSize) {
+            segment.force(false);
+            segment.close();
+            openSegment(writeOffset);
+        }
+        ByteBuffer[] frames = new ByteBuffer[batch.size()];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = batch.get(i).frame();
+        }
+        try {
+            while (hasRemaining(frames)) {
+                segment.write(frames);
+            }
+            segment.force(false);
+        } catch (IOException | RuntimeException e) {
+            try {
+                // cut off a partial write so the next batch starts at writeOffset again
+                segment.truncate(writeOffset - segmentBase);
+                segment.position(writeOffset - segmentBase);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+            }
+            throw e;
+        }
+        long offset = writeOffset;
+        for (Write write : batch) {
+            if (write.enqueued() != null) {
+                pending.put(write.enqueued(), offset);
+                pendingOffsets.add(offset);
+            }
+            offset += write.frame().capacity();
+        }
+        writeOffset = offset;
+        for (Write write : batch) {
+            if (write.done() != null) {
+                write.done().complete(null);
+            } else {
+                Long acknowledged = pending.remove(idOf(write.frame()));
+                if (acknowledged != null) {
+                    pendingOffsets.remove(acknowledged);
+                }
+            }
+        }
+    }
+
+    private void checkpoint() throws IOException {
+        long checkpoint = pendingOffsets.isEmpty() ? writeOffset : pendingOffsets.first();
+        if (checkpoint == lastCheckpoint) {
+            return;
+        }
+        Path temp = directory.resolve(CHECKPOINT + ".tmp");
+        Files.writeString(temp, Long.toString(checkpoint));
+        Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        lastCheckpoint = checkpoint;
+
+        List<Path> files = segments();
+        for (int i = 0; i + 1 < files.size(); i++) {
+            // a segment is fully settled once the next one starts at or below the checkpoint
+            if (baseOf(files.get(i + 1)) <= checkpoint) {
+                Files.deleteIfExists(files.get(i));
+            }
+        }
+    }
+
+    private void replay(Path file, long checkpoint, Map<UUID, Map.Entry<Long, OutboxRecord>> unacknowledged) throws IOException {
+        long base = baseOf(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer journal = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            boolean headerless = journal.remaining() < SEGMENT_HEADER || journal.getInt(0) != MAGIC;
+            if (!headerless) {
+                int version = journal.getInt(Integer.BYTES);
+                if (version != VERSION) {
+                    throw new IllegalStateException(file + " has notification outbox format version " + version
+                            + ", this build reads up to " + VERSION + "; move it away to start without it");
+                }
+                journal.position(SEGMENT_HEADER);
+            }
+            CRC32C crc = new CRC32C();
+            while (journal.remaining() >= FRAME_HEADER) {
+                int start = journal.position();
+                int length = journal.getInt();
+                int checksum = journal.getInt();
+                if (length < 1 + 2 * Long.BYTES || length > journal.remaining()) {
+                    break;
+                }
+                ByteBuffer body = journal.slice(journal.position(), length);
+                crc.reset();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break; // torn tail of the last batch before a crash
+                }
+                journal.position(journal.position() + length);
+                byte kind = body.get();
+                UUID id = new UUID(body.getLong(), body.getLong());
+                long offset = base + start;
+                if (kind == ENQUEUE && offset >= checkpoint) {
+                    unacknowledged.put(id, Map.entry(offset, decode(id, body, headerless, file, offset)));
+                } else if (kind == ACK) {
+                    unacknowledged.remove(id);
+                }
+            }
+            writeOffset = Math.max(writeOffset, base + journal.position());
+        }
+    }
+
+    /**
+     * Decodes an {@code ENQUEUE} payload. A headerless segment may hold the first layout, without
+     * the priority byte, so there the layout whose lengths add up to the payload is taken.
+     *
+     * @throws IllegalStateException when the payload is not exactly one {@code ENQUEUE} payload
+     */
+    private OutboxRecord decode(UUID id, ByteBuffer body, boolean headerless, Path file, long offset) {
+        OutboxRecord record = headerless ? read(id, body.slice(), false) : null;
+        if (record == null) {
+            record = read(id, body, true);
+        }
+        if (record == null) {
+            throw new IllegalStateException(file + " holds a record at offset " + offset
+                    + " that is not a notification outbox ENQUEUE record; move it away to start without it");
+        }
+        return record;
+    }
+
+    /**
+     * @return the record, or {@code null} when {@code body} is not exactly one payload of this layout
+     */
+    private static OutboxRecord read(UUID id, ByteBuffer body, boolean withPriority) {
+        try {
+            NotificationType type = TYPES[body.get()];
+            AlertPriority priority = withPriority ? PRIORITIES[body.get()] : AlertPriority.MEDIUM;
+            String to = text(body);
+            String message = to == null ? null : text(body);
+            if (message != null && !body.hasRemaining()) {
+                return new OutboxRecord(id, type, priority, to, message);
+            }
+        } catch (RuntimeException e) {
+            // an out-of-range ordinal, or the payload ended early
+        }
+        return null;
+    }
+
+    /**
+     * Reads {@code int length | bytes}, checking the length before allocating for it.
+     */
+    private static String text(ByteBuffer body) {
+        int length = body.getInt();
+        if (length < 0 || length > body.remaining()) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer frame(byte kind, UUID id, ByteBuffer payload) {
+        int length = 1 + 2 * Long.BYTES + payload.remaining();
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER + length);
+        frame.putInt(length).putInt(0)
+                .put(kind).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits())
+                .put(payload);
+        CRC32C crc = new CRC32C();
+        crc.update(frame.array(), FRAME_HEADER, length);
+        frame.putInt(Integer.BYTES, (int) crc.getValue());
+        return frame.flip();
+    }
+
+    private UUID idOf(ByteBuffer frame) {
+        return new UUID(frame.getLong(FRAME_HEADER + 1), frame.getLong(FRAME_HEADER + 1 + Long.BYTES));
+    }
+
+    /**
+     * Starts a segment at {@code base} and writes its header; it is forced with the first batch.
+     */
+    private void openSegment(long base) throws IOException {
+        segmentBase = base;
+        segment = FileChannel.open(directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, base, SEGMENT_SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER).putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) {
+            segment.write(header);
+        }
+        writeOffset = base + SEGMENT_HEADER;
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT);
+        return Files.exists(file) ? Long.parseLong(Files.readString(file).trim()) : 0;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    private static long baseOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static boolean hasRemaining(ByteBuffer[] buffers) {
+        return buffers.length > 0 && buffers[buffers.length - 1].hasRemaining();
+    }
+
+    private static String sanitize(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    public static class OutboxUnavailableException extends ResponseStatusException {
+        public OutboxUnavailableException(String reason) {
+            super(HttpStatus.SERVICE_UNAVAILABLE, "Notification outbox unavailable: " + reason);
+        }
+    }
+}
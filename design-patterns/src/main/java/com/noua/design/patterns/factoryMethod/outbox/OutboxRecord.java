@@ -0,0 +1,14 @@
+package com.noua.design.patterns.factoryMethod.outbox;
+
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+
+import java.util.UUID;
+
+public record OutboxRecord(
+        UUID id,
+        NotificationType type,
+        AlertPriority priority,
+        String to,
+        String message
+) {}
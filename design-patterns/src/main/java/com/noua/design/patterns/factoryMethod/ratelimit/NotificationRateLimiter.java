@@ -0,0 +1,137 @@
+package com.noua.design.patterns.factoryMethod.ratelimit;
+
+import com.noua.design.patterns.factoryMethod.config.NotificationRateLimitProperties;
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket limits per (channel, recipient) and per channel. Recipient buckets live in one
+ * {@link ConcurrentHashMap} per channel (bin-level locking on insert, a CAS per decision after
+ * that) and are swept once they have refilled, so memory follows the active recipients only.
+ */
+@Component
+public class NotificationRateLimiter {
+
+    private final NotificationRateLimitProperties properties;
+    private final Map<NotificationType, Map<String, TokenBucket>> recipients = new EnumMap<>(NotificationType.class);
+    private final Map<NotificationType, TokenBucket> channels = new EnumMap<>(NotificationType.class);
+    private final ScheduledExecutorService sweeper;
+
+    public NotificationRateLimiter(NotificationRateLimitProperties properties) {
+        this.properties = properties;
+        long now = System.nanoTime();
+        for (NotificationType type : NotificationType.values()) {
+            NotificationRateLimitProperties.Limit limit = properties.channelLimit(type);
+            channels.put(type, new TokenBucket(limit.permitsPerSecond(), limit.burst(), now));
+            recipients.put(type, new ConcurrentHashMap<>());
+        }
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-rate-limit-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.idleSweepInterval().toMillis();
+        sweeper.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @throws RateLimitedException 429 when either the recipient or the channel is over its limit
+     */
+    public void acquire(NotificationType type, String to) {
+        long wait = tryAcquire(type, to);
+        if (wait > 0) {
+            throw new RateLimitedException(type, wait);
+        }
+    }
+
+    /**
+     * @return {@code 0} when the notification may be sent, otherwise the nanoseconds to wait
+     */
+    public long tryAcquire(NotificationType type, String to) {
+        if (!properties.enabled()) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        TokenBucket recipient = recipientBucket(type, to, now);
+        long wait = recipient.tryAcquire(now);
+        if (wait > 0) {
+            return wait;
+        }
+        wait = channels.get(type).tryAcquire(now);
+        if (wait > 0) {
+            // nothing is sent, so the recipient keeps its token
+            recipient.refund();
+        }
+        return wait;
+    }
+
+    public long tryAcquireRecipient(NotificationType type, String to) {
+        if (!properties.enabled()) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        return recipientBucket(type, to, now).tryAcquire(now);
+    }
+
+    /**
+     * Blocks until the channel has a token, used by bulk sends that should be paced rather than
+     * rejected.
+     */
+    public void awaitChannel(NotificationType type) throws InterruptedException {
+        if (!properties.enabled()) {
+            return;
+        }
+        long wait;
+        while ((wait = channels.get(type).tryAcquire(System.nanoTime())) > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    private TokenBucket recipientBucket(NotificationType type, String to, long now) {
+        Map<String, TokenBucket> buckets = recipients.get(type);
+        TokenBucket bucket = buckets.get(to);
+        if (bucket == null) {
+            NotificationRateLimitProperties.Limit limit = properties.recipient();
+            bucket = buckets.computeIfAbsent(to, key -> new TokenBucket(limit.permitsPerSecond(), limit.burst(), now));
+        }
+        return bucket;
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        recipients.values().forEach(buckets ->
+                buckets.entrySet().removeIf(entry -> entry.getValue().isIdle(now)));
+    }
+
+    public static class RateLimitedException extends ResponseStatusException {
+        private final long retryAfterSeconds;
+
+        public RateLimitedException(NotificationType type, long waitNanos) {
+            super(HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded for " + type);
+            this.retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            return headers;
+        }
+    }
+}
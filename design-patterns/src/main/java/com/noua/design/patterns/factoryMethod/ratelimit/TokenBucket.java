@@ -0,0 +1,62 @@
+package com.noua.design.patterns.factoryMethod.ratelimit;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Token bucket kept as a single "theoretical arrival time" (GCRA), so taking a token is one CAS on
+ * one long and the bucket is a single small object. A bucket whose arrival time has passed is
+ * full again and can be dropped without changing any decision.
+ */
+public class TokenBucket {
+
+    private static final VarHandle TAT;
+
+    static {
+        try {
+            TAT = MethodHandles.lookup().findVarHandle(TokenBucket.class, "tat", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    @SuppressWarnings("unused")
+    private volatile long tat;
+
+    public TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+        this.emissionIntervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * Math.max(0, burst - 1);
+        this.tat = nowNanos;
+    }
+
+    /**
+     * @return {@code 0} when a token was taken, otherwise the nanoseconds until one is available
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = tat;
+            long allowedAt = current - burstToleranceNanos;
+            if (nowNanos - allowedAt < 0) {
+                return allowedAt - nowNanos;
+            }
+            long next = Math.max(current, nowNanos) + emissionIntervalNanos;
+            if (TAT.compareAndSet(this, current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by {@link #tryAcquire} when the call it was for did not go ahead.
+     * The arrival time may end up in the past, which simply reads as a full bucket.
+     */
+    public void refund() {
+        TAT.getAndAdd(this, -emissionIntervalNanos);
+    }
+
+    public boolean isIdle(long nowNanos) {
+        return tat - nowNanos <= 0;
+    }
+}
@@ -0,0 +1,126 @@
+package com.noua.design.patterns.factoryMethod.reconciliation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * One side's records, hash-partitioned into a spill file per partition so that matching only ever
+ * holds one partition in memory. Each scanning task writes through its own {@link Writer}, which
+ * buffers per partition and appends whole buffers, so concurrent appends never interleave a record.
+ * Spill record: {@code long amount | long meta} (see {@link RecordList}).
+ */
+final class PartitionSpill implements AutoCloseable {
+
+    private static final int RECORD_BYTES = 2 * Long.BYTES;
+    private static final int BUFFER_BYTES = 512 * RECORD_BYTES;
+
+    private final Path directory;
+    private final String prefix;
+    private final Map<Long, FileChannel> channels = new ConcurrentHashMap<>();
+
+    PartitionSpill(Path directory, String prefix) {
+        this.directory = directory;
+        this.prefix = prefix;
+    }
+
+    Writer writer() {
+        return new Writer();
+    }
+
+    Set<Long> partitions() {
+        return channels.keySet();
+    }
+
+    RecordList read(long partition) throws IOException {
+        if (!channels.containsKey(partition)) {
+            return new RecordList(0);
+        }
+        try (FileChannel channel = FileChannel.open(file(partition), StandardOpenOption.READ)) {
+            return read(partition, channel);
+        }
+    }
+
+    private static RecordList read(long partition, FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size / RECORD_BYTES > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("partition " + partition + " holds too many records, use a smaller bucket");
+        }
+        int count = (int) (size / RECORD_BYTES);
+        RecordList records = new RecordList(count);
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        for (int i = 0; i < count; i++) {
+            records.add(bytes.getLong(i * RECORD_BYTES), bytes.getLong(i * RECORD_BYTES + Long.BYTES));
+        }
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (FileChannel channel : channels.values()) {
+            channel.close();
+        }
+        channels.clear();
+    }
+
+    static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    private Path file(long partition) {
+        return directory.resolve(prefix + "-" + partition + ".bin");
+    }
+
+    private FileChannel channel(long partition) {
+        return channels.computeIfAbsent(partition, key -> {
+            try {
+                return FileChannel.open(file(key), StandardOpenOption.CREATE_NEW, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    final class Writer {
+        private final Map<Long, ByteBuffer> buffers = new HashMap<>();
+
+        void add(long partition, long amount, long meta) throws IOException {
+            ByteBuffer buffer = buffers.computeIfAbsent(partition, key -> ByteBuffer.allocate(BUFFER_BYTES));
+            if (!buffer.hasRemaining()) {
+                write(partition, buffer);
+            }
+            buffer.putLong(amount).putLong(meta);
+        }
+
+        void flush() throws IOException {
+            for (Map.Entry<Long, ByteBuffer> entry : buffers.entrySet()) {
+                write(entry.getKey(), entry.getValue());
+            }
+            buffers.clear();
+        }
+
+        private void write(long partition, ByteBuffer buffer) throws IOException {
+            buffer.flip();
+            FileChannel channel = channel(partition);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.noua.design.patterns.factoryMethod.reconciliation;
+
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parses provider settlement lines {@code timestamp,type,amount,status} straight from mapped bytes.
+ * The timestamp is epoch millis or an ISO-8601 instant, the type a {@link PaymentType} name, the
+ * status {@code SETTLED} or {@code FAILED} (case-insensitive). A first line that does not start
+ * with a digit is taken as a header.
+ * <p>
+ * A file is parsed in independent chunks: a chunk skips the partial line it starts in and finishes
+ * the line it ends in, so every line is parsed by exactly one chunk.
+ */
+final class ProviderCsvParser {
+
+    static final int MAX_LINE_BYTES = 64 * 1024;
+
+    private static final PaymentType[] TYPES = PaymentType.values();
+    private static final byte[][] TYPE_NAMES = new byte[TYPES.length][];
+    private static final byte[] SETTLED = "SETTLED".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FAILED = "FAILED".getBytes(StandardCharsets.US_ASCII);
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        for (PaymentType type : TYPES) {
+            TYPE_NAMES[type.ordinal()] = type.name().getBytes(StandardCharsets.US_ASCII);
+        }
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    interface Sink {
+        void accept(int type, long epochMillis, long amountMinor, boolean settled) throws IOException;
+    }
+
+    private final int scale;
+
+    ProviderCsvParser(int scale) {
+        this.scale = scale;
+    }
+
+    /**
+     * Parses the lines starting in {@code [start, end)} of the file.
+     *
+     * @return the number of malformed lines
+     */
+    long parseChunk(FileChannel channel, long fileSize, long start, long end, Sink sink) throws IOException {
+        long mapStart = start == 0 ? 0 : start - 1;
+        long mapEnd = Math.min(fileSize, end + MAX_LINE_BYTES);
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+        int limit = (int) (mapEnd - mapStart);
+        int chunkEnd = (int) (end - mapStart);
+        int position = 0;
+        if (start > 0 || (limit > 0 && !isDigit(bytes.get(0)))) {
+            // skip the line begun in the previous chunk (or the header)
+            while (position < limit && bytes.get(position) != '\n') {
+                position++;
+            }
+            position++;
+        }
+        long malformed = 0;
+        while (position < chunkEnd) {
+            int lineEnd = position;
+            while (lineEnd < limit && bytes.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            if (lineEnd == limit && mapEnd < fileSize) {
+                throw new IOException("line at offset " + (mapStart + position) + " exceeds " + MAX_LINE_BYTES + " bytes");
+            }
+            if (!parseLine(bytes, position, lineEnd, sink)) {
+                malformed++;
+            }
+            position = lineEnd + 1;
+        }
+        return malformed;
+    }
+
+    /**
+     * @return {@code false} when the line is malformed; blank lines are accepted and skipped
+     */
+    boolean parseLine(ByteBuffer bytes, int from, int to, Sink sink) throws IOException {
+        if (to > from && bytes.get(to - 1) == '\r') {
+            to--;
+        }
+        if (to == from) {
+            return true;
+        }
+        int first = indexOf(bytes, from, to);
+        int second = first < 0 ? -1 : indexOf(bytes, first + 1, to);
+        int third = second < 0 ? -1 : indexOf(bytes, second + 1, to);
+        if (third < 0) {
+            return false;
+        }
+        long millis = parseTimestamp(bytes, from, first);
+        int type = parseType(bytes, first + 1, second);
+        long amount = parseAmount(bytes, second + 1, third);
+        int status = parseStatus(bytes, third + 1, to);
+        if (millis == Long.MIN_VALUE || type < 0 || amount == Long.MIN_VALUE || status < 0) {
+            return false;
+        }
+        sink.accept(type, millis, amount, status == 1);
+        return true;
+    }
+
+    private static long parseTimestamp(ByteBuffer bytes, int from, int to) {
+        if (from == to || to - from > 18) {
+            return parseIsoTimestamp(bytes, from, to);
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            byte digit = bytes.get(i);
+            if (!isDigit(digit)) {
+                return parseIsoTimestamp(bytes, from, to);
+            }
+            value = value * 10 + (digit - '0');
+        }
+        return value;
+    }
+
+    private static long parseIsoTimestamp(ByteBuffer bytes, int from, int to) {
+        try {
+            return Instant.parse(ascii(bytes, from, to)).toEpochMilli();
+        } catch (DateTimeParseException | ArithmeticException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private static int parseType(ByteBuffer bytes, int from, int to) {
+        for (int type = 0; type < TYPE_NAMES.length; type++) {
+            if (equalsIgnoreCase(bytes, from, to, TYPE_NAMES[type])) {
+                return type;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the amount in units of 10^-scale, or {@code Long.MIN_VALUE} when malformed
+     */
+    private long parseAmount(ByteBuffer bytes, int from, int to) {
+        int position = from;
+        boolean negative = position < to && bytes.get(position) == '-';
+        if (negative) {
+            position++;
+        }
+        long value = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; position < to; position++) {
+            byte character = bytes.get(position);
+            if (character == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (isDigit(character) && digits < 18) {
+                value = value * 10 + (character - '0');
+                digits++;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else {
+                return slowAmount(bytes, from, to);
+            }
+        }
+        if (digits == 0) {
+            return Long.MIN_VALUE;
+        }
+        decimals = Math.max(decimals, 0);
+        if (decimals > scale || scale - decimals >= POWERS_OF_TEN.length) {
+            return slowAmount(bytes, from, to);
+        }
+        long scaled = value * POWERS_OF_TEN[scale - decimals];
+        if (scaled / POWERS_OF_TEN[scale - decimals] != value) {
+            return Long.MIN_VALUE;
+        }
+        return negative ? -scaled : scaled;
+    }
+
+    private long slowAmount(ByteBuffer bytes, int from, int to) {
+        try {
+            return new BigDecimal(ascii(bytes, from, to)).setScale(scale, RoundingMode.HALF_EVEN)
+                    .unscaledValue().longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private static int parseStatus(ByteBuffer bytes, int from, int to) {
+        if (equalsIgnoreCase(bytes, from, to, SETTLED)) {
+            return 1;
+        }
+        return equalsIgnoreCase(bytes, from, to, FAILED) ? 0 : -1;
+    }
+
+    private static int indexOf(ByteBuffer bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes.get(i) == ',') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean equalsIgnoreCase(ByteBuffer bytes, int from, int to, byte[] expected) {
+        if (to - from != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            int character = bytes.get(from + i);
+            if (character >= 'a' && character <= 'z') {
+                character -= 'a' - 'A';
+            }
+            if (character != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String ascii(ByteBuffer bytes, int from, int to) {
+        byte[] text = new byte[to - from];
+        bytes.get(from, text);
+        return new String(text, StandardCharsets.US_ASCII);
+    }
+
+    private static boolean isDigit(byte character) {
+        return character >= '0' && character <= '9';
+    }
+}
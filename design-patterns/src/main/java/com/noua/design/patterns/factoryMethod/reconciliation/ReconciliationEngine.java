@@ -0,0 +1,567 @@
+package com.noua.design.patterns.factoryMethod.reconciliation;
+
+import com.noua.design.patterns.factoryMethod.config.PaymentLedgerProperties;
+import com.noua.design.patterns.factoryMethod.config.PaymentReconciliationProperties;
+import com.noua.design.patterns.factoryMethod.domain.DiscrepancyKind;
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import com.noua.design.patterns.factoryMethod.dto.Discrepancy;
+import com.noua.design.patterns.factoryMethod.dto.ReconciliationReport;
+import com.noua.design.patterns.factoryMethod.dto.ReconciliationSummary;
+import com.noua.design.patterns.factoryMethod.ledger.LedgerRecords;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Reconciles the payment ledger against a provider settlement CSV.
+ * <p>
+ * Both inputs are scanned in parallel, one memory-mapped chunk per task, and every record is
+ * spilled to a file per {@code (PaymentType, time bucket)} partition, so neither input has to fit
+ * in the heap; only the partitions being matched, one per worker, are loaded. Partitions are then matched by a fork-join task
+ * tree: two records match when type, amount and status are equal. Unmatched records of a type are
+ * finally paired across bucket boundaries within the clock skew, first exactly, then with a
+ * different status ({@link DiscrepancyKind#STATUS_MISMATCH}), then to the closest amount within
+ * {@code max-drift} ({@link DiscrepancyKind#AMOUNT_DRIFT}); the rest are missing on the other side.
+ * Those leftovers are spilled as well and resolved one bucket at a time, carrying into the next
+ * bucket only the records within twice the clock skew of it, so the heap holds a bucket's leftovers
+ * rather than all of a type's.
+ */
+@Component
+public class ReconciliationEngine {
+
+    private static final PaymentType[] TYPES = PaymentType.values();
+
+    private final Path inbox;
+    private final Path ledgerDirectory;
+    private final Path workDirectory;
+    private final long bucketMillis;
+    private final long skewMillis;
+    private final long maxDriftMinor;
+    private final long chunkBytes;
+    private final int maxDiscrepancies;
+    private final int scale;
+    private final ForkJoinPool pool;
+
+    @Autowired
+    public ReconciliationEngine(PaymentReconciliationProperties properties, PaymentLedgerProperties ledger) {
+        this(properties.inbox(), ledger.directory(), properties.workDirectory(), properties.bucket(),
+                properties.clockSkew(), properties.maxDrift(), properties.chunkSize().toBytes(),
+                properties.parallelism(), properties.maxDiscrepancies(), ledger.scale());
+    }
+
+    ReconciliationEngine(Path inbox, Path ledgerDirectory, Path workDirectory, Duration bucket, Duration clockSkew,
+                         BigDecimal maxDrift, long chunkBytes, int parallelism, int maxDiscrepancies, int scale) {
+        if (bucket.toMillis() < 1 || chunkBytes < LedgerRecords.RECORD_BYTES) {
+            throw new IllegalArgumentException("bucket and chunk size must be positive");
+        }
+        this.inbox = inbox;
+        this.ledgerDirectory = ledgerDirectory;
+        this.workDirectory = workDirectory;
+        this.bucketMillis = bucket.toMillis();
+        this.skewMillis = clockSkew.toMillis();
+        this.maxDriftMinor = maxDrift.setScale(scale, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+        this.chunkBytes = Math.min(chunkBytes, Integer.MAX_VALUE - ProviderCsvParser.MAX_LINE_BYTES - 1L);
+        this.maxDiscrepancies = maxDiscrepancies;
+        this.scale = scale;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Reconciles the ledger against {@code file} from the inbox, limited to {@code [from, to)}
+     * when given.
+     */
+    public ReconciliationReport reconcile(String file, Instant from, Instant to) {
+        Path provider = inbox.resolve(file).normalize();
+        if (!provider.startsWith(inbox.normalize()) || !Files.isRegularFile(provider)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No settlement file " + file + " in the inbox");
+        }
+        return reconcile(ledgerDirectory, provider, from, to);
+    }
+
+    public ReconciliationReport reconcile(Path ledger, Path providerCsv, Instant from, Instant to) {
+        long started = System.nanoTime();
+        long fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+        long toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+        Path run = null;
+        try {
+            Files.createDirectories(workDirectory);
+            run = Files.createTempDirectory(workDirectory, "run-");
+            try (PartitionSpill local = new PartitionSpill(run, "local");
+                 PartitionSpill provider = new PartitionSpill(run, "provider");
+                 PartitionSpill localLeft = new PartitionSpill(run, "local-left");
+                 PartitionSpill providerLeft = new PartitionSpill(run, "provider-left")) {
+                SideTotals localTotals = new SideTotals();
+                SideTotals providerTotals = new SideTotals();
+                LongAdder malformed = new LongAdder();
+
+                List<Callable<Void>> scans = new ArrayList<>();
+                for (Path segment : LedgerRecords.segments(ledger)) {
+                    addLedgerScans(scans, segment, local, localTotals, fromMillis, toMillis);
+                }
+                addProviderScans(scans, providerCsv, provider, providerTotals, malformed, fromMillis, toMillis);
+                invokeAll(scans);
+
+                long[] partitions = union(local, provider);
+                long[] matched = pool.invoke(new MatchTask(local, provider, localLeft, providerLeft, partitions, 0,
+                        partitions.length));
+                return report(matched, localLeft, providerLeft, localTotals, providerTotals, malformed.sum(),
+                        partitions.length, started);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reconciliation of " + providerCsv + " failed", e);
+        } finally {
+            if (run != null) {
+                try {
+                    PartitionSpill.deleteDirectory(run);
+                } catch (IOException e) {
+                    System.err.println("Unable to delete reconciliation work files in " + run + ": " + e);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private void addLedgerScans(List<Callable<Void>> scans, Path segment, PartitionSpill spill, SideTotals totals,
+                                long fromMillis, long toMillis) throws IOException {
+        long size = Files.size(segment);
+        long step = chunkBytes - chunkBytes % LedgerRecords.RECORD_BYTES;
+        long end = size - size % LedgerRecords.RECORD_BYTES;
+        for (long start = 0; start < end; start += step) {
+            long chunkStart = start;
+            long chunkEnd = Math.min(end, start + step);
+            scans.add(() -> {
+                PartitionSpill.Writer writer = spill.writer();
+                try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                    MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkEnd - chunkStart);
+                    for (int position = 0; position < records.capacity(); position += LedgerRecords.RECORD_BYTES) {
+                        long millis = LedgerRecords.epochMillis(records, position);
+                        int type = LedgerRecords.typeOrdinal(records, position);
+                        if (millis == 0 || type < 0 || type >= TYPES.length || millis < fromMillis || millis >= toMillis) {
+                            continue;
+                        }
+                        long amount = LedgerRecords.amountMinor(records, position);
+                        boolean settled = LedgerRecords.settled(records, position);
+                        totals.add(type, amount, settled);
+                        writer.add(partition(type, millis), amount, RecordList.meta(millis, settled));
+                    }
+                }
+                writer.flush();
+                return null;
+            });
+        }
+    }
+
+    private void addProviderScans(List<Callable<Void>> scans, Path csv, PartitionSpill spill, SideTotals totals,
+                                  LongAdder malformed, long fromMillis, long toMillis) throws IOException {
+        long size = Files.size(csv);
+        ProviderCsvParser parser = new ProviderCsvParser(scale);
+        for (long start = 0; start < size; start += chunkBytes) {
+            long chunkStart = start;
+            long chunkEnd = Math.min(size, start + chunkBytes);
+            scans.add(() -> {
+                PartitionSpill.Writer writer = spill.writer();
+                try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+                    malformed.add(parser.parseChunk(channel, size, chunkStart, chunkEnd, (type, millis, amount, settled) -> {
+                        if (millis >= fromMillis && millis < toMillis) {
+                            totals.add(type, amount, settled);
+                            writer.add(partition(type, millis), amount, RecordList.meta(millis, settled));
+                        }
+                    }));
+                }
+                writer.flush();
+                return null;
+            });
+        }
+    }
+
+    private void invokeAll(List<Callable<Void>> tasks) throws IOException {
+        for (Future<Void> future : pool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("reconciliation interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+
+    private long partition(int type, long millis) {
+        return Math.floorDiv(millis, bucketMillis) * TYPES.length + type;
+    }
+
+    private static long[] union(PartitionSpill local, PartitionSpill provider) {
+        return Stream.concat(local.partitions().stream(), provider.partitions().stream())
+                .mapToLong(Long::longValue).distinct().sorted().toArray();
+    }
+
+    /**
+     * Matches partitions and returns the matched count per type; what is left unmatched in a
+     * partition is spilled to the same partition of {@code localLeft} and {@code providerLeft}.
+     */
+    private static final class MatchTask extends RecursiveTask<long[]> {
+        private final PartitionSpill local;
+        private final PartitionSpill provider;
+        private final PartitionSpill localLeft;
+        private final PartitionSpill providerLeft;
+        private final long[] partitions;
+        private final int from;
+        private final int to;
+
+        private MatchTask(PartitionSpill local, PartitionSpill provider, PartitionSpill localLeft,
+                          PartitionSpill providerLeft, long[] partitions, int from, int to) {
+            this.local = local;
+            this.provider = provider;
+            this.localLeft = localLeft;
+            this.providerLeft = providerLeft;
+            this.partitions = partitions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                MatchTask left = new MatchTask(local, provider, localLeft, providerLeft, partitions, from, middle);
+                left.fork();
+                long[] right = new MatchTask(local, provider, localLeft, providerLeft, partitions, middle, to).compute();
+                long[] matched = left.join();
+                for (int type = 0; type < TYPES.length; type++) {
+                    matched[type] += right[type];
+                }
+                return matched;
+            }
+            long[] matched = new long[TYPES.length];
+            if (from == to) {
+                return matched;
+            }
+            long partition = partitions[from];
+            int type = (int) Math.floorMod(partition, (long) TYPES.length);
+            try {
+                PartitionSpill.Writer localWriter = localLeft.writer();
+                PartitionSpill.Writer providerWriter = providerLeft.writer();
+                matched[type] = match(partition, local.read(partition), provider.read(partition), localWriter,
+                        providerWriter);
+                localWriter.flush();
+                providerWriter.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return matched;
+        }
+
+        /**
+         * Merge-joins both sides sorted by {@code (amount, status)}.
+         *
+         * @return how many records matched
+         */
+        private static long match(long partition, RecordList local, RecordList provider,
+                                  PartitionSpill.Writer localLeft, PartitionSpill.Writer providerLeft)
+                throws IOException {
+            local.sortByAmount();
+            provider.sortByAmount();
+            long matched = 0;
+            int i = 0;
+            int j = 0;
+            while (i < local.size && j < provider.size) {
+                int order = Long.compare(local.amounts[i], provider.amounts[j]);
+                if (order == 0) {
+                    order = Boolean.compare(local.settledAt(i), provider.settledAt(j));
+                }
+                if (order == 0) {
+                    matched++;
+                    i++;
+                    j++;
+                } else if (order < 0) {
+                    localLeft.add(partition, local.amounts[i], local.metas[i++]);
+                } else {
+                    providerLeft.add(partition, provider.amounts[j], provider.metas[j++]);
+                }
+            }
+            for (; i < local.size; i++) {
+                localLeft.add(partition, local.amounts[i], local.metas[i]);
+            }
+            for (; j < provider.size; j++) {
+                providerLeft.add(partition, provider.amounts[j], provider.metas[j]);
+            }
+            return matched;
+        }
+    }
+
+    private ReconciliationReport report(long[] matched, PartitionSpill localLeft, PartitionSpill providerLeft,
+                                        SideTotals localTotals, SideTotals providerTotals, long malformed,
+                                        int partitions, long startedNanos) throws IOException {
+        long[] leftPartitions = union(localLeft, providerLeft);
+        List<Callable<Leftovers>> resolutions = new ArrayList<>();
+        for (int type = 0; type < TYPES.length; type++) {
+            int current = type;
+            long[] buckets = Arrays.stream(leftPartitions)
+                    .filter(partition -> Math.floorMod(partition, (long) TYPES.length) == current).toArray();
+            resolutions.add(() -> resolve(current, localLeft, providerLeft, buckets));
+        }
+        List<ReconciliationSummary> summaries = new ArrayList<>(TYPES.length);
+        List<Discrepancy> discrepancies = new ArrayList<>();
+        boolean truncated = false;
+        List<Future<Leftovers>> resolved = pool.invokeAll(resolutions);
+        for (int type = 0; type < TYPES.length; type++) {
+            Leftovers leftovers;
+            try {
+                leftovers = resolved.get(type).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("reconciliation interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw new IOException(e.getCause());
+            }
+            summaries.add(new ReconciliationSummary(TYPES[type],
+                    localTotals.records[type].sum(), providerTotals.records[type].sum(),
+                    matched[type] + leftovers.matched,
+                    leftovers.statusMismatches, leftovers.amountDrifts,
+                    leftovers.missingAtProvider, leftovers.missingLocally,
+                    BigDecimal.valueOf(localTotals.settledMinor[type].sum(), scale),
+                    BigDecimal.valueOf(providerTotals.settledMinor[type].sum(), scale),
+                    BigDecimal.valueOf(leftovers.driftMinor, scale)));
+            for (Discrepancy discrepancy : leftovers.samples) {
+                if (discrepancies.size() < maxDiscrepancies) {
+                    discrepancies.add(discrepancy);
+                } else {
+                    truncated = true;
+                }
+            }
+            truncated |= leftovers.truncated;
+        }
+        return new ReconciliationReport(summaries, discrepancies, truncated, malformed, partitions,
+                (System.nanoTime() - startedNanos) / 1_000_000);
+    }
+
+    private static final class Leftovers {
+        private long matched;
+        private long statusMismatches;
+        private long amountDrifts;
+        private long missingAtProvider;
+        private long missingLocally;
+        private long driftMinor;
+        private boolean truncated;
+        private final List<Discrepancy> samples = new ArrayList<>();
+    }
+
+    /**
+     * Resolves the leftovers of a type bucket by bucket, in time order. A record closer than the
+     * clock skew to the end of its bucket may still pair exactly with the next bucket, so it is not
+     * offered a status mismatch or a drift yet; a record closer than twice the skew may still be the
+     * counterpart of such a record, so it is carried into the next window instead of being reported
+     * missing.
+     */
+    private Leftovers resolve(int type, PartitionSpill localLeft, PartitionSpill providerLeft, long[] partitions)
+            throws IOException {
+        Leftovers leftovers = new Leftovers();
+        RecordList local = new RecordList(0);
+        RecordList provider = new RecordList(0);
+        for (int p = 0; p < partitions.length; p++) {
+            local.addAll(localLeft.read(partitions[p]));
+            provider.addAll(providerLeft.read(partitions[p]));
+            boolean last = p == partitions.length - 1;
+            long end = (Math.floorDiv(partitions[p], (long) TYPES.length) + 1) * bucketMillis;
+            long tail = last ? Long.MAX_VALUE : end - skewMillis;
+            long carried = last ? Long.MAX_VALUE : end - 2 * skewMillis;
+
+            local.sortByTime();
+            provider.sortByTime();
+            boolean[] localUsed = new boolean[local.size];
+            boolean[] providerUsed = new boolean[provider.size];
+            RecordList localWindow = local;
+            RecordList providerWindow = provider;
+
+            // same amount and status, split by a bucket boundary
+            pairByKey(local, localUsed, provider, providerUsed, true, Long.MAX_VALUE, (i, j) -> leftovers.matched++);
+            pairByKey(local, localUsed, provider, providerUsed, false, tail, (i, j) -> {
+                leftovers.statusMismatches++;
+                sample(leftovers, DiscrepancyKind.STATUS_MISMATCH, type, localWindow, i, providerWindow, j);
+            });
+
+            pairByAmount(local, localUsed, provider, providerUsed, tail, (i, j) -> {
+                leftovers.amountDrifts++;
+                leftovers.driftMinor += providerWindow.amounts[j] - localWindow.amounts[i];
+                sample(leftovers, DiscrepancyKind.AMOUNT_DRIFT, type, localWindow, i, providerWindow, j);
+            });
+
+            RecordList localCarry = new RecordList(0);
+            for (int i = 0; i < local.size; i++) {
+                if (localUsed[i]) {
+                    continue;
+                }
+                if (local.millisAt(i) >= carried) {
+                    localCarry.add(local.amounts[i], local.metas[i]);
+                } else {
+                    leftovers.missingAtProvider++;
+                    sample(leftovers, DiscrepancyKind.MISSING_AT_PROVIDER, type, local, i, provider, -1);
+                }
+            }
+            RecordList providerCarry = new RecordList(0);
+            for (int j = 0; j < provider.size; j++) {
+                if (providerUsed[j]) {
+                    continue;
+                }
+                if (provider.millisAt(j) >= carried) {
+                    providerCarry.add(provider.amounts[j], provider.metas[j]);
+                } else {
+                    leftovers.missingLocally++;
+                    sample(leftovers, DiscrepancyKind.MISSING_LOCALLY, type, local, -1, provider, j);
+                }
+            }
+            local = localCarry;
+            provider = providerCarry;
+        }
+        return leftovers;
+    }
+
+    private interface PairHandler {
+        void pair(int local, int provider);
+    }
+
+    /**
+     * Pairs each unused local record with the earliest unused provider record of the same key
+     * within the clock skew, leaving out records from {@code until} on. Both sides are walked in
+     * key, then time order.
+     */
+    private void pairByKey(RecordList local, boolean[] localUsed, RecordList provider, boolean[] providerUsed,
+                           boolean withStatus, long until, PairHandler handler) {
+        int[] locals = local.indicesByAmount(localUsed, until, withStatus);
+        int[] providers = provider.indicesByAmount(providerUsed, until, withStatus);
+        int k = 0;
+        for (int i : locals) {
+            while (k < providers.length && compareKey(provider, providers[k], local, i, withStatus) < 0) {
+                k++;
+            }
+            long millis = local.millisAt(i);
+            while (k < providers.length && compareKey(provider, providers[k], local, i, withStatus) == 0
+                    && provider.millisAt(providers[k]) < millis - skewMillis) {
+                k++;
+            }
+            if (k < providers.length && compareKey(provider, providers[k], local, i, withStatus) == 0
+                    && provider.millisAt(providers[k]) <= millis + skewMillis) {
+                int j = providers[k++];
+                localUsed[i] = true;
+                providerUsed[j] = true;
+                handler.pair(i, j);
+            }
+        }
+    }
+
+    /**
+     * Pairs each unused local record with the unused provider record within the clock skew whose
+     * amount is closest, if no further off than {@code max-drift}, leaving out records from
+     * {@code until} on.
+     */
+    private void pairByAmount(RecordList local, boolean[] localUsed, RecordList provider, boolean[] providerUsed,
+                              long until, PairHandler handler) {
+        int[] locals = local.indicesByAmount(localUsed, until, false);
+        int[] providers = provider.indicesByAmount(providerUsed, until, false);
+        int low = 0;
+        for (int i : locals) {
+            long amount = local.amounts[i];
+            while (low < providers.length && provider.amounts[providers[low]] < amount - maxDriftMinor) {
+                low++;
+            }
+            int best = -1;
+            long bestDifference = Long.MAX_VALUE;
+            for (int k = low; k < providers.length && provider.amounts[providers[k]] <= amount + maxDriftMinor; k++) {
+                int j = providers[k];
+                long difference = Math.abs(provider.amounts[j] - amount);
+                if (!providerUsed[j] && difference < bestDifference
+                        && Math.abs(provider.millisAt(j) - local.millisAt(i)) <= skewMillis) {
+                    best = j;
+                    bestDifference = difference;
+                }
+            }
+            if (best >= 0) {
+                localUsed[i] = true;
+                providerUsed[best] = true;
+                handler.pair(i, best);
+            }
+        }
+    }
+
+    /**
+     * Orders {@code a[i]} against {@code b[j]} by amount, then status when {@code withStatus}.
+     */
+    private static int compareKey(RecordList a, int i, RecordList b, int j, boolean withStatus) {
+        int order = Long.compare(a.amounts[i], b.amounts[j]);
+        return order != 0 || !withStatus ? order : Boolean.compare(a.settledAt(i), b.settledAt(j));
+    }
+
+    private void sample(Leftovers leftovers, DiscrepancyKind kind, int type, RecordList local, int i,
+                        RecordList provider, int j) {
+        if (leftovers.samples.size() >= maxDiscrepancies) {
+            leftovers.truncated = true;
+            return;
+        }
+        leftovers.samples.add(new Discrepancy(kind, TYPES[type],
+                i < 0 ? null : Instant.ofEpochMilli(local.millisAt(i)),
+                i < 0 ? null : BigDecimal.valueOf(local.amounts[i], scale),
+                i < 0 ? null : local.settledAt(i),
+                j < 0 ? null : Instant.ofEpochMilli(provider.millisAt(j)),
+                j < 0 ? null : BigDecimal.valueOf(provider.amounts[j], scale),
+                j < 0 ? null : provider.settledAt(j)));
+    }
+
+    /**
+     * Record counts and settled amounts per type of one side, within the reconciled range.
+     */
+    private static final class SideTotals {
+        private final LongAdder[] records = adders();
+        private final LongAdder[] settledMinor = adders();
+
+        private void add(int type, long amount, boolean settled) {
+            records[type].increment();
+            if (settled) {
+                settledMinor[type].add(amount);
+            }
+        }
+
+        private static LongAdder[] adders() {
+            LongAdder[] adders = new LongAdder[TYPES.length];
+            Arrays.setAll(adders, index -> new LongAdder());
+            return adders;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.noua.design.patterns.factoryMethod.reconciliation;
+
+import java.util.Arrays;
+
+/**
+ * Growable columns of {@code (amount, meta)} pairs, where {@code meta} packs the settled flag above
+ * the epoch millis so that ordering by meta orders by status, then time.
+ */
+final class RecordList {
+
+    private static final long SETTLED_BIT = 1L << 62;
+
+    long[] amounts;
+    long[] metas;
+    int size;
+
+    RecordList(int capacity) {
+        amounts = new long[Math.max(capacity, 4)];
+        metas = new long[amounts.length];
+    }
+
+    static long meta(long epochMillis, boolean settled) {
+        return settled ? epochMillis | SETTLED_BIT : epochMillis;
+    }
+
+    static long millis(long meta) {
+        return meta & ~SETTLED_BIT;
+    }
+
+    static boolean settled(long meta) {
+        return (meta & SETTLED_BIT) != 0;
+    }
+
+    long millisAt(int index) {
+        return millis(metas[index]);
+    }
+
+    boolean settledAt(int index) {
+        return settled(metas[index]);
+    }
+
+    void add(long amount, long meta) {
+        if (size == amounts.length) {
+            amounts = Arrays.copyOf(amounts, size * 2);
+            metas = Arrays.copyOf(metas, size * 2);
+        }
+        amounts[size] = amount;
+        metas[size] = meta;
+        size++;
+    }
+
+    void addAll(RecordList other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.amounts[i], other.metas[i]);
+        }
+    }
+
+    /**
+     * Indices of the records that are not {@code used} and older than {@code until}, ordered by
+     * amount, then status when {@code withStatus}, then time.
+     */
+    int[] indicesByAmount(boolean[] used, long until, boolean withStatus) {
+        long[] amount = new long[size];
+        long[] second = new long[size];
+        long[] index = new long[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (!used[i] && millis(metas[i]) < until) {
+                amount[count] = amounts[i];
+                second[count] = withStatus ? metas[i] : millis(metas[i]);
+                index[count++] = i;
+            }
+        }
+        sort(amount, second, index, 0, count - 1);
+        int[] indices = new int[count];
+        for (int k = 0; k < count; k++) {
+            indices[k] = (int) index[k];
+        }
+        return indices;
+    }
+
+    /**
+     * Sorts by amount, then status, then time.
+     */
+    void sortByAmount() {
+        sort(amounts, metas, null, 0, size - 1);
+    }
+
+    /**
+     * Sorts by time, then amount.
+     */
+    void sortByTime() {
+        long[] millis = new long[size];
+        for (int i = 0; i < size; i++) {
+            millis[i] = millis(metas[i]);
+        }
+        sort(millis, amounts, metas, 0, size - 1);
+    }
+
+    /**
+     * Quicksort by {@code (first, second)}, permuting {@code third} alongside when given.
+     */
+    private static void sort(long[] first, long[] second, long[] third, int low, int high) {
+        while (low < high) {
+            if (high - low < 16) {
+                for (int i = low + 1; i <= high; i++) {
+                    for (int j = i; j > low && compare(first, second, j - 1, j) > 0; j--) {
+                        swap(first, second, third, j - 1, j);
+                    }
+                }
+                return;
+            }
+            int middle = (low + high) >>> 1;
+            long pivotFirst = first[middle];
+            long pivotSecond = second[middle];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compareTo(first[i], second[i], pivotFirst, pivotSecond) < 0) {
+                    i++;
+                }
+                while (compareTo(first[j], second[j], pivotFirst, pivotSecond) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(first, second, third, i++, j--);
+                }
+            }
+            if (j - low < high - i) {
+                sort(first, second, third, low, j);
+                low = i;
+            } else {
+                sort(first, second, third, i, high);
+                high = j;
+            }
+        }
+    }
+
+    private static int compare(long[] first, long[] second, int a, int b) {
+        return compareTo(first[a], second[a], first[b], second[b]);
+    }
+
+    private static int compareTo(long firstA, long secondA, long firstB, long secondB) {
+        int result = Long.compare(firstA, firstB);
+        return result != 0 ? result : Long.compare(secondA, secondB);
+    }
+
+    private static void swap(long[] first, long[] second, long[] third, int a, int b) {
+        long value = first[a];
+        first[a] = first[b];
+        first[b] = value;
+        value = second[a];
+        second[a] = second[b];
+        second[b] = value;
+        if (third != null) {
+            value = third[a];
+            third[a] = third[b];
+            third[b] = value;
+        }
+    }
+}
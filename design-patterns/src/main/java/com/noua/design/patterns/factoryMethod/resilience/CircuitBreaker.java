@@ -0,0 +1,184 @@
+package com.noua.design.patterns.factoryMethod.resilience;
+
+import com.noua.design.patterns.factoryMethod.domain.BreakerState;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based sliding-window circuit breaker without locks.
+ * <p>
+ * The last {@code windowSize} outcomes live in a ring of ints: a call claims a slot with one
+ * atomic increment, swaps its outcome in and adjusts the failure count by the difference with the
+ * outcome it replaced, so the failure rate is always available in O(1). Once at least
+ * {@code minimumCalls} outcomes are buffered and the failure rate reaches the threshold the
+ * breaker opens and rejects calls for {@code openNanos}; it then lets {@code halfOpenCalls}
+ * trial calls through and closes again only if their failure rate is below the threshold.
+ * Every state change is a single CAS that installs a new {@link Phase} together with fresh
+ * counters. Each {@link Permit} remembers the phase it was granted in and reports its outcome
+ * there, so a call that started before a transition lands in the discarded counters instead of
+ * corrupting the new ones, and a slow call granted while closed cannot settle a half-open trial.
+ */
+public class CircuitBreaker {
+
+    private static final int SUCCESS = 1;
+    private static final int FAILURE = 2;
+
+    private static final class Window {
+        private final AtomicIntegerArray outcomes;
+        private final AtomicLong cursor = new AtomicLong();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private Window(int size) {
+            this.outcomes = new AtomicIntegerArray(size);
+        }
+    }
+
+    private static final class Trial {
+        private final AtomicInteger permits;
+        private final AtomicInteger results = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private Trial(int permits) {
+            this.permits = new AtomicInteger(permits);
+        }
+    }
+
+    private record Phase(BreakerState state, long sinceNanos, Window window, Trial trial) {}
+
+    /**
+     * Permission for one call, bound to the phase it was granted in.
+     */
+    public final class Permit {
+        private final Phase phase;
+
+        private Permit(Phase phase) {
+            this.phase = phase;
+        }
+
+        public void onSuccess() {
+            record(phase, false);
+        }
+
+        public void onFailure() {
+            record(phase, true);
+        }
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final float failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+    private final AtomicReference<Phase> phase;
+    private final LongAdder notPermitted = new LongAdder();
+
+    public CircuitBreaker(int windowSize, int minimumCalls, float failureRateThreshold, long openNanos,
+                          int halfOpenCalls, LongSupplier clock) {
+        if (windowSize < 1 || minimumCalls < 1 || halfOpenCalls < 1) {
+            throw new IllegalArgumentException("window size, minimum calls and half-open calls must be positive");
+        }
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openNanos;
+        this.halfOpenCalls = halfOpenCalls;
+        this.clock = clock;
+        this.phase = new AtomicReference<>(new Phase(BreakerState.CLOSED, clock.getAsLong(), new Window(windowSize), null));
+    }
+
+    /**
+     * @return the permit when the call may go ahead, which must then report exactly one outcome,
+     * or {@code null} when the call is rejected
+     */
+    public Permit tryAcquirePermission() {
+        while (true) {
+            Phase current = phase.get();
+            switch (current.state()) {
+                case CLOSED:
+                    return new Permit(current);
+                case OPEN:
+                    if (clock.getAsLong() - current.sinceNanos() < openNanos) {
+                        notPermitted.increment();
+                        return null;
+                    }
+                    phase.compareAndSet(current, new Phase(BreakerState.HALF_OPEN, clock.getAsLong(),
+                            current.window(), new Trial(halfOpenCalls)));
+                    continue;
+                case HALF_OPEN:
+                    if (current.trial().permits.getAndDecrement() > 0) {
+                        return new Permit(current);
+                    }
+                    notPermitted.increment();
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Nanoseconds until an open breaker lets trial calls through, {@code 0} otherwise.
+     */
+    public long remainingOpenNanos() {
+        Phase current = phase.get();
+        return current.state() == BreakerState.OPEN
+                ? Math.max(0, openNanos - (clock.getAsLong() - current.sinceNanos()))
+                : 0;
+    }
+
+    public BreakerState state() {
+        return phase.get().state();
+    }
+
+    public int bufferedCalls() {
+        return buffered(phase.get().window());
+    }
+
+    public int failedCalls() {
+        return phase.get().window().failures.get();
+    }
+
+    public float failureRate() {
+        Window window = phase.get().window();
+        int buffered = buffered(window);
+        return buffered == 0 ? 0 : 100f * window.failures.get() / buffered;
+    }
+
+    public long notPermittedCalls() {
+        return notPermitted.sum();
+    }
+
+    private void record(Phase current, boolean failed) {
+        if (current.state() == BreakerState.HALF_OPEN) {
+            Trial trial = current.trial();
+            if (failed) {
+                trial.failures.incrementAndGet();
+            }
+            if (trial.results.incrementAndGet() == halfOpenCalls) {
+                boolean reopen = 100f * trial.failures.get() / halfOpenCalls >= failureRateThreshold;
+                phase.compareAndSet(current, reopen
+                        ? new Phase(BreakerState.OPEN, clock.getAsLong(), current.window(), null)
+                        : new Phase(BreakerState.CLOSED, clock.getAsLong(), new Window(windowSize), null));
+            }
+            return;
+        }
+        Window window = current.window();
+        int slot = (int) (window.cursor.getAndIncrement() % windowSize);
+        int previous = window.outcomes.getAndSet(slot, failed ? FAILURE : SUCCESS);
+        int delta = (failed ? 1 : 0) - (previous == FAILURE ? 1 : 0);
+        int failures = delta == 0 ? window.failures.get() : window.failures.addAndGet(delta);
+        int buffered = buffered(window);
+        if (current.state() == BreakerState.CLOSED && buffered >= minimumCalls
+                && 100f * failures / buffered >= failureRateThreshold) {
+            phase.compareAndSet(current, new Phase(BreakerState.OPEN, clock.getAsLong(), window, null));
+        }
+    }
+
+    private int buffered(Window window) {
+        return (int) Math.min(window.cursor.get(), windowSize);
+    }
+}
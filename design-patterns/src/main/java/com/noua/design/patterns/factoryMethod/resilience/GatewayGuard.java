@@ -0,0 +1,212 @@
+package com.noua.design.patterns.factoryMethod.resilience;
+
+import com.noua.design.patterns.factoryMethod.config.PaymentResilienceProperties;
+import com.noua.design.patterns.factoryMethod.domain.BreakerState;
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import com.noua.design.patterns.factoryMethod.dto.GatewayHealth;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Isolates each payment gateway behind a bulkhead, a call timeout and a {@link CircuitBreaker}.
+ * <p>
+ * A call first takes a permit from the gateway's bulkhead (bounded concurrency, optional bounded
+ * wait), then asks the breaker, and runs on its own virtual thread so the caller can stop waiting
+ * after the timeout. The permit is only returned when the gateway call really ends, so a provider
+ * that hangs can tie up at most its own {@code max-concurrent-calls} threads; everything beyond
+ * that, and everything while its breaker is open, is rejected immediately.
+ */
+@Component
+public class GatewayGuard {
+
+    private record Compartment(Semaphore bulkhead, int maxConcurrentCalls, long maxWaitNanos, long timeoutNanos,
+                               CircuitBreaker breaker, LongAdder timedOut) {}
+
+    private final Map<PaymentType, Compartment> compartments = new EnumMap<>(PaymentType.class);
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Autowired
+    public GatewayGuard(PaymentResilienceProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    GatewayGuard(PaymentResilienceProperties properties, LongSupplier clock) {
+        for (PaymentType type : PaymentType.values()) {
+            PaymentResilienceProperties.Settings settings = properties.settingsFor(type);
+            CircuitBreaker breaker = new CircuitBreaker(settings.slidingWindowSize(), settings.minimumCalls(),
+                    settings.failureRateThreshold(), settings.openDuration().toNanos(), settings.halfOpenCalls(), clock);
+            compartments.put(type, new Compartment(new Semaphore(settings.maxConcurrentCalls()),
+                    settings.maxConcurrentCalls(), settings.maxWaitForPermit().toNanos(), settings.timeout().toNanos(),
+                    breaker, new LongAdder()));
+        }
+    }
+
+    /**
+     * Rejects up front when the gateway's breaker is open, e.g. before queueing a payment.
+     *
+     * @throws CircuitOpenException 503
+     */
+    public void checkAvailable(PaymentType type) {
+        if (!isAvailable(type)) {
+            throw new CircuitOpenException(type, compartments.get(type).breaker().remainingOpenNanos());
+        }
+    }
+
+    /**
+     * @return {@code false} while the gateway's breaker is open and still rejecting calls
+     */
+    public boolean isAvailable(PaymentType type) {
+        CircuitBreaker breaker = compartments.get(type).breaker();
+        return breaker.state() != BreakerState.OPEN || breaker.remainingOpenNanos() == 0;
+    }
+
+    /**
+     * Runs {@code call} against the gateway for {@code type}. Exceptions thrown by the call itself
+     * are rethrown unchanged (checked ones wrapped) after being counted by the breaker.
+     *
+     * @throws CircuitOpenException 503 while the breaker is open
+     * @throws BulkheadFullException 503 when no permit became free in time
+     * @throws GatewayTimeoutException 504 when the call did not finish within the timeout
+     */
+    public <T> T call(PaymentType type, Callable<T> call) {
+        Compartment compartment = compartments.get(type);
+        acquireBulkhead(type, compartment);
+        CircuitBreaker breaker = compartment.breaker();
+        CircuitBreaker.Permit permit = breaker.tryAcquirePermission();
+        if (permit == null) {
+            compartment.bulkhead().release();
+            throw new CircuitOpenException(type, breaker.remainingOpenNanos());
+        }
+        Future<T> future;
+        try {
+            future = callers.submit(() -> {
+                try {
+                    return call.call();
+                } finally {
+                    compartment.bulkhead().release();
+                }
+            });
+        } catch (RuntimeException e) {
+            compartment.bulkhead().release();
+            permit.onFailure();
+            throw e;
+        }
+        try {
+            T result = future.get(compartment.timeoutNanos(), TimeUnit.NANOSECONDS);
+            permit.onSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            compartment.timedOut().increment();
+            permit.onFailure();
+            throw new GatewayTimeoutException(type, Duration.ofNanos(compartment.timeoutNanos()));
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            permit.onFailure();
+            throw new GatewayTimeoutException(type, Duration.ofNanos(compartment.timeoutNanos()));
+        } catch (ExecutionException e) {
+            permit.onFailure();
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(type + " gateway call failed", e.getCause());
+        }
+    }
+
+    public List<GatewayHealth> health() {
+        List<GatewayHealth> health = new ArrayList<>(compartments.size());
+        compartments.forEach((type, compartment) -> {
+            CircuitBreaker breaker = compartment.breaker();
+            health.add(new GatewayHealth(type, breaker.state(), breaker.failureRate(), breaker.bufferedCalls(),
+                    breaker.failedCalls(), breaker.notPermittedCalls(), compartment.timedOut().sum(),
+                    compartment.maxConcurrentCalls() - compartment.bulkhead().availablePermits(),
+                    compartment.maxConcurrentCalls()));
+        });
+        return health;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        callers.shutdownNow();
+    }
+
+    private static void acquireBulkhead(PaymentType type, Compartment compartment) {
+        boolean acquired;
+        try {
+            acquired = compartment.maxWaitNanos() <= 0
+                    ? compartment.bulkhead().tryAcquire()
+                    : compartment.bulkhead().tryAcquire(compartment.maxWaitNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            throw new BulkheadFullException(type);
+        }
+    }
+
+    /**
+     * Raised by the guard itself rather than by the gateway call.
+     */
+    public abstract static class GatewayGuardException extends ResponseStatusException {
+        protected GatewayGuardException(HttpStatus status, String reason) {
+            super(status, reason);
+        }
+    }
+
+    public static class CircuitOpenException extends GatewayGuardException {
+        private final long retryAfterSeconds;
+
+        public CircuitOpenException(PaymentType type, long remainingNanos) {
+            super(HttpStatus.SERVICE_UNAVAILABLE, type + " gateway is unavailable (circuit open)");
+            this.retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remainingNanos + 999_999_999L));
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            return headers;
+        }
+    }
+
+    public static class BulkheadFullException extends GatewayGuardException {
+        public BulkheadFullException(PaymentType type) {
+            super(HttpStatus.SERVICE_UNAVAILABLE, type + " gateway is at its concurrency limit");
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, "1");
+            return headers;
+        }
+    }
+
+    public static class GatewayTimeoutException extends GatewayGuardException {
+        public GatewayTimeoutException(PaymentType type, Duration timeout) {
+            super(HttpStatus.GATEWAY_TIMEOUT, type + " gateway did not answer within " + timeout.toMillis() + "ms");
+        }
+    }
+}
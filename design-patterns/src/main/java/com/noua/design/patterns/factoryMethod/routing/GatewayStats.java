@@ -0,0 +1,69 @@
+package com.noua.design.patterns.factoryMethod.routing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live EWMA latency and error rate of one gateway, updated with a CAS on the raw double bits.
+ * Readings drift back towards the initial latency and a zero error rate while the gateway gets no
+ * traffic, so a gateway that lost every comparison is eventually tried again.
+ */
+final class GatewayStats {
+
+    private final double decay;
+    private final double initialLatencyMillis;
+    private final double idleHalfLifeNanos;
+    private final AtomicLong latencyBits;
+    private final AtomicLong errorBits = new AtomicLong(Double.doubleToRawLongBits(0));
+    private volatile long lastSampleNanos;
+    final AtomicInteger inFlight = new AtomicInteger();
+    final LongAdder routed = new LongAdder();
+
+    GatewayStats(double decay, double initialLatencyMillis, long idleHalfLifeNanos, long nowNanos) {
+        this.decay = decay;
+        this.initialLatencyMillis = initialLatencyMillis;
+        this.idleHalfLifeNanos = Math.max(1, idleHalfLifeNanos);
+        this.latencyBits = new AtomicLong(Double.doubleToRawLongBits(initialLatencyMillis));
+        this.lastSampleNanos = nowNanos;
+    }
+
+    void record(long latencyNanos, boolean failed, long nowNanos) {
+        update(latencyBits, latencyNanos / 1e6);
+        update(errorBits, failed ? 1 : 0);
+        lastSampleNanos = nowNanos;
+    }
+
+    /**
+     * A call the gateway never saw, e.g. rejected by its bulkhead: counts as an error only.
+     */
+    void recordRejected(long nowNanos) {
+        update(errorBits, 1);
+        lastSampleNanos = nowNanos;
+    }
+
+    double latencyMillis(long nowNanos) {
+        double latency = Double.longBitsToDouble(latencyBits.get());
+        return initialLatencyMillis + (latency - initialLatencyMillis) * idleFactor(nowNanos);
+    }
+
+    double errorRate(long nowNanos) {
+        return Double.longBitsToDouble(errorBits.get()) * idleFactor(nowNanos);
+    }
+
+    private double idleFactor(long nowNanos) {
+        long idle = nowNanos - lastSampleNanos;
+        return idle <= 0 ? 1 : Math.pow(0.5, idle / idleHalfLifeNanos);
+    }
+
+    private void update(AtomicLong bits, double sample) {
+        while (true) {
+            long previous = bits.get();
+            double average = Double.longBitsToDouble(previous);
+            long next = Double.doubleToRawLongBits(average + decay * (sample - average));
+            if (bits.compareAndSet(previous, next)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.noua.design.patterns.factoryMethod.routing;
+
+import com.noua.design.patterns.factoryMethod.config.PaymentRoutingProperties;
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import com.noua.design.patterns.factoryMethod.dto.RouteStats;
+import com.noua.design.patterns.factoryMethod.resilience.GatewayGuard;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Chooses a gateway for {@code AUTO} payments by power of two choices: two distinct eligible
+ * gateways are sampled at random and the one with the lower score wins, so a decision is a few
+ * reads regardless of how many gateways are eligible, and a gateway that turns slow or flaky sheds
+ * traffic gradually instead of all callers stampeding to the same best one. Gateways whose breaker
+ * is open are skipped. See {@link PaymentRoutingProperties} for the score.
+ */
+@Component
+public class PaymentRouter {
+
+    private final PaymentType[] eligible;
+    private final GatewayStats[] stats = new GatewayStats[PaymentType.values().length];
+    private final PaymentRoutingProperties.Cost[] costs = new PaymentRoutingProperties.Cost[PaymentType.values().length];
+    private final double errorPenalty;
+    private final double costWeight;
+    private final Predicate<PaymentType> available;
+    private final LongSupplier clock;
+
+    @Autowired
+    public PaymentRouter(PaymentRoutingProperties properties, GatewayGuard guard) {
+        this(properties, guard::isAvailable, System::nanoTime);
+    }
+
+    PaymentRouter(PaymentRoutingProperties properties, Predicate<PaymentType> available, LongSupplier clock) {
+        if (properties.eligible().isEmpty()) {
+            throw new IllegalArgumentException("payments.routing.eligible must name at least one gateway");
+        }
+        this.eligible = properties.eligible().stream().sorted().toArray(PaymentType[]::new);
+        this.errorPenalty = properties.errorPenalty();
+        this.costWeight = properties.costWeight();
+        this.available = available;
+        this.clock = clock;
+        long now = clock.getAsLong();
+        for (PaymentType type : eligible) {
+            stats[type.ordinal()] = new GatewayStats(properties.decay(), properties.initialLatency().toNanos() / 1e6,
+                    properties.idleHalfLife().toNanos(), now);
+            costs[type.ordinal()] = properties.costs().getOrDefault(type,
+                    new PaymentRoutingProperties.Cost(BigDecimal.ZERO, BigDecimal.ZERO));
+        }
+    }
+
+    public PaymentType choose(BigDecimal amount) {
+        if (eligible.length == 1) {
+            return eligible[0];
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(eligible.length);
+        int second = random.nextInt(eligible.length - 1);
+        if (second >= first) {
+            second++;
+        }
+        PaymentType a = eligible[first];
+        PaymentType b = eligible[second];
+        boolean aAvailable = available.test(a);
+        boolean bAvailable = available.test(b);
+        if (aAvailable && bAvailable) {
+            long now = clock.getAsLong();
+            return score(a, amount, now) <= score(b, amount, now) ? a : b;
+        }
+        if (aAvailable || bAvailable) {
+            return aAvailable ? a : b;
+        }
+        PaymentType best = best(amount, null);
+        return best != null ? best : a;
+    }
+
+    /**
+     * Pays {@code amount} through the chosen gateway and feeds the outcome back into its averages.
+     * A payment rejected by the guard before it reached the gateway is retried once on the best
+     * other gateway; anything else, including timeouts, is rethrown since the gateway may have
+     * charged.
+     *
+     * @return the gateway that took the payment
+     */
+    public PaymentType pay(BigDecimal amount, BiConsumer<PaymentType, BigDecimal> payment) {
+        PaymentType type = choose(amount);
+        try {
+            run(type, amount, payment);
+            return type;
+        } catch (GatewayGuard.CircuitOpenException | GatewayGuard.BulkheadFullException e) {
+            PaymentType fallback = best(amount, type);
+            if (fallback == null) {
+                throw e;
+            }
+            run(fallback, amount, payment);
+            return fallback;
+        }
+    }
+
+    public List<RouteStats> stats() {
+        long now = clock.getAsLong();
+        List<RouteStats> routes = new ArrayList<>(eligible.length);
+        for (PaymentType type : eligible) {
+            GatewayStats gateway = stats[type.ordinal()];
+            routes.add(new RouteStats(type, available.test(type), gateway.latencyMillis(now), gateway.errorRate(now),
+                    gateway.inFlight.get(), gateway.routed.sum()));
+        }
+        return routes;
+    }
+
+    private void run(PaymentType type, BigDecimal amount, BiConsumer<PaymentType, BigDecimal> payment) {
+        GatewayStats gateway = stats[type.ordinal()];
+        gateway.routed.increment();
+        gateway.inFlight.incrementAndGet();
+        long start = clock.getAsLong();
+        try {
+            payment.accept(type, amount);
+        } catch (GatewayGuard.CircuitOpenException | GatewayGuard.BulkheadFullException e) {
+            gateway.recordRejected(clock.getAsLong());
+            throw e;
+        } catch (RuntimeException e) {
+            long end = clock.getAsLong();
+            gateway.record(end - start, true, end);
+            throw e;
+        } finally {
+            gateway.inFlight.decrementAndGet();
+        }
+        long end = clock.getAsLong();
+        gateway.record(end - start, false, end);
+    }
+
+    /**
+     * @return the lowest-scoring available gateway other than {@code excluded}, or {@code null}
+     */
+    private PaymentType best(BigDecimal amount, PaymentType excluded) {
+        long now = clock.getAsLong();
+        PaymentType best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (PaymentType type : eligible) {
+            if (type == excluded || !available.test(type)) {
+                continue;
+            }
+            double score = score(type, amount, now);
+            if (score < bestScore) {
+                best = type;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private double score(PaymentType type, BigDecimal amount, long now) {
+        GatewayStats gateway = stats[type.ordinal()];
+        return gateway.latencyMillis(now) * (gateway.inFlight.get() + 1)
+                + errorPenalty * gateway.errorRate(now)
+                + costWeight * costs[type.ordinal()].feeFor(amount);
+    }
+}
@@ -0,0 +1,17 @@
+package com.noua.design.patterns.factoryMethod.service;
+
+import com.noua.design.patterns.factoryMethod.domain.PaymentOutcome;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A gateway that can settle several payments in one call.
+ */
+public interface BatchPaymentGateway extends PaymentGateway {
+
+    /**
+     * @return one outcome per amount, in the same order
+     */
+    List<PaymentOutcome> payBatch(List<BigDecimal> amounts);
+}
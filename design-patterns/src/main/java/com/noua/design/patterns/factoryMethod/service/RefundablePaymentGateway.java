@@ -0,0 +1,11 @@
+package com.noua.design.patterns.factoryMethod.service;
+
+import java.math.BigDecimal;
+
+/**
+ * A gateway that can reverse a payment it took, e.g. to compensate one leg of a split payment.
+ */
+public interface RefundablePaymentGateway extends PaymentGateway {
+
+    void refund(BigDecimal amount);
+}
@@ -1,12 +1,16 @@
 package com.noua.design.patterns.factoryMethod.service.serviceImpl;
 
-import com.noua.design.patterns.factoryMethod.service.PaymentGateway;
+import com.noua.design.patterns.factoryMethod.domain.PaymentOutcome;
+import com.noua.design.patterns.factoryMethod.service.BatchPaymentGateway;
+import com.noua.design.patterns.factoryMethod.service.RefundablePaymentGateway;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
 
 @Component
-public class CryptoPayment implements PaymentGateway {
+public class CryptoPayment implements BatchPaymentGateway, RefundablePaymentGateway {
     /**
      * @param amount
      */
@@ -14,4 +18,22 @@ public class CryptoPayment implements PaymentGateway {
     public void pay(BigDecimal amount) {
         System.out.println("Crypto payment processes successfully for amount: "+amount);
     }
+
+    /**
+     * @param amounts
+     */
+    @Override
+    public List<PaymentOutcome> payBatch(List<BigDecimal> amounts) {
+        BigDecimal total = amounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        System.out.println("Crypto batch of " + amounts.size() + " payments settled successfully: total " + total);
+        return Collections.nCopies(amounts.size(), PaymentOutcome.success());
+    }
+
+    /**
+     * @param amount
+     */
+    @Override
+    public void refund(BigDecimal amount) {
+        System.out.println("Crypto refund processed successfully: amount "+amount);
+    }
 }
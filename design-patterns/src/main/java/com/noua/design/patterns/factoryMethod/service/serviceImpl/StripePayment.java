@@ -1,12 +1,12 @@
 package com.noua.design.patterns.factoryMethod.service.serviceImpl;
 
-import com.noua.design.patterns.factoryMethod.service.PaymentGateway;
+import com.noua.design.patterns.factoryMethod.service.RefundablePaymentGateway;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 
 @Component
-public class StripePayment implements PaymentGateway {
+public class StripePayment implements RefundablePaymentGateway {
     /**
      * @param amount
      */
@@ -14,4 +14,12 @@ public class StripePayment implements PaymentGateway {
     public void pay(BigDecimal amount) {
         System.out.println("Stripe payment processed successfully: amount "+amount);
     }
+
+    /**
+     * @param amount
+     */
+    @Override
+    public void refund(BigDecimal amount) {
+        System.out.println("Stripe refund processed successfully: amount "+amount);
+    }
 }
@@ -0,0 +1,328 @@
+package com.noua.design.patterns.factoryMethod.settlement;
+
+import com.noua.design.patterns.factoryMethod.config.PaymentSettlementProperties;
+import com.noua.design.patterns.factoryMethod.domain.PaymentOutcome;
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import com.noua.design.patterns.factoryMethod.dto.SettlementStats;
+import com.noua.design.patterns.factoryMethod.factory.PaymentGatewayFactoryProvider;
+import com.noua.design.patterns.factoryMethod.ledger.PaymentLedger;
+import com.noua.design.patterns.factoryMethod.resilience.GatewayGuard;
+import com.noua.design.patterns.factoryMethod.service.BatchPaymentGateway;
+import com.noua.design.patterns.factoryMethod.service.PaymentGateway;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Settles payments through their gateway. Types listed in {@code payments.settlement.batched} are
+ * accumulated in a bounded queue per {@link PaymentType} and flushed by one virtual thread per type
+ * once {@code max-batch-size} payments are waiting or the oldest has lingered for {@code linger};
+ * each caller then receives its own item's outcome. Gateways implementing
+ * {@link BatchPaymentGateway} settle the whole batch in one call, the others are paid item by item.
+ * <p>
+ * Every gateway call goes through the {@link GatewayGuard}. A batched type whose breaker is open is
+ * rejected before queueing; within a flush, guard rejections become failed outcomes. Every outcome
+ * is appended to the {@link PaymentLedger}.
+ * <p>
+ * A caller that stops waiting, on the result timeout or an interrupt, withdraws its payment if no
+ * flush has claimed it yet, so it is certainly not paid. A payment already claimed by a flush is
+ * waited for until the result timeout even when the caller is interrupted, since only the gateway
+ * knows whether it was charged.
+ */
+@Service
+public class PaymentSettlementService {
+
+    private final PaymentGatewayFactoryProvider provider;
+    private final PaymentSettlementProperties properties;
+    private final GatewayGuard guard;
+    private final PaymentLedger ledger;
+    private final Map<PaymentType, Lane> lanes = new EnumMap<>(PaymentType.class);
+    private final Map<PaymentType, SettlementMetrics> metrics = new EnumMap<>(PaymentType.class);
+
+    /**
+     * @param claimed set once, either by the flush that pays it or by the caller withdrawing it
+     */
+    private record Pending(BigDecimal amount, long enqueuedNanos, CompletableFuture<PaymentOutcome> outcome,
+                           AtomicBoolean claimed) {}
+
+    private record Lane(BlockingQueue<Pending> queue, Thread flusher) {}
+
+    public PaymentSettlementService(PaymentGatewayFactoryProvider provider, PaymentSettlementProperties properties,
+                                    GatewayGuard guard, PaymentLedger ledger) {
+        this.provider = provider;
+        this.properties = properties;
+        this.guard = guard;
+        this.ledger = ledger;
+        for (PaymentType type : PaymentType.values()) {
+            metrics.put(type, new SettlementMetrics());
+        }
+        for (PaymentType type : properties.batched()) {
+            BlockingQueue<Pending> queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+            Thread flusher = Thread.ofVirtual()
+                    .name("payment-settlement-" + type.name().toLowerCase())
+                    .start(() -> collect(type, queue));
+            lanes.put(type, new Lane(queue, flusher));
+        }
+    }
+
+    /**
+     * Settles one payment, waiting for its batch when the type is batched.
+     *
+     * @throws PaymentFailedException 502 when the gateway rejected the payment
+     * @throws SettlementSaturatedException 503 when the type's settlement queue is full
+     * @throws SettlementWithdrawnException 503 when the caller stopped waiting before a flush took
+     *                                      the payment
+     * @throws SettlementStoppedException 503 when the service shut down before a flush took it
+     * @throws GatewayGuard.GatewayGuardException 503/504 when the gateway is isolated or timed out
+     */
+    public void settle(PaymentType type, BigDecimal amount) {
+        Lane lane = lanes.get(type);
+        PaymentOutcome outcome;
+        if (lane == null) {
+            try {
+                outcome = payOne(type, provider.getPaymentGatewayFactory(type).createPaymentGateway(), amount);
+            } catch (GatewayGuard.GatewayGuardException e) {
+                record(type, List.of(amount), List.of(PaymentOutcome.failure(e.getReason())), 0);
+                throw e;
+            }
+            record(type, List.of(amount), List.of(outcome), 0);
+        } else {
+            guard.checkAvailable(type);
+            Pending pending = new Pending(amount, System.nanoTime(), new CompletableFuture<>(), new AtomicBoolean());
+            if (!lane.queue().offer(pending)) {
+                throw new SettlementSaturatedException(type);
+            }
+            outcome = await(type, lane, pending);
+        }
+        if (!outcome.settled()) {
+            throw new PaymentFailedException(type, outcome.error());
+        }
+    }
+
+    public List<SettlementStats> stats() {
+        List<SettlementStats> stats = new ArrayList<>(metrics.size());
+        metrics.forEach((type, counters) -> {
+            long batches = counters.batches.sum();
+            long payments = counters.payments.sum();
+            Lane lane = lanes.get(type);
+            stats.add(new SettlementStats(type, lane != null, batches, payments, counters.failed.sum(),
+                    lane == null ? 0 : lane.queue().size(),
+                    batches == 0 ? 0 : (double) payments / batches,
+                    counters.maxBatchSize.get(),
+                    batches == 0 ? 0 : counters.lingerNanos.sum() / 1e6 / batches,
+                    counters.maxLingerNanos.get() / 1e6,
+                    counters.paymentsPerSecond()));
+        });
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lanes.values().forEach(lane -> lane.flusher().interrupt());
+    }
+
+    private PaymentOutcome await(PaymentType type, Lane lane, Pending pending) {
+        long deadline = pending.enqueuedNanos() + properties.resultTimeout().toNanos();
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return pending.outcome().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    withdraw(type, lane, pending);
+                } catch (TimeoutException e) {
+                    withdraw(type, lane, pending);
+                    throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, type + " settlement is still pending");
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof SettlementStoppedException stopped) {
+                        throw stopped;
+                    }
+                    return PaymentOutcome.failure(String.valueOf(e.getCause().getMessage()));
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Takes the payment back unless a flush already claimed it, in which case this returns and the
+     * caller keeps waiting for its outcome.
+     *
+     * @throws SettlementWithdrawnException when it was taken back
+     */
+    private static void withdraw(PaymentType type, Lane lane, Pending pending) {
+        if (pending.claimed().compareAndSet(false, true)) {
+            lane.queue().remove(pending);
+            pending.outcome().complete(PaymentOutcome.failure("withdrawn"));
+            throw new SettlementWithdrawnException(type);
+        }
+    }
+
+    private void collect(PaymentType type, BlockingQueue<Pending> queue) {
+        int maxBatchSize = properties.maxBatchSize();
+        long lingerNanos = properties.linger().toNanos();
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Pending first = queue.take();
+                batch.add(first);
+                long deadline = first.enqueuedNanos() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                try {
+                    flush(type, batch);
+                } catch (RuntimeException e) {
+                    // the lane must outlive a bad batch; its outcome is unknown, so it fails as 502
+                    System.err.println(type + " settlement flush failed: " + e);
+                    batch.forEach(pending -> pending.outcome().completeExceptionally(e));
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // stopping
+        }
+        queue.drainTo(batch);
+        for (Pending pending : batch) {
+            if (pending.claimed().compareAndSet(false, true)) {
+                pending.outcome().completeExceptionally(new SettlementStoppedException(type));
+            }
+        }
+    }
+
+    private void flush(PaymentType type, List<Pending> batch) {
+        batch.removeIf(pending -> !pending.claimed().compareAndSet(false, true));
+        if (batch.isEmpty()) {
+            return;
+        }
+        long lingered = System.nanoTime() - batch.getFirst().enqueuedNanos();
+        List<BigDecimal> amounts = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            amounts.add(pending.amount());
+        }
+        List<PaymentOutcome> outcomes = payAll(type, provider.getPaymentGatewayFactory(type).createPaymentGateway(), amounts);
+        record(type, amounts, outcomes, lingered);
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).outcome().complete(outcomes.get(i));
+        }
+    }
+
+    private List<PaymentOutcome> payAll(PaymentType type, PaymentGateway gateway, List<BigDecimal> amounts) {
+        if (gateway instanceof BatchPaymentGateway batchGateway) {
+            try {
+                List<PaymentOutcome> outcomes = guard.call(type, () -> batchGateway.payBatch(amounts));
+                if (outcomes.size() == amounts.size()) {
+                    return outcomes;
+                }
+                return Collections.nCopies(amounts.size(), PaymentOutcome.failure(
+                        "gateway returned " + outcomes.size() + " outcomes for " + amounts.size() + " payments"));
+            } catch (RuntimeException e) {
+                return Collections.nCopies(amounts.size(), PaymentOutcome.failure(String.valueOf(e.getMessage())));
+            }
+        }
+        List<PaymentOutcome> outcomes = new ArrayList<>(amounts.size());
+        for (BigDecimal amount : amounts) {
+            try {
+                outcomes.add(payOne(type, gateway, amount));
+            } catch (GatewayGuard.GatewayGuardException e) {
+                outcomes.add(PaymentOutcome.failure(e.getReason()));
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Guard rejections propagate, failures reported by the gateway become a failed outcome.
+     */
+    private PaymentOutcome payOne(PaymentType type, PaymentGateway gateway, BigDecimal amount) {
+        try {
+            guard.call(type, () -> {
+                gateway.pay(amount);
+                return null;
+            });
+            return PaymentOutcome.success();
+        } catch (GatewayGuard.GatewayGuardException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            return PaymentOutcome.failure(String.valueOf(e.getMessage()));
+        }
+    }
+
+    private void record(PaymentType type, List<BigDecimal> amounts, List<PaymentOutcome> outcomes, long lingerNanos) {
+        SettlementMetrics counters = metrics.get(type);
+        counters.recordBatch(outcomes.size(), lingerNanos);
+        for (int i = 0; i < outcomes.size(); i++) {
+            PaymentOutcome outcome = outcomes.get(i);
+            if (!outcome.settled()) {
+                counters.failed.increment();
+            }
+            ledger.append(type, amounts.get(i), outcome.settled());
+        }
+    }
+
+    public static class PaymentFailedException extends ResponseStatusException {
+        public PaymentFailedException(PaymentType type, String error) {
+            super(HttpStatus.BAD_GATEWAY, type + " payment failed: " + error);
+        }
+    }
+
+    /**
+     * The caller stopped waiting before any flush took the payment, so it was never sent.
+     */
+    public static class SettlementWithdrawnException extends ResponseStatusException {
+        public SettlementWithdrawnException(PaymentType type) {
+            super(HttpStatus.SERVICE_UNAVAILABLE, type + " settlement was withdrawn before reaching the gateway");
+        }
+    }
+
+    /**
+     * The service shut down before any flush took the payment, so it was never sent.
+     */
+    public static class SettlementStoppedException extends ResponseStatusException {
+        public SettlementStoppedException(PaymentType type) {
+            super(HttpStatus.SERVICE_UNAVAILABLE, type + " settlement stopped before the payment was sent");
+        }
+    }
+
+    public static class SettlementSaturatedException extends ResponseStatusException {
+        public SettlementSaturatedException(PaymentType type) {
+            super(HttpStatus.SERVICE_UNAVAILABLE, "Settlement queue for " + type + " is full");
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, "1");
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.noua.design.patterns.factoryMethod.settlement;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for one payment type. Linger is the time from the first payment of a batch joining
+ * the queue until the batch is handed to the gateway.
+ */
+class SettlementMetrics {
+
+    private final long startedNanos = System.nanoTime();
+    final LongAdder batches = new LongAdder();
+    final LongAdder payments = new LongAdder();
+    final LongAdder failed = new LongAdder();
+    final LongAccumulator maxBatchSize = new LongAccumulator(Math::max, 0);
+    final LongAdder lingerNanos = new LongAdder();
+    final LongAccumulator maxLingerNanos = new LongAccumulator(Math::max, 0);
+
+    void recordBatch(int size, long lingerNanos) {
+        batches.increment();
+        payments.add(size);
+        maxBatchSize.accumulate(size);
+        this.lingerNanos.add(lingerNanos);
+        maxLingerNanos.accumulate(lingerNanos);
+    }
+
+    double paymentsPerSecond() {
+        double seconds = (System.nanoTime() - startedNanos) / 1e9;
+        return seconds <= 0 ? 0 : payments.sum() / seconds;
+    }
+}
@@ -0,0 +1,204 @@
+package com.noua.design.patterns.factoryMethod.split;
+
+import com.noua.design.patterns.factoryMethod.config.PaymentSplitProperties;
+import com.noua.design.patterns.factoryMethod.domain.LegStatus;
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import com.noua.design.patterns.factoryMethod.dto.SplitLeg;
+import com.noua.design.patterns.factoryMethod.dto.SplitLegResult;
+import com.noua.design.patterns.factoryMethod.dto.SplitPaymentResult;
+import com.noua.design.patterns.factoryMethod.factory.PaymentGatewayFactoryProvider;
+import com.noua.design.patterns.factoryMethod.ledger.PaymentLedger;
+import com.noua.design.patterns.factoryMethod.resilience.GatewayGuard;
+import com.noua.design.patterns.factoryMethod.service.PaymentGateway;
+import com.noua.design.patterns.factoryMethod.service.RefundablePaymentGateway;
+import com.noua.design.patterns.factoryMethod.settlement.PaymentSettlementService;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Pays one order from several instruments at once, all or nothing.
+ * <p>
+ * Every leg is settled on its own virtual thread inside a per-call executor whose {@code close()}
+ * joins all of them, so no leg outlives the call. The caller waits until the last leg is done or
+ * the {@code deadline} passes, at which point the remaining legs are interrupted; latency is that
+ * of the slowest leg. A leg that fails does not interrupt its siblings, since an interrupted charge
+ * has an unknown outcome and would have to be reversed anyway.
+ * <p>
+ * An interrupted leg of a batched type is withdrawn from its settlement queue if no flush took it
+ * yet, and otherwise waits for the flush to report the real outcome, so the call can outlast the
+ * deadline by the rest of that flush. Only a direct gateway call cut off by the guard ends up
+ * {@link LegStatus#TIMED_OUT}.
+ * <p>
+ * Unless every leg settled, the legs that took money or may have (timed out) are refunded through
+ * their {@link RefundablePaymentGateway}, again concurrently. Refunds of settled legs are appended
+ * to the {@link PaymentLedger} as negative amounts; a timed-out leg was recorded there as failed, so
+ * its refund is not, and reconciliation against the provider decides what it really did.
+ */
+@Service
+public class SplitPaymentService {
+
+    private static final ThreadFactory LEG_THREADS = Thread.ofVirtual().name("split-payment-leg-", 0).factory();
+
+    private static final class Leg {
+        private final SplitLeg request;
+        private volatile LegStatus status;
+        private volatile String error;
+        private volatile long elapsedNanos;
+
+        private Leg(SplitLeg request) {
+            this.request = request;
+        }
+    }
+
+    private final PaymentSettlementService settlementService;
+    private final PaymentGatewayFactoryProvider provider;
+    private final GatewayGuard guard;
+    private final PaymentLedger ledger;
+    private final PaymentSplitProperties properties;
+
+    public SplitPaymentService(PaymentSettlementService settlementService, PaymentGatewayFactoryProvider provider,
+                               GatewayGuard guard, PaymentLedger ledger, PaymentSplitProperties properties) {
+        this.settlementService = settlementService;
+        this.provider = provider;
+        this.guard = guard;
+        this.ledger = ledger;
+        this.properties = properties;
+    }
+
+    /**
+     * @throws ResponseStatusException 400 when there are no legs, too many, or a leg without a
+     *                                 type or with an amount the ledger cannot record; nothing is
+     *                                 charged then
+     */
+    public SplitPaymentResult pay(List<SplitLeg> requests) {
+        validate(requests);
+        long start = System.nanoTime();
+        List<Leg> legs = new ArrayList<>(requests.size());
+        for (SplitLeg request : requests) {
+            legs.add(new Leg(request));
+        }
+
+        boolean deadlineExceeded = !runAll(legs, this::settle, properties.deadline().toNanos());
+        boolean settled = legs.stream().allMatch(leg -> leg.status == LegStatus.SETTLED);
+        if (!settled) {
+            List<Leg> toReverse = legs.stream()
+                    .filter(leg -> leg.status == LegStatus.SETTLED || leg.status == LegStatus.TIMED_OUT)
+                    .toList();
+            runAll(toReverse, this::compensate, Long.MAX_VALUE);
+        }
+
+        BigDecimal total = BigDecimal.ZERO;
+        List<SplitLegResult> results = new ArrayList<>(legs.size());
+        for (Leg leg : legs) {
+            total = total.add(leg.request.amount());
+            results.add(new SplitLegResult(leg.request.type(), leg.request.amount(), leg.status, leg.error,
+                    leg.elapsedNanos / 1e6));
+        }
+        return new SplitPaymentResult(settled, deadlineExceeded, total, (System.nanoTime() - start) / 1e6, results);
+    }
+
+    /**
+     * Runs {@code task} for every leg on its own virtual thread and returns once all threads ended.
+     *
+     * @return {@code false} when the timeout passed first and the remaining legs were interrupted
+     */
+    private static boolean runAll(List<Leg> legs, Consumer<Leg> task, long timeoutNanos) {
+        if (legs.isEmpty()) {
+            return true;
+        }
+        CountDownLatch finished = new CountDownLatch(legs.size());
+        boolean inTime;
+        try (ExecutorService scope = Executors.newThreadPerTaskExecutor(LEG_THREADS)) {
+            for (Leg leg : legs) {
+                scope.execute(() -> {
+                    try {
+                        task.accept(leg);
+                    } finally {
+                        finished.countDown();
+                    }
+                });
+            }
+            try {
+                inTime = finished.await(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                inTime = false;
+            }
+            if (!inTime) {
+                scope.shutdownNow();
+            }
+        }
+        return inTime;
+    }
+
+    private void settle(Leg leg) {
+        long start = System.nanoTime();
+        try {
+            settlementService.settle(leg.request.type(), leg.request.amount());
+            leg.status = LegStatus.SETTLED;
+        } catch (ResponseStatusException e) {
+            // a timeout, the guard's or the settlement queue's, leaves the charge undecided
+            leg.status = e.getStatusCode().value() == HttpStatus.GATEWAY_TIMEOUT.value()
+                    ? LegStatus.TIMED_OUT
+                    : LegStatus.FAILED;
+            leg.error = e.getReason();
+        } catch (RuntimeException e) {
+            leg.status = LegStatus.FAILED;
+            leg.error = String.valueOf(e.getMessage());
+        } finally {
+            leg.elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    private void compensate(Leg leg) {
+        boolean recordedAsSettled = leg.status == LegStatus.SETTLED;
+        PaymentType type = leg.request.type();
+        BigDecimal amount = leg.request.amount();
+        PaymentGateway gateway = provider.getPaymentGatewayFactory(type).createPaymentGateway();
+        if (!(gateway instanceof RefundablePaymentGateway refundable)) {
+            leg.status = LegStatus.COMPENSATION_FAILED;
+            leg.error = type + " gateway cannot refund";
+            return;
+        }
+        try {
+            guard.call(type, () -> {
+                refundable.refund(amount);
+                return null;
+            });
+            if (recordedAsSettled) {
+                ledger.append(type, amount.negate(), true);
+            }
+            leg.status = LegStatus.COMPENSATED;
+        } catch (ResponseStatusException e) {
+            leg.status = LegStatus.COMPENSATION_FAILED;
+            leg.error = e.getReason();
+        } catch (RuntimeException e) {
+            leg.status = LegStatus.COMPENSATION_FAILED;
+            leg.error = String.valueOf(e.getMessage());
+        }
+    }
+
+    private void validate(List<SplitLeg> legs) {
+        if (legs == null || legs.isEmpty() || legs.size() > properties.maxLegs()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A split payment needs 1 to " + properties.maxLegs() + " legs");
+        }
+        for (SplitLeg leg : legs) {
+            if (leg == null || leg.type() == null || leg.amount() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Every leg needs a payment type and an amount");
+            }
+            ledger.requireValidAmount(leg.amount());
+        }
+    }
+}
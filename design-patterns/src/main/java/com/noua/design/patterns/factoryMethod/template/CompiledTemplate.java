@@ -0,0 +1,74 @@
+package com.noua.design.patterns.factoryMethod.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A template parsed once into alternating literal and {@code {{variable}}} segments, so rendering
+ * is a straight walk over two arrays appending into a caller-supplied buffer.
+ * A placeholder without its closing braces is kept as literal text.
+ */
+public final class CompiledTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String[] literals;
+    private final String[] variables;
+    private final int literalLength;
+
+    private CompiledTemplate(String[] literals, String[] variables) {
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static CompiledTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int position = 0;
+        while (position < source.length()) {
+            int open = source.indexOf(OPEN, position);
+            int close = open < 0 ? -1 : source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                literal.append(source, position, source.length());
+                break;
+            }
+            String name = source.substring(open + OPEN.length(), close).strip();
+            literal.append(source, position, open);
+            if (name.isEmpty()) {
+                literal.append(source, open, close + CLOSE.length());
+            } else {
+                literals.add(literal.toString());
+                literal.setLength(0);
+                variables.add(name);
+            }
+            position = close + CLOSE.length();
+        }
+        literals.add(literal.toString());
+        return new CompiledTemplate(literals.toArray(String[]::new), variables.toArray(String[]::new));
+    }
+
+    /**
+     * Appends the rendered template to {@code out}.
+     *
+     * @throws MissingTemplateVariableException when a referenced variable has no value
+     */
+    public void renderTo(StringBuilder out, Map<String, String> values) {
+        out.ensureCapacity(out.length() + literalLength + variables.length * 16);
+        out.append(literals[0]);
+        for (int i = 0; i < variables.length; i++) {
+            String value = values.get(variables[i]);
+            if (value == null) {
+                throw new MissingTemplateVariableException(variables[i]);
+            }
+            out.append(value).append(literals[i + 1]);
+        }
+    }
+}
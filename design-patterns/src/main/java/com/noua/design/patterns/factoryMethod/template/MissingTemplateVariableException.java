@@ -0,0 +1,10 @@
+package com.noua.design.patterns.factoryMethod.template;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class MissingTemplateVariableException extends ResponseStatusException {
+    public MissingTemplateVariableException(String variable) {
+        super(HttpStatus.BAD_REQUEST, "Missing value for template variable '" + variable + "'");
+    }
+}
@@ -0,0 +1,98 @@
+package com.noua.design.patterns.factoryMethod.template;
+
+import com.noua.design.patterns.factoryMethod.config.NotificationTemplateProperties;
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+/**
+ * Renders the named templates from {@code notifications.templates.definitions} into the message
+ * handed to a {@link com.noua.design.patterns.factoryMethod.service.NotificationSender}. Each
+ * channel gets its own variant: e-mails carry a {@code Subject:} header line above the body, and
+ * channels with a length limit (SMS by default) are truncated with a trailing {@code ...}.
+ */
+@Service
+public class NotificationTemplateService {
+    private static final String SUBJECT_PREFIX = "Subject: ";
+    private static final String ELLIPSIS = "...";
+
+    private final TemplateCompiler compiler;
+    private final NotificationTemplateProperties properties;
+    private final RenderBuffers buffers;
+
+    public NotificationTemplateService(TemplateCompiler compiler, NotificationTemplateProperties properties) {
+        this.compiler = compiler;
+        this.properties = properties;
+        this.buffers = new RenderBuffers(properties.bufferPoolSize(), properties.maxPooledBufferChars());
+        properties.definitions().forEach((name, template) -> {
+            for (NotificationType type : NotificationType.values()) {
+                if (template.variant(type).body() == null) {
+                    throw new IllegalStateException("Template '" + name + "' has no body for " + type);
+                }
+            }
+        });
+    }
+
+    /**
+     * @throws TemplateNotFoundException 404 when no template has that name
+     * @throws MissingTemplateVariableException 400 when a referenced variable has no value
+     */
+    public String render(NotificationType type, String template, Map<String, String> variables) {
+        NotificationTemplateProperties.Template definition = properties.definitions().get(template);
+        if (definition == null) {
+            throw new TemplateNotFoundException(template);
+        }
+        NotificationTemplateProperties.Variant variant = definition.variant(type);
+        StringBuilder out = buffers.acquire();
+        try {
+            if (type == NotificationType.EMAIL && variant.subject() != null && !variant.subject().isEmpty()) {
+                out.append(SUBJECT_PREFIX);
+                compiler.compile(variant.subject()).renderTo(out, variables);
+                singleLine(out, SUBJECT_PREFIX.length());
+                out.append("\n\n");
+            }
+            compiler.compile(variant.body()).renderTo(out, variables);
+            truncate(out, properties.maxLengthFor(type));
+            return out.toString();
+        } finally {
+            buffers.release(out);
+        }
+    }
+
+    public boolean exists(String template) {
+        return properties.definitions().containsKey(template);
+    }
+
+    /**
+     * Keeps variables from breaking out of the subject line.
+     */
+    private static void singleLine(StringBuilder out, int from) {
+        for (int i = from; i < out.length(); i++) {
+            char c = out.charAt(i);
+            if (c == '\r' || c == '\n') {
+                out.setCharAt(i, ' ');
+            }
+        }
+    }
+
+    private static void truncate(StringBuilder out, int maxLength) {
+        if (out.length() <= maxLength) {
+            return;
+        }
+        int cut = Math.max(0, maxLength - ELLIPSIS.length());
+        if (cut > 0 && Character.isLowSurrogate(out.charAt(cut))) {
+            cut--;
+        }
+        out.setLength(cut);
+        out.append(ELLIPSIS, 0, Math.min(ELLIPSIS.length(), maxLength));
+    }
+
+    public static class TemplateNotFoundException extends ResponseStatusException {
+        public TemplateNotFoundException(String template) {
+            super(HttpStatus.NOT_FOUND, "Unknown notification template '" + template + "'");
+        }
+    }
+}
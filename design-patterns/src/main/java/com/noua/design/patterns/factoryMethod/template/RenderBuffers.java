@@ -0,0 +1,42 @@
+package com.noua.design.patterns.factoryMethod.template;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of render buffers. A pool rather than thread-locals because senders run on virtual
+ * threads, which are never reused. Buffers that grew past {@code maxChars} are not returned.
+ */
+class RenderBuffers {
+
+    private final Queue<StringBuilder> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final int maxPooled;
+    private final int maxChars;
+
+    RenderBuffers(int maxPooled, int maxChars) {
+        this.maxPooled = maxPooled;
+        this.maxChars = maxChars;
+    }
+
+    StringBuilder acquire() {
+        StringBuilder buffer = pool.poll();
+        if (buffer == null) {
+            return new StringBuilder(256);
+        }
+        pooled.decrementAndGet();
+        return buffer;
+    }
+
+    void release(StringBuilder buffer) {
+        if (buffer.capacity() > maxChars || pooled.incrementAndGet() > maxPooled) {
+            if (buffer.capacity() <= maxChars) {
+                pooled.decrementAndGet();
+            }
+            return;
+        }
+        buffer.setLength(0);
+        pool.offer(buffer);
+    }
+}
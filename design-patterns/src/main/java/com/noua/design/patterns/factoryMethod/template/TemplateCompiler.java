@@ -0,0 +1,18 @@
+package com.noua.design.patterns.factoryMethod.template;
+
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compiles template sources through the {@value #CACHE} cache, so each distinct source is parsed
+ * once while it stays in use. Size and TTL eviction come from {@code spring.cache.caffeine.spec}.
+ */
+@Component
+public class TemplateCompiler {
+    public static final String CACHE = "notification-templates";
+
+    @Cacheable(CACHE)
+    public CompiledTemplate compile(String source) {
+        return CompiledTemplate.compile(source);
+    }
+}
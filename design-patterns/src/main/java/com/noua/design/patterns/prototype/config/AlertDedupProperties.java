@@ -0,0 +1,21 @@
+package com.noua.design.patterns.prototype.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param window  an alert created within this long of the previous identical one (same title,
+ *                recipient and priority) is coalesced into the first of them
+ * @param buckets time buckets the window is split into; more buckets free memory sooner but make
+ *                a lookup probe more of them
+ * @param maxKeys distinct alerts tracked at once; beyond that new alerts are created without dedup
+ */
+@ConfigurationProperties(prefix = "alerts.dedup")
+public record AlertDedupProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("60s") Duration window,
+        @DefaultValue("6") int buckets,
+        @DefaultValue("100000") int maxKeys
+) {}
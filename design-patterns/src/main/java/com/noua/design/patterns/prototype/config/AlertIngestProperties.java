@@ -0,0 +1,14 @@
+package com.noua.design.patterns.prototype.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param chunkSize      alerts parsed from a bulk body before they are created as one chunk
+ * @param chunksInFlight chunks created concurrently while the next one is parsed
+ */
+@ConfigurationProperties(prefix = "alerts.ingest")
+public record AlertIngestProperties(
+        @DefaultValue("1000") int chunkSize,
+        @DefaultValue("4") int chunksInFlight
+) {}
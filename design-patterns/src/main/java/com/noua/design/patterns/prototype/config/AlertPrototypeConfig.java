@@ -1,19 +1,11 @@
 package com.noua.design.patterns.prototype.config;
 
 
-import com.noua.design.patterns.prototype.domain.Alert;
-import com.noua.design.patterns.prototype.enumeration.AlertPriority;
-import org.springframework.context.annotation.Bean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@EnableConfigurationProperties({AlertPrototypeProperties.class, AlertDedupProperties.class, AlertStoreProperties.class,
+        AlertIngestProperties.class, AlertStreamProperties.class})
 public class AlertPrototypeConfig {
-
-    @Bean
-    public Alert defaultAlertPrototypeValues(){
-        return Alert.builder()
-                .realTime(true)
-                .priority(AlertPriority.MEDIUM)
-                .build();
-    }
 }
@@ -0,0 +1,37 @@
+package com.noua.design.patterns.prototype.config;
+
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * @param definitions    named prototypes, e.g. per team or per priority; {@code default} backs
+ *                       alerts created without a prototype name
+ * @param file           optional JSON object of further definitions by name, taking precedence over
+ *                       {@code definitions}; it is re-read whenever it changes
+ * @param reloadInterval how often {@code file} is checked for changes
+ */
+@ConfigurationProperties(prefix = "alerts.prototypes")
+public record AlertPrototypeProperties(
+        Map<String, Definition> definitions,
+        Path file,
+        @DefaultValue("5s") Duration reloadInterval
+) {
+    public AlertPrototypeProperties {
+        definitions = definitions == null ? Map.of() : definitions;
+    }
+
+    public record Definition(
+            Boolean realTime,
+            AlertPriority priority
+    ) {
+        public Definition {
+            realTime = realTime == null ? Boolean.TRUE : realTime;
+            priority = priority == null ? AlertPriority.MEDIUM : priority;
+        }
+    }
+}
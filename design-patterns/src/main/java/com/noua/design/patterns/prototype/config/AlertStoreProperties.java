@@ -0,0 +1,17 @@
+package com.noua.design.patterns.prototype.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * @param memoryBudget approximate heap the stored alerts and their indexes may take; the oldest
+ *                     alerts are evicted beyond it or beyond {@code max-alerts}
+ */
+@ConfigurationProperties(prefix = "alerts.store")
+public record AlertStoreProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("512MB") DataSize memoryBudget,
+        @DefaultValue("2000000") int maxAlerts,
+        @DefaultValue("1000") int maxPageSize
+) {}
@@ -0,0 +1,19 @@
+package com.noua.design.patterns.prototype.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param bufferSize alerts buffered per subscriber; beyond it the oldest are dropped
+ * @param heartbeat  idle time after which a comment is sent, so dead connections are noticed
+ * @param timeout    connection lifetime, after which {@code EventSource} clients reconnect
+ */
+@ConfigurationProperties(prefix = "alerts.stream")
+public record AlertStreamProperties(
+        @DefaultValue("256") int bufferSize,
+        @DefaultValue("10000") int maxSubscribers,
+        @DefaultValue("15s") Duration heartbeat,
+        @DefaultValue("30m") Duration timeout
+) {}
@@ -1,10 +1,28 @@
 package com.noua.design.patterns.prototype.controller;
 
 import com.noua.design.patterns.prototype.domain.Alert;
+import com.noua.design.patterns.prototype.dto.AlertIngestResult;
+import com.noua.design.patterns.prototype.dto.AlertPage;
 import com.noua.design.patterns.prototype.dto.AlertRequest;
+import com.noua.design.patterns.prototype.dto.AlertStoreStats;
+import com.noua.design.patterns.prototype.dto.AlertSubscriberStats;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import com.noua.design.patterns.prototype.service.AlertIngestionService;
+import com.noua.design.patterns.prototype.service.AlertPrototypeRegistry;
 import com.noua.design.patterns.prototype.service.AlertService;
+import com.noua.design.patterns.prototype.store.AlertStore;
+import com.noua.design.patterns.prototype.stream.AlertBroadcaster;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/alerts")
@@ -12,10 +30,16 @@ import org.springframework.web.bind.annotation.*;
 public class AlertController {
 
     private final AlertService alertService;
+    private final AlertPrototypeRegistry prototypeRegistry;
+    private final AlertStore alertStore;
+    private final AlertIngestionService ingestionService;
+    private final AlertBroadcaster broadcaster;
 
     @PostMapping
-    public Alert createAlert(@RequestBody AlertRequest request) {
+    public Alert createAlert(@RequestBody AlertRequest request,
+                             @RequestParam(defaultValue = AlertPrototypeRegistry.DEFAULT) String prototype) {
         return alertService.createAlert(
+                prototype,
                 request.title(),
                 request.message(),
                 request.recipient()
@@ -30,4 +54,72 @@ public class AlertController {
                 request.recipient()
         );
     }
+
+    /**
+     * Body: a JSON array of alerts or one alert per line (NDJSON), read as a stream; answers with
+     * counts only. 400 with the counts so far when the body turns out to be malformed, 500 when
+     * some alerts could not be created.
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<AlertIngestResult> ingestAlerts(InputStream body,
+                                                          @RequestParam(defaultValue = AlertPrototypeRegistry.DEFAULT) String prototype) {
+        AlertIngestResult result = ingestionService.ingest(prototype, body);
+        HttpStatus status = result.failed() > 0 ? HttpStatus.INTERNAL_SERVER_ERROR
+                : result.error() != null ? HttpStatus.BAD_REQUEST
+                : HttpStatus.OK;
+        return ResponseEntity.status(status).body(result);
+    }
+
+    /**
+     * Stored alerts, newest first, optionally filtered by priority, recipient and creation time
+     * {@code [from, to)}; page on with the returned {@code nextCursor}.
+     */
+    @GetMapping
+    public AlertPage getAlerts(@RequestParam(required = false) AlertPriority priority,
+                               @RequestParam(required = false) String recipient,
+                               @RequestParam(required = false) Instant from,
+                               @RequestParam(required = false) Instant to,
+                               @RequestParam(defaultValue = "0") long cursor,
+                               @RequestParam(defaultValue = "50") int limit) {
+        return alertStore.query(priority, recipient, from, to, cursor, limit);
+    }
+
+    /**
+     * Server-sent events: every alert created from now on, optionally filtered by priority and
+     * recipient. A subscriber that falls behind loses its oldest alerts, see
+     * {@code /alerts/stream/subscribers}.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAlerts(@RequestParam(required = false) AlertPriority priority,
+                                   @RequestParam(required = false) String recipient) {
+        return broadcaster.subscribe(priority, recipient);
+    }
+
+    @GetMapping("/stream/subscribers")
+    public List<AlertSubscriberStats> getStreamSubscribers() {
+        return broadcaster.subscribers();
+    }
+
+    @GetMapping("/{id}")
+    public Alert getAlert(@PathVariable long id) {
+        return alertStore.get(id);
+    }
+
+    /**
+     * Resolves an alert by removing it from the store.
+     */
+    @DeleteMapping("/{id}")
+    public Alert resolveAlert(@PathVariable long id) {
+        return alertStore.remove(id);
+    }
+
+    @GetMapping("/store")
+    public AlertStoreStats getStoreStats() {
+        return alertStore.stats();
+    }
+
+    @GetMapping("/prototypes")
+    public Map<String, Alert> getPrototypes() {
+        return prototypeRegistry.prototypes();
+    }
 }
@@ -2,33 +2,78 @@ package com.noua.design.patterns.prototype.domain;
 
 import com.noua.design.patterns.prototype.enumeration.AlertPriority;
 import com.noua.design.patterns.prototype.service.Prototype;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
-import lombok.Setter;
 
+import java.time.Instant;
 
+
+/**
+ * Immutable; alerts are derived from a prototype with {@link #with}, which copies the fields
+ * directly into a single new instance and shares the prototype's {@link AlertDefaults}.
+ * Prototypes have id {@code 0} and no creation time; {@code occurrences} counts the identical
+ * alerts coalesced into this one.
+ */
 @Getter
-@Setter
-@Builder
-public class Alert implements Prototype<Alert> {
-    private String title;
-    private String message;
-    private String recipient;
-    private boolean realTime;
-    private AlertPriority priority;
+public final class Alert implements Prototype<Alert> {
+    private final long id;
+    @Getter(AccessLevel.NONE)
+    private final long createdAtMillis;
+    private final String title;
+    private final String message;
+    private final String recipient;
+    @Getter(AccessLevel.NONE)
+    private final AlertDefaults defaults;
+    private final int occurrences;
+
+    @Builder
+    private Alert(String title, String message, String recipient, boolean realTime, AlertPriority priority) {
+        this(0, 0, title, message, recipient, AlertDefaults.of(realTime, priority), 0);
+    }
+
+    private Alert(long id, long createdAtMillis, String title, String message, String recipient, AlertDefaults defaults,
+                  int occurrences) {
+        this.id = id;
+        this.createdAtMillis = createdAtMillis;
+        this.title = title;
+        this.message = message;
+        this.recipient = recipient;
+        this.defaults = defaults;
+        this.occurrences = occurrences;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAtMillis == 0 ? null : Instant.ofEpochMilli(createdAtMillis);
+    }
+
+    public long createdAtMillis() {
+        return createdAtMillis;
+    }
+
+    public boolean isRealTime() {
+        return defaults.realTime();
+    }
+
+    public AlertPriority getPriority() {
+        return defaults.priority();
+    }
+
+    public Alert with(long id, long createdAtMillis, String title, String message, String recipient,
+                      AlertPriority priority) {
+        return new Alert(id, createdAtMillis, title, message, recipient,
+                AlertDefaults.of(defaults.realTime(), priority), 1);
+    }
+
+    public Alert withOccurrences(int occurrences) {
+        return new Alert(id, createdAtMillis, title, message, recipient, defaults, occurrences);
+    }
+
     /**
-     * @return
+     * @return this alert; being immutable it can be shared as is
      */
     @Override
     public Alert copy() {
-        return  Alert
-                .builder()
-                .title(title)
-                .message(message)
-                .recipient(recipient)
-                .realTime(realTime)
-                .priority(priority)
-                .build();
-
+        return this;
     }
 }
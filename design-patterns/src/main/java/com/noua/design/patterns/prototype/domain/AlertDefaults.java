@@ -0,0 +1,31 @@
+package com.noua.design.patterns.prototype.domain;
+
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+
+/**
+ * The fields an alert takes from its prototype. There are only a handful of combinations, so
+ * {@link #of} hands out one shared instance per combination and alerts hold a reference to it
+ * instead of copies of the fields.
+ */
+public record AlertDefaults(
+        boolean realTime,
+        AlertPriority priority
+) {
+    private static final AlertPriority[] PRIORITIES = AlertPriority.values();
+    private static final AlertDefaults[] SHARED = new AlertDefaults[2 * PRIORITIES.length];
+
+    static {
+        for (AlertPriority priority : PRIORITIES) {
+            SHARED[index(false, priority)] = new AlertDefaults(false, priority);
+            SHARED[index(true, priority)] = new AlertDefaults(true, priority);
+        }
+    }
+
+    public static AlertDefaults of(boolean realTime, AlertPriority priority) {
+        return priority == null ? new AlertDefaults(realTime, null) : SHARED[index(realTime, priority)];
+    }
+
+    private static int index(boolean realTime, AlertPriority priority) {
+        return (realTime ? PRIORITIES.length : 0) + priority.ordinal();
+    }
+}
@@ -0,0 +1,14 @@
+package com.noua.design.patterns.prototype.dto;
+
+/**
+ * @param created   requests that became a new alert
+ * @param coalesced requests that raised the occurrence count of an existing alert
+ * @param failed    requests whose alert could not be created
+ * @param error     why the first failed request failed, {@code null} when none did
+ */
+public record AlertBatchResult(
+        int created,
+        int coalesced,
+        int failed,
+        String error
+) {}
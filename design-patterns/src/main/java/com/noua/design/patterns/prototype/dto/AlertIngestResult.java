@@ -0,0 +1,17 @@
+package com.noua.design.patterns.prototype.dto;
+
+/**
+ * @param coalesced valid records that raised the occurrence count of an existing alert
+ * @param failed    valid records whose alert could not be created
+ * @param error     why reading stopped early, or else why the first record failed; {@code null} when
+ *                  the whole body was read and created
+ */
+public record AlertIngestResult(
+        long received,
+        long created,
+        long coalesced,
+        long invalid,
+        long failed,
+        double elapsedMillis,
+        String error
+) {}
@@ -0,0 +1,13 @@
+package com.noua.design.patterns.prototype.dto;
+
+import com.noua.design.patterns.prototype.domain.Alert;
+
+import java.util.List;
+
+/**
+ * @param nextCursor pass as {@code cursor} for the next (older) page; {@code 0} when there is none
+ */
+public record AlertPage(
+        List<Alert> alerts,
+        long nextCursor
+) {}
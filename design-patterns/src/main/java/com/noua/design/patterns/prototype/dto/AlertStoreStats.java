@@ -0,0 +1,8 @@
+package com.noua.design.patterns.prototype.dto;
+
+public record AlertStoreStats(
+        int alerts,
+        long retainedBytes,
+        long memoryBudget,
+        long evicted
+) {}
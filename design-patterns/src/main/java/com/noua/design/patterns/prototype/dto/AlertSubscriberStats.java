@@ -0,0 +1,18 @@
+package com.noua.design.patterns.prototype.dto;
+
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+
+/**
+ * @param buffered  alerts waiting to be sent
+ * @param dropped   alerts discarded because the buffer was full
+ * @param lagMillis age of the last alert sent when it was written to the connection
+ */
+public record AlertSubscriberStats(
+        long id,
+        AlertPriority priority,
+        String recipient,
+        int buffered,
+        long delivered,
+        long dropped,
+        long lagMillis
+) {}
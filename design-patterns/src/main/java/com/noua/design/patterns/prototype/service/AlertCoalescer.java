@@ -0,0 +1,172 @@
+package com.noua.design.patterns.prototype.service;
+
+import com.noua.design.patterns.prototype.config.AlertDedupProperties;
+import com.noua.design.patterns.prototype.domain.Alert;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Coalesces identical alerts (same title, recipient and priority): an alert created within
+ * {@code alerts.dedup.window} of the previous identical one is not created, the caller gets the
+ * first one back with its occurrence count incremented. The window slides, so a condition that
+ * keeps firing at least once per window stays a single alert.
+ * <p>
+ * Tracked alerts sit in a ring of {@code buckets + 1} time buckets, each its own concurrent map,
+ * filed under the bucket in which they were last seen; a repeat moves its entry to the current
+ * bucket. A lookup probes the live buckets newest first and checks the exact time since the last
+ * occurrence; a bucket that falls out of the window is dropped by replacing it in its ring slot,
+ * so expiry costs O(1) however many alerts it held. Identical alerts racing into an empty window
+ * yield one alert, the losers of the {@code putIfAbsent} coalesce into the winner; only a race
+ * straddling a bucket boundary can create a second one.
+ */
+@Component
+public class AlertCoalescer {
+
+    private record Key(String title, String recipient, AlertPriority priority) {}
+
+    private static final class Entry {
+        private final Alert alert;
+        private final AtomicInteger occurrences = new AtomicInteger(1);
+        private final AtomicLong lastSeenMillis;
+
+        private Entry(Alert alert) {
+            this.alert = alert;
+            this.lastSeenMillis = new AtomicLong(alert.createdAtMillis());
+        }
+
+        private Alert repeat(long now) {
+            lastSeenMillis.accumulateAndGet(now, Math::max);
+            return alert.withOccurrences(occurrences.incrementAndGet());
+        }
+    }
+
+    private record Bucket(long index, ConcurrentHashMap<Key, Entry> entries) {}
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final long bucketMillis;
+    private final int maxKeys;
+    private final AtomicReferenceArray<Bucket> ring;
+    private final LongSupplier clock;
+
+    @Autowired
+    public AlertCoalescer(AlertDedupProperties properties) {
+        this(properties, System::currentTimeMillis);
+    }
+
+    AlertCoalescer(AlertDedupProperties properties, LongSupplier clock) {
+        if (properties.buckets() < 1) {
+            throw new IllegalArgumentException("alerts.dedup.buckets must be positive");
+        }
+        this.enabled = properties.enabled();
+        this.windowMillis = properties.window().toMillis();
+        this.bucketMillis = Math.max(1, windowMillis / properties.buckets());
+        this.maxKeys = properties.maxKeys();
+        this.ring = new AtomicReferenceArray<>(properties.buckets() + 1);
+        this.clock = clock;
+    }
+
+    /**
+     * @param ids numbers the alert when it is derived from {@code prototype}, i.e. when no identical
+     *            one is in the window
+     * @return a new alert with one occurrence, or the first of a run of identical alerts, each within
+     *         the window of the previous one, with its updated occurrence count
+     */
+    public Alert coalesce(Alert prototype, String title, String message, String recipient, AlertPriority priority,
+                          LongSupplier ids) {
+        long now = clock.getAsLong();
+        if (!enabled) {
+            return prototype.with(ids.getAsLong(), now, title, message, recipient, priority);
+        }
+        long current = Math.floorDiv(now, bucketMillis);
+        Key key = new Key(title, recipient, priority);
+        for (long index = current; index > current - ring.length(); index--) {
+            Bucket bucket = live(index);
+            Entry entry = bucket == null ? null : bucket.entries().get(key);
+            if (entry != null && now - entry.lastSeenMillis.get() < windowMillis) {
+                return index == current ? entry.repeat(now) : refile(key, entry, bucket, current).repeat(now);
+            }
+        }
+        Bucket bucket = bucket(current);
+        Alert alert = prototype.with(ids.getAsLong(), now, title, message, recipient, priority);
+        if (bucket == null || tracked(current) >= maxKeys) {
+            return alert;
+        }
+        Entry fresh = new Entry(alert);
+        Entry raced = bucket.entries().putIfAbsent(key, fresh);
+        if (raced != null) {
+            return raced.repeat(now);
+        }
+        return fresh.alert;
+    }
+
+    /**
+     * Moves a repeated entry from the bucket it was last seen in to the current one, so it outlives
+     * that bucket.
+     *
+     * @return the entry now tracked under {@code key}, another one if a racing repeat got there first
+     */
+    private Entry refile(Key key, Entry entry, Bucket from, long current) {
+        Bucket bucket = bucket(current);
+        if (bucket == null) {
+            return entry;
+        }
+        Entry raced = bucket.entries().putIfAbsent(key, entry);
+        from.entries().remove(key, entry);
+        return raced == null ? entry : raced;
+    }
+
+    /**
+     * @return distinct alerts currently tracked
+     */
+    public int tracked() {
+        return tracked(Math.floorDiv(clock.getAsLong(), bucketMillis));
+    }
+
+    private int tracked(long current) {
+        int tracked = 0;
+        for (int slot = 0; slot < ring.length(); slot++) {
+            Bucket bucket = ring.get(slot);
+            if (bucket != null && bucket.index() > current - ring.length()) {
+                tracked += bucket.entries().size();
+            }
+        }
+        return tracked;
+    }
+
+    private Bucket live(long index) {
+        Bucket bucket = ring.get(slot(index));
+        return bucket != null && bucket.index() == index ? bucket : null;
+    }
+
+    /**
+     * The bucket for {@code index}, replacing whatever older bucket held its slot.
+     *
+     * @return {@code null} when the slot already moved past {@code index}, i.e. the caller's clock
+     *         reading is stale
+     */
+    private Bucket bucket(long index) {
+        int slot = slot(index);
+        while (true) {
+            Bucket bucket = ring.get(slot);
+            if (bucket != null && bucket.index() >= index) {
+                return bucket.index() == index ? bucket : null;
+            }
+            Bucket fresh = new Bucket(index, new ConcurrentHashMap<>());
+            if (ring.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private int slot(long index) {
+        return (int) Math.floorMod(index, (long) ring.length());
+    }
+}
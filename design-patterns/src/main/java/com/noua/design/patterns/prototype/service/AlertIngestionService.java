@@ -0,0 +1,170 @@
+package com.noua.design.patterns.prototype.service;
+
+import com.noua.design.patterns.prototype.config.AlertIngestProperties;
+import com.noua.design.patterns.prototype.dto.AlertBatchResult;
+import com.noua.design.patterns.prototype.dto.AlertIngestResult;
+import com.noua.design.patterns.prototype.dto.AlertRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates alerts from a streamed body holding a JSON array of {@link AlertRequest}s or one per line
+ * (NDJSON). Records are read token by token with the streaming parser, without data binding, and cut
+ * into chunks of {@code alerts.ingest.chunk-size}; up to {@code chunks-in-flight} chunks are created
+ * concurrently on virtual threads while the next one is parsed, so only those chunks are ever held
+ * in memory. Alert ids follow the order chunks are created in rather than strictly the body's.
+ * <p>
+ * A record that is not an object, has no title or a non-string field is counted as invalid and
+ * skipped. A record whose alert cannot be created is counted as failed on its own, the rest of its
+ * chunk still goes through. Malformed JSON stops the ingestion; the alerts created up to there are
+ * kept and the summary carries the parser's error.
+ */
+@Service
+@RequiredArgsConstructor
+public class AlertIngestionService {
+
+    private static final ThreadFactory CHUNK_THREADS = Thread.ofVirtual().name("alert-ingest-", 0).factory();
+
+    private record Chunk(int size, Future<AlertBatchResult> created) {}
+
+    private final AlertService alertService;
+    private final AlertPrototypeRegistry prototypeRegistry;
+    private final AlertIngestProperties properties;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @throws AlertPrototypeRegistry.UnknownPrototypeException 404 when no prototype has that name,
+     *                                                          before the body is read
+     */
+    public AlertIngestResult ingest(String prototype, InputStream body) {
+        prototypeRegistry.get(prototype);
+        long start = System.nanoTime();
+        Tally tally = new Tally();
+        Deque<Chunk> inFlight = new ArrayDeque<>();
+        List<AlertRequest> chunk = new ArrayList<>(properties.chunkSize());
+
+        try (ExecutorService scope = Executors.newThreadPerTaskExecutor(CHUNK_THREADS)) {
+            try (JsonParser parser = objectMapper.createParser(body)) {
+                JsonToken token = parser.nextToken();
+                boolean array = token == JsonToken.START_ARRAY;
+                if (array) {
+                    token = parser.nextToken();
+                }
+                while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+                    tally.received++;
+                    AlertRequest request = token == JsonToken.START_OBJECT ? read(parser) : null;
+                    if (token != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                    }
+                    if (request == null) {
+                        tally.invalid++;
+                    } else {
+                        chunk.add(request);
+                        if (chunk.size() == properties.chunkSize()) {
+                            submit(scope, prototype, chunk, inFlight, tally);
+                            chunk = new ArrayList<>(properties.chunkSize());
+                        }
+                    }
+                    token = parser.nextToken();
+                }
+            } catch (JacksonException e) {
+                tally.error = e.getOriginalMessage();
+            }
+            if (!chunk.isEmpty()) {
+                submit(scope, prototype, chunk, inFlight, tally);
+            }
+            while (!inFlight.isEmpty()) {
+                await(inFlight.poll(), tally);
+            }
+        }
+
+        long valid = tally.received - tally.invalid;
+        return new AlertIngestResult(tally.received, tally.created, valid - tally.created - tally.failed, tally.invalid,
+                tally.failed, (System.nanoTime() - start) / 1e6, tally.error);
+    }
+
+    private void submit(ExecutorService scope, String prototype, List<AlertRequest> chunk, Deque<Chunk> inFlight,
+                        Tally tally) {
+        while (inFlight.size() >= properties.chunksInFlight()) {
+            await(inFlight.poll(), tally);
+        }
+        inFlight.add(new Chunk(chunk.size(), scope.submit(() -> alertService.createAlerts(prototype, chunk))));
+    }
+
+    private static void await(Chunk chunk, Tally tally) {
+        try {
+            AlertBatchResult result = chunk.created().get();
+            tally.created += result.created();
+            tally.failed += result.failed();
+            tally.fail(result.error());
+        } catch (ExecutionException e) {
+            tally.failed += chunk.size();
+            tally.fail(String.valueOf(e.getCause().getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            tally.failed += chunk.size();
+            tally.fail("Interrupted while creating alerts");
+        }
+    }
+
+    /**
+     * Reads the object the parser is on up to its closing brace; fields other than the request's
+     * are skipped.
+     *
+     * @return {@code null} when the title is missing or a field is neither a string nor null
+     */
+    private static AlertRequest read(JsonParser parser) {
+        String title = null;
+        String message = null;
+        String recipient = null;
+        boolean valid = true;
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            String text = value == JsonToken.VALUE_STRING ? parser.getString() : null;
+            switch (name) {
+                case "title" -> title = text;
+                case "message" -> message = text;
+                case "recipient" -> recipient = text;
+                default -> {
+                    parser.skipChildren();
+                    continue;
+                }
+            }
+            if (text == null && value != JsonToken.VALUE_NULL) {
+                valid = false;
+                parser.skipChildren();
+            }
+        }
+        return valid && title != null && !title.isBlank() ? new AlertRequest(title, message, recipient) : null;
+    }
+
+    private static final class Tally {
+        private long received;
+        private long invalid;
+        private long created;
+        private long failed;
+        private String error;
+
+        private void fail(String reason) {
+            if (error == null) {
+                error = reason;
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.noua.design.patterns.prototype.service;
+
+import com.noua.design.patterns.prototype.config.AlertPrototypeProperties;
+import com.noua.design.patterns.prototype.domain.Alert;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Named alert prototypes from {@code alerts.prototypes}. The whole set is an immutable map swapped
+ * in one volatile write, so lookups never lock and a reload is seen all at once. When a prototype
+ * file is configured it is polled for changes and merged over the YAML definitions; a file that
+ * fails to parse leaves the previous set in place.
+ */
+@Component
+public class AlertPrototypeRegistry {
+
+    public static final String DEFAULT = "default";
+
+    private static final TypeReference<Map<String, AlertPrototypeProperties.Definition>> DEFINITIONS =
+            new TypeReference<>() {};
+
+    private final AlertPrototypeProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService watcher;
+    private volatile Map<String, Alert> prototypes;
+    private volatile FileTime loadedVersion;
+
+    public AlertPrototypeRegistry(AlertPrototypeProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        reload();
+        if (properties.file() != null) {
+            this.watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "alert-prototype-watcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = properties.reloadInterval().toMillis();
+            watcher.scheduleWithFixedDelay(this::reloadIfChanged, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.watcher = null;
+        }
+    }
+
+    /**
+     * @throws UnknownPrototypeException 404 when no prototype has that name
+     */
+    public Alert get(String name) {
+        Alert prototype = prototypes.get(name);
+        if (prototype == null) {
+            throw new UnknownPrototypeException(name);
+        }
+        return prototype;
+    }
+
+    public Map<String, Alert> prototypes() {
+        return prototypes;
+    }
+
+    /**
+     * Rebuilds the prototypes from the YAML definitions and the prototype file, if any.
+     *
+     * @return {@code false} when the file could not be read and the previous set was kept
+     */
+    public boolean reload() {
+        Map<String, AlertPrototypeProperties.Definition> definitions = new HashMap<>(properties.definitions());
+        FileTime version = null;
+        if (properties.file() != null) {
+            try {
+                version = Files.getLastModifiedTime(properties.file());
+                try (InputStream in = Files.newInputStream(properties.file())) {
+                    definitions.putAll(objectMapper.readValue(in, DEFINITIONS));
+                }
+            } catch (NoSuchFileException e) {
+                version = null;
+            } catch (IOException | JacksonException e) {
+                System.err.println("Unable to load alert prototypes from " + properties.file() + ": " + e);
+                if (prototypes != null) {
+                    // retried once the file changes again
+                    loadedVersion = version;
+                    return false;
+                }
+            }
+        }
+        Map<String, Alert> built = new HashMap<>(definitions.size() + 1);
+        definitions.forEach((name, definition) -> built.put(name, Alert.builder()
+                .realTime(definition.realTime())
+                .priority(definition.priority())
+                .build()));
+        built.putIfAbsent(DEFAULT, Alert.builder()
+                .realTime(true)
+                .priority(AlertPriority.MEDIUM)
+                .build());
+        prototypes = Map.copyOf(built);
+        loadedVersion = version;
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+    }
+
+    private void reloadIfChanged() {
+        Path file = properties.file();
+        FileTime version;
+        try {
+            version = Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            version = null;
+        }
+        if (version == null ? loadedVersion != null : !version.equals(loadedVersion)) {
+            reload();
+        }
+    }
+
+    public static class UnknownPrototypeException extends ResponseStatusException {
+        public UnknownPrototypeException(String name) {
+            super(HttpStatus.NOT_FOUND, "No alert prototype named " + name);
+        }
+    }
+}
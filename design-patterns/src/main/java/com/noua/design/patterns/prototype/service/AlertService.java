@@ -1,31 +1,81 @@
 package com.noua.design.patterns.prototype.service;
 
 import com.noua.design.patterns.prototype.domain.Alert;
+import com.noua.design.patterns.prototype.dto.AlertBatchResult;
+import com.noua.design.patterns.prototype.dto.AlertRequest;
 import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import com.noua.design.patterns.prototype.store.AlertStore;
+import com.noua.design.patterns.prototype.stream.AlertBroadcaster;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Creates alerts from the registry's prototypes, keeps them in the {@link AlertStore} and pushes
+ * them to the {@link AlertBroadcaster}'s subscribers. Identical alerts within the dedup window come
+ * back as the first one with a higher occurrence count, see {@link AlertCoalescer}.
+ */
 @Service
 @RequiredArgsConstructor
 public class AlertService {
 
-    private final Alert defaultAlertPrototypeValues;
+    private final AlertPrototypeRegistry prototypeRegistry;
+    private final AlertCoalescer coalescer;
+    private final AlertStore store;
+    private final AlertBroadcaster broadcaster;
+    private final AtomicLong ids = new AtomicLong();
+    private final LongSupplier nextId = ids::incrementAndGet;
 
     public Alert createAlert(String title, String message, String recipient) {
-        Alert alert = defaultAlertPrototypeValues.copy();
-        alert.setTitle(title);
-        alert.setMessage(message);
-        alert.setRecipient(recipient);
-        return alert;
+        return createAlert(AlertPrototypeRegistry.DEFAULT, title, message, recipient);
+    }
+
+    public Alert createAlert(String prototype, String title, String message, String recipient) {
+        Alert base = prototypeRegistry.get(prototype);
+        return stored(coalescer.coalesce(base, title, message, recipient, base.getPriority(), nextId));
     }
 
 
     public Alert createCriticalAlert(String title, String message, String recipient) {
-        Alert alert = defaultAlertPrototypeValues.copy();
-        alert.setTitle(title);
-        alert.setMessage(message);
-        alert.setRecipient(recipient);
-        alert.setPriority(AlertPriority.CRITICAL);
+        Alert base = prototypeRegistry.get(AlertPrototypeRegistry.DEFAULT);
+        return stored(coalescer.coalesce(base, title, message, recipient, AlertPriority.CRITICAL, nextId));
+    }
+
+    /**
+     * Creates one alert per request from a prototype looked up once for the whole chunk. A request
+     * that fails does not stop the others.
+     */
+    public AlertBatchResult createAlerts(String prototype, List<AlertRequest> requests) {
+        Alert base = prototypeRegistry.get(prototype);
+        int created = 0;
+        int coalesced = 0;
+        int failed = 0;
+        String error = null;
+        for (AlertRequest request : requests) {
+            try {
+                Alert alert = stored(coalescer.coalesce(base, request.title(), request.message(), request.recipient(),
+                        base.getPriority(), nextId));
+                if (alert.getOccurrences() == 1) {
+                    created++;
+                } else {
+                    coalesced++;
+                }
+            } catch (RuntimeException e) {
+                failed++;
+                if (error == null) {
+                    error = String.valueOf(e.getMessage());
+                }
+            }
+        }
+        return new AlertBatchResult(created, coalesced, failed, error);
+    }
+
+    private Alert stored(Alert alert) {
+        store.save(alert);
+        broadcaster.publish(alert);
         return alert;
     }
 }
@@ -0,0 +1,264 @@
+package com.noua.design.patterns.prototype.store;
+
+import com.noua.design.patterns.prototype.config.AlertStoreProperties;
+import com.noua.design.patterns.prototype.domain.Alert;
+import com.noua.design.patterns.prototype.dto.AlertPage;
+import com.noua.design.patterns.prototype.dto.AlertStoreStats;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps created alerts queryable by priority, recipient and time, newest first.
+ * <p>
+ * Every alert is filed under four slices, all alerts, its priority, its recipient and its
+ * recipient with its priority, each a {@link ConcurrentSkipListMap} by id, newest first so a page
+ * is read by forward iteration. A query takes the one slice matching its filters and seeks to its
+ * cursor, so it costs O(log n) plus the page however many alerts are stored, and it never locks:
+ * writers only take the hash bin of the slice they touch. An alert is claimed in the all-alerts
+ * slice first, which settles racing saves of the same id; if it was removed or evicted while its
+ * other slices were written, the save takes it out of them again. Ids are issued in creation
+ * order, so a time range maps to an id range through a sparse index of the first id seen in each
+ * millisecond; alerts created concurrently within the same millisecond as a bound may land on
+ * either side of it.
+ * <p>
+ * Alerts are evicted oldest first beyond {@code max-alerts} or the approximate
+ * {@code memory-budget}.
+ */
+@Component
+public class AlertStore {
+
+    /**
+     * Rough per-alert cost beyond the strings: four skip-list nodes and their index levels, the
+     * entry and the alert.
+     */
+    private static final int ENTRY_OVERHEAD = 320;
+
+    private record Slice(String recipient, AlertPriority priority) {}
+
+    private static final Slice ALL = new Slice(null, null);
+    private static final Comparator<Long> NEWEST_FIRST = Comparator.reverseOrder();
+
+    private static final class Entry {
+        private volatile Alert alert;
+        private final int weight;
+
+        private Entry(Alert alert, int weight) {
+            this.alert = alert;
+            this.weight = weight;
+        }
+
+        /**
+         * Coalesced copies of an alert may be saved out of order; keep the highest count.
+         */
+        private synchronized void update(Alert newer) {
+            if (newer.getOccurrences() > alert.getOccurrences()) {
+                alert = newer;
+            }
+        }
+    }
+
+    private final AlertStoreProperties properties;
+    private final ConcurrentHashMap<Slice, ConcurrentSkipListMap<Long, Entry>> slices = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Entry> all = new ConcurrentSkipListMap<>(NEWEST_FIRST);
+    private final ConcurrentSkipListMap<Long, Long> firstIdByMillis = new ConcurrentSkipListMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final LongAdder evicted = new LongAdder();
+
+    public AlertStore(AlertStoreProperties properties) {
+        this.properties = properties;
+        slices.put(ALL, all);
+    }
+
+    /**
+     * Stores a new alert, or updates the occurrence count of one already stored.
+     */
+    public void save(Alert alert) {
+        if (!properties.enabled()) {
+            return;
+        }
+        Entry existing = all.get(alert.getId());
+        if (existing != null) {
+            existing.update(alert);
+            return;
+        }
+        Entry entry = new Entry(alert, weight(alert));
+        Entry raced = all.putIfAbsent(alert.getId(), entry);
+        if (raced != null) {
+            raced.update(alert);
+            return;
+        }
+        firstIdByMillis.merge(alert.createdAtMillis(), alert.getId(), Math::min);
+        for (Slice slice : slicesOf(alert)) {
+            if (slice == ALL) {
+                continue; // already claimed above, putting it again would resurrect an evicted alert
+            }
+            slices.compute(slice, (key, index) -> {
+                ConcurrentSkipListMap<Long, Entry> target = index != null ? index : new ConcurrentSkipListMap<>(NEWEST_FIRST);
+                target.put(alert.getId(), entry);
+                return target;
+            });
+        }
+        size.incrementAndGet();
+        retainedBytes.addAndGet(entry.weight);
+        if (all.get(alert.getId()) != entry) {
+            // removed or evicted while its slices were written; that unindex may have run before them
+            dropSlices(alert.getId(), entry);
+        }
+        enforceBudget();
+    }
+
+    public Alert get(long id) {
+        Entry entry = all.get(id);
+        if (entry == null) {
+            throw new AlertNotFoundException(id);
+        }
+        return entry.alert;
+    }
+
+    /**
+     * @throws AlertNotFoundException 404 when no alert with that id is stored
+     */
+    public Alert remove(long id) {
+        Entry entry = all.remove(id);
+        if (entry == null) {
+            throw new AlertNotFoundException(id);
+        }
+        unindex(id, entry);
+        return entry.alert;
+    }
+
+    /**
+     * Newest first.
+     *
+     * @param priority  only alerts of this priority, if given
+     * @param recipient only alerts for this recipient, if given
+     * @param from      only alerts created at or after this instant, if given
+     * @param to        only alerts created before this instant, if given
+     * @param cursor    only alerts older than this id, i.e. the previous page's {@code nextCursor};
+     *                  {@code 0} for the first page
+     * @throws ResponseStatusException 400 when {@code limit} is out of range or the time range is empty
+     */
+    public AlertPage query(AlertPriority priority, String recipient, Instant from, Instant to, long cursor, int limit) {
+        if (limit < 1 || limit > properties.maxPageSize()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and " + properties.maxPageSize());
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to");
+        }
+        ConcurrentNavigableMap<Long, Entry> range = slices.get(new Slice(recipient, priority));
+        if (range == null) {
+            return new AlertPage(List.of(), 0);
+        }
+        long fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+        long toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+        if (from != null) {
+            Map.Entry<Long, Long> first = firstIdByMillis.ceilingEntry(fromMillis);
+            if (first == null) {
+                return new AlertPage(List.of(), 0);
+            }
+            range = range.headMap(first.getValue(), true);
+        }
+        if (to != null) {
+            Map.Entry<Long, Long> end = firstIdByMillis.ceilingEntry(toMillis);
+            if (end != null) {
+                range = range.tailMap(end.getValue(), false);
+            }
+        }
+        if (cursor > 0) {
+            range = range.tailMap(cursor, false);
+        }
+
+        List<Alert> alerts = new ArrayList<>(Math.min(limit, 64));
+        long nextCursor = 0;
+        for (Entry entry : range.values()) {
+            Alert alert = entry.alert;
+            if (alert.createdAtMillis() < fromMillis || alert.createdAtMillis() >= toMillis) {
+                continue;
+            }
+            if (alerts.size() == limit) {
+                nextCursor = alerts.getLast().getId();
+                break;
+            }
+            alerts.add(alert);
+        }
+        return new AlertPage(alerts, nextCursor);
+    }
+
+    public AlertStoreStats stats() {
+        return new AlertStoreStats(size.get(), retainedBytes.get(), properties.memoryBudget().toBytes(), evicted.sum());
+    }
+
+    private void enforceBudget() {
+        long budget = properties.memoryBudget().toBytes();
+        while (retainedBytes.get() > budget || size.get() > properties.maxAlerts()) {
+            Map.Entry<Long, Entry> oldest = all.pollLastEntry();
+            if (oldest == null) {
+                return;
+            }
+            unindex(oldest.getKey(), oldest.getValue());
+            evicted.increment();
+        }
+    }
+
+    /**
+     * Drops an alert already removed from {@link #all} from the other slices and the time index.
+     */
+    private void unindex(long id, Entry entry) {
+        dropSlices(id, entry);
+        size.decrementAndGet();
+        retainedBytes.addAndGet(-entry.weight);
+        Map.Entry<Long, Entry> oldest = all.lastEntry();
+        if (oldest != null) {
+            firstIdByMillis.headMap(oldest.getValue().alert.createdAtMillis()).clear();
+        }
+    }
+
+    private void dropSlices(long id, Entry entry) {
+        for (Slice slice : slicesOf(entry.alert)) {
+            if (slice != ALL) {
+                slices.computeIfPresent(slice, (key, index) -> {
+                    index.remove(id, entry);
+                    return index.isEmpty() ? null : index;
+                });
+            }
+        }
+    }
+
+    private static List<Slice> slicesOf(Alert alert) {
+        if (alert.getRecipient() == null) {
+            return List.of(ALL, new Slice(null, alert.getPriority()));
+        }
+        return List.of(ALL, new Slice(null, alert.getPriority()), new Slice(alert.getRecipient(), null),
+                new Slice(alert.getRecipient(), alert.getPriority()));
+    }
+
+    private static int weight(Alert alert) {
+        return ENTRY_OVERHEAD + 2 * (length(alert.getTitle()) + length(alert.getMessage()) + length(alert.getRecipient()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    public static class AlertNotFoundException extends ResponseStatusException {
+        public AlertNotFoundException(long id) {
+            super(HttpStatus.NOT_FOUND, "No stored alert with id " + id);
+        }
+    }
+}
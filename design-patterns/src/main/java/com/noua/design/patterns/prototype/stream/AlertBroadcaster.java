@@ -0,0 +1,191 @@
+package com.noua.design.patterns.prototype.stream;
+
+import com.noua.design.patterns.prototype.config.AlertStreamProperties;
+import com.noua.design.patterns.prototype.domain.Alert;
+import com.noua.design.patterns.prototype.dto.AlertSubscriberStats;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Pushes created alerts to server-sent event subscribers, each filtered by priority and recipient.
+ * <p>
+ * Subscribers are indexed by their filter the way the store files alerts, so publishing an alert
+ * looks up the four filters it can match and only touches their subscribers. It never blocks: each
+ * subscriber has a bounded buffer that drops its oldest alert when full, drained by the
+ * subscriber's own virtual thread, which is the only one to wait on a slow connection.
+ */
+@Component
+public class AlertBroadcaster {
+
+    private record Filter(String recipient, AlertPriority priority) {}
+
+    private static final Filter ALL = new Filter(null, null);
+
+    private static final class Subscriber {
+        private final long id;
+        private final Filter filter;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Alert> buffer;
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final AtomicBoolean open = new AtomicBoolean(true);
+        private volatile long lagMillis;
+        private volatile Thread sender;
+
+        private Subscriber(long id, Filter filter, SseEmitter emitter, int bufferSize) {
+            this.id = id;
+            this.filter = filter;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private void offer(Alert alert) {
+            while (!buffer.offer(alert)) {
+                if (buffer.poll() != null) {
+                    dropped.increment();
+                }
+            }
+        }
+    }
+
+    private final AlertStreamProperties properties;
+    private final ConcurrentHashMap<Filter, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicLong ids = new AtomicLong();
+    private final Supplier<SseEmitter> emitters;
+
+    @Autowired
+    public AlertBroadcaster(AlertStreamProperties properties) {
+        this(properties, () -> new SseEmitter(properties.timeout().toMillis()));
+    }
+
+    AlertBroadcaster(AlertStreamProperties properties, Supplier<SseEmitter> emitters) {
+        this.properties = properties;
+        this.emitters = emitters;
+    }
+
+    /**
+     * @param priority  only alerts of this priority, if given
+     * @param recipient only alerts for this recipient, if given
+     * @throws ResponseStatusException 503 when {@code max-subscribers} are already connected
+     */
+    public SseEmitter subscribe(AlertPriority priority, String recipient) {
+        if (count.incrementAndGet() > properties.maxSubscribers()) {
+            count.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many alert stream subscribers");
+        }
+        SseEmitter emitter = emitters.get();
+        Subscriber subscriber = new Subscriber(ids.incrementAndGet(), new Filter(recipient, priority), emitter,
+                properties.bufferSize());
+        subscribers.compute(subscriber.filter, (key, set) -> {
+            Set<Subscriber> target = set != null ? set : ConcurrentHashMap.newKeySet();
+            target.add(subscriber);
+            return target;
+        });
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        subscriber.sender = Thread.ofVirtual()
+                .name("alert-stream-" + subscriber.id)
+                .start(() -> send(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Hands the alert to every matching subscriber's buffer.
+     */
+    public void publish(Alert alert) {
+        if (count.get() == 0) {
+            return;
+        }
+        offer(ALL, alert);
+        offer(new Filter(null, alert.getPriority()), alert);
+        if (alert.getRecipient() != null) {
+            offer(new Filter(alert.getRecipient(), null), alert);
+            offer(new Filter(alert.getRecipient(), alert.getPriority()), alert);
+        }
+    }
+
+    public List<AlertSubscriberStats> subscribers() {
+        List<AlertSubscriberStats> stats = new ArrayList<>();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> stats.add(new AlertSubscriberStats(
+                subscriber.id, subscriber.filter.priority(), subscriber.filter.recipient(), subscriber.buffer.size(),
+                subscriber.delivered.sum(), subscriber.dropped.sum(), subscriber.lagMillis))));
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> {
+            subscriber.sender.interrupt();
+            subscriber.emitter.complete();
+        }));
+    }
+
+    private void offer(Filter filter, Alert alert) {
+        Set<Subscriber> matching = subscribers.get(filter);
+        if (matching != null) {
+            for (Subscriber subscriber : matching) {
+                subscriber.offer(alert);
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        long heartbeat = properties.heartbeat().toMillis();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Alert alert = subscriber.buffer.poll(heartbeat, TimeUnit.MILLISECONDS);
+                if (alert == null) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                    continue;
+                }
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(Long.toString(alert.getId()))
+                        .name("alert")
+                        .data(alert, MediaType.APPLICATION_JSON));
+                subscriber.delivered.increment();
+                subscriber.lagMillis = System.currentTimeMillis() - alert.createdAtMillis();
+            }
+        } catch (InterruptedException e) {
+            // unsubscribed or shutting down
+        } catch (IOException | IllegalStateException e) {
+            // the client went away or the emitter already completed
+            unsubscribe(subscriber);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.open.compareAndSet(true, false)) {
+            return;
+        }
+        subscribers.computeIfPresent(subscriber.filter, (key, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+        count.decrementAndGet();
+        Thread sender = subscriber.sender;
+        if (sender != null && sender != Thread.currentThread()) {
+            sender.interrupt();
+        }
+    }
+}
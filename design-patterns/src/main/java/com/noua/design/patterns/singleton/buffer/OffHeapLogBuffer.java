@@ -0,0 +1,320 @@
+package com.noua.design.patterns.singleton.buffer;
+
+import com.noua.design.patterns.singleton.domain.LogEntry;
+import com.noua.design.patterns.singleton.enumeration.LogLevel;
+import com.noua.design.patterns.singleton.enumeration.OverflowPolicy;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded multi-producer ring of fixed-size log records kept in a direct (off-heap) buffer.
+ * <p>
+ * Writers claim a sequence with a single atomic increment (or a CAS when dropping), take its slot
+ * by swapping the slot sequence for a writing marker, encode the record straight into the slot and
+ * publish it by storing the sequence with release semantics, so {@link #append} does not allocate.
+ * Readers validate the slot sequence before and after copying a record (seqlock style) and only
+ * then decode it into a {@link LogEntry}.
+ * <p>
+ * Two writers a whole lap apart map to the same slot. The marker keeps them from encoding into it
+ * at once: the later one spins until the earlier one has published, and an earlier one that finds
+ * the slot taken by a later lap drops its record, which has left the window anyway. Only then does
+ * {@link #append} wait, for as long as one record takes to encode.
+ * <p>
+ * Under {@link OverflowPolicy#DROP_NEWEST} a slot is only reused once it is below both the last
+ * {@link #clear()} and what the consumer, the sink, has {@link #release released}. Without a
+ * consumer the buffer keeps the first {@code capacity} entries and drops newer ones until it is
+ * cleared. Under {@link OverflowPolicy#OVERWRITE_OLDEST} the oldest slot is reused regardless.
+ * <p>
+ * Slot layout: {@code long sequence | long epochNanos | short source | byte level | byte pad |
+ * int length | utf-8 message}. Messages longer than the slot are truncated on a character boundary.
+ */
+public class OffHeapLogBuffer {
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final long UNPUBLISHED = -1L;
+    private static final int EPOCH_NANOS = 8;
+    private static final int SOURCE = 16;
+    private static final int LEVEL = 18;
+    private static final int LENGTH = 20;
+    private static final int MESSAGE = 24;
+    private static final LogLevel[] LEVELS = LogLevel.values();
+
+    private final ByteBuffer arena;
+    private final int capacity;
+    private final int mask;
+    private final int slotSize;
+    private final OverflowPolicy policy;
+    private final AtomicLong head = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final Map<String, Short> sourceIds = new ConcurrentHashMap<>();
+    private final List<String> sources = new CopyOnWriteArrayList<>();
+    private volatile long start;
+    private volatile long released;
+
+    public OffHeapLogBuffer(int capacity, int slotSize, OverflowPolicy policy) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30: " + capacity);
+        }
+        if (slotSize <= MESSAGE || slotSize % Long.BYTES != 0) {
+            throw new IllegalArgumentException("slot size must be a multiple of 8 larger than " + MESSAGE + ": " + slotSize);
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        if ((long) this.capacity * slotSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("capacity * slot size exceeds 2GB");
+        }
+        this.mask = this.capacity - 1;
+        this.slotSize = slotSize;
+        this.policy = policy;
+        this.arena = ByteBuffer.allocateDirect(this.capacity * slotSize).order(ByteOrder.nativeOrder());
+        for (int slot = 0; slot < this.capacity; slot++) {
+            arena.putLong(slot * slotSize, UNPUBLISHED);
+        }
+    }
+
+    /**
+     * @return the sequence assigned to the record, or {@code -1} when it was dropped
+     */
+    public long append(long epochNanos, LogLevel level, String source, String message) {
+        // may throw, so before a slot is claimed that would then never be published
+        short sourceId = sourceId(source);
+        long sequence = claim();
+        if (sequence < 0) {
+            return sequence;
+        }
+        int base = slotBase(sequence);
+        if (!acquire(base, sequence)) {
+            dropped.increment();
+            return -1;
+        }
+        VarHandle.storeStoreFence();
+        arena.putLong(base + EPOCH_NANOS, epochNanos);
+        arena.putShort(base + SOURCE, sourceId);
+        arena.put(base + LEVEL, (byte) level.ordinal());
+        arena.putInt(base + LENGTH, encode(message, base + MESSAGE, slotSize - MESSAGE));
+        LONGS.setRelease(arena, base, sequence);
+        return sequence;
+    }
+
+    private long claim() {
+        if (policy == OverflowPolicy.OVERWRITE_OLDEST) {
+            long sequence = head.getAndIncrement();
+            if (sequence - start >= capacity) {
+                dropped.increment();
+            }
+            return sequence;
+        }
+        while (true) {
+            long sequence = head.get();
+            if (sequence - Math.max(start, released) >= capacity) {
+                dropped.increment();
+                return -1;
+            }
+            if (head.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    /**
+     * Swaps the slot's published sequence for the writing marker of {@code sequence}, waiting while
+     * a writer of an earlier lap still holds the slot.
+     *
+     * @return {@code false} when a writer of a later lap has taken the slot already
+     */
+    private boolean acquire(int base, long sequence) {
+        while (true) {
+            long current = (long) LONGS.getAcquire(arena, base);
+            long owner = current < UNPUBLISHED ? writingSequence(current) : current;
+            if (owner >= sequence) {
+                return false;
+            }
+            if (current < UNPUBLISHED) {
+                Thread.onSpinWait();
+            } else if (LONGS.compareAndSet(arena, base, current, writingMarker(sequence))) {
+                return true;
+            }
+        }
+    }
+
+    private static long writingMarker(long sequence) {
+        return -2 - sequence;
+    }
+
+    private static long writingSequence(long marker) {
+        return -2 - marker;
+    }
+
+    /**
+     * @return the record stored under {@code sequence}, or {@code null} when it was evicted,
+     * cleared or is still being published
+     */
+    public LogEntry get(long sequence) {
+        if (sequence < firstSequence() || sequence >= head.get()) {
+            return null;
+        }
+        int base = slotBase(sequence);
+        if ((long) LONGS.getAcquire(arena, base) != sequence) {
+            return null;
+        }
+        long epochNanos = arena.getLong(base + EPOCH_NANOS);
+        short source = arena.getShort(base + SOURCE);
+        byte level = arena.get(base + LEVEL);
+        int length = arena.getInt(base + LENGTH);
+        if (length < 0 || length > slotSize - MESSAGE || level < 0 || level >= LEVELS.length) {
+            return null;
+        }
+        byte[] message = new byte[length];
+        arena.get(base + MESSAGE, message);
+        VarHandle.loadLoadFence();
+        if ((long) LONGS.getAcquire(arena, base) != sequence) {
+            return null;
+        }
+        return new LogEntry(epochNanos, LEVELS[level], sources.get(source), new String(message, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Whether a writer has claimed {@code sequence} but not published it yet. A reader walking the
+     * buffer in order has to stop there rather than skip it, or it would never see that record.
+     */
+    public boolean isPending(long sequence) {
+        if (sequence >= head.get()) {
+            return false;
+        }
+        long published = (long) LONGS.getAcquire(arena, slotBase(sequence));
+        // a slot being reused for a later lap also reads as unpublished, but the sequence has left the window then
+        return published < sequence && sequence >= firstSequence();
+    }
+
+    public List<LogEntry> snapshot() {
+        long end = head.get();
+        long from = Math.max(start, end - capacity);
+        List<LogEntry> entries = new ArrayList<>((int) (end - from));
+        for (long sequence = from; sequence < end; sequence++) {
+            LogEntry entry = get(sequence);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Oldest sequence that may still be readable.
+     */
+    public long firstSequence() {
+        return Math.max(start, head.get() - capacity);
+    }
+
+    /**
+     * Next sequence to be claimed by a writer.
+     */
+    public long headSequence() {
+        return head.get();
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int maxMessageBytes() {
+        return slotSize - MESSAGE;
+    }
+
+    /**
+     * Lets {@link OverflowPolicy#DROP_NEWEST} reuse the slots below {@code sequence}; called by the
+     * consumer once it has persisted them.
+     */
+    public void release(long sequence) {
+        if (sequence > released) {
+            released = sequence;
+        }
+    }
+
+    public void clear() {
+        start = head.get();
+    }
+
+    private int slotBase(long sequence) {
+        return (int) (sequence & mask) * slotSize;
+    }
+
+    private short sourceId(String source) {
+        Short id = sourceIds.get(source);
+        return id != null ? id : registerSource(source);
+    }
+
+    private synchronized short registerSource(String source) {
+        Short id = sourceIds.get(source);
+        if (id == null) {
+            if (sources.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many log sources");
+            }
+            sources.add(source);
+            id = (short) (sources.size() - 1);
+            sourceIds.put(source, id);
+        }
+        return id;
+    }
+
+    /**
+     * Encodes {@code text} as UTF-8 directly into the arena, stopping before the first character
+     * that would not fit.
+     */
+    private int encode(String text, int offset, int maxBytes) {
+        int position = offset;
+        int limit = offset + maxBytes;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (position + 1 > limit) {
+                    break;
+                }
+                arena.put(position++, (byte) c);
+            } else if (c < 0x800) {
+                if (position + 2 > limit) {
+                    break;
+                }
+                arena.put(position++, (byte) (0xC0 | (c >> 6)));
+                arena.put(position++, (byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                if (position + 4 > limit) {
+                    break;
+                }
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                arena.put(position++, (byte) (0xF0 | (codePoint >> 18)));
+                arena.put(position++, (byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                arena.put(position++, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                arena.put(position++, (byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                if (position + 1 > limit) {
+                    break;
+                }
+                arena.put(position++, (byte) '?');
+            } else {
+                if (position + 3 > limit) {
+                    break;
+                }
+                arena.put(position++, (byte) (0xE0 | (c >> 12)));
+                arena.put(position++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+                arena.put(position++, (byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        return position - offset;
+    }
+}
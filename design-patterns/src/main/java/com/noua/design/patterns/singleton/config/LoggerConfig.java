@@ -0,0 +1,55 @@
+package com.noua.design.patterns.singleton.config;
+
+import com.noua.design.patterns.singleton.buffer.OffHeapLogBuffer;
+import com.noua.design.patterns.singleton.index.LogIndex;
+import com.noua.design.patterns.singleton.sink.SegmentedLogSink;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(LoggerProperties.class)
+public class LoggerConfig {
+
+    @Bean
+    public OffHeapLogBuffer offHeapLogBuffer(LoggerProperties properties) {
+        return new OffHeapLogBuffer(
+                properties.capacity(),
+                Math.toIntExact(properties.slotSize().toBytes()),
+                properties.overflowPolicy()
+        );
+    }
+
+    @Bean(destroyMethod = "close")
+    public SegmentedLogSink segmentedLogSink(OffHeapLogBuffer offHeapLogBuffer, LoggerProperties properties) {
+        LoggerProperties.Sink sink = properties.sink();
+        SegmentedLogSink segmentedLogSink = new SegmentedLogSink(
+                offHeapLogBuffer,
+                sink.directory(),
+                Math.toIntExact(sink.segmentSize().toBytes()),
+                sink.maxSegments(),
+                sink.flushInterval(),
+                sink.maxBatch(),
+                sink.echo()
+        );
+        if (sink.enabled()) {
+            segmentedLogSink.start();
+        }
+        return segmentedLogSink;
+    }
+
+    @Bean
+    public LogIndex logIndex(OffHeapLogBuffer offHeapLogBuffer, SegmentedLogSink segmentedLogSink,
+                             LoggerProperties properties) {
+        LoggerProperties.Index index = properties.index();
+        LogIndex logIndex = new LogIndex(
+                offHeapLogBuffer,
+                index.maxTermsPerEntry(),
+                index.maxTermLength(),
+                index.timeBucket().toNanos()
+        );
+        // the sink has replayed its segments by now
+        logIndex.rebuild();
+        return logIndex;
+    }
+}
@@ -0,0 +1,34 @@
+package com.noua.design.patterns.singleton.config;
+
+import com.noua.design.patterns.singleton.enumeration.OverflowPolicy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "logger")
+public record LoggerProperties(
+        @DefaultValue("65536") int capacity,
+        @DefaultValue("OVERWRITE_OLDEST") OverflowPolicy overflowPolicy,
+        @DefaultValue("256B") DataSize slotSize,
+        @DefaultValue Sink sink,
+        @DefaultValue Index index
+) {
+    public record Sink(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("data/logs") Path directory,
+            @DefaultValue("16MB") DataSize segmentSize,
+            @DefaultValue("8") int maxSegments,
+            @DefaultValue("10ms") Duration flushInterval,
+            @DefaultValue("4096") int maxBatch,
+            @DefaultValue("true") boolean echo
+    ) {}
+
+    public record Index(
+            @DefaultValue("32") int maxTermsPerEntry,
+            @DefaultValue("64") int maxTermLength,
+            @DefaultValue("1s") Duration timeBucket
+    ) {}
+}
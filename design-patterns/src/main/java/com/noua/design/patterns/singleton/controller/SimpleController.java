@@ -1,9 +1,17 @@
 package com.noua.design.patterns.singleton.controller;
 
+import com.noua.design.patterns.singleton.dto.LogPage;
+import com.noua.design.patterns.singleton.enumeration.LogLevel;
+import com.noua.design.patterns.singleton.service.LogNdjsonWriter;
 import com.noua.design.patterns.singleton.service.LoggerService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 
@@ -11,18 +19,52 @@ import java.util.List;
 @RequiredArgsConstructor
 @RestController
 public class SimpleController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String SOURCE = "simple";
+
     private final LoggerService logger;
+    private final LogNdjsonWriter ndjsonWriter;
 
     @PostMapping("/log/{message}")
     public String log(@PathVariable String message) {
-        logger.log("User logged: "+message);
+        logger.log(LogLevel.INFO, SOURCE, "User logged: "+message);
         return "Logged: "+message;
     }
 
 
     @GetMapping("/logs")
-    public List<String> getAllLogs(){
-        return logger.getLogs();
+    public ResponseEntity<List<String>> getAllLogs(@RequestParam(defaultValue = "0") long cursor,
+                                                   @RequestParam(defaultValue = "1000") int limit,
+                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to){
+        LogPage page = logger.getLogs(cursor, limit, from, to);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, String.valueOf(page.nextCursor()))
+                .body(page.entries());
+    }
+
+    @GetMapping(value = "/logs", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamLogs(@RequestParam(defaultValue = "0") long cursor,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to){
+        return ndjsonWriter.stream(cursor, from, to);
+    }
+
+    @GetMapping("/logs/search")
+    public ResponseEntity<List<String>> searchLogs(@RequestParam String q,
+                                                   @RequestParam(defaultValue = "0") long cursor,
+                                                   @RequestParam(defaultValue = "1000") int limit,
+                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to){
+        LogPage page = logger.search(q, cursor, limit, from, to);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, String.valueOf(page.nextCursor()))
+                .body(page.entries());
+    }
+
+    @GetMapping("/logs/dropped")
+    public long getDroppedCount(){
+        return logger.getDroppedCount();
     }
 
 }
@@ -1,32 +1,56 @@
 package com.noua.design.patterns.singleton.controller;
 
+import com.noua.design.patterns.singleton.dto.LogPage;
+import com.noua.design.patterns.singleton.enumeration.LogLevel;
+import com.noua.design.patterns.singleton.service.LogNdjsonWriter;
 import com.noua.design.patterns.singleton.service.LoggerService;
-import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RequestMapping("/api/singleton/other")
 @RestController
 public class otherController {
+    private static final String SOURCE = "other";
+
      LoggerService logger;
+     LogNdjsonWriter ndjsonWriter;
 
      @Autowired
-    public otherController(LoggerService logger) {
+    public otherController(LoggerService logger, LogNdjsonWriter ndjsonWriter) {
         this.logger = logger;
+        this.ndjsonWriter = ndjsonWriter;
     }
 
     @PostMapping("/log/{message}")
     public String log(@PathVariable String message) {
-        logger.log("User logged: "+message);
+        logger.log(LogLevel.INFO, SOURCE, "User logged: "+message);
         return "Logged: "+message;
     }
 
 
     @GetMapping("/logs")
-    public List<String> getAllLogs(){
-        return logger.getLogs();
+    public ResponseEntity<List<String>> getAllLogs(@RequestParam(defaultValue = "0") long cursor,
+                                                   @RequestParam(defaultValue = "1000") int limit,
+                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to){
+        LogPage page = logger.getLogs(cursor, limit, from, to);
+        return ResponseEntity.ok()
+                .header(SimpleController.NEXT_CURSOR_HEADER, String.valueOf(page.nextCursor()))
+                .body(page.entries());
+    }
+
+    @GetMapping(value = "/logs", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamLogs(@RequestParam(defaultValue = "0") long cursor,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to){
+        return ndjsonWriter.stream(cursor, from, to);
     }
 
 
@@ -0,0 +1,37 @@
+package com.noua.design.patterns.singleton.domain;
+
+import com.noua.design.patterns.singleton.enumeration.LogLevel;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Decoded view of a stored log record, only materialized when entries are read.
+ */
+public record LogEntry(
+        long epochNanos,
+        LogLevel level,
+        String source,
+        String message
+) {
+    public static long nowEpochNanos() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+
+    public static long toEpochNanos(LocalDateTime timestamp) {
+        Instant instant = timestamp.atZone(ZoneId.systemDefault()).toInstant();
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    public LocalDateTime timestamp() {
+        Instant instant = Instant.ofEpochSecond(0, epochNanos);
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    @Override
+    public String toString() {
+        return timestamp() + "-" + message;
+    }
+}
@@ -0,0 +1,13 @@
+package com.noua.design.patterns.singleton.dto;
+
+import com.noua.design.patterns.singleton.enumeration.LogLevel;
+
+import java.time.LocalDateTime;
+
+public record LogEntryResponse(
+        long sequence,
+        LocalDateTime timestamp,
+        LogLevel level,
+        String source,
+        String message
+) {}
@@ -0,0 +1,8 @@
+package com.noua.design.patterns.singleton.dto;
+
+import java.util.List;
+
+public record LogPage(
+        List<String> entries,
+        long nextCursor
+) {}
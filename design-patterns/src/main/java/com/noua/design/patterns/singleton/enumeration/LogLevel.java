@@ -0,0 +1,9 @@
+package com.noua.design.patterns.singleton.enumeration;
+
+public enum LogLevel {
+    TRACE,
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR
+}
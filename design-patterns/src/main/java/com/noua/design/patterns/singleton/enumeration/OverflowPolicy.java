@@ -0,0 +1,6 @@
+package com.noua.design.patterns.singleton.enumeration;
+
+public enum OverflowPolicy {
+    OVERWRITE_OLDEST,
+    DROP_NEWEST
+}
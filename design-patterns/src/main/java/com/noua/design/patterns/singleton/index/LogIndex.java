@@ -0,0 +1,220 @@
+package com.noua.design.patterns.singleton.index;
+
+import com.noua.design.patterns.singleton.buffer.OffHeapLogBuffer;
+import com.noua.design.patterns.singleton.domain.LogEntry;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+
+/**
+ * Incremental inverted index over the entries of an {@link OffHeapLogBuffer}.
+ * <p>
+ * Each term maps to the ascending sequences of the entries containing it, and a sparse time index
+ * maps each time bucket to the first sequence logged in it. Both only hold sequences that are
+ * still readable in the buffer: postings are trimmed every {@code capacity / 4} appends, so index
+ * memory is bounded by {@code capacity * maxTermsPerEntry}.
+ * <p>
+ * {@link #add} runs on every logging call, so it tokenizes into a per-thread {@link Term} probe
+ * instead of building strings; only a term seen for the first time, or a posting list that has to
+ * grow, allocates.
+ */
+public class LogIndex {
+
+    private final OffHeapLogBuffer buffer;
+    private final int maxTermsPerEntry;
+    private final int maxTermLength;
+    private final long bucketNanos;
+    private final long sweepInterval;
+
+    private final Map<Term, Postings> terms = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Long> timeBuckets = new ConcurrentSkipListMap<>();
+    private final AtomicLong nextSweep;
+    private final ThreadLocal<Term> probe;
+    private volatile long lastBucket = Long.MIN_VALUE;
+
+    public LogIndex(OffHeapLogBuffer buffer, int maxTermsPerEntry, int maxTermLength, long bucketNanos) {
+        this.buffer = buffer;
+        this.maxTermsPerEntry = maxTermsPerEntry;
+        this.maxTermLength = maxTermLength;
+        this.bucketNanos = bucketNanos;
+        this.sweepInterval = Math.max(1, buffer.capacity() / 4);
+        this.nextSweep = new AtomicLong(sweepInterval);
+        this.probe = ThreadLocal.withInitial(() -> new Term(maxTermLength));
+    }
+
+    /**
+     * Indexes every entry currently readable in the buffer, e.g. after segment replay.
+     */
+    public void rebuild() {
+        long end = buffer.headSequence();
+        for (long sequence = buffer.firstSequence(); sequence < end; sequence++) {
+            LogEntry entry = buffer.get(sequence);
+            if (entry != null) {
+                add(sequence, entry.epochNanos(), entry.message());
+            }
+        }
+    }
+
+    public void add(long sequence, long epochNanos, String message) {
+        long bucket = epochNanos / bucketNanos;
+        if (bucket != lastBucket) {
+            // only the first entry of a bucket goes to the map, lookups keep a bucket of slack anyway
+            timeBuckets.merge(bucket, sequence, Math::min);
+            lastBucket = bucket;
+        }
+        Term term = probe.get();
+        int length = message.length();
+        int added = 0;
+        int i = 0;
+        while (i < length && added < maxTermsPerEntry) {
+            while (i < length && !Character.isLetterOrDigit(message.charAt(i))) {
+                i++;
+            }
+            int begin = i;
+            while (i < length && Character.isLetterOrDigit(message.charAt(i))) {
+                i++;
+            }
+            if (i > begin) {
+                post(term.set(message, begin, i), sequence);
+                added++;
+            }
+        }
+        long sweepAt = nextSweep.get();
+        if (sequence >= sweepAt && nextSweep.compareAndSet(sweepAt, sequence + sweepInterval)) {
+            evict();
+        }
+    }
+
+    /**
+     * Visits, in ascending order, the sequences of the entries containing every term of
+     * {@code query} within {@code [from, to)}, until {@code visitor} returns {@code false}.
+     * <p>
+     * The posting lists are walked lazily: each list in turn is asked for its first sequence not
+     * below the current candidate, and a candidate every list agrees on is a match. A page of
+     * {@code n} hits therefore costs {@code O(n * terms * log postings)} however many entries match
+     * past it, and nothing is copied.
+     *
+     * @return the sequence to resume from: the one after the last visited when the visitor stopped,
+     * {@code to} when the range was exhausted
+     */
+    public long search(String query, long from, long to, LongPredicate visitor) {
+        long low = Math.max(from, buffer.firstSequence());
+        Set<Term> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty() || low >= to) {
+            return to;
+        }
+        Postings[] lists = new Postings[queryTerms.size()];
+        int count = 0;
+        for (Term term : queryTerms) {
+            Postings postings = terms.get(term);
+            if (postings == null) {
+                return to;
+            }
+            lists[count++] = postings;
+        }
+        // the rarest list leads, so it proposes the fewest candidates
+        Arrays.sort(lists, Comparator.comparingInt(Postings::size));
+        long candidate = lists[0].ceiling(low);
+        int agreed = 1;
+        int next = 1 % count;
+        while (candidate < to) {
+            if (agreed == count) {
+                if (!visitor.test(candidate)) {
+                    return candidate + 1;
+                }
+                candidate = lists[0].ceiling(candidate + 1);
+                agreed = 1;
+                next = 1 % count;
+                continue;
+            }
+            long sequence = lists[next].ceiling(candidate);
+            if (sequence == candidate) {
+                agreed++;
+            } else {
+                candidate = sequence;
+                agreed = 1;
+            }
+            next = (next + 1) % count;
+        }
+        return to;
+    }
+
+    /**
+     * First sequence that may have been logged at or after {@code epochNanos}. Timestamps are taken
+     * just before a sequence is claimed, so lookups keep one bucket of slack on either side.
+     */
+    public long firstSequenceFrom(long epochNanos) {
+        Map.Entry<Long, Long> bucket = timeBuckets.floorEntry(epochNanos / bucketNanos - 1);
+        return bucket == null ? buffer.firstSequence() : bucket.getValue();
+    }
+
+    /**
+     * Sequence after which nothing was logged before {@code epochNanos}.
+     */
+    public long endSequenceBefore(long epochNanos) {
+        Map.Entry<Long, Long> bucket = timeBuckets.higherEntry(epochNanos / bucketNanos + 1);
+        return bucket == null ? buffer.headSequence() : bucket.getValue();
+    }
+
+    public int termCount() {
+        return terms.size();
+    }
+
+    public void clear() {
+        terms.clear();
+        timeBuckets.clear();
+        lastBucket = Long.MIN_VALUE;
+    }
+
+    private void post(Term term, long sequence) {
+        Postings postings = terms.get(term);
+        while (postings == null || !postings.add(sequence)) {
+            // first occurrence, or eviction emptied the list in between
+            postings = terms.computeIfAbsent(term.copy(), ignored -> new Postings());
+        }
+    }
+
+    private void evict() {
+        long first = buffer.firstSequence();
+        terms.keySet().forEach(term -> terms.computeIfPresent(term,
+                (key, postings) -> postings.trimBelow(first) ? null : postings));
+        // keep the bucket holding the oldest readable entry so floor lookups still land on it
+        Map.Entry<Long, Long> oldest = null;
+        for (Map.Entry<Long, Long> bucket : timeBuckets.entrySet()) {
+            if (bucket.getValue() >= first) {
+                break;
+            }
+            if (oldest != null) {
+                timeBuckets.remove(oldest.getKey(), oldest.getValue());
+            }
+            oldest = bucket;
+        }
+    }
+
+    private Set<Term> tokenize(String text) {
+        Set<Term> tokens = new LinkedHashSet<>();
+        Term term = new Term(maxTermLength);
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int begin = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i > begin) {
+                tokens.add(term.set(text, begin, i).copy());
+            }
+        }
+        return tokens;
+    }
+}
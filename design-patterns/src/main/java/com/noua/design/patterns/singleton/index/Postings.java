@@ -0,0 +1,82 @@
+package com.noua.design.patterns.singleton.index;
+
+/**
+ * Ascending list of ring-buffer sequences for one term. Writers append (sequences arrive almost in
+ * order, so insertion only shifts a few slots), eviction drops a prefix. A term repeated within one
+ * entry is stored once.
+ */
+class Postings {
+    private long[] sequences = new long[4];
+    private int start;
+    private int end;
+    private boolean retired;
+
+    /**
+     * @return {@code false} when eviction already emptied and unmapped this list, the caller must
+     * map a fresh one
+     */
+    synchronized boolean add(long sequence) {
+        if (retired) {
+            return false;
+        }
+        int position = end;
+        while (position > start && sequences[position - 1] > sequence) {
+            position--;
+        }
+        if (position > start && sequences[position - 1] == sequence) {
+            return true;
+        }
+        if (end == sequences.length) {
+            position -= start;
+            compact();
+        }
+        System.arraycopy(sequences, position, sequences, position + 1, end - position);
+        sequences[position] = sequence;
+        end++;
+        return true;
+    }
+
+    /**
+     * @return {@code true} when nothing is left after the trim, the list then accepts no more adds
+     */
+    synchronized boolean trimBelow(long sequence) {
+        start = lowerBound(sequence);
+        retired = start == end;
+        return retired;
+    }
+
+    synchronized int size() {
+        return end - start;
+    }
+
+    /**
+     * @return the smallest sequence not below {@code sequence}, or {@link Long#MAX_VALUE} when there is none
+     */
+    synchronized long ceiling(long sequence) {
+        int position = lowerBound(sequence);
+        return position == end ? Long.MAX_VALUE : sequences[position];
+    }
+
+    private int lowerBound(long sequence) {
+        int low = start;
+        int high = end;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sequences[mid] < sequence) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void compact() {
+        int size = end - start;
+        long[] target = size * 2 > sequences.length ? new long[sequences.length * 2] : sequences;
+        System.arraycopy(sequences, start, target, 0, size);
+        sequences = target;
+        start = 0;
+        end = size;
+    }
+}
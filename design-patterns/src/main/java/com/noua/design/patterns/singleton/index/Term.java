@@ -0,0 +1,60 @@
+package com.noua.design.patterns.singleton.index;
+
+import java.util.Arrays;
+
+/**
+ * Lower-cased term used as an index key. Keys stored in the index own a copy of their characters;
+ * a probe is refilled in place from each message, so looking up a term that is already indexed
+ * allocates nothing.
+ */
+final class Term {
+    private final char[] chars;
+    private int length;
+    private int hash;
+
+    Term(int maxLength) {
+        this.chars = new char[maxLength];
+    }
+
+    private Term(char[] chars, int hash) {
+        this.chars = chars;
+        this.length = chars.length;
+        this.hash = hash;
+    }
+
+    /**
+     * Fills this probe with {@code text[begin, end)}, lower-cased and cut to the probe's capacity.
+     */
+    Term set(CharSequence text, int begin, int end) {
+        int size = Math.min(end - begin, chars.length);
+        int h = 0;
+        for (int i = 0; i < size; i++) {
+            char c = Character.toLowerCase(text.charAt(begin + i));
+            chars[i] = c;
+            h = 31 * h + c;
+        }
+        length = size;
+        hash = h;
+        return this;
+    }
+
+    Term copy() {
+        return new Term(Arrays.copyOf(chars, length), hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Term term && term.hash == hash
+                && Arrays.equals(chars, 0, length, term.chars, 0, term.length);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
@@ -0,0 +1,49 @@
+package com.noua.design.patterns.singleton.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+
+/**
+ * Writes log entries as newline-delimited JSON straight from the ring buffer to the response,
+ * so memory use does not depend on how many entries match.
+ */
+@Component
+@RequiredArgsConstructor
+public class LogNdjsonWriter {
+    private static final int FLUSH_EVERY = 512;
+
+    private final LoggerService logger;
+    private final ObjectMapper objectMapper;
+
+    public StreamingResponseBody stream(long cursor, LocalDateTime from, LocalDateTime to) {
+        return body -> {
+            OutputStream out = new BufferedOutputStream(body);
+            int[] pending = {0};
+            try {
+                logger.streamLogs(cursor, from, to, entry -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(entry));
+                        out.write('\n');
+                        if (++pending[0] == FLUSH_EVERY) {
+                            pending[0] = 0;
+                            out.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+    }
+}
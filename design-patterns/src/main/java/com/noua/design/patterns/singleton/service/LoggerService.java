@@ -1,28 +1,147 @@
 package com.noua.design.patterns.singleton.service;
 
+import com.noua.design.patterns.singleton.buffer.OffHeapLogBuffer;
+import com.noua.design.patterns.singleton.domain.LogEntry;
+import com.noua.design.patterns.singleton.dto.LogEntryResponse;
+import com.noua.design.patterns.singleton.dto.LogPage;
+import com.noua.design.patterns.singleton.enumeration.LogLevel;
+import com.noua.design.patterns.singleton.index.LogIndex;
+import com.noua.design.patterns.singleton.sink.SegmentedLogSink;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Scope("singleton")
 @Component
+@RequiredArgsConstructor
 public class LoggerService {
-    private List<String> logs = new ArrayList<>();
+    public static final int MAX_PAGE_SIZE = 10_000;
+    public static final String DEFAULT_SOURCE = "application";
+
+    private final OffHeapLogBuffer logs;
+    private final SegmentedLogSink sink;
+    private final LogIndex index;
 
     public void log (String message){
-        String logEntry = LocalDateTime.now()+"-"+message;
-        logs.add(logEntry);
-        System.out.println(logEntry);
+        log(LogLevel.INFO, DEFAULT_SOURCE, message);
+    }
+
+    /**
+     * Encodes the record straight into the off-heap buffer and returns; console output and
+     * persistence happen on the sink's writer thread.
+     */
+    public void log (LogLevel level, String source, String message){
+        long epochNanos = LogEntry.nowEpochNanos();
+        long sequence = logs.append(epochNanos, level, source, message);
+        if (sequence >= 0) {
+            index.add(sequence, epochNanos, message);
+        }
     }
 
     public List<String> getLogs(){
-        return new ArrayList<>(logs);
+        return logs.snapshot().stream().map(LogEntry::toString).toList();
+    }
+
+    /**
+     * Returns at most {@code limit} entries starting at sequence {@code cursor}, optionally
+     * restricted to {@code [from, to)}. Pass the returned cursor back to read the next page; it
+     * never moves past a record that is still being written.
+     */
+    public LogPage getLogs(long cursor, int limit, LocalDateTime from, LocalDateTime to){
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        List<String> entries = new ArrayList<>(Math.min(pageSize, logs.capacity()));
+        long next = scan(cursor, from, to, (sequence, entry) -> {
+            entries.add(entry.toString());
+            return entries.size() < pageSize;
+        });
+        return new LogPage(entries, next);
+    }
+
+    /**
+     * Returns entries containing every term of {@code query}, looked up in the inverted index
+     * rather than by scanning the buffer. The posting lists are walked from the cursor and the walk
+     * stops once the page is full, so a broad query costs one page of work, not every match.
+     */
+    public LogPage search(String query, long cursor, int limit, LocalDateTime from, LocalDateTime to){
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        long fromNanos = from == null ? Long.MIN_VALUE : LogEntry.toEpochNanos(from);
+        long toNanos = to == null ? Long.MAX_VALUE : LogEntry.toEpochNanos(to);
+        long end = endSequence(to, toNanos);
+        List<String> entries = new ArrayList<>(Math.min(pageSize, logs.capacity()));
+        long nextCursor = index.search(query, startSequence(cursor, from, fromNanos), end, sequence -> {
+            LogEntry entry = logs.get(sequence);
+            if (entry != null && entry.epochNanos() >= fromNanos && entry.epochNanos() < toNanos) {
+                entries.add(entry.toString());
+            }
+            return entries.size() < pageSize;
+        });
+        return new LogPage(entries, nextCursor);
+    }
+
+    /**
+     * Hands every matching entry to {@code action} as it is read, without collecting them.
+     *
+     * @return the cursor following the last entry read
+     */
+    public long streamLogs(long cursor, LocalDateTime from, LocalDateTime to, Consumer<LogEntryResponse> action){
+        return scan(cursor, from, to, (sequence, entry) -> {
+            action.accept(new LogEntryResponse(sequence, entry.timestamp(), entry.level(), entry.source(), entry.message()));
+            return true;
+        });
+    }
+
+    public long getDroppedCount(){
+        return logs.droppedCount();
     }
 
     public  void clearLogs(){
         logs.clear();
+        index.clear();
+        sink.truncate();
+    }
+
+    private long scan(long cursor, LocalDateTime from, LocalDateTime to, EntryVisitor visitor){
+        long fromNanos = from == null ? Long.MIN_VALUE : LogEntry.toEpochNanos(from);
+        long toNanos = to == null ? Long.MAX_VALUE : LogEntry.toEpochNanos(to);
+        long end = endSequence(to, toNanos);
+        long sequence = startSequence(cursor, from, fromNanos);
+        while (sequence < end) {
+            LogEntry entry = logs.get(sequence);
+            if (entry == null) {
+                if (logs.isPending(sequence)) {
+                    break;
+                }
+                // published between the two reads, or gone for good
+                entry = logs.get(sequence);
+            }
+            sequence++;
+            if (entry == null || entry.epochNanos() < fromNanos || entry.epochNanos() >= toNanos) {
+                continue;
+            }
+            if (!visitor.visit(sequence - 1, entry)) {
+                break;
+            }
+        }
+        return sequence;
+    }
+
+    private long startSequence(long cursor, LocalDateTime from, long fromNanos){
+        long first = from == null ? logs.firstSequence() : index.firstSequenceFrom(fromNanos);
+        return Math.max(cursor, Math.max(first, logs.firstSequence()));
+    }
+
+    private long endSequence(LocalDateTime to, long toNanos){
+        long head = logs.headSequence();
+        return to == null ? head : Math.min(head, index.endSequenceBefore(toNanos));
+    }
+
+    @FunctionalInterface
+    private interface EntryVisitor {
+        boolean visit(long sequence, LogEntry entry);
     }
 }
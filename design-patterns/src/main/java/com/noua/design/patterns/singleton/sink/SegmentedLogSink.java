@@ -0,0 +1,305 @@
+package com.noua.design.patterns.singleton.sink;
+
+import com.noua.design.patterns.singleton.buffer.OffHeapLogBuffer;
+import com.noua.design.patterns.singleton.domain.LogEntry;
+import com.noua.design.patterns.singleton.enumeration.LogLevel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Persists the entries of an {@link OffHeapLogBuffer} into size-rolled, memory-mapped segment files.
+ * <p>
+ * Request threads only publish into the ring buffer; a single background writer tails it, copies
+ * every newly published entry into the current segment and forces the segment once per batch
+ * (group commit), then {@link OffHeapLogBuffer#release releases} what it persisted. Segments are
+ * replayed into the ring buffer on {@link #start()}.
+ * <p>
+ * Segments start with {@code int magic | int version}. A segment written in another layout, or
+ * before segments carried a header, is reported and left on disk untouched instead of being
+ * replayed as garbage; it is not counted against {@code maxSegments} and is only deleted by
+ * {@link #truncate()}.
+ * <p>
+ * Record layout: {@code int length | long epochNanos | byte level | byte sourceLength | utf-8 source |
+ * utf-8 message}, where {@code length} covers everything after itself. The length is written last,
+ * so a zero length marks the end of a segment and a torn record is never replayed.
+ */
+public class SegmentedLogSink implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int MAGIC = 0x4C4F4753; // "LOGS"
+    private static final int FORMAT_VERSION = 2; // 1 had neither level nor source
+    private static final int SEGMENT_HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + 2;
+    private static final LogLevel[] LEVELS = LogLevel.values();
+
+    private final OffHeapLogBuffer buffer;
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final long flushIntervalNanos;
+    private final int maxBatch;
+    private final boolean echo;
+
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder lost = new LongAdder();
+    private final List<Path> segments = new ArrayList<>();
+    private final List<Path> skipped = new ArrayList<>();
+
+    private volatile boolean running;
+    private volatile boolean truncateRequested;
+    private Thread writer;
+    private MappedByteBuffer current;
+    private long nextSegmentIndex;
+    private long cursor;
+
+    public SegmentedLogSink(OffHeapLogBuffer buffer, Path directory, int segmentSize, int maxSegments,
+                            Duration flushInterval, int maxBatch, boolean echo) {
+        if (segmentSize <= SEGMENT_HEADER_BYTES + HEADER_BYTES) {
+            throw new IllegalArgumentException("segment size too small: " + segmentSize);
+        }
+        this.buffer = buffer;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = Math.max(1, maxSegments);
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.maxBatch = maxBatch;
+        this.echo = echo;
+    }
+
+    /**
+     * Replays existing segments into the ring buffer, then starts the background writer.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            List<Path> found;
+            try (Stream<Path> files = Files.list(directory)) {
+                found = files.filter(SegmentedLogSink::isSegment).sorted().toList();
+            }
+            for (Path segment : found) {
+                if (replay(segment)) {
+                    segments.add(segment);
+                } else {
+                    skipped.add(segment);
+                }
+            }
+            if (!found.isEmpty()) {
+                nextSegmentIndex = segmentIndex(found.getLast()) + 1;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to replay log segments from " + directory, e);
+        }
+        cursor = buffer.headSequence();
+        running = true;
+        writer = new Thread(this::drainLoop, "log-segment-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Drops every persisted entry. The writer deletes the segment files, including those skipped at
+     * startup for being in another layout, and starts a fresh one; nothing is rewritten.
+     */
+    public void truncate() {
+        truncateRequested = true;
+        LockSupport.unpark(writer);
+    }
+
+    public long persistedCount() {
+        return persisted.sum();
+    }
+
+    /**
+     * Entries that were overwritten in the ring buffer before the writer could persist them.
+     */
+    public long lostCount() {
+        return lost.sum();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            thread = writer;
+        }
+        LockSupport.unpark(thread);
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void drainLoop() {
+        while (running) {
+            try {
+                if (truncateRequested) {
+                    truncateRequested = false;
+                    deleteSegments();
+                    cursor = buffer.firstSequence();
+                }
+                if (drain() == 0) {
+                    LockSupport.parkNanos(flushIntervalNanos);
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Log segment writer failed: " + e);
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+        try {
+            drain();
+        } catch (IOException e) {
+            System.err.println("Log segment writer failed on shutdown: " + e);
+        }
+    }
+
+    private int drain() throws IOException {
+        int written = 0;
+        long end = buffer.headSequence();
+        while (cursor < end && written < maxBatch) {
+            long first = buffer.firstSequence();
+            if (cursor < first) {
+                lost.add(first - cursor);
+                cursor = first;
+                continue;
+            }
+            LogEntry entry = buffer.get(cursor);
+            if (entry == null) {
+                if (cursor >= buffer.firstSequence()) {
+                    break; // claimed but not yet published, pick it up on the next pass
+                }
+                continue;
+            }
+            append(entry);
+            if (echo) {
+                System.out.println(entry);
+            }
+            cursor++;
+            written++;
+        }
+        if (written > 0 && current != null) {
+            current.force();
+            persisted.add(written);
+        }
+        buffer.release(cursor);
+        return written;
+    }
+
+    private void append(LogEntry entry) throws IOException {
+        byte[] source = entry.source().getBytes(StandardCharsets.UTF_8);
+        byte[] message = entry.message().getBytes(StandardCharsets.UTF_8);
+        int recordSize = HEADER_BYTES + source.length + message.length;
+        if (recordSize > segmentSize - SEGMENT_HEADER_BYTES || source.length > 0xFF) {
+            lost.increment();
+            return;
+        }
+        if (current == null || current.remaining() < recordSize) {
+            roll();
+        }
+        int position = current.position();
+        current.putLong(position + Integer.BYTES, entry.epochNanos());
+        current.put(position + Integer.BYTES + Long.BYTES, (byte) entry.level().ordinal());
+        current.put(position + Integer.BYTES + Long.BYTES + 1, (byte) source.length);
+        current.put(position + HEADER_BYTES, source);
+        current.put(position + HEADER_BYTES + source.length, message);
+        current.putInt(position, recordSize - Integer.BYTES);
+        current.position(position + recordSize);
+    }
+
+    private void roll() throws IOException {
+        if (current != null) {
+            current.force();
+        }
+        Path segment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSegmentIndex++, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            current = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        current.putInt(MAGIC).putInt(FORMAT_VERSION);
+        segments.add(segment);
+        while (segments.size() > maxSegments) {
+            Files.deleteIfExists(segments.remove(0));
+        }
+    }
+
+    private void deleteSegments() throws IOException {
+        current = null;
+        for (Path segment : segments) {
+            Files.deleteIfExists(segment);
+        }
+        segments.clear();
+        for (Path segment : skipped) {
+            Files.deleteIfExists(segment);
+        }
+        skipped.clear();
+    }
+
+    /**
+     * @return whether the segment is in the current layout; one that is not is left alone until the
+     * next {@link #truncate()}
+     */
+    private boolean replay(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int magic = records.remaining() >= SEGMENT_HEADER_BYTES ? records.getInt() : 0;
+            int version = magic == MAGIC ? records.getInt() : 0;
+            if (version != FORMAT_VERSION) {
+                System.err.println("Skipping log segment " + segment + ": "
+                        + (magic == MAGIC ? "format version " + version : "no format header")
+                        + ", expected version " + FORMAT_VERSION + "; it is kept until the logs are cleared");
+                return false;
+            }
+            while (records.remaining() >= HEADER_BYTES) {
+                int length = records.getInt();
+                if (length < HEADER_BYTES - Integer.BYTES || length > records.remaining()) {
+                    break;
+                }
+                long epochNanos = records.getLong();
+                int level = records.get();
+                int sourceLength = records.get() & 0xFF;
+                int messageLength = length - (HEADER_BYTES - Integer.BYTES) - sourceLength;
+                if (level < 0 || level >= LEVELS.length || messageLength < 0) {
+                    break;
+                }
+                byte[] source = new byte[sourceLength];
+                byte[] message = new byte[messageLength];
+                records.get(source);
+                records.get(message);
+                buffer.append(epochNanos, LEVELS[level], new String(source, StandardCharsets.UTF_8),
+                        new String(message, StandardCharsets.UTF_8));
+                // already on disk, so the newest replayed entries win the ring
+                buffer.release(buffer.headSequence());
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
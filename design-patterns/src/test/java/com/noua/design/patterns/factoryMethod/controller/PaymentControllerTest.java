@@ -0,0 +1,43 @@
+package com.noua.design.patterns.factoryMethod.controller;
+
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import com.noua.design.patterns.factoryMethod.ledger.PaymentLedger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentControllerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void amountsTheLedgerCannotRecordAreRejectedBeforeAnyCharge() {
+        // only the ledger is wired, reaching any other collaborator would fail the test
+        PaymentController controller = new PaymentController(null, null, null, null,
+                new PaymentLedger(directory, 1024, 2, Duration.ofSeconds(1)), null, null);
+
+        for (String amount : new String[]{"-5.00", "0", "0.001", "1e30"}) {
+            assertThat(rejection(() -> controller.payment(PaymentType.STRIPE, new BigDecimal(amount), null))
+                    .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+            assertThat(rejection(() -> controller.autoPayment(new BigDecimal(amount), null))
+                    .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private static ResponseStatusException rejection(Runnable request) {
+        try {
+            request.run();
+        } catch (ResponseStatusException e) {
+            return e;
+        }
+        throw new AssertionError("request was not rejected");
+    }
+}
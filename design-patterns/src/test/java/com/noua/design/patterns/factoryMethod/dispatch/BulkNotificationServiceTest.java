@@ -0,0 +1,129 @@
+package com.noua.design.patterns.factoryMethod.dispatch;
+
+import com.noua.design.patterns.factoryMethod.config.NotificationDispatchProperties;
+import com.noua.design.patterns.factoryMethod.config.NotificationOutboxProperties;
+import com.noua.design.patterns.factoryMethod.config.NotificationRateLimitProperties;
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
+import com.noua.design.patterns.factoryMethod.domain.SchedulingMode;
+import com.noua.design.patterns.factoryMethod.dto.BulkNotificationResult;
+import com.noua.design.patterns.factoryMethod.factory.NotificationFactory;
+import com.noua.design.patterns.factoryMethod.factory.NotificationFactoryFor;
+import com.noua.design.patterns.factoryMethod.factory.NotificationFactoryProvider;
+import com.noua.design.patterns.factoryMethod.outbox.NotificationOutbox;
+import com.noua.design.patterns.factoryMethod.ratelimit.NotificationRateLimiter;
+import com.noua.design.patterns.factoryMethod.service.NotificationSender;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkNotificationServiceTest {
+
+    @NotificationFactoryFor(NotificationType.IN_APP)
+    private record InAppFactory(NotificationSender createNotificationSender) implements NotificationFactory {}
+
+    @NotificationFactoryFor(NotificationType.SMS)
+    private record SmsFactory(NotificationSender createNotificationSender) implements NotificationFactory {}
+
+    @NotificationFactoryFor(NotificationType.EMAIL)
+    private record EmailFactory(NotificationSender createNotificationSender) implements NotificationFactory {}
+
+    @NotificationFactoryFor(NotificationType.WHATSAPP)
+    private record WhatsappFactory(NotificationSender createNotificationSender) implements NotificationFactory {}
+
+    @TempDir
+    Path directory;
+
+    private final Map<String, String> delivered = new ConcurrentHashMap<>();
+    private NotificationDispatcher dispatcher;
+
+    @AfterEach
+    void shutdown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void theHeaderRowIsSkippedAndQuotedFieldsKeepTheirCommas() throws IOException {
+        BulkNotificationResult result = service().send(NotificationType.EMAIL, AlertPriority.LOW, csv(
+                "to,message",
+                "a@example.com,\"Hello, world\"",
+                " \"b@example.com\" , plain ",
+                "c@example.com,\"say \"\"hi\"\"\"",
+                "d@example.com"), "text/csv", "default", null);
+
+        assertThat(result.received()).isEqualTo(4L);
+        assertThat(result.invalidLines()).isEqualTo(0L);
+        assertThat(result.sent()).isEqualTo(4L);
+        assertThat(delivered).isEqualTo(Map.of(
+                "a@example.com", "Hello, world",
+                "b@example.com", "plain",
+                "c@example.com", "say \"hi\"",
+                "d@example.com", "default"));
+    }
+
+    @Test
+    void malformedRowsAreCountedAsInvalid() throws IOException {
+        BulkNotificationResult result = service().send(NotificationType.EMAIL, AlertPriority.LOW, csv(
+                "To,Message",
+                "a@example.com,one,two",
+                "b@example.com,\"unterminated",
+                "c@example.com,ab\"c",
+                "d@example.com,\"quoted\"tail",
+                ",no recipient",
+                "e@example.com,ok"), "text/csv", null, null);
+
+        assertThat(result.received()).isEqualTo(1L);
+        assertThat(result.invalidLines()).isEqualTo(5L);
+        assertThat(result.sent()).isEqualTo(1L);
+        assertThat(delivered).isEqualTo(Map.of("e@example.com", "ok"));
+    }
+
+    @Test
+    void ndjsonLinesThatDoNotParseAreCountedAsInvalid() throws IOException {
+        BulkNotificationResult result = service().send(NotificationType.EMAIL, AlertPriority.LOW, csv(
+                "{\"to\":\"a@example.com\",\"message\":\"Hello, world\"}",
+                "{\"to\":",
+                "{\"message\":\"nobody\"}",
+                "{\"to\":\"b@example.com\"}"), "application/x-ndjson", "default", null);
+
+        assertThat(result.received()).isEqualTo(2L);
+        assertThat(result.invalidLines()).isEqualTo(2L);
+        assertThat(result.sent()).isEqualTo(2L);
+        assertThat(delivered).isEqualTo(Map.of("a@example.com", "Hello, world", "b@example.com", "default"));
+    }
+
+    private BulkNotificationService service() {
+        NotificationSender sender = delivered::put;
+        NotificationFactoryProvider provider = new NotificationFactoryProvider(List.of(
+                new InAppFactory(sender), new SmsFactory(sender), new EmailFactory(sender), new WhatsappFactory(sender)));
+        NotificationDispatchProperties properties = new NotificationDispatchProperties(10_000, Duration.ZERO,
+                4, null, 1000, 2, 2, SchedulingMode.WEIGHTED, null, Duration.ofSeconds(5));
+        NotificationOutboxProperties outboxProperties = new NotificationOutboxProperties(false, directory,
+                DataSize.ofMegabytes(1), 64, Duration.ofSeconds(1), Duration.ofSeconds(5), 5, Duration.ofMillis(500),
+                Duration.ofMinutes(5));
+        NotificationOutbox outbox = new NotificationOutbox(directory, outboxProperties.segmentSize().toBytes(),
+                outboxProperties.maxBatch(), outboxProperties.checkpointInterval(), outboxProperties.appendTimeout());
+        dispatcher = new NotificationDispatcher(provider, properties, outbox, outboxProperties);
+        NotificationRateLimiter rateLimiter = new NotificationRateLimiter(new NotificationRateLimitProperties(true,
+                new NotificationRateLimitProperties.Limit(1000, 1000), null, null, Duration.ofMinutes(1)));
+        return new BulkNotificationService(dispatcher, properties, rateLimiter, new ObjectMapper(), null);
+    }
+
+    private static InputStream csv(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
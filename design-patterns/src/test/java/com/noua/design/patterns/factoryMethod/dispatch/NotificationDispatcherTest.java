@@ -0,0 +1,109 @@
+package com.noua.design.patterns.factoryMethod.dispatch;
+
+import com.noua.design.patterns.factoryMethod.config.NotificationDispatchProperties;
+import com.noua.design.patterns.factoryMethod.config.NotificationOutboxProperties;
+import com.noua.design.patterns.factoryMethod.domain.DispatchStatus;
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
+import com.noua.design.patterns.factoryMethod.domain.SchedulingMode;
+import com.noua.design.patterns.factoryMethod.dto.BatchProgress;
+import com.noua.design.patterns.factoryMethod.dto.BulkRecipient;
+import com.noua.design.patterns.factoryMethod.dto.LatencySnapshot;
+import com.noua.design.patterns.factoryMethod.dto.NotificationStatus;
+import com.noua.design.patterns.factoryMethod.factory.NotificationFactory;
+import com.noua.design.patterns.factoryMethod.factory.NotificationFactoryFor;
+import com.noua.design.patterns.factoryMethod.factory.NotificationFactoryProvider;
+import com.noua.design.patterns.factoryMethod.outbox.NotificationOutbox;
+import com.noua.design.patterns.factoryMethod.service.NotificationSender;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationDispatcherTest {
+
+    /**
+     * Provider that takes a fixed time per message, so one permit turns a bulk send into a backlog.
+     */
+    private static final NotificationSender SLOW_SENDER = (to, message) -> {
+        try {
+            Thread.sleep(2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    };
+
+    @NotificationFactoryFor(NotificationType.IN_APP)
+    private record InAppFactory(NotificationSender createNotificationSender) implements NotificationFactory {}
+
+    @NotificationFactoryFor(NotificationType.SMS)
+    private record SmsFactory(NotificationSender createNotificationSender) implements NotificationFactory {}
+
+    @NotificationFactoryFor(NotificationType.EMAIL)
+    private record EmailFactory(NotificationSender createNotificationSender) implements NotificationFactory {}
+
+    @NotificationFactoryFor(NotificationType.WHATSAPP)
+    private record WhatsappFactory(NotificationSender createNotificationSender) implements NotificationFactory {}
+
+    @TempDir
+    Path directory;
+
+    private NotificationDispatcher dispatcher;
+
+    @AfterEach
+    void shutdown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void criticalNotificationsOvertakeABulkBacklogOnTheSameChannel() throws InterruptedException {
+        dispatcher = dispatcher(1);
+        List<BulkRecipient> recipients = IntStream.range(0, 300)
+                .mapToObj(i -> new BulkRecipient("user" + i + "@example.com", "newsletter", Map.of()))
+                .toList();
+        CompletableFuture<BatchProgress> bulk = CompletableFuture.supplyAsync(
+                () -> dispatcher.sendBatch(NotificationType.EMAIL, AlertPriority.LOW, 1, recipients).join());
+
+        List<NotificationStatus> critical = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Thread.sleep(10);
+            critical.add(dispatcher.submit(NotificationType.EMAIL, AlertPriority.CRITICAL, "ops@example.com", "down"));
+        }
+        assertThat(bulk.join().sent()).isEqualTo(300);
+
+        for (NotificationStatus status : critical) {
+            assertThat(dispatcher.status(status.trackingId()).orElseThrow().status()).isEqualTo(DispatchStatus.SENT);
+        }
+        Map<AlertPriority, LatencySnapshot> latencies = dispatcher.latencies(false);
+        LatencySnapshot criticalLatency = latencies.get(AlertPriority.CRITICAL);
+        LatencySnapshot lowLatency = latencies.get(AlertPriority.LOW);
+        assertThat(criticalLatency.count()).isEqualTo(20);
+        // at most one LOW send is ahead of a CRITICAL one, the backlog itself takes ~600ms
+        assertThat(criticalLatency.p99Millis()).isLessThan(50.0);
+        assertThat(lowLatency.p99Millis()).isGreaterThan(200.0);
+    }
+
+    private NotificationDispatcher dispatcher(int concurrency) {
+        NotificationFactoryProvider provider = new NotificationFactoryProvider(List.of(
+                new InAppFactory(SLOW_SENDER), new SmsFactory(SLOW_SENDER), new EmailFactory(SLOW_SENDER),
+                new WhatsappFactory(SLOW_SENDER)));
+        NotificationDispatchProperties properties = new NotificationDispatchProperties(10_000, Duration.ZERO,
+                concurrency, null, 1000, 500, 4, SchedulingMode.WEIGHTED, null, Duration.ofSeconds(5));
+        NotificationOutboxProperties outboxProperties = new NotificationOutboxProperties(false, directory,
+                DataSize.ofMegabytes(1), 64, Duration.ofSeconds(1), Duration.ofSeconds(5), 5, Duration.ofMillis(500),
+                Duration.ofMinutes(5));
+        NotificationOutbox outbox = new NotificationOutbox(directory, outboxProperties.segmentSize().toBytes(),
+                outboxProperties.maxBatch(), outboxProperties.checkpointInterval(), outboxProperties.appendTimeout());
+        return new NotificationDispatcher(provider, properties, outbox, outboxProperties);
+    }
+}
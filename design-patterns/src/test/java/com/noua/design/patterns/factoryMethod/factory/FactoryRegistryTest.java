@@ -0,0 +1,73 @@
+package com.noua.design.patterns.factoryMethod.factory;
+
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
+import com.noua.design.patterns.factoryMethod.service.NotificationSender;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FactoryRegistryTest {
+
+    private static final NotificationSender SENDER = (to, message) -> {};
+
+    @NotificationFactoryFor(NotificationType.IN_APP)
+    private record InAppFactory(NotificationSender createNotificationSender) implements NotificationFactory {}
+
+    @NotificationFactoryFor(NotificationType.SMS)
+    private record SmsFactory(NotificationSender createNotificationSender) implements NotificationFactory {}
+
+    @NotificationFactoryFor(NotificationType.EMAIL)
+    private record EmailFactory(NotificationSender createNotificationSender) implements NotificationFactory {}
+
+    @NotificationFactoryFor(NotificationType.WHATSAPP)
+    private record WhatsappFactory(NotificationSender createNotificationSender) implements NotificationFactory {}
+
+    @NotificationFactoryFor(NotificationType.EMAIL)
+    private record OtherEmailFactory(NotificationSender createNotificationSender) implements NotificationFactory {}
+
+    private record UnannotatedFactory(NotificationSender createNotificationSender) implements NotificationFactory {}
+
+    @Test
+    void everyConstantResolvesToTheFactoryAnnotatedForIt() {
+        EmailFactory email = new EmailFactory(SENDER);
+        SmsFactory sms = new SmsFactory(SENDER);
+
+        FactoryRegistry<NotificationType, NotificationFactory> registry = registry(List.of(
+                new WhatsappFactory(SENDER), email, new InAppFactory(SENDER), sms));
+
+        assertThat(registry.get(NotificationType.EMAIL)).isSameAs(email);
+        assertThat(registry.get(NotificationType.SMS)).isSameAs(sms);
+    }
+
+    @Test
+    void aConstantWithoutAFactoryFailsTheBuild() {
+        assertThatThrownBy(() -> registry(List.of(new InAppFactory(SENDER), new EmailFactory(SENDER))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("No @NotificationFactoryFor factory for NotificationType [SMS, WHATSAPP]");
+    }
+
+    @Test
+    void twoFactoriesForTheSameConstantFailTheBuild() {
+        assertThatThrownBy(() -> registry(List.of(new InAppFactory(SENDER), new SmsFactory(SENDER),
+                new EmailFactory(SENDER), new WhatsappFactory(SENDER), new OtherEmailFactory(SENDER))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(EmailFactory.class.getName())
+                .hasMessageContaining(OtherEmailFactory.class.getName())
+                .hasMessageContaining("NotificationType.EMAIL");
+    }
+
+    @Test
+    void aFactoryWithoutTheAnnotationFailsTheBuild() {
+        assertThatThrownBy(() -> registry(List.of(new InAppFactory(SENDER), new UnannotatedFactory(SENDER))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(UnannotatedFactory.class.getName() + " is not annotated with @NotificationFactoryFor");
+    }
+
+    private static FactoryRegistry<NotificationType, NotificationFactory> registry(List<NotificationFactory> factories) {
+        return FactoryRegistry.of(NotificationType.class, NotificationFactoryFor.class, NotificationFactoryFor::value,
+                factories);
+    }
+}
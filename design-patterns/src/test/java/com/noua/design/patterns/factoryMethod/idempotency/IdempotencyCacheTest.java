@@ -0,0 +1,178 @@
+package com.noua.design.patterns.factoryMethod.idempotency;
+
+import com.noua.design.patterns.factoryMethod.config.PaymentIdempotencyProperties;
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import com.noua.design.patterns.factoryMethod.resilience.GatewayGuard;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<IdempotencyCache> caches = new ArrayList<>();
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    void shutdown() {
+        caches.forEach(IdempotencyCache::shutdown);
+    }
+
+    @Test
+    void timedOutPaymentsAreNotRunAgainOnRetry() {
+        IdempotencyCache cache = cache(false);
+        RuntimeException timeout = new GatewayGuard.GatewayTimeoutException(PaymentType.BANK, Duration.ofSeconds(5));
+
+        assertThatThrownBy(() -> cache.execute("key", "BANK:10", () -> fail(timeout))).isSameAs(timeout);
+        assertThatThrownBy(() -> cache.execute("key", "BANK:10", this::charge))
+                .isInstanceOf(IdempotencyCache.IdempotentOutcomeUnknownException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatusCode().value())
+                .isEqualTo(504);
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectionsBeforeTheChargeReleaseTheKey() {
+        IdempotencyCache cache = cache(false);
+
+        assertThatThrownBy(() -> cache.execute("key", "BANK:10",
+                () -> fail(new GatewayGuard.CircuitOpenException(PaymentType.BANK, 0))))
+                .isInstanceOf(GatewayGuard.CircuitOpenException.class);
+        assertThatThrownBy(() -> cache.execute("key", "BANK:10",
+                () -> fail(new GatewayGuard.BulkheadFullException(PaymentType.BANK))))
+                .isInstanceOf(GatewayGuard.BulkheadFullException.class);
+
+        assertThat(cache.execute("key", "BANK:10", this::charge).replayed()).isFalse();
+        assertThat(cache.execute("key", "BANK:10", this::charge).replayed()).isTrue();
+        assertThat(runs.get()).isEqualTo(3);
+    }
+
+    @Test
+    void unexpectedFailuresAreKeptAsUnknownOutcomes() {
+        IdempotencyCache cache = cache(false);
+
+        assertThatThrownBy(() -> cache.execute("key", "BANK:10", () -> fail(new ArithmeticException("overflow"))))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> cache.execute("key", "BANK:10", this::charge))
+                .isInstanceOf(IdempotencyCache.IdempotentOutcomeUnknownException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatusCode().value())
+                .isEqualTo(500);
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    @Test
+    void unknownOutcomesSurviveARestartThroughTheSpillFile() {
+        IdempotencyCache first = cache(true);
+        assertThatThrownBy(() -> first.execute("timed-out", "BANK:10", () -> fail(
+                new GatewayGuard.GatewayTimeoutException(PaymentType.BANK, Duration.ofSeconds(5)))))
+                .isInstanceOf(GatewayGuard.GatewayTimeoutException.class);
+        first.execute("settled", "BANK:20", this::charge);
+        first.shutdown();
+
+        IdempotencyCache restarted = cache(true);
+        assertThatThrownBy(() -> restarted.execute("timed-out", "BANK:10", this::charge))
+                .isInstanceOf(IdempotencyCache.IdempotentOutcomeUnknownException.class);
+        assertThat(restarted.execute("settled", "BANK:20", this::charge).replayed()).isTrue();
+        assertThat(runs.get()).isEqualTo(2);
+    }
+
+    @Test
+    void headerlessSpillFilesAreMigrated() throws IOException {
+        Path file = directory.resolve("keys.log");
+        byte[] key = "legacy".getBytes(StandardCharsets.UTF_8);
+        byte[] fingerprint = "BANK:10".getBytes(StandardCharsets.UTF_8);
+        byte[] body = "Payment successful".getBytes(StandardCharsets.UTF_8);
+        int length = Long.BYTES + 3 * Integer.BYTES + key.length + fingerprint.length + body.length;
+        Files.write(file, ByteBuffer.allocate(Integer.BYTES + length)
+                .putInt(length)
+                .putLong(System.currentTimeMillis() + 60_000)
+                .putInt(key.length).put(key)
+                .putInt(fingerprint.length).put(fingerprint)
+                .putInt(body.length).put(body)
+                .array());
+
+        IdempotentResult replayed = cache(true).execute("legacy", "BANK:10", this::charge);
+
+        assertThat(replayed.replayed()).isTrue();
+        assertThat(replayed.body()).isEqualTo("Payment successful");
+        assertThat(Files.exists(file)).isFalse();
+        assertThat(ByteBuffer.wrap(Files.readAllBytes(directory.resolve("keys.log.1"))).getInt())
+                .isEqualTo(IdempotencySpillFile.MAGIC);
+        assertThat(runs.get()).isEqualTo(0);
+    }
+
+    @Test
+    void spilledKeysAreBoundedByMaxKeys() {
+        IdempotencyCache cache = cache(true, 1, 2, DataSize.ofMegabytes(1));
+        for (String key : List.of("first", "second", "third")) {
+            cache.execute(key, "BANK:10", this::charge);
+        }
+
+        assertThat(cache.execute("second", "BANK:10", this::charge).replayed()).isTrue();
+        assertThat(cache.execute("first", "BANK:10", this::charge).replayed()).isFalse();
+        assertThat(runs.get()).isEqualTo(4);
+    }
+
+    @Test
+    void segmentsAreDeletedOnceNoIndexedKeyReachesThem() throws IOException {
+        IdempotencyCache cache = cache(true, 1, 2, DataSize.ofBytes(1));
+        for (int i = 0; i < 10; i++) {
+            cache.execute("key-" + i, "BANK:10", this::charge);
+        }
+
+        try (var files = Files.list(directory)) {
+            assertThat(files.map(path -> path.getFileName().toString()).toList())
+                    .containsExactlyInAnyOrder("keys.log.9", "keys.log.10");
+        }
+        assertThat(cache.execute("key-8", "BANK:10", this::charge).replayed()).isTrue();
+    }
+
+    @Test
+    void spillFilesOfAnUnknownVersionAreRefused() throws IOException {
+        Files.write(directory.resolve("keys.log"),
+                ByteBuffer.allocate(8).putInt(IdempotencySpillFile.MAGIC).putInt(99).array());
+
+        assertThatThrownBy(() -> cache(true))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("version 99");
+    }
+
+    private String charge() {
+        runs.incrementAndGet();
+        return "Payment successful";
+    }
+
+    private String fail(RuntimeException failure) {
+        runs.incrementAndGet();
+        throw failure;
+    }
+
+    private IdempotencyCache cache(boolean spill) {
+        return cache(spill, 1000, 1000, DataSize.ofMegabytes(1));
+    }
+
+    private IdempotencyCache cache(boolean spill, int maxEntries, int maxKeys, DataSize segmentSize) {
+        IdempotencyCache cache = new IdempotencyCache(new PaymentIdempotencyProperties(true, Duration.ofHours(1),
+                maxEntries, DataSize.ofMegabytes(1), Duration.ofSeconds(1), Duration.ofMinutes(1), 255,
+                new PaymentIdempotencyProperties.Spill(spill, directory.resolve("keys.log"), maxKeys, segmentSize)));
+        caches.add(cache);
+        return cache;
+    }
+}
@@ -0,0 +1,50 @@
+package com.noua.design.patterns.factoryMethod.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyKeyIndexTest {
+
+    @Test
+    void behavesLikeABoundedInsertionOrderedMap() {
+        int capacity = 3000;
+        IdempotencyKeyIndex index = new IdempotencyKeyIndex(capacity);
+        Map<Long, Long> expected = new HashMap<>();
+        Deque<long[]> order = new ArrayDeque<>();
+        Random random = new Random(7);
+
+        for (long address = 0; address < 50_000; address++) {
+            // a small key space so keys are often superseded and probe runs collide
+            long hash = random.nextInt(5000) * 0x10000L;
+            index.put(hash, address, address);
+            expected.put(hash, address);
+            order.addLast(new long[] {hash, address});
+            if (order.size() > capacity) {
+                long[] oldest = order.removeFirst();
+                expected.remove(oldest[0], oldest[1]);
+            }
+            if (address % 97 == 0) {
+                long expiredBefore = address - random.nextInt(capacity);
+                index.evictExpired(expiredBefore);
+                while (!order.isEmpty() && order.peekFirst()[1] <= expiredBefore) {
+                    long[] oldest = order.removeFirst();
+                    expected.remove(oldest[0], oldest[1]);
+                }
+            }
+        }
+
+        for (int key = 0; key < 5000; key++) {
+            long hash = key * 0x10000L;
+            assertThat(index.find(hash)).isEqualTo(expected.getOrDefault(hash, IdempotencyKeyIndex.ABSENT));
+        }
+        assertThat(index.size()).isEqualTo(order.size());
+        assertThat(index.oldestAddress()).isEqualTo(order.peekFirst()[1]);
+    }
+}
@@ -0,0 +1,47 @@
+package com.noua.design.patterns.factoryMethod.ledger;
+
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import com.noua.design.patterns.factoryMethod.dto.LedgerTotals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentLedgerTest {
+
+    @TempDir
+    Path directory;
+
+    private PaymentLedger ledger;
+
+    @AfterEach
+    void close() {
+        ledger.close();
+    }
+
+    @Test
+    void anAmountThatDoesNotFitIsCountedAsLostInsteadOfThrown() {
+        ledger = new PaymentLedger(directory, 1024, 2, Duration.ofSeconds(1), () -> 1_000L);
+        ledger.start();
+
+        ledger.append(PaymentType.STRIPE, new BigDecimal("12.345"), true);
+        ledger.append(PaymentType.STRIPE, new BigDecimal("1e30"), true);
+
+        assertThat(ledger.lostCount()).isEqualTo(1);
+        LedgerTotals stripe = stripe(ledger);
+        assertThat(stripe.settledCount()).isEqualTo(1);
+        assertThat(stripe.settledAmount()).isEqualTo(new BigDecimal("12.34"));
+        assertThat(ledger.totals(Instant.ofEpochMilli(0), Instant.ofEpochMilli(2_000)).get(PaymentType.STRIPE.ordinal())
+                .settledCount()).isEqualTo(1);
+    }
+
+    private static LedgerTotals stripe(PaymentLedger ledger) {
+        return ledger.totals().stream().filter(totals -> totals.type() == PaymentType.STRIPE).findFirst().orElseThrow();
+    }
+}
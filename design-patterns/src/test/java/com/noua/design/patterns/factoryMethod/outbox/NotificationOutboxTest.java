@@ -0,0 +1,154 @@
+package com.noua.design.patterns.factoryMethod.outbox;
+
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NotificationOutboxTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void unacknowledgedNotificationsAreRecoveredAfterARestart() throws InterruptedException {
+        NotificationOutbox outbox = outbox();
+        OutboxRecord delivered = record("delivered");
+        OutboxRecord undelivered = record("undelivered");
+        outbox.append(delivered);
+        outbox.append(undelivered);
+        outbox.acknowledge(delivered.id());
+        outbox.close();
+
+        NotificationOutbox restarted = outbox();
+        try {
+            assertThat(restarted.takeRecovered()).containsExactly(undelivered);
+            assertThat(restarted.pendingCount()).isEqualTo(1);
+        } finally {
+            restarted.close();
+        }
+    }
+
+    @Test
+    void appendsAfterCloseAreRejectedInsteadOfBlocking() throws InterruptedException {
+        NotificationOutbox outbox = outbox();
+        outbox.close();
+
+        assertThatThrownBy(() -> outbox.append(record("late")))
+                .isInstanceOf(NotificationOutbox.OutboxUnavailableException.class);
+    }
+
+    @Test
+    void aHeaderlessSegmentOfTheFirstLayoutIsReplayedAtMediumPriority() throws IOException, InterruptedException {
+        UUID delivered = UUID.randomUUID();
+        UUID undelivered = UUID.randomUUID();
+        // ENQUEUE payloads of the first layout are byte type | int toLength | to | int messageLength | message
+        ByteBuffer segment = ByteBuffer.allocate(1024)
+                .put(firstLayoutFrame((byte) 1, delivered, firstLayoutPayload("delivered")))
+                .put(firstLayoutFrame((byte) 1, undelivered, firstLayoutPayload("undelivered")))
+                .put(firstLayoutFrame((byte) 2, delivered, ByteBuffer.allocate(0)))
+                .flip();
+        Files.write(directory.resolve(String.format("outbox-%020d.journal", 0)),
+                Arrays.copyOf(segment.array(), segment.limit()));
+        Files.writeString(directory.resolve("checkpoint"), "0");
+
+        NotificationOutbox restarted = outbox();
+        try {
+            assertThat(restarted.takeRecovered()).containsExactly(new OutboxRecord(undelivered, NotificationType.EMAIL,
+                    AlertPriority.MEDIUM, "user@example.com", "undelivered"));
+        } finally {
+            restarted.close();
+        }
+    }
+
+    @Test
+    void aHeaderlessSegmentWithPrioritiesIsReplayed() throws IOException, InterruptedException {
+        NotificationOutbox outbox = outbox();
+        OutboxRecord undelivered = record("undelivered");
+        outbox.append(undelivered);
+        outbox.close();
+        Path segment = onlySegment();
+        byte[] bytes = Files.readAllBytes(segment);
+        Files.write(segment, Arrays.copyOfRange(bytes, 2 * Integer.BYTES, bytes.length));
+        // offsets of headerless segments did not count a header
+        Files.writeString(directory.resolve("checkpoint"), "0");
+
+        NotificationOutbox restarted = outbox();
+        try {
+            assertThat(restarted.takeRecovered()).containsExactly(undelivered);
+        } finally {
+            restarted.close();
+        }
+    }
+
+    @Test
+    void aSegmentOfAnUnknownVersionIsRefused() throws IOException, InterruptedException {
+        NotificationOutbox outbox = outbox();
+        outbox.append(record("undelivered"));
+        outbox.close();
+        Path segment = onlySegment();
+        byte[] bytes = Files.readAllBytes(segment);
+        ByteBuffer.wrap(bytes).putInt(Integer.BYTES, 3);
+        Files.write(segment, bytes);
+
+        NotificationOutbox restarted = new NotificationOutbox(directory, 1 << 20, 64, Duration.ofMillis(50),
+                Duration.ofSeconds(1));
+        assertThatThrownBy(restarted::start)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("format version 3");
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".journal")).findFirst().orElseThrow();
+        }
+    }
+
+    private static ByteBuffer firstLayoutPayload(String message) {
+        byte[] to = "user@example.com".getBytes(StandardCharsets.UTF_8);
+        byte[] text = message.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + Integer.BYTES * 2 + to.length + text.length)
+                .put((byte) NotificationType.EMAIL.ordinal())
+                .putInt(to.length).put(to)
+                .putInt(text.length).put(text)
+                .flip();
+    }
+
+    private static ByteBuffer firstLayoutFrame(byte kind, UUID id, ByteBuffer payload) {
+        int length = 1 + 2 * Long.BYTES + payload.remaining();
+        ByteBuffer frame = ByteBuffer.allocate(2 * Integer.BYTES + length);
+        frame.putInt(length).putInt(0)
+                .put(kind).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits())
+                .put(payload);
+        CRC32C crc = new CRC32C();
+        crc.update(frame.array(), 2 * Integer.BYTES, length);
+        frame.putInt(Integer.BYTES, (int) crc.getValue());
+        return frame.flip();
+    }
+
+    private NotificationOutbox outbox() {
+        NotificationOutbox outbox = new NotificationOutbox(directory, 1 << 20, 64, Duration.ofMillis(50),
+                Duration.ofSeconds(1));
+        outbox.start();
+        return outbox;
+    }
+
+    private static OutboxRecord record(String message) {
+        return new OutboxRecord(UUID.randomUUID(), NotificationType.EMAIL, AlertPriority.HIGH, "user@example.com",
+                message);
+    }
+}
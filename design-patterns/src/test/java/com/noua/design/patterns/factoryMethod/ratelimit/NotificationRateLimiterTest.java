@@ -0,0 +1,35 @@
+package com.noua.design.patterns.factoryMethod.ratelimit;
+
+import com.noua.design.patterns.factoryMethod.config.NotificationRateLimitProperties;
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationRateLimiterTest {
+
+    // one token per recipient that practically never refills, a channel that refills every 50ms
+    private final NotificationRateLimiter limiter = new NotificationRateLimiter(new NotificationRateLimitProperties(true,
+            new NotificationRateLimitProperties.Limit(0.001, 1), new NotificationRateLimitProperties.Limit(20, 1),
+            null, Duration.ofMinutes(1)));
+
+    @AfterEach
+    void shutdown() {
+        limiter.shutdown();
+    }
+
+    @Test
+    void aChannelRejectionDoesNotSpendTheRecipientToken() throws InterruptedException {
+        assertThat(limiter.tryAcquire(NotificationType.SMS, "alice")).isEqualTo(0L);
+        assertThat(limiter.tryAcquire(NotificationType.SMS, "bob")).isGreaterThan(0L);
+
+        TimeUnit.MILLISECONDS.sleep(60);
+
+        assertThat(limiter.tryAcquire(NotificationType.SMS, "bob")).isEqualTo(0L);
+        assertThat(limiter.tryAcquire(NotificationType.SMS, "alice")).isGreaterThan(TimeUnit.SECONDS.toNanos(1));
+    }
+}
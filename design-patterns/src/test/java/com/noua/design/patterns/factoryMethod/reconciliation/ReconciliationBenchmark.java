@@ -0,0 +1,71 @@
+package com.noua.design.patterns.factoryMethod.reconciliation;
+
+import com.noua.design.patterns.factoryMethod.dto.ReconciliationReport;
+import com.noua.design.patterns.factoryMethod.dto.ReconciliationSummary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reconciles synthetic multi-GB inputs. Skipped unless a record count is given, e.g. for a ~2.3 GB
+ * CSV and ~1 GB of ledger against a 512 MB heap:
+ * <pre>
+ * ./mvnw test -Dtest=ReconciliationBenchmark -Dreconciliation.benchmark.records=60000000 -DargLine=-Xmx512m
+ * </pre>
+ * Data is generated under {@code reconciliation.benchmark.dir} (default: the temp directory) and
+ * deleted afterwards.
+ */
+@EnabledIfSystemProperty(named = "reconciliation.benchmark.records", matches = "\\d+")
+class ReconciliationBenchmark {
+
+    @Test
+    void reconcileSyntheticData() throws IOException {
+        long records = Long.getLong("reconciliation.benchmark.records");
+        Path directory = Files.createTempDirectory(
+                Path.of(System.getProperty("reconciliation.benchmark.dir", System.getProperty("java.io.tmpdir"))),
+                "reconciliation-benchmark-");
+        try {
+            Path ledger = directory.resolve("ledger");
+            Path csv = directory.resolve("provider.csv");
+            long generating = System.nanoTime();
+            SyntheticSettlementData data = SyntheticSettlementData.write(ledger, csv, records, 100, 1);
+            long ledgerBytes = size(ledger);
+            System.out.printf("generated %,d payments: provider CSV %,d MB, ledger %,d MB in %.1f s%n",
+                    records, data.providerBytes >> 20, ledgerBytes >> 20, (System.nanoTime() - generating) / 1e9);
+
+            ReconciliationEngine engine = new ReconciliationEngine(directory, ledger, directory.resolve("work"),
+                    Duration.ofHours(1), Duration.ofSeconds(5), BigDecimal.ONE, 64L << 20, 0, 100, 2);
+            ReconciliationReport report = engine.reconcile(ledger, csv, null, null);
+            engine.shutdown();
+
+            double seconds = report.elapsedMillis() / 1e3;
+            System.out.printf("reconciled in %.1f s over %d partitions: %,.0f records/s, %,.0f MB/s, max heap %,d MB%n",
+                    seconds, report.partitions(), 2 * records / seconds,
+                    (data.providerBytes + ledgerBytes) / 1e6 / seconds, Runtime.getRuntime().maxMemory() >> 20);
+            report.types().forEach(System.out::println);
+
+            long matched = report.types().stream().mapToLong(ReconciliationSummary::matched).sum();
+            long drifts = report.types().stream().mapToLong(ReconciliationSummary::amountDrifts).sum();
+            assertThat(matched).isEqualTo(data.matched());
+            assertThat(drifts).isEqualTo(data.amountDrifts);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted((a, b) -> b.getNameCount() - a.getNameCount()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static long size(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.noua.design.patterns.factoryMethod.reconciliation;
+
+import com.noua.design.patterns.factoryMethod.domain.DiscrepancyKind;
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import com.noua.design.patterns.factoryMethod.dto.Discrepancy;
+import com.noua.design.patterns.factoryMethod.dto.ReconciliationReport;
+import com.noua.design.patterns.factoryMethod.dto.ReconciliationSummary;
+import com.noua.design.patterns.factoryMethod.ledger.LedgerRecords;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReconciliationEngineTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<ReconciliationEngine> engines = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        engines.forEach(ReconciliationEngine::shutdown);
+    }
+
+    @Test
+    void reportsEveryInjectedDiscrepancy() throws IOException {
+        SyntheticSettlementData data = SyntheticSettlementData.write(directory.resolve("ledger"),
+                directory.resolve("provider.csv"), 200_000, 3, 42);
+        // small chunks and buckets so that chunk edges and bucket boundaries are crossed often
+        ReconciliationReport report = engine(Duration.ofMinutes(1), 256 * 1024)
+                .reconcile(directory.resolve("ledger"), directory.resolve("provider.csv"), null, null);
+
+        assertThat(sum(report, ReconciliationSummary::matched)).isEqualTo(data.matched());
+        assertThat(sum(report, ReconciliationSummary::missingAtProvider)).isEqualTo(data.missingAtProvider);
+        assertThat(sum(report, ReconciliationSummary::missingLocally)).isEqualTo(data.missingLocally);
+        assertThat(sum(report, ReconciliationSummary::statusMismatches)).isEqualTo(data.statusMismatches);
+        assertThat(sum(report, ReconciliationSummary::amountDrifts)).isEqualTo(data.amountDrifts);
+        assertThat(sum(report, ReconciliationSummary::localRecords))
+                .isEqualTo(data.payments - data.missingLocally);
+        assertThat(sum(report, ReconciliationSummary::providerRecords))
+                .isEqualTo(data.payments - data.missingAtProvider);
+        assertThat(report.malformedLines()).isEqualTo(3);
+        assertThat(report.discrepancies()).hasSize(100);
+        assertThat(report.truncated()).isTrue();
+    }
+
+    @Test
+    void pairsDriftAndStatusMismatchAcrossABucketBoundary() throws IOException {
+        Path ledger = directory.resolve("ledger");
+        Path csv = directory.resolve("provider.csv");
+        long boundary = 1_760_000_400_000L;
+        writeLedger(ledger, new long[][]{
+                {boundary - 1_000, 1_000, PaymentType.STRIPE.ordinal(), 1},
+                {boundary - 500, 2_000, PaymentType.STRIPE.ordinal(), 1},
+                {boundary - 200, 3_000, PaymentType.BANK.ordinal(), 1}});
+        Files.writeString(csv, """
+                timestamp,type,amount,status
+                %d,STRIPE,10.00,SETTLED
+                %d,stripe,20.00,failed
+                %d,BANK,30.25,SETTLED
+                %d,PAYPAL,5.00,SETTLED
+                """.formatted(boundary + 1_000, boundary + 500, boundary + 200, boundary));
+
+        ReconciliationReport report = engine(Duration.ofMinutes(1), 1 << 20).reconcile(ledger, csv, null, null);
+
+        ReconciliationSummary stripe = summary(report, PaymentType.STRIPE);
+        assertThat(stripe.matched()).isEqualTo(1);
+        assertThat(stripe.statusMismatches()).isEqualTo(1);
+        ReconciliationSummary bank = summary(report, PaymentType.BANK);
+        assertThat(bank.amountDrifts()).isEqualTo(1);
+        assertThat(bank.driftAmount()).isEqualTo(new BigDecimal("0.25"));
+        assertThat(summary(report, PaymentType.PAYPAL).missingLocally()).isEqualTo(1);
+        assertThat(report.discrepancies().stream().map(Discrepancy::kind).toList()).contains(
+                DiscrepancyKind.STATUS_MISMATCH, DiscrepancyKind.AMOUNT_DRIFT, DiscrepancyKind.MISSING_LOCALLY);
+    }
+
+    @Test
+    void anExactPairInTheNextBucketWinsOverAStatusMismatchInThisOne() throws IOException {
+        Path ledger = directory.resolve("ledger");
+        Path csv = directory.resolve("provider.csv");
+        long boundary = 1_760_000_400_000L;
+        writeLedger(ledger, new long[][]{{boundary - 1_000, 1_000, PaymentType.STRIPE.ordinal(), 1}});
+        Files.writeString(csv, """
+                timestamp,type,amount,status
+                %d,STRIPE,10.00,FAILED
+                %d,STRIPE,10.00,SETTLED
+                """.formatted(boundary - 3_000, boundary + 1_000));
+
+        ReconciliationReport report = engine(Duration.ofMinutes(1), 1 << 20).reconcile(ledger, csv, null, null);
+
+        ReconciliationSummary stripe = summary(report, PaymentType.STRIPE);
+        assertThat(stripe.matched()).isEqualTo(1);
+        assertThat(stripe.statusMismatches()).isZero();
+        assertThat(stripe.missingLocally()).isEqualTo(1);
+        assertThat(report.discrepancies()).hasSize(1);
+        assertThat(report.discrepancies().getFirst().providerTime()).isEqualTo(Instant.ofEpochMilli(boundary - 3_000));
+    }
+
+    @Test
+    void limitsTheReconciledRange() throws IOException {
+        SyntheticSettlementData data = SyntheticSettlementData.write(directory.resolve("ledger"),
+                directory.resolve("provider.csv"), 20_000, 0, 7);
+        ReconciliationReport report = engine(Duration.ofHours(1), 1 << 20).reconcile(directory.resolve("ledger"),
+                directory.resolve("provider.csv"), Instant.ofEpochMilli(0),
+                Instant.ofEpochMilli(SyntheticSettlementData.START_MILLIS - 10_000));
+
+        assertThat(sum(report, ReconciliationSummary::localRecords)).isZero();
+        assertThat(sum(report, ReconciliationSummary::providerRecords)).isZero();
+        assertThat(data.payments).isEqualTo(20_000);
+    }
+
+    private ReconciliationEngine engine(Duration bucket, long chunkBytes) {
+        ReconciliationEngine engine = new ReconciliationEngine(directory, directory.resolve("ledger"),
+                directory.resolve("work"), bucket, Duration.ofSeconds(5), BigDecimal.ONE, chunkBytes, 4, 100, 2);
+        engines.add(engine);
+        return engine;
+    }
+
+    private static void writeLedger(Path directory, long[][] records) throws IOException {
+        Files.createDirectories(directory);
+        ByteBuffer bytes = ByteBuffer.allocate(records.length * LedgerRecords.RECORD_BYTES);
+        for (int i = 0; i < records.length; i++) {
+            LedgerRecords.put(bytes, i * LedgerRecords.RECORD_BYTES, records[i][0], records[i][1], (int) records[i][2],
+                    records[i][3] == 1);
+        }
+        Files.write(directory.resolve(LedgerRecords.segmentName(0)), bytes.array());
+    }
+
+    private static long sum(ReconciliationReport report, ToLongFunction<ReconciliationSummary> field) {
+        return report.types().stream().mapToLong(field).sum();
+    }
+
+    private static ReconciliationSummary summary(ReconciliationReport report, PaymentType type) {
+        return report.types().stream().filter(summary -> summary.type() == type).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,145 @@
+package com.noua.design.patterns.factoryMethod.reconciliation;
+
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import com.noua.design.patterns.factoryMethod.ledger.LedgerRecords;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * Writes a ledger and a matching provider CSV with known discrepancies. Amounts are unique per
+ * payment, 10.00 apart, and drift stays below 0.50, so the expected counts are exact with a
+ * {@code max-drift} of 1.00. Provider
+ * timestamps are shifted by up to two seconds, which moves some payments into a neighbouring bucket.
+ */
+final class SyntheticSettlementData {
+
+    static final long START_MILLIS = 1_760_000_000_000L;
+    private static final int SEGMENT_RECORDS = 1 << 20;
+    private static final PaymentType[] TYPES = PaymentType.values();
+
+    long payments;
+    long missingAtProvider;
+    long missingLocally;
+    long statusMismatches;
+    long amountDrifts;
+    long providerBytes;
+
+    private SyntheticSettlementData() {
+    }
+
+    /**
+     * @param malformedLines unparseable lines to scatter through the CSV
+     */
+    static SyntheticSettlementData write(Path ledgerDirectory, Path providerCsv, long payments, int malformedLines,
+                                         long seed) throws IOException {
+        SyntheticSettlementData data = new SyntheticSettlementData();
+        data.payments = payments;
+        Files.createDirectories(ledgerDirectory);
+        SplittableRandom random = new SplittableRandom(seed);
+        long malformedEvery = malformedLines == 0 ? Long.MAX_VALUE : Math.max(1, payments / malformedLines);
+        byte[] line = new byte[96];
+        try (OutputStream csv = new BufferedOutputStream(Files.newOutputStream(providerCsv), 1 << 20)) {
+            csv.write("timestamp,type,amount,status\n".getBytes());
+            FileChannel segment = null;
+            MappedByteBuffer records = null;
+            long millis = START_MILLIS;
+            for (long i = 0; i < payments; i++) {
+                if (i % SEGMENT_RECORDS == 0) {
+                    if (segment != null) {
+                        segment.close();
+                    }
+                    segment = FileChannel.open(ledgerDirectory.resolve(LedgerRecords.segmentName(i / SEGMENT_RECORDS)),
+                            StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    records = segment.map(FileChannel.MapMode.READ_WRITE, 0,
+                            (long) SEGMENT_RECORDS * LedgerRecords.RECORD_BYTES);
+                }
+                millis += random.nextInt(20);
+                int type = random.nextInt(TYPES.length);
+                long amount = 100 + i * 1_000;
+                boolean settled = random.nextInt(100) < 95;
+                int roll = random.nextInt(1000);
+
+                boolean local = true;
+                boolean provider = true;
+                long providerAmount = amount;
+                boolean providerSettled = settled;
+                if (roll < 5) {
+                    provider = false;
+                    data.missingAtProvider++;
+                } else if (roll < 10) {
+                    local = false;
+                    data.missingLocally++;
+                } else if (roll < 13) {
+                    providerSettled = !settled;
+                    data.statusMismatches++;
+                } else if (roll < 16) {
+                    providerAmount += 1 + random.nextInt(50);
+                    data.amountDrifts++;
+                }
+
+                if (local) {
+                    LedgerRecords.put(records, (int) (i % SEGMENT_RECORDS) * LedgerRecords.RECORD_BYTES,
+                            millis, amount, type, settled);
+                }
+                if (provider) {
+                    long providerMillis = millis + random.nextInt(4001) - 2000;
+                    int length = format(line, providerMillis, TYPES[type], providerAmount, providerSettled);
+                    csv.write(line, 0, length);
+                }
+                if (i % malformedEvery == malformedEvery - 1) {
+                    csv.write("not,a,valid,line\n".getBytes());
+                }
+            }
+            if (segment != null) {
+                segment.close();
+            }
+        }
+        data.providerBytes = Files.size(providerCsv);
+        return data;
+    }
+
+    long matched() {
+        return payments - missingAtProvider - missingLocally - statusMismatches - amountDrifts;
+    }
+
+    private static int format(byte[] line, long millis, PaymentType type, long amountMinor, boolean settled) {
+        int position = digits(line, 0, millis);
+        line[position++] = ',';
+        for (byte character : type.name().getBytes()) {
+            line[position++] = character;
+        }
+        line[position++] = ',';
+        position = digits(line, position, amountMinor / 100);
+        line[position++] = '.';
+        line[position++] = (byte) ('0' + amountMinor / 10 % 10);
+        line[position++] = (byte) ('0' + amountMinor % 10);
+        line[position++] = ',';
+        for (byte character : (settled ? "SETTLED" : "FAILED").getBytes()) {
+            line[position++] = character;
+        }
+        line[position++] = '\n';
+        return position;
+    }
+
+    private static int digits(byte[] line, int position, long value) {
+        int start = position;
+        do {
+            line[position++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        for (int low = start, high = position - 1; low < high; low++, high--) {
+            byte swap = line[low];
+            line[low] = line[high];
+            line[high] = swap;
+        }
+        return position;
+    }
+}
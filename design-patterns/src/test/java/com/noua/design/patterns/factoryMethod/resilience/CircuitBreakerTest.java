@@ -0,0 +1,148 @@
+package com.noua.design.patterns.factoryMethod.resilience;
+
+import com.noua.design.patterns.factoryMethod.domain.BreakerState;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private static final long OPEN_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final AtomicLong now = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(10, 5, 50f, OPEN_NANOS, 2, now::get);
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        for (int i = 0; i < 4; i++) {
+            CircuitBreaker.Permit permit = breaker.tryAcquirePermission();
+            assertThat(permit).isNotNull();
+            permit.onFailure();
+        }
+        assertThat(breaker.state()).isEqualTo(BreakerState.CLOSED);
+        assertThat(breaker.failureRate()).isEqualTo(100f);
+    }
+
+    @Test
+    void opensAtThresholdAndRejectsUntilOpenDurationElapsed() {
+        List<CircuitBreaker.Permit> inFlight = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            inFlight.add(breaker.tryAcquirePermission());
+        }
+        for (int i = 0; i < 5; i++) {
+            inFlight.get(2 * i).onSuccess();
+            inFlight.get(2 * i + 1).onFailure();
+        }
+        assertThat(breaker.state()).isEqualTo(BreakerState.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isNull();
+        assertThat(breaker.notPermittedCalls()).isEqualTo(1);
+
+        now.addAndGet(OPEN_NANOS - 1);
+        assertThat(breaker.remainingOpenNanos()).isEqualTo(1);
+        assertThat(breaker.tryAcquirePermission()).isNull();
+
+        now.incrementAndGet();
+        assertThat(breaker.tryAcquirePermission()).isNotNull();
+        assertThat(breaker.state()).isEqualTo(BreakerState.HALF_OPEN);
+    }
+
+    @Test
+    void slowCallGrantedWhileClosedDoesNotSettleTheHalfOpenTrial() {
+        CircuitBreaker.Permit slow = breaker.tryAcquirePermission();
+        trip();
+        now.addAndGet(OPEN_NANOS);
+        CircuitBreaker.Permit trial = breaker.tryAcquirePermission();
+        assertThat(breaker.state()).isEqualTo(BreakerState.HALF_OPEN);
+
+        slow.onSuccess();
+        trial.onSuccess();
+        assertThat(breaker.state()).isEqualTo(BreakerState.HALF_OPEN);
+
+        breaker.tryAcquirePermission().onSuccess();
+        assertThat(breaker.state()).isEqualTo(BreakerState.CLOSED);
+    }
+
+    @Test
+    void slidingWindowForgetsOldOutcomes() {
+        for (int i = 0; i < 6; i++) {
+            breaker.tryAcquirePermission().onSuccess();
+        }
+        for (int i = 0; i < 4; i++) {
+            breaker.tryAcquirePermission().onFailure();
+        }
+        assertThat(breaker.failureRate()).isEqualTo(40f);
+        for (int i = 0; i < 10; i++) {
+            breaker.tryAcquirePermission().onSuccess();
+        }
+        assertThat(breaker.state()).isEqualTo(BreakerState.CLOSED);
+        assertThat(breaker.bufferedCalls()).isEqualTo(10);
+        assertThat(breaker.failedCalls()).isZero();
+    }
+
+    @Test
+    void halfOpenClosesAfterSuccessfulTrials() {
+        trip();
+        now.addAndGet(OPEN_NANOS);
+        CircuitBreaker.Permit first = breaker.tryAcquirePermission();
+        CircuitBreaker.Permit second = breaker.tryAcquirePermission();
+        assertThat(breaker.tryAcquirePermission()).isNull();
+        first.onSuccess();
+        second.onSuccess();
+        assertThat(breaker.state()).isEqualTo(BreakerState.CLOSED);
+        assertThat(breaker.bufferedCalls()).isZero();
+    }
+
+    @Test
+    void halfOpenReopensWhenTrialsFail() {
+        trip();
+        now.addAndGet(OPEN_NANOS);
+        CircuitBreaker.Permit first = breaker.tryAcquirePermission();
+        CircuitBreaker.Permit second = breaker.tryAcquirePermission();
+        first.onSuccess();
+        second.onFailure();
+        assertThat(breaker.state()).isEqualTo(BreakerState.OPEN);
+        assertThat(breaker.remainingOpenNanos()).isEqualTo(OPEN_NANOS);
+    }
+
+    @Test
+    void concurrentOutcomesKeepTheWindowConsistent() throws InterruptedException {
+        CircuitBreaker shared = new CircuitBreaker(100, 100, 101f, OPEN_NANOS, 1, System::nanoTime);
+        int threads = 8;
+        CountDownLatch done = new CountDownLatch(threads);
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                executor.execute(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        CircuitBreaker.Permit permit = shared.tryAcquirePermission();
+                        if (i % 4 == 0) {
+                            permit.onFailure();
+                        } else {
+                            permit.onSuccess();
+                        }
+                    }
+                    done.countDown();
+                });
+            }
+            assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        }
+        int failed = shared.failedCalls();
+        assertThat(shared.bufferedCalls()).isEqualTo(100);
+        assertThat(failed).isBetween(0, 100);
+        assertThat(shared.state()).isEqualTo(BreakerState.CLOSED);
+    }
+
+    private void trip() {
+        for (int i = 0; i < 5; i++) {
+            breaker.tryAcquirePermission().onFailure();
+        }
+        assertThat(breaker.state()).isEqualTo(BreakerState.OPEN);
+    }
+}
@@ -0,0 +1,141 @@
+package com.noua.design.patterns.factoryMethod.resilience;
+
+import com.noua.design.patterns.factoryMethod.config.PaymentResilienceProperties;
+import com.noua.design.patterns.factoryMethod.domain.BreakerState;
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import com.noua.design.patterns.factoryMethod.dto.GatewayHealth;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GatewayGuardTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    private final AtomicLong now = new AtomicLong();
+    private final GatewayGuard guard = new GatewayGuard(new PaymentResilienceProperties(
+            new PaymentResilienceProperties.Settings(2, Duration.ZERO, Duration.ofMillis(200), 10, 4, 50f,
+                    Duration.ofSeconds(30), 2),
+            Map.of(PaymentType.BANK, new PaymentResilienceProperties.Settings(
+                    4, null, null, null, null, null, null, null))),
+            now::get);
+
+    @AfterEach
+    void shutdown() {
+        guard.shutdown();
+    }
+
+    @Test
+    void gatewayFailuresAreRethrownAndOpenTheBreaker() {
+        StubGateway gateway = new StubGateway().failureRate(1);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> pay(PaymentType.STRIPE, gateway))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("provider declined");
+        }
+        assertThatThrownBy(() -> pay(PaymentType.STRIPE, gateway))
+                .isInstanceOf(GatewayGuard.CircuitOpenException.class);
+        assertThat(gateway.calls()).isEqualTo(4);
+        assertThat(health(PaymentType.STRIPE).state()).isEqualTo(BreakerState.OPEN);
+        assertThat(health(PaymentType.STRIPE).notPermittedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void openBreakerIsolatesOnlyItsOwnGateway() {
+        StubGateway failing = new StubGateway().failureRate(1);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> pay(PaymentType.STRIPE, failing)).isInstanceOf(IllegalStateException.class);
+        }
+        assertThatThrownBy(() -> guard.checkAvailable(PaymentType.STRIPE))
+                .isInstanceOf(GatewayGuard.CircuitOpenException.class);
+        guard.checkAvailable(PaymentType.BANK);
+        StubGateway healthy = new StubGateway();
+        pay(PaymentType.BANK, healthy);
+        assertThat(healthy.calls()).isEqualTo(1);
+    }
+
+    @Test
+    void breakerRecoversThroughHalfOpenTrials() {
+        StubGateway gateway = new StubGateway().failureRate(1);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> pay(PaymentType.STRIPE, gateway)).isInstanceOf(IllegalStateException.class);
+        }
+        gateway.failureRate(0);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        pay(PaymentType.STRIPE, gateway);
+        pay(PaymentType.STRIPE, gateway);
+        assertThat(health(PaymentType.STRIPE).state()).isEqualTo(BreakerState.CLOSED);
+    }
+
+    @Test
+    void slowCallsTimeOutAndCountAsFailures() {
+        StubGateway gateway = new StubGateway().latency(Duration.ofSeconds(5));
+        assertThatThrownBy(() -> pay(PaymentType.STRIPE, gateway))
+                .isInstanceOf(GatewayGuard.GatewayTimeoutException.class);
+        GatewayHealth health = health(PaymentType.STRIPE);
+        assertThat(health.timedOutCalls()).isEqualTo(1);
+        assertThat(health.failedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void bulkheadCapsConcurrentCallsPerGateway() throws Exception {
+        StubGateway gateway = new StubGateway().latency(Duration.ofMillis(100));
+        int rejected = 0;
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                calls.add(callers.submit(() -> pay(PaymentType.BANK, gateway)));
+            }
+            for (Future<?> call : calls) {
+                try {
+                    call.get();
+                } catch (java.util.concurrent.ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(GatewayGuard.BulkheadFullException.class);
+                    rejected++;
+                }
+            }
+        }
+        assertThat(gateway.maxInFlight()).isLessThanOrEqualTo(4);
+        assertThat(gateway.calls() + rejected).isEqualTo(10);
+        assertThat(rejected).isPositive();
+    }
+
+    @Test
+    void cancelledCallsHandTheirPermitBack() {
+        StubGateway hanging = new StubGateway().latency(Duration.ofSeconds(5));
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> pay(PaymentType.STRIPE, hanging))
+                    .isInstanceOf(GatewayGuard.GatewayTimeoutException.class);
+        }
+        // cancelled calls are interrupted, so the stub ends and hands its permit back
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (health(PaymentType.STRIPE).activeCalls() > 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(health(PaymentType.STRIPE).activeCalls()).isZero();
+    }
+
+    private void pay(PaymentType type, StubGateway gateway) {
+        guard.call(type, () -> {
+            gateway.pay(AMOUNT);
+            return null;
+        });
+    }
+
+    private GatewayHealth health(PaymentType type) {
+        return guard.health().stream().filter(health -> health.type() == type).findFirst().orElseThrow();
+    }
+}
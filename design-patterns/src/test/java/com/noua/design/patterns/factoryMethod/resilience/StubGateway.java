@@ -0,0 +1,57 @@
+package com.noua.design.patterns.factoryMethod.resilience;
+
+import com.noua.design.patterns.factoryMethod.service.PaymentGateway;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for a payment provider with adjustable latency and failure rate.
+ */
+class StubGateway implements PaymentGateway {
+
+    private volatile Duration latency = Duration.ZERO;
+    private volatile double failureRate;
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    StubGateway latency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    StubGateway failureRate(double failureRate) {
+        this.failureRate = failureRate;
+        return this;
+    }
+
+    int calls() {
+        return calls.get();
+    }
+
+    int maxInFlight() {
+        return maxInFlight.get();
+    }
+
+    @Override
+    public void pay(BigDecimal amount) {
+        calls.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            if (!latency.isZero()) {
+                Thread.sleep(latency);
+            }
+            if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                throw new IllegalStateException("provider declined");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("provider call interrupted");
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.noua.design.patterns.factoryMethod.routing;
+
+import com.noua.design.patterns.factoryMethod.config.PaymentRoutingProperties;
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentRouterTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("25.00");
+
+    @Test
+    void shedsTrafficFromAGatewayThatTurnsSlowAndFlaky() {
+        AtomicLong now = new AtomicLong();
+        PaymentRouter router = new PaymentRouter(properties(Map.of()), type -> true, now::get);
+        Map<PaymentType, Long> latencyMillis = Map.of(PaymentType.STRIPE, 50L, PaymentType.PAYPAL, 3L,
+                PaymentType.BANK, 4L);
+        Map<PaymentType, Integer> chosen = new EnumMap<>(PaymentType.class);
+
+        for (int i = 0; i < 1_200; i++) {
+            try {
+                PaymentType type = router.pay(AMOUNT, (gateway, amount) -> {
+                    now.addAndGet(Duration.ofMillis(latencyMillis.get(gateway)).toNanos());
+                    if (gateway == PaymentType.STRIPE) {
+                        throw new IllegalStateException("provider error");
+                    }
+                });
+                if (i >= 200) {
+                    chosen.merge(type, 1, Integer::sum);
+                }
+            } catch (IllegalStateException e) {
+                if (i >= 200) {
+                    chosen.merge(PaymentType.STRIPE, 1, Integer::sum);
+                }
+            }
+        }
+
+        assertThat(chosen.getOrDefault(PaymentType.STRIPE, 0)).isLessThan(50);
+        assertThat(chosen.getOrDefault(PaymentType.PAYPAL, 0) + chosen.getOrDefault(PaymentType.BANK, 0))
+                .isGreaterThan(950);
+    }
+
+    @Test
+    void costBreaksTiesBetweenEquallyFastGateways() {
+        PaymentRouter router = new PaymentRouter(properties(Map.of(
+                PaymentType.STRIPE, new PaymentRoutingProperties.Cost(new BigDecimal("0.30"), new BigDecimal("2.9")),
+                PaymentType.PAYPAL, new PaymentRoutingProperties.Cost(new BigDecimal("0.49"), new BigDecimal("3.49")),
+                PaymentType.BANK, new PaymentRoutingProperties.Cost(new BigDecimal("0.20"), BigDecimal.ZERO))),
+                type -> true, System::nanoTime);
+        Map<PaymentType, Integer> chosen = new EnumMap<>(PaymentType.class);
+        for (int i = 0; i < 3_000; i++) {
+            chosen.merge(router.choose(new BigDecimal("100")), 1, Integer::sum);
+        }
+        // with three gateways and two samples the cheapest wins two thirds, the priciest never
+        assertThat(chosen.getOrDefault(PaymentType.BANK, 0)).isGreaterThan(1_800);
+        assertThat(chosen.getOrDefault(PaymentType.PAYPAL, 0)).isZero();
+    }
+
+    @Test
+    void skipsGatewaysWhoseBreakerIsOpen() {
+        PaymentRouter router = new PaymentRouter(properties(Map.of()), type -> type != PaymentType.STRIPE,
+                System::nanoTime);
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(router.choose(AMOUNT)).isNotEqualTo(PaymentType.STRIPE);
+        }
+    }
+
+    private static PaymentRoutingProperties properties(Map<PaymentType, PaymentRoutingProperties.Cost> costs) {
+        return new PaymentRoutingProperties(Set.of(PaymentType.STRIPE, PaymentType.PAYPAL, PaymentType.BANK),
+                0.2, Duration.ofMillis(5), Duration.ofSeconds(10), 2000, 100, costs);
+    }
+}
@@ -0,0 +1,146 @@
+package com.noua.design.patterns.factoryMethod.routing;
+
+import com.noua.design.patterns.factoryMethod.config.PaymentRoutingProperties;
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Simulation benchmark: the same load against three stub gateways with limited capacity, routed
+ * statically (all to the nominal fastest, or round-robin) and by {@link PaymentRouter}. A quarter
+ * of the way through, the fastest gateway degrades; the printed table shows throughput, p50/p99
+ * latency and failures for each strategy. Timing-dependent, so skipped unless a payment count is
+ * given:
+ * <pre>
+ * ./mvnw test -Dtest=PaymentRoutingBenchmark -Drouting.benchmark.payments=4000
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "routing.benchmark.payments", matches = "\\d+")
+class PaymentRoutingBenchmark {
+
+    private static final int CLIENTS = 64;
+    private static final BigDecimal AMOUNT = new BigDecimal("25.00");
+
+    private record Result(String strategy, double throughput, double p50Millis, double p99Millis, int failed) {
+        @Override
+        public String toString() {
+            return String.format("%-12s %9.0f/s  p50 %7.2f ms  p99 %8.2f ms  failed %5d",
+                    strategy, throughput, p50Millis, p99Millis, failed);
+        }
+    }
+
+    /**
+     * Serves at most {@code capacity} payments at once; the rest queue. Degrades to a slow and
+     * flaky gateway once {@code degradeAfter} payments have been served.
+     */
+    private static final class SimulatedGateway {
+        private final Semaphore capacity;
+        private final long latencyMicros;
+        private final int degradeAfter;
+        private final AtomicInteger served = new AtomicInteger();
+
+        private SimulatedGateway(int capacity, long latencyMicros, int degradeAfter) {
+            this.capacity = new Semaphore(capacity, true);
+            this.latencyMicros = latencyMicros;
+            this.degradeAfter = degradeAfter;
+        }
+
+        void pay(BigDecimal amount) {
+            boolean degraded = served.incrementAndGet() > degradeAfter;
+            capacity.acquireUninterruptibly();
+            try {
+                Thread.sleep(Duration.ofNanos((degraded ? latencyMicros * 10 : latencyMicros) * 1000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                capacity.release();
+            }
+            if (degraded && ThreadLocalRandom.current().nextInt(100) < 20) {
+                throw new IllegalStateException("provider error");
+            }
+        }
+    }
+
+    @Test
+    void adaptiveRoutingBeatsStaticRoutingWhenAGatewayDegrades() throws InterruptedException {
+        int payments = Integer.getInteger("routing.benchmark.payments");
+        Result pinned = run("static", payments, () -> PaymentType.STRIPE);
+        AtomicLong turn = new AtomicLong();
+        PaymentType[] order = {PaymentType.STRIPE, PaymentType.PAYPAL, PaymentType.BANK};
+        Result roundRobin = run("round-robin", payments, () -> order[(int) (turn.getAndIncrement() % 3)]);
+        Result auto = run("auto", payments, null);
+
+        System.out.println(pinned);
+        System.out.println(roundRobin);
+        System.out.println(auto);
+
+        assertThat(auto.p99Millis()).isLessThan(pinned.p99Millis());
+        assertThat(auto.p99Millis()).isLessThan(roundRobin.p99Millis());
+        assertThat(auto.failed()).isLessThan(pinned.failed());
+        assertThat(auto.throughput()).isGreaterThan(pinned.throughput());
+    }
+
+    /**
+     * @param route the gateway each payment uses, or {@code null} to let the router decide
+     */
+    private Result run(String strategy, int payments, Supplier<PaymentType> route) throws InterruptedException {
+        Map<PaymentType, SimulatedGateway> gateways = new EnumMap<>(PaymentType.class);
+        gateways.put(PaymentType.STRIPE, new SimulatedGateway(16, 2_000, payments / 4));
+        gateways.put(PaymentType.PAYPAL, new SimulatedGateway(16, 3_000, Integer.MAX_VALUE));
+        gateways.put(PaymentType.BANK, new SimulatedGateway(16, 4_000, Integer.MAX_VALUE));
+        PaymentRouter router = new PaymentRouter(properties(Map.of()), type -> true, System::nanoTime);
+        BiConsumer<PaymentType, BigDecimal> payment = (type, amount) -> gateways.get(type).pay(amount);
+
+        long[] latencies = new long[payments];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                clients.execute(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < payments) {
+                        long begin = System.nanoTime();
+                        try {
+                            PaymentType fixed = route == null ? null : route.get();
+                            if (fixed == null) {
+                                router.pay(AMOUNT, payment);
+                            } else {
+                                payment.accept(fixed, AMOUNT);
+                            }
+                        } catch (IllegalStateException e) {
+                            failed.incrementAndGet();
+                        }
+                        latencies[i] = System.nanoTime() - begin;
+                    }
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(latencies);
+        return new Result(strategy, payments / seconds, latencies[payments / 2] / 1e6,
+                latencies[payments * 99 / 100] / 1e6, failed.get());
+    }
+
+    private static PaymentRoutingProperties properties(Map<PaymentType, PaymentRoutingProperties.Cost> costs) {
+        return new PaymentRoutingProperties(Set.of(PaymentType.STRIPE, PaymentType.PAYPAL, PaymentType.BANK),
+                0.2, Duration.ofMillis(5), Duration.ofSeconds(10), 2000, 100, costs);
+    }
+}
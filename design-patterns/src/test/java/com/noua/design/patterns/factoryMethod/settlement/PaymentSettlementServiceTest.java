@@ -0,0 +1,123 @@
+package com.noua.design.patterns.factoryMethod.settlement;
+
+import com.noua.design.patterns.factoryMethod.config.PaymentResilienceProperties;
+import com.noua.design.patterns.factoryMethod.config.PaymentSettlementProperties;
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import com.noua.design.patterns.factoryMethod.factory.PaymentFactoryFor;
+import com.noua.design.patterns.factoryMethod.factory.PaymentGatewayFactory;
+import com.noua.design.patterns.factoryMethod.factory.PaymentGatewayFactoryProvider;
+import com.noua.design.patterns.factoryMethod.ledger.PaymentLedger;
+import com.noua.design.patterns.factoryMethod.resilience.GatewayGuard;
+import com.noua.design.patterns.factoryMethod.service.PaymentGateway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentSettlementServiceTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    private static final AtomicBoolean BROKEN = new AtomicBoolean();
+    private static final AtomicInteger PAID = new AtomicInteger();
+    private static final PaymentGateway GATEWAY = amount -> PAID.incrementAndGet();
+
+    @PaymentFactoryFor(PaymentType.BANK)
+    private static final class BankFactory implements PaymentGatewayFactory {
+        @Override
+        public PaymentGateway createPaymentGateway() {
+            if (BROKEN.get()) {
+                throw new IllegalStateException("gateway misconfigured");
+            }
+            return GATEWAY;
+        }
+    }
+
+    @PaymentFactoryFor(PaymentType.STRIPE)
+    private static final class StripeFactory implements PaymentGatewayFactory {
+        @Override
+        public PaymentGateway createPaymentGateway() {
+            return GATEWAY;
+        }
+    }
+
+    @PaymentFactoryFor(PaymentType.PAYPAL)
+    private static final class PaypalFactory implements PaymentGatewayFactory {
+        @Override
+        public PaymentGateway createPaymentGateway() {
+            return GATEWAY;
+        }
+    }
+
+    @PaymentFactoryFor(PaymentType.CRYPTO)
+    private static final class CryptoFactory implements PaymentGatewayFactory {
+        @Override
+        public PaymentGateway createPaymentGateway() {
+            return GATEWAY;
+        }
+    }
+
+    @TempDir
+    Path directory;
+
+    private final GatewayGuard guard = new GatewayGuard(new PaymentResilienceProperties(null, null));
+    private PaymentSettlementService service;
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+        guard.shutdown();
+        BROKEN.set(false);
+        PAID.set(0);
+    }
+
+    @Test
+    void aFailingFlushFailsItsBatchAndTheLaneKeepsSettling() {
+        service = service(Duration.ofMillis(5));
+        BROKEN.set(true);
+        assertThatThrownBy(() -> service.settle(PaymentType.BANK, AMOUNT))
+                .isInstanceOf(PaymentSettlementService.PaymentFailedException.class)
+                .hasMessageContaining("gateway misconfigured");
+
+        BROKEN.set(false);
+        service.settle(PaymentType.BANK, AMOUNT);
+        assertThat(PAID.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shutdownFailsEverythingNotYetSent() throws Exception {
+        service = service(Duration.ofSeconds(30));
+        List<CompletableFuture<Void>> callers = List.of(
+                CompletableFuture.runAsync(() -> service.settle(PaymentType.BANK, AMOUNT)),
+                CompletableFuture.runAsync(() -> service.settle(PaymentType.BANK, AMOUNT)),
+                CompletableFuture.runAsync(() -> service.settle(PaymentType.BANK, AMOUNT)));
+        Thread.sleep(200);
+
+        service.shutdown();
+
+        for (CompletableFuture<Void> caller : callers) {
+            assertThatThrownBy(caller::join)
+                    .hasCauseInstanceOf(PaymentSettlementService.SettlementStoppedException.class);
+        }
+        assertThat(PAID.get()).isEqualTo(0);
+    }
+
+    private PaymentSettlementService service(Duration linger) {
+        PaymentGatewayFactoryProvider provider = new PaymentGatewayFactoryProvider(List.of(
+                new BankFactory(), new StripeFactory(), new PaypalFactory(), new CryptoFactory()));
+        return new PaymentSettlementService(provider,
+                new PaymentSettlementProperties(Set.of(PaymentType.BANK), 10, linger, 100, Duration.ofSeconds(10)),
+                guard, new PaymentLedger(directory, 1 << 20, 2, Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,221 @@
+package com.noua.design.patterns.factoryMethod.split;
+
+import com.noua.design.patterns.factoryMethod.config.PaymentResilienceProperties;
+import com.noua.design.patterns.factoryMethod.config.PaymentSettlementProperties;
+import com.noua.design.patterns.factoryMethod.config.PaymentSplitProperties;
+import com.noua.design.patterns.factoryMethod.domain.LegStatus;
+import com.noua.design.patterns.factoryMethod.domain.PaymentType;
+import com.noua.design.patterns.factoryMethod.dto.LedgerTotals;
+import com.noua.design.patterns.factoryMethod.dto.SplitLeg;
+import com.noua.design.patterns.factoryMethod.dto.SplitLegResult;
+import com.noua.design.patterns.factoryMethod.dto.SplitPaymentResult;
+import com.noua.design.patterns.factoryMethod.factory.PaymentFactoryFor;
+import com.noua.design.patterns.factoryMethod.factory.PaymentGatewayFactory;
+import com.noua.design.patterns.factoryMethod.factory.PaymentGatewayFactoryProvider;
+import com.noua.design.patterns.factoryMethod.ledger.PaymentLedger;
+import com.noua.design.patterns.factoryMethod.resilience.GatewayGuard;
+import com.noua.design.patterns.factoryMethod.service.PaymentGateway;
+import com.noua.design.patterns.factoryMethod.service.RefundablePaymentGateway;
+import com.noua.design.patterns.factoryMethod.settlement.PaymentSettlementService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SplitPaymentServiceTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    /**
+     * Refundable stand-in for a provider with adjustable latency and failures.
+     */
+    private static final class StubGateway implements RefundablePaymentGateway {
+        private volatile Duration latency = Duration.ZERO;
+        private volatile boolean declines;
+        private volatile boolean refundFails;
+        private final AtomicInteger charges = new AtomicInteger();
+        private final AtomicInteger refunds = new AtomicInteger();
+
+        @Override
+        public void pay(BigDecimal amount) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("provider call interrupted");
+            }
+            if (declines) {
+                throw new IllegalStateException("provider declined");
+            }
+            charges.incrementAndGet();
+        }
+
+        @Override
+        public void refund(BigDecimal amount) {
+            if (refundFails) {
+                throw new IllegalStateException("refund rejected");
+            }
+            refunds.incrementAndGet();
+        }
+    }
+
+    @PaymentFactoryFor(PaymentType.BANK)
+    private record BankFactory(PaymentGateway createPaymentGateway) implements PaymentGatewayFactory {}
+
+    @PaymentFactoryFor(PaymentType.STRIPE)
+    private record StripeFactory(PaymentGateway createPaymentGateway) implements PaymentGatewayFactory {}
+
+    @PaymentFactoryFor(PaymentType.PAYPAL)
+    private record PaypalFactory(PaymentGateway createPaymentGateway) implements PaymentGatewayFactory {}
+
+    @PaymentFactoryFor(PaymentType.CRYPTO)
+    private record CryptoFactory(PaymentGateway createPaymentGateway) implements PaymentGatewayFactory {}
+
+    @TempDir
+    Path directory;
+
+    private final StubGateway bank = new StubGateway();
+    private final StubGateway stripe = new StubGateway();
+    private final StubGateway paypal = new StubGateway();
+    private final StubGateway crypto = new StubGateway();
+    private final GatewayGuard guard = new GatewayGuard(new PaymentResilienceProperties(null, null));
+    private PaymentSettlementService settlement;
+    private PaymentLedger ledger;
+
+    @AfterEach
+    void shutdown() {
+        if (settlement != null) {
+            settlement.shutdown();
+        }
+        guard.shutdown();
+    }
+
+    @Test
+    void latencyIsThatOfTheSlowestLeg() {
+        stripe.latency = Duration.ofMillis(300);
+        paypal.latency = Duration.ofMillis(300);
+        crypto.latency = Duration.ofMillis(300);
+
+        SplitPaymentResult result = service(Duration.ofSeconds(5), Duration.ofMillis(5))
+                .pay(legs(PaymentType.STRIPE, PaymentType.PAYPAL, PaymentType.CRYPTO));
+
+        assertThat(result.settled()).isTrue();
+        assertThat(result.deadlineExceeded()).isFalse();
+        assertThat(result.elapsedMillis()).isBetween(300.0, 600.0);
+        assertThat(result.total()).isEqualTo(new BigDecimal("30.00"));
+    }
+
+    @Test
+    void deadlineInterruptsSlowLegsAndCompensatesSettledAndTimedOutOnes() {
+        paypal.latency = Duration.ofSeconds(5);
+
+        SplitPaymentResult result = service(Duration.ofMillis(200), Duration.ofMillis(5))
+                .pay(legs(PaymentType.STRIPE, PaymentType.PAYPAL));
+
+        assertThat(result.settled()).isFalse();
+        assertThat(result.deadlineExceeded()).isTrue();
+        assertThat(result.elapsedMillis()).isLessThan(1500.0);
+        assertThat(statuses(result)).containsExactly(LegStatus.COMPENSATED, LegStatus.COMPENSATED);
+        assertThat(stripe.refunds.get()).isEqualTo(1);
+        assertThat(paypal.refunds.get()).isEqualTo(1);
+        // the settled leg's charge and refund net out; the timed-out one stays a failed charge only
+        assertThat(totals(PaymentType.STRIPE).settledCount()).isEqualTo(2);
+        assertThat(totals(PaymentType.STRIPE).settledAmount().signum()).isEqualTo(0);
+        assertThat(totals(PaymentType.PAYPAL).settledCount()).isEqualTo(0);
+        assertThat(totals(PaymentType.PAYPAL).failedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void batchedLegInFlightAtTheDeadlineIsWaitedForBeforeItIsRefunded() {
+        bank.latency = Duration.ofMillis(500);
+        stripe.declines = true;
+
+        SplitPaymentResult result = service(Duration.ofMillis(200), Duration.ofMillis(5))
+                .pay(legs(PaymentType.BANK, PaymentType.STRIPE));
+
+        assertThat(result.deadlineExceeded()).isTrue();
+        assertThat(result.elapsedMillis()).isGreaterThan(450.0);
+        assertThat(result.legs().getFirst().status()).isEqualTo(LegStatus.COMPENSATED);
+        assertThat(bank.charges.get()).isEqualTo(1);
+        assertThat(bank.refunds.get()).isEqualTo(1);
+        assertThat(totals(PaymentType.BANK).settledCount()).isEqualTo(2);
+        assertThat(totals(PaymentType.BANK).settledAmount().signum()).isEqualTo(0);
+    }
+
+    @Test
+    void batchedLegStillWaitingForItsBatchAtTheDeadlineIsWithdrawn() {
+        SplitPaymentResult result = service(Duration.ofMillis(200), Duration.ofSeconds(2))
+                .pay(legs(PaymentType.BANK, PaymentType.STRIPE));
+
+        assertThat(result.deadlineExceeded()).isTrue();
+        assertThat(result.elapsedMillis()).isLessThan(1500.0);
+        assertThat(statuses(result)).containsExactly(LegStatus.FAILED, LegStatus.COMPENSATED);
+        assertThat(bank.charges.get()).isEqualTo(0);
+        assertThat(bank.refunds.get()).isEqualTo(0);
+    }
+
+    @Test
+    void failedCompensationIsReported() {
+        paypal.declines = true;
+        stripe.refundFails = true;
+
+        SplitPaymentResult result = service(Duration.ofSeconds(5), Duration.ofMillis(5))
+                .pay(legs(PaymentType.STRIPE, PaymentType.PAYPAL));
+
+        assertThat(result.settled()).isFalse();
+        assertThat(result.deadlineExceeded()).isFalse();
+        SplitLegResult stripeLeg = result.legs().getFirst();
+        assertThat(stripeLeg.status()).isEqualTo(LegStatus.COMPENSATION_FAILED);
+        assertThat(stripeLeg.error()).isEqualTo("refund rejected");
+        assertThat(result.legs().get(1).status()).isEqualTo(LegStatus.FAILED);
+        assertThat(totals(PaymentType.STRIPE).settledAmount()).isEqualTo(AMOUNT);
+    }
+
+    @Test
+    void aLegTheLedgerCannotRecordRejectsTheWholePaymentBeforeAnyCharge() {
+        SplitPaymentService service = service(Duration.ofSeconds(5), Duration.ofMillis(5));
+
+        for (String amount : new String[]{"0.004", "1e30"}) {
+            assertThatThrownBy(() -> service.pay(List.of(new SplitLeg(PaymentType.STRIPE, AMOUNT),
+                    new SplitLeg(PaymentType.PAYPAL, new BigDecimal(amount)))))
+                    .isInstanceOf(ResponseStatusException.class);
+        }
+        assertThat(stripe.charges.get()).isEqualTo(0);
+        assertThat(paypal.charges.get()).isEqualTo(0);
+        assertThat(totals(PaymentType.STRIPE).settledCount()).isEqualTo(0);
+        assertThat(ledger.lostCount()).isEqualTo(0L);
+    }
+
+    private SplitPaymentService service(Duration deadline, Duration linger) {
+        PaymentGatewayFactoryProvider provider = new PaymentGatewayFactoryProvider(List.of(
+                new BankFactory(bank), new StripeFactory(stripe), new PaypalFactory(paypal), new CryptoFactory(crypto)));
+        ledger = new PaymentLedger(directory, 1 << 20, 2, Duration.ofSeconds(1));
+        settlement = new PaymentSettlementService(provider,
+                new PaymentSettlementProperties(Set.of(PaymentType.BANK), 10, linger, 100, Duration.ofSeconds(10)),
+                guard, ledger);
+        return new SplitPaymentService(settlement, provider, guard, ledger, new PaymentSplitProperties(deadline, 8));
+    }
+
+    private static List<SplitLeg> legs(PaymentType... types) {
+        return Arrays.stream(types).map(type -> new SplitLeg(type, AMOUNT)).toList();
+    }
+
+    private static List<LegStatus> statuses(SplitPaymentResult result) {
+        return result.legs().stream().map(SplitLegResult::status).toList();
+    }
+
+    private LedgerTotals totals(PaymentType type) {
+        return ledger.totals().stream().filter(totals -> totals.type() == type).findFirst().orElseThrow();
+    }
+}
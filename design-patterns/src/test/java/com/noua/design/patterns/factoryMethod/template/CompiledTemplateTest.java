@@ -0,0 +1,48 @@
+package com.noua.design.patterns.factoryMethod.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledTemplateTest {
+
+    @Test
+    void placeholdersAreReplacedByTheirValues() {
+        CompiledTemplate template = CompiledTemplate.compile("Hi {{name}}, welcome to {{ app }}! Bye {{name}}.");
+
+        assertThat(render(template, Map.of("name", "Ada", "app", "Shop"))).isEqualTo("Hi Ada, welcome to Shop! Bye Ada.");
+    }
+
+    @Test
+    void unclosedAndEmptyPlaceholdersStayLiteral() {
+        assertThat(render(CompiledTemplate.compile("{{}} costs {{amount}} {{open"), Map.of("amount", "5")))
+                .isEqualTo("{{}} costs 5 {{open");
+        assertThat(render(CompiledTemplate.compile("no placeholders"), Map.of())).isEqualTo("no placeholders");
+    }
+
+    @Test
+    void renderingAppendsToWhatIsAlreadyInTheBuffer() {
+        StringBuilder out = new StringBuilder("Subject: ");
+        CompiledTemplate.compile("{{a}}{{b}}").renderTo(out, Map.of("a", "1", "b", "2"));
+
+        assertThat(out.toString()).isEqualTo("Subject: 12");
+    }
+
+    @Test
+    void aMissingVariableIsReported() {
+        CompiledTemplate template = CompiledTemplate.compile("Hi {{name}}");
+
+        assertThatThrownBy(() -> render(template, Map.of()))
+                .isInstanceOf(MissingTemplateVariableException.class)
+                .hasMessageContaining("'name'");
+    }
+
+    private static String render(CompiledTemplate template, Map<String, String> values) {
+        StringBuilder out = new StringBuilder();
+        template.renderTo(out, values);
+        return out.toString();
+    }
+}
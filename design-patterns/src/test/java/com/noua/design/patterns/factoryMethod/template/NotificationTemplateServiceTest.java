@@ -0,0 +1,93 @@
+package com.noua.design.patterns.factoryMethod.template;
+
+import com.noua.design.patterns.factoryMethod.config.NotificationTemplateProperties;
+import com.noua.design.patterns.factoryMethod.domain.NotificationType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NotificationTemplateServiceTest {
+
+    private static final Map<String, String> VARIABLES = Map.of("name", "Ada", "app", "Shop");
+
+    @Test
+    void onlyEmailsCarryASubjectLine() {
+        NotificationTemplateService service = service(Map.of("welcome", new NotificationTemplateProperties.Template(
+                "Welcome to {{app}}", "Hi {{name}}", null)));
+
+        assertThat(service.render(NotificationType.EMAIL, "welcome", VARIABLES))
+                .isEqualTo("Subject: Welcome to Shop\n\nHi Ada");
+        assertThat(service.render(NotificationType.SMS, "welcome", VARIABLES)).isEqualTo("Hi Ada");
+    }
+
+    @Test
+    void aChannelVariantKeepsTheTemplateSubjectUnlessItSetsOne() {
+        NotificationTemplateService service = service(Map.of(
+                "inherits", new NotificationTemplateProperties.Template("Welcome to {{app}}", "Hi {{name}}", Map.of(
+                        NotificationType.EMAIL, new NotificationTemplateProperties.Variant(null, "Dear {{name}}"))),
+                "overrides", new NotificationTemplateProperties.Template("Welcome to {{app}}", "Hi {{name}}", Map.of(
+                        NotificationType.EMAIL, new NotificationTemplateProperties.Variant("Hello from {{app}}", null))),
+                "disables", new NotificationTemplateProperties.Template("Welcome to {{app}}", "Hi {{name}}", Map.of(
+                        NotificationType.EMAIL, new NotificationTemplateProperties.Variant("", null)))));
+
+        assertThat(service.render(NotificationType.EMAIL, "inherits", VARIABLES))
+                .isEqualTo("Subject: Welcome to Shop\n\nDear Ada");
+        assertThat(service.render(NotificationType.EMAIL, "overrides", VARIABLES))
+                .isEqualTo("Subject: Hello from Shop\n\nHi Ada");
+        assertThat(service.render(NotificationType.EMAIL, "disables", VARIABLES)).isEqualTo("Hi Ada");
+    }
+
+    @Test
+    void variablesCannotBreakOutOfTheSubjectLine() {
+        NotificationTemplateService service = service(Map.of("welcome", new NotificationTemplateProperties.Template(
+                "Welcome {{name}}", "Hi", null)));
+
+        assertThat(service.render(NotificationType.EMAIL, "welcome", Map.of("name", "Ada\r\nBcc: x@example.com")))
+                .isEqualTo("Subject: Welcome Ada  Bcc: x@example.com\n\nHi");
+    }
+
+    @Test
+    void messagesOverTheChannelLimitAreTruncatedWithAnEllipsis() {
+        NotificationTemplateService service = service(Map.of("long", new NotificationTemplateProperties.Template(
+                null, "{{text}}", null)));
+
+        assertThat(service.render(NotificationType.SMS, "long", Map.of("text", "a".repeat(200))))
+                .isEqualTo("a".repeat(7) + "...");
+        assertThat(service.render(NotificationType.SMS, "long", Map.of("text", "a".repeat(10))))
+                .isEqualTo("a".repeat(10));
+        // a surrogate pair at the cut is dropped whole instead of being split
+        assertThat(service.render(NotificationType.SMS, "long", Map.of("text", "a".repeat(6) + "😀xxxx")))
+                .isEqualTo("a".repeat(6) + "...");
+        assertThat(service.render(NotificationType.EMAIL, "long", Map.of("text", "a".repeat(200))))
+                .isEqualTo("a".repeat(200));
+    }
+
+    @Test
+    void unknownTemplatesAndMissingVariablesAreRejected() {
+        NotificationTemplateService service = service(Map.of("welcome", new NotificationTemplateProperties.Template(
+                null, "Hi {{name}}", null)));
+
+        assertThat(service.exists("welcome")).isTrue();
+        assertThat(service.exists("other")).isFalse();
+        assertThatThrownBy(() -> service.render(NotificationType.SMS, "other", VARIABLES))
+                .isInstanceOf(NotificationTemplateService.TemplateNotFoundException.class);
+        assertThatThrownBy(() -> service.render(NotificationType.SMS, "welcome", Map.of()))
+                .isInstanceOf(MissingTemplateVariableException.class);
+    }
+
+    @Test
+    void aTemplateWithoutABodyForSomeChannelFailsAtStartup() {
+        assertThatThrownBy(() -> service(Map.of("empty", new NotificationTemplateProperties.Template("Subject", null,
+                Map.of(NotificationType.EMAIL, new NotificationTemplateProperties.Variant(null, "Body"))))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("no body for IN_APP");
+    }
+
+    private static NotificationTemplateService service(Map<String, NotificationTemplateProperties.Template> definitions) {
+        return new NotificationTemplateService(new TemplateCompiler(),
+                new NotificationTemplateProperties(2, 1024, Map.of(NotificationType.SMS, 10), definitions));
+    }
+}
@@ -0,0 +1,199 @@
+package com.noua.design.patterns.prototype.service;
+
+import com.noua.design.patterns.prototype.config.AlertDedupProperties;
+import com.noua.design.patterns.prototype.config.AlertPrototypeProperties;
+import com.noua.design.patterns.prototype.config.AlertStoreProperties;
+import com.noua.design.patterns.prototype.config.AlertStreamProperties;
+import com.noua.design.patterns.prototype.domain.Alert;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import com.noua.design.patterns.prototype.store.AlertStore;
+import com.noua.design.patterns.prototype.stream.AlertBroadcaster;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.databind.ObjectMapper;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bytes allocated per created alert, registry prototypes against the former builder copy plus
+ * setters; dedup and the store are off and nobody subscribes to the stream, so only creation is
+ * measured. Skipped unless an iteration count is given:
+ * <pre>
+ * ./mvnw test -Dtest=AlertAllocationBenchmark -Dalert.benchmark.iterations=5000000
+ * </pre>
+ * Run it once more with {@code -DargLine=-XX:-DoEscapeAnalysis} to see the cost where the JIT does
+ * not scalar-replace the throwaway builder (interpreter, C1, or calls it does not inline).
+ */
+@EnabledIfSystemProperty(named = "alert.benchmark.iterations", matches = "\\d+")
+class AlertAllocationBenchmark {
+
+    private static final String[] TITLES = {"Disk almost full", "Payment failed", "Deploy finished"};
+
+    private final Object[] sink = new Object[1024];
+
+    @Test
+    void bytesPerCreatedAlert() {
+        int iterations = Integer.getInteger("alert.benchmark.iterations");
+        AlertService service = new AlertService(new AlertPrototypeRegistry(new AlertPrototypeProperties(
+                Map.of("ops", new AlertPrototypeProperties.Definition(true, AlertPriority.HIGH)), null,
+                Duration.ofSeconds(5)), new ObjectMapper()),
+                new AlertCoalescer(new AlertDedupProperties(false, Duration.ofSeconds(60), 6, 100_000)),
+                new AlertStore(new AlertStoreProperties(false, DataSize.ofMegabytes(512), 2_000_000, 1000)),
+                new AlertBroadcaster(new AlertStreamProperties(256, 10_000, Duration.ofSeconds(15), Duration.ofMinutes(30))));
+        LegacyAlert legacyPrototype = LegacyAlert.builder().realTime(true).priority(AlertPriority.MEDIUM).build();
+
+        IntFunction<Object> legacy = i -> {
+            LegacyAlert alert = legacyPrototype.copy();
+            alert.setId(i);
+            alert.setOccurrences(1);
+            alert.setTitle(TITLES[i % TITLES.length]);
+            alert.setMessage("message");
+            alert.setRecipient("ops@example.com");
+            alert.setPriority(AlertPriority.CRITICAL);
+            return alert;
+        };
+        IntFunction<Object> registry = i -> service.createAlert("ops", TITLES[i % TITLES.length], "message",
+                "ops@example.com");
+        IntFunction<Object> critical = i -> service.createCriticalAlert(TITLES[i % TITLES.length], "message",
+                "ops@example.com");
+
+        double legacyBytes = measure("builder copy + setters", legacy, iterations);
+        double registryBytes = measure("registry prototype", registry, iterations);
+        double criticalBytes = measure("registry critical", critical, iterations);
+
+        assertThat(registryBytes).isLessThanOrEqualTo(legacyBytes);
+        assertThat(criticalBytes).isLessThanOrEqualTo(legacyBytes);
+    }
+
+    private double measure(String name, IntFunction<Object> create, int iterations) {
+        run(create, iterations); // warm-up, lets the JIT settle
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        run(create, iterations);
+        long elapsed = System.nanoTime() - start;
+        double bytes = (double) (threads.getThreadAllocatedBytes(thread) - before) / iterations;
+        System.out.printf("%-24s %6.1f bytes/alert %6.1f ns/alert%n", name, bytes, (double) elapsed / iterations);
+        return bytes;
+    }
+
+    private void run(IntFunction<Object> create, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            sink[i & (sink.length - 1)] = create.apply(i);
+        }
+    }
+
+    /**
+     * The alert as it was before the registry, with today's fields: mutable, copied through a
+     * builder like the one Lombok generates.
+     */
+    private static final class LegacyAlert {
+        private long id;
+        private int occurrences;
+        private String title;
+        private String message;
+        private String recipient;
+        private boolean realTime;
+        private AlertPriority priority;
+
+        private LegacyAlert(long id, int occurrences, String title, String message, String recipient, boolean realTime,
+                            AlertPriority priority) {
+            this.id = id;
+            this.occurrences = occurrences;
+            this.title = title;
+            this.message = message;
+            this.recipient = recipient;
+            this.realTime = realTime;
+            this.priority = priority;
+        }
+
+        static Builder builder() {
+            return new Builder();
+        }
+
+        LegacyAlert copy() {
+            return builder().id(id).occurrences(occurrences).title(title).message(message).recipient(recipient).realTime(realTime).priority(priority)
+                    .build();
+        }
+
+        void setId(long id) {
+            this.id = id;
+        }
+
+        void setOccurrences(int occurrences) {
+            this.occurrences = occurrences;
+        }
+
+        void setTitle(String title) {
+            this.title = title;
+        }
+
+        void setMessage(String message) {
+            this.message = message;
+        }
+
+        void setRecipient(String recipient) {
+            this.recipient = recipient;
+        }
+
+        void setPriority(AlertPriority priority) {
+            this.priority = priority;
+        }
+
+        private static final class Builder {
+            private long id;
+            private int occurrences;
+            private String title;
+            private String message;
+            private String recipient;
+            private boolean realTime;
+            private AlertPriority priority;
+
+            Builder id(long id) {
+                this.id = id;
+                return this;
+            }
+
+            Builder occurrences(int occurrences) {
+                this.occurrences = occurrences;
+                return this;
+            }
+
+            Builder title(String title) {
+                this.title = title;
+                return this;
+            }
+
+            Builder message(String message) {
+                this.message = message;
+                return this;
+            }
+
+            Builder recipient(String recipient) {
+                this.recipient = recipient;
+                return this;
+            }
+
+            Builder realTime(boolean realTime) {
+                this.realTime = realTime;
+                return this;
+            }
+
+            Builder priority(AlertPriority priority) {
+                this.priority = priority;
+                return this;
+            }
+
+            LegacyAlert build() {
+                return new LegacyAlert(id, occurrences, title, message, recipient, realTime, priority);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.noua.design.patterns.prototype.service;
+
+import com.noua.design.patterns.prototype.config.AlertDedupProperties;
+import com.noua.design.patterns.prototype.domain.Alert;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AlertCoalescerTest {
+
+    private static final Alert PROTOTYPE = Alert.builder().realTime(true).priority(AlertPriority.MEDIUM).build();
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final AtomicLong ids = new AtomicLong();
+
+    // 60s window in six 10s buckets
+    private final AlertCoalescer coalescer = coalescer(100);
+
+    @Test
+    void repeatsWithinTheWindowOfTheLastOccurrenceStayOneAlert() {
+        Alert first = alert("Disk almost full");
+        now.addAndGet(50_000);
+        assertThat(alert("Disk almost full").getId()).isEqualTo(first.getId());
+        now.addAndGet(50_000);
+        Alert third = alert("Disk almost full");
+
+        assertThat(third.getId()).isEqualTo(first.getId());
+        assertThat(third.getOccurrences()).isEqualTo(3);
+        assertThat(third.createdAtMillis()).isEqualTo(first.createdAtMillis());
+    }
+
+    @Test
+    void aFullWindowWithoutRepeatStartsANewAlert() {
+        Alert first = alert("Disk almost full");
+        now.addAndGet(59_999);
+        assertThat(alert("Disk almost full").getId()).isEqualTo(first.getId());
+        now.addAndGet(60_000);
+        Alert next = alert("Disk almost full");
+
+        assertThat(next.getId()).isNotEqualTo(first.getId());
+        assertThat(next.getOccurrences()).isEqualTo(1);
+    }
+
+    @Test
+    void repeatsAcrossABucketBoundaryAreCoalesced() {
+        now.set(9_999);
+        Alert first = alert("Payment failed");
+        now.set(10_000);
+        Alert repeat = alert("Payment failed");
+
+        assertThat(repeat.getId()).isEqualTo(first.getId());
+        assertThat(repeat.getOccurrences()).isEqualTo(2);
+        assertThat(coalescer.tracked()).isEqualTo(1);
+    }
+
+    @Test
+    void alertsBeyondMaxKeysAreNotTracked() {
+        AlertCoalescer capped = coalescer(2);
+        capped.coalesce(PROTOTYPE, "first", "message", "ops@example.com", AlertPriority.HIGH, ids::incrementAndGet);
+        capped.coalesce(PROTOTYPE, "second", "message", "ops@example.com", AlertPriority.HIGH, ids::incrementAndGet);
+        Alert untracked = capped.coalesce(PROTOTYPE, "third", "message", "ops@example.com", AlertPriority.HIGH,
+                ids::incrementAndGet);
+        Alert again = capped.coalesce(PROTOTYPE, "third", "message", "ops@example.com", AlertPriority.HIGH,
+                ids::incrementAndGet);
+
+        assertThat(again.getId()).isNotEqualTo(untracked.getId());
+        assertThat(capped.tracked()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentIdenticalAlertsYieldOneId() throws Exception {
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        Callable<Alert> create = () -> {
+            start.await();
+            return alert("Deploy finished");
+        };
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<Alert>> futures = IntStream.range(0, threads).mapToObj(i -> executor.submit(create)).toList();
+            start.countDown();
+            Set<Long> distinct = new HashSet<>();
+            int maxOccurrences = 0;
+            for (Future<Alert> future : futures) {
+                Alert alert = future.get();
+                distinct.add(alert.getId());
+                maxOccurrences = Math.max(maxOccurrences, alert.getOccurrences());
+            }
+            assertThat(distinct.size()).isEqualTo(1);
+            assertThat(maxOccurrences).isEqualTo(threads);
+        }
+    }
+
+    private Alert alert(String title) {
+        return coalescer.coalesce(PROTOTYPE, title, "message", "ops@example.com", AlertPriority.HIGH,
+                ids::incrementAndGet);
+    }
+
+    private AlertCoalescer coalescer(int maxKeys) {
+        return new AlertCoalescer(new AlertDedupProperties(true, Duration.ofSeconds(60), 6, maxKeys), now::get);
+    }
+}
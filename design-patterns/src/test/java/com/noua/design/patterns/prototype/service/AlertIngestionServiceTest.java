@@ -0,0 +1,124 @@
+package com.noua.design.patterns.prototype.service;
+
+import com.noua.design.patterns.prototype.config.AlertDedupProperties;
+import com.noua.design.patterns.prototype.config.AlertIngestProperties;
+import com.noua.design.patterns.prototype.config.AlertPrototypeProperties;
+import com.noua.design.patterns.prototype.config.AlertStoreProperties;
+import com.noua.design.patterns.prototype.config.AlertStreamProperties;
+import com.noua.design.patterns.prototype.controller.AlertController;
+import com.noua.design.patterns.prototype.domain.Alert;
+import com.noua.design.patterns.prototype.dto.AlertIngestResult;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import com.noua.design.patterns.prototype.store.AlertStore;
+import com.noua.design.patterns.prototype.stream.AlertBroadcaster;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AlertIngestionServiceTest {
+
+    private static final String[] RECORDS = {
+            "{\"title\":\"Disk almost full\",\"recipient\":\"ops@example.com\"}",
+            "{\"title\":\"Payment failed\"}",
+            "42",
+            "{\"message\":\"no title\"}",
+            "{\"title\":5}",
+            "{\"title\":\"Disk almost full\",\"recipient\":\"ops@example.com\"}",
+            "{\"title\":\"Deploy finished\",\"message\":\"v2\"}"
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AlertPrototypeRegistry registry = new AlertPrototypeRegistry(new AlertPrototypeProperties(
+            Map.of("ops", new AlertPrototypeProperties.Definition(true, AlertPriority.HIGH)), null,
+            Duration.ofSeconds(5)), objectMapper);
+    private final AlertBroadcaster broadcaster = new AlertBroadcaster(new AlertStreamProperties(16, 10,
+            Duration.ofMinutes(1), Duration.ofMinutes(30)));
+
+    @AfterEach
+    void shutdown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void anArrayAndNdjsonOfTheSameRecordsAreCountedAlike() {
+        AlertIngestResult array = ingestion(store(), 2).ingest("ops", body("[" + String.join(",", RECORDS) + "]"));
+        AlertIngestResult ndjson = ingestion(store(), 2).ingest("ops", body(String.join("\n", RECORDS)));
+
+        for (AlertIngestResult result : new AlertIngestResult[]{array, ndjson}) {
+            assertThat(result.received()).isEqualTo(7L);
+            assertThat(result.invalid()).isEqualTo(3L);
+            assertThat(result.created()).isEqualTo(3L);
+            assertThat(result.coalesced()).isEqualTo(1L);
+            assertThat(result.failed()).isEqualTo(0L);
+            assertThat(result.error()).isNull();
+        }
+    }
+
+    @Test
+    void aFailingRecordDoesNotFailTheRestOfItsChunk() {
+        AlertStore store = new AlertStore(storeProperties()) {
+            @Override
+            public void save(Alert alert) {
+                if ("Payment failed".equals(alert.getTitle())) {
+                    throw new IllegalStateException("store unavailable");
+                }
+                super.save(alert);
+            }
+        };
+
+        AlertIngestResult result = ingestion(store, 100).ingest("ops", body(String.join("\n", RECORDS)));
+
+        assertThat(result.created()).isEqualTo(2L);
+        assertThat(result.coalesced()).isEqualTo(1L);
+        assertThat(result.failed()).isEqualTo(1L);
+        assertThat(result.error()).isEqualTo("store unavailable");
+        assertThat(store.stats().alerts()).isEqualTo(2);
+    }
+
+    @Test
+    void aMalformedBodyKeepsWhatWasReadAndAnswers400() {
+        AlertStore store = store();
+        AlertIngestionService ingestion = ingestion(store, 2);
+        AlertController controller = new AlertController(null, registry, store, ingestion, broadcaster);
+
+        ResponseEntity<AlertIngestResult> response = controller.ingestAlerts(
+                body("[" + RECORDS[0] + "," + RECORDS[1] + ",{\"title\":"), "ops");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        AlertIngestResult result = response.getBody();
+        assertThat(result.created()).isEqualTo(2L);
+        assertThat(result.failed()).isEqualTo(0L);
+        assertThat(result.error()).isNotNull();
+        assertThat(store.stats().alerts()).isEqualTo(2);
+    }
+
+    private AlertIngestionService ingestion(AlertStore store, int chunkSize) {
+        AlertService service = new AlertService(registry,
+                new AlertCoalescer(new AlertDedupProperties(true, Duration.ofSeconds(60), 6, 1000)), store,
+                broadcaster);
+        return new AlertIngestionService(service, registry, new AlertIngestProperties(chunkSize, 2), objectMapper);
+    }
+
+    private static AlertStore store() {
+        return new AlertStore(storeProperties());
+    }
+
+    private static AlertStoreProperties storeProperties() {
+        return new AlertStoreProperties(true, DataSize.ofMegabytes(64), 1000, 1000);
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,132 @@
+package com.noua.design.patterns.prototype.service;
+
+import com.noua.design.patterns.prototype.config.AlertPrototypeProperties;
+import com.noua.design.patterns.prototype.domain.Alert;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AlertPrototypeRegistryTest {
+
+    private static final Map<String, AlertPrototypeProperties.Definition> DEFINITIONS = Map.of(
+            "ops", new AlertPrototypeProperties.Definition(false, AlertPriority.HIGH));
+
+    @TempDir
+    Path directory;
+
+    private AlertPrototypeRegistry registry;
+
+    @AfterEach
+    void shutdown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void yamlDefinitionsAreLoadedAlongsideTheDefault() {
+        registry = new AlertPrototypeRegistry(new AlertPrototypeProperties(DEFINITIONS, null, Duration.ofSeconds(5)),
+                new ObjectMapper());
+
+        assertThat(registry.get("ops").isRealTime()).isFalse();
+        assertThat(registry.get("ops").getPriority()).isEqualTo(AlertPriority.HIGH);
+        assertThat(registry.get(AlertPrototypeRegistry.DEFAULT).isRealTime()).isTrue();
+        assertThat(registry.get(AlertPrototypeRegistry.DEFAULT).getPriority()).isEqualTo(AlertPriority.MEDIUM);
+        assertThatThrownBy(() -> registry.get("billing"))
+                .isInstanceOf(AlertPrototypeRegistry.UnknownPrototypeException.class);
+    }
+
+    @Test
+    void alertsDerivedFromAPrototypeLeaveItAndEachOtherUntouched() {
+        registry = new AlertPrototypeRegistry(new AlertPrototypeProperties(DEFINITIONS, null, Duration.ofSeconds(5)),
+                new ObjectMapper());
+        Alert prototype = registry.get("ops");
+
+        Alert first = prototype.with(1, 1_000, "Disk almost full", "95%", "ops@example.com", AlertPriority.CRITICAL);
+        Alert second = prototype.with(2, 2_000, "Payment failed", null, null, AlertPriority.LOW);
+
+        assertThat(first.getId()).isEqualTo(1L);
+        assertThat(first.getPriority()).isEqualTo(AlertPriority.CRITICAL);
+        assertThat(first.isRealTime()).isFalse();
+        assertThat(second.getTitle()).isEqualTo("Payment failed");
+        assertThat(second.getPriority()).isEqualTo(AlertPriority.LOW);
+        assertThat(second.isRealTime()).isFalse();
+        assertThat(prototype.getId()).isEqualTo(0L);
+        assertThat(prototype.getCreatedAt()).isNull();
+        assertThat(prototype.getTitle()).isNull();
+        assertThat(prototype.getPriority()).isEqualTo(AlertPriority.HIGH);
+        assertThat(registry.get("ops")).isSameAs(prototype);
+    }
+
+    @Test
+    void theFileOverridesYamlAndIsReloadedWhenItChanges() throws IOException, InterruptedException {
+        Path file = directory.resolve("prototypes.json");
+        write(file, "{\"ops\":{\"priority\":\"CRITICAL\"},\"billing\":{\"realTime\":false}}", 1_000);
+        registry = new AlertPrototypeRegistry(new AlertPrototypeProperties(DEFINITIONS, file, Duration.ofMillis(10)),
+                new ObjectMapper());
+        Map<String, Alert> before = registry.prototypes();
+
+        assertThat(registry.get("ops").getPriority()).isEqualTo(AlertPriority.CRITICAL);
+        assertThat(registry.get("ops").isRealTime()).isTrue();
+        assertThat(registry.get("billing").isRealTime()).isFalse();
+
+        write(file, "{\"billing\":{\"priority\":\"LOW\"}}", 2_000);
+        await(() -> registry.get("billing").getPriority() == AlertPriority.LOW);
+
+        // a removed file definition falls back to YAML; a reader of the old set still sees all of it
+        assertThat(registry.get("ops").getPriority()).isEqualTo(AlertPriority.HIGH);
+        assertThat(before.get("ops").getPriority()).isEqualTo(AlertPriority.CRITICAL);
+        assertThat(before.get("billing").getPriority()).isEqualTo(AlertPriority.MEDIUM);
+    }
+
+    @Test
+    void aFileThatFailsToParseKeepsThePreviousSet() throws IOException {
+        Path file = directory.resolve("prototypes.json");
+        write(file, "{\"billing\":{\"priority\":\"LOW\"}}", 1_000);
+        registry = new AlertPrototypeRegistry(new AlertPrototypeProperties(DEFINITIONS, file, Duration.ofHours(1)),
+                new ObjectMapper());
+        Map<String, Alert> loaded = registry.prototypes();
+
+        write(file, "{\"billing\":", 2_000);
+        assertThat(registry.reload()).isFalse();
+        assertThat(registry.prototypes()).isSameAs(loaded);
+
+        write(file, "{\"billing\":{\"priority\":\"HIGH\"}}", 3_000);
+        assertThat(registry.reload()).isTrue();
+        assertThat(registry.get("billing").getPriority()).isEqualTo(AlertPriority.HIGH);
+    }
+
+    @Test
+    void aMissingFileLeavesTheYamlDefinitions() {
+        registry = new AlertPrototypeRegistry(new AlertPrototypeProperties(DEFINITIONS,
+                directory.resolve("missing.json"), Duration.ofHours(1)), new ObjectMapper());
+
+        assertThat(registry.prototypes().keySet()).containsExactlyInAnyOrder("ops", AlertPrototypeRegistry.DEFAULT);
+    }
+
+    private static void write(Path file, String json, long modifiedMillis) throws IOException {
+        Files.writeString(file, json);
+        // set explicitly, so a change is seen even within the file system's timestamp granularity
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modifiedMillis));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() < deadline).isTrue();
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+}
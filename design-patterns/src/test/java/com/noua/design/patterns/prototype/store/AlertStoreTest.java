@@ -0,0 +1,126 @@
+package com.noua.design.patterns.prototype.store;
+
+import com.noua.design.patterns.prototype.config.AlertStoreProperties;
+import com.noua.design.patterns.prototype.domain.Alert;
+import com.noua.design.patterns.prototype.dto.AlertPage;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AlertStoreTest {
+
+    private static final Alert PROTOTYPE = Alert.builder().realTime(true).priority(AlertPriority.MEDIUM).build();
+
+    private final AlertStore store = store(1000);
+
+    @Test
+    void queriesReadTheSliceMatchingTheirFilters() {
+        store.save(alert(1, 1_000, "ops@example.com", AlertPriority.HIGH));
+        store.save(alert(2, 2_000, "dev@example.com", AlertPriority.HIGH));
+        store.save(alert(3, 3_000, "ops@example.com", AlertPriority.LOW));
+        store.save(alert(4, 4_000, null, AlertPriority.HIGH));
+
+        assertThat(ids(store.query(null, null, null, null, 0, 10))).containsExactly(4L, 3L, 2L, 1L);
+        assertThat(ids(store.query(AlertPriority.HIGH, null, null, null, 0, 10))).containsExactly(4L, 2L, 1L);
+        assertThat(ids(store.query(null, "ops@example.com", null, null, 0, 10))).containsExactly(3L, 1L);
+        assertThat(ids(store.query(AlertPriority.HIGH, "ops@example.com", null, null, 0, 10))).containsExactly(1L);
+        assertThat(ids(store.query(AlertPriority.CRITICAL, null, null, null, 0, 10))).isEmpty();
+    }
+
+    @Test
+    void cursorPagesWalkFromNewestToOldest() {
+        for (long id = 1; id <= 5; id++) {
+            store.save(alert(id, id * 1_000, "ops@example.com", AlertPriority.HIGH));
+        }
+
+        AlertPage first = store.query(null, null, null, null, 0, 2);
+        AlertPage second = store.query(null, null, null, null, first.nextCursor(), 2);
+        AlertPage last = store.query(null, null, null, null, second.nextCursor(), 2);
+
+        assertThat(ids(first)).containsExactly(5L, 4L);
+        assertThat(ids(second)).containsExactly(3L, 2L);
+        assertThat(ids(last)).containsExactly(1L);
+        assertThat(last.nextCursor()).isEqualTo(0L);
+    }
+
+    @Test
+    void timeRangesAreFromInclusiveToExclusive() {
+        for (long id = 1; id <= 5; id++) {
+            store.save(alert(id, id * 1_000, "ops@example.com", AlertPriority.HIGH));
+        }
+
+        AlertPage page = store.query(null, "ops@example.com", Instant.ofEpochMilli(2_000), Instant.ofEpochMilli(4_000), 0, 10);
+
+        assertThat(ids(page)).containsExactly(3L, 2L);
+        assertThatThrownBy(() -> store.query(null, null, Instant.ofEpochMilli(4_000), Instant.ofEpochMilli(4_000), 0, 10))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void oldestAlertsAreEvictedBeyondMaxAlerts() {
+        AlertStore bounded = store(3);
+        for (long id = 1; id <= 5; id++) {
+            bounded.save(alert(id, id * 1_000, "ops@example.com", AlertPriority.HIGH));
+        }
+
+        assertThat(ids(bounded.query(null, "ops@example.com", null, null, 0, 10))).containsExactly(5L, 4L, 3L);
+        assertThat(bounded.stats().alerts()).isEqualTo(3);
+        assertThat(bounded.stats().evicted()).isEqualTo(2L);
+        assertThatThrownBy(() -> bounded.get(1)).isInstanceOf(AlertStore.AlertNotFoundException.class);
+    }
+
+    @Test
+    void coalescedCopiesKeepTheHighestOccurrenceCount() {
+        Alert alert = alert(1, 1_000, "ops@example.com", AlertPriority.HIGH);
+        store.save(alert.withOccurrences(3));
+        store.save(alert.withOccurrences(2));
+
+        assertThat(store.get(1).getOccurrences()).isEqualTo(3);
+        assertThat(store.stats().alerts()).isEqualTo(1);
+    }
+
+    @Test
+    void evictionsRacingWithSavesLeaveNoSliceBehind() {
+        AlertStore bounded = store(100);
+        int threads = 4;
+        int perThread = 20_000;
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                int offset = t + 1;
+                executor.execute(() -> {
+                    for (long i = 0; i < perThread; i++) {
+                        long id = i * threads + offset;
+                        bounded.save(alert(id, id, "ops@example.com", AlertPriority.HIGH));
+                    }
+                });
+            }
+        }
+
+        List<Long> stored = ids(bounded.query(null, null, null, null, 0, 1000));
+        assertThat(stored.size()).isEqualTo(100);
+        assertThat(ids(bounded.query(AlertPriority.HIGH, null, null, null, 0, 1000))).isEqualTo(stored);
+        assertThat(ids(bounded.query(null, "ops@example.com", null, null, 0, 1000))).isEqualTo(stored);
+        assertThat(ids(bounded.query(AlertPriority.HIGH, "ops@example.com", null, null, 0, 1000))).isEqualTo(stored);
+    }
+
+    private static Alert alert(long id, long createdAtMillis, String recipient, AlertPriority priority) {
+        return PROTOTYPE.with(id, createdAtMillis, "Disk almost full", "message", recipient, priority);
+    }
+
+    private static List<Long> ids(AlertPage page) {
+        return page.alerts().stream().map(Alert::getId).toList();
+    }
+
+    private static AlertStore store(int maxAlerts) {
+        return new AlertStore(new AlertStoreProperties(true, DataSize.ofMegabytes(64), maxAlerts, 1000));
+    }
+}
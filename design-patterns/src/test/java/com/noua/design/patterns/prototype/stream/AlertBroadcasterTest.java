@@ -0,0 +1,162 @@
+package com.noua.design.patterns.prototype.stream;
+
+import com.noua.design.patterns.prototype.config.AlertStreamProperties;
+import com.noua.design.patterns.prototype.domain.Alert;
+import com.noua.design.patterns.prototype.dto.AlertSubscriberStats;
+import com.noua.design.patterns.prototype.enumeration.AlertPriority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AlertBroadcasterTest {
+
+    private static final Alert PROTOTYPE = Alert.builder().realTime(true).priority(AlertPriority.MEDIUM).build();
+    private static final Pattern EVENT_ID = Pattern.compile("id:(\\d+)");
+
+    /**
+     * Stands in for the client connection: records the ids of the alerts written to it, and can
+     * hold writes back or fail them.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<Long> sent = new CopyOnWriteArrayList<>();
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+        private volatile boolean broken;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (broken) {
+                throw new IOException("connection reset");
+            }
+            writing.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted");
+            }
+            StringBuilder text = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType item : builder.build()) {
+                if (item.getData() instanceof String part) {
+                    text.append(part);
+                }
+            }
+            Matcher id = EVENT_ID.matcher(text);
+            if (id.find()) {
+                sent.add(Long.parseLong(id.group(1)));
+            }
+        }
+    }
+
+    private AlertBroadcaster broadcaster;
+
+    @AfterEach
+    void shutdown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void aFullBufferDropsItsOldestAlerts() throws InterruptedException {
+        broadcaster = broadcaster(2, 10);
+        RecordingEmitter emitter = (RecordingEmitter) broadcaster.subscribe(null, null);
+        emitter.gate = new CountDownLatch(1);
+
+        broadcaster.publish(alert(1, "ops@example.com", AlertPriority.HIGH));
+        assertThat(emitter.writing.await(5, TimeUnit.SECONDS)).isTrue();
+        for (long id = 2; id <= 5; id++) {
+            broadcaster.publish(alert(id, "ops@example.com", AlertPriority.HIGH));
+        }
+        AlertSubscriberStats stats = broadcaster.subscribers().getFirst();
+        assertThat(stats.buffered()).isEqualTo(2);
+        assertThat(stats.dropped()).isEqualTo(2L);
+
+        emitter.gate.countDown();
+        await(() -> emitter.sent.size() == 3);
+        assertThat(emitter.sent).containsExactly(1L, 4L, 5L);
+        assertThat(broadcaster.subscribers().getFirst().delivered()).isEqualTo(3L);
+    }
+
+    @Test
+    void alertsReachOnlyTheSubscribersWhoseFilterMatches() throws InterruptedException {
+        broadcaster = broadcaster(16, 10);
+        RecordingEmitter everything = (RecordingEmitter) broadcaster.subscribe(null, null);
+        RecordingEmitter high = (RecordingEmitter) broadcaster.subscribe(AlertPriority.HIGH, null);
+        RecordingEmitter ops = (RecordingEmitter) broadcaster.subscribe(null, "ops@example.com");
+        RecordingEmitter opsHigh = (RecordingEmitter) broadcaster.subscribe(AlertPriority.HIGH, "ops@example.com");
+        RecordingEmitter low = (RecordingEmitter) broadcaster.subscribe(AlertPriority.LOW, null);
+        RecordingEmitter dev = (RecordingEmitter) broadcaster.subscribe(null, "dev@example.com");
+
+        broadcaster.publish(alert(1, "ops@example.com", AlertPriority.HIGH));
+        broadcaster.publish(alert(2, "dev@example.com", AlertPriority.LOW));
+        broadcaster.publish(alert(3, null, AlertPriority.HIGH));
+
+        await(() -> everything.sent.size() == 3);
+        await(() -> high.sent.size() == 2 && ops.sent.size() == 1 && opsHigh.sent.size() == 1
+                && low.sent.size() == 1 && dev.sent.size() == 1);
+        assertThat(high.sent).containsExactly(1L, 3L);
+        assertThat(ops.sent).containsExactly(1L);
+        assertThat(opsHigh.sent).containsExactly(1L);
+        assertThat(low.sent).containsExactly(2L);
+        assertThat(dev.sent).containsExactly(2L);
+    }
+
+    @Test
+    void aFailingConnectionIsUnsubscribedAndFreesItsSlot() throws InterruptedException {
+        broadcaster = broadcaster(16, 1);
+        RecordingEmitter emitter = (RecordingEmitter) broadcaster.subscribe(null, null);
+        emitter.broken = true;
+
+        broadcaster.publish(alert(1, "ops@example.com", AlertPriority.HIGH));
+
+        await(() -> broadcaster.subscribers().isEmpty());
+        assertThat(broadcaster.subscribe(null, null)).isNotNull();
+    }
+
+    @Test
+    void subscribersBeyondTheLimitAreRejected() {
+        broadcaster = broadcaster(16, 1);
+        broadcaster.subscribe(null, null);
+
+        ResponseStatusException rejected = null;
+        try {
+            broadcaster.subscribe(AlertPriority.HIGH, null);
+        } catch (ResponseStatusException e) {
+            rejected = e;
+        }
+        assertThat(rejected).isNotNull();
+        assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(broadcaster.subscribers().size()).isEqualTo(1);
+    }
+
+    private static Alert alert(long id, String recipient, AlertPriority priority) {
+        return PROTOTYPE.with(id, System.currentTimeMillis(), "Disk almost full", "message", recipient, priority);
+    }
+
+    private static AlertBroadcaster broadcaster(int bufferSize, int maxSubscribers) {
+        return new AlertBroadcaster(new AlertStreamProperties(bufferSize, maxSubscribers, Duration.ofMinutes(1),
+                Duration.ofMinutes(30)), RecordingEmitter::new);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() < deadline).isTrue();
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+    }
+}
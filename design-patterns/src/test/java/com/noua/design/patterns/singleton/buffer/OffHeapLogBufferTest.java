@@ -0,0 +1,116 @@
+package com.noua.design.patterns.singleton.buffer;
+
+import com.noua.design.patterns.singleton.domain.LogEntry;
+import com.noua.design.patterns.singleton.enumeration.LogLevel;
+import com.noua.design.patterns.singleton.enumeration.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffHeapLogBufferTest {
+
+    @Test
+    void dropNewestDropsOnlyWhileTheConsumerIsBehind() {
+        OffHeapLogBuffer buffer = new OffHeapLogBuffer(4, 64, OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.append(i, LogLevel.INFO, "test", "entry " + i)).isEqualTo(i);
+        }
+        assertThat(buffer.append(4, LogLevel.INFO, "test", "dropped")).isEqualTo(-1);
+
+        buffer.release(2);
+
+        assertThat(buffer.append(5, LogLevel.INFO, "test", "entry 4")).isEqualTo(4);
+        assertThat(buffer.append(6, LogLevel.INFO, "test", "entry 5")).isEqualTo(5);
+        assertThat(buffer.append(7, LogLevel.INFO, "test", "dropped")).isEqualTo(-1);
+        assertThat(buffer.droppedCount()).isEqualTo(2);
+        assertThat(buffer.get(5).message()).isEqualTo("entry 5");
+    }
+
+    @Test
+    void dropNewestWithoutAConsumerKeepsTheFirstEntriesUntilCleared() {
+        OffHeapLogBuffer buffer = new OffHeapLogBuffer(2, 64, OverflowPolicy.DROP_NEWEST);
+        buffer.append(0, LogLevel.INFO, "test", "entry 0");
+        buffer.append(1, LogLevel.INFO, "test", "entry 1");
+
+        assertThat(buffer.append(2, LogLevel.INFO, "test", "dropped")).isEqualTo(-1);
+        assertThat(buffer.snapshot().size()).isEqualTo(2);
+
+        buffer.clear();
+
+        assertThat(buffer.append(3, LogLevel.INFO, "test", "entry 2")).isEqualTo(2);
+        assertThat(buffer.get(2).message()).isEqualTo("entry 2");
+        assertThat(buffer.droppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void writersALapApartNeverTearASlot() throws InterruptedException {
+        OffHeapLogBuffer buffer = new OffHeapLogBuffer(2, 1024, OverflowPolicy.OVERWRITE_OLDEST);
+        int writers = 4;
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger torn = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            String message = String.valueOf((char) ('a' + w)).repeat(buffer.maxMessageBytes());
+            threads.add(Thread.ofPlatform().start(() -> {
+                while (running.get()) {
+                    buffer.append(0, LogLevel.INFO, "test", message);
+                }
+            }));
+        }
+        threads.add(Thread.ofPlatform().start(() -> {
+            while (running.get()) {
+                for (LogEntry entry : buffer.snapshot()) {
+                    String message = entry.message();
+                    if (message.length() != buffer.maxMessageBytes() || !message.equals(
+                            String.valueOf(message.charAt(0)).repeat(message.length()))) {
+                        torn.incrementAndGet();
+                    }
+                }
+            }
+        }));
+        Thread.sleep(300);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(torn.get()).isEqualTo(0);
+        // every claimed sequence ends up published or counted as dropped, none is left pending
+        long head = buffer.headSequence();
+        for (long sequence = buffer.firstSequence(); sequence < head; sequence++) {
+            assertThat(buffer.isPending(sequence)).isFalse();
+        }
+    }
+
+    @Test
+    void overwriteOldestKeepsTheNewestEntries() {
+        OffHeapLogBuffer buffer = new OffHeapLogBuffer(4, 64, OverflowPolicy.OVERWRITE_OLDEST);
+        for (int i = 0; i < 6; i++) {
+            buffer.append(i, LogLevel.INFO, "test", "entry " + i);
+        }
+
+        assertThat(buffer.firstSequence()).isEqualTo(2);
+        assertThat(buffer.get(1)).isNull();
+        assertThat(buffer.get(2).message()).isEqualTo("entry 2");
+    }
+
+    @Test
+    void aRejectedSourceDoesNotLeaveAClaimedSlotBehind() {
+        OffHeapLogBuffer buffer = new OffHeapLogBuffer(4, 64, OverflowPolicy.OVERWRITE_OLDEST);
+        for (int i = 0; i <= Short.MAX_VALUE; i++) {
+            buffer.append(i, LogLevel.INFO, "source-" + i, "entry");
+        }
+        long head = buffer.headSequence();
+
+        assertThatThrownBy(() -> buffer.append(0, LogLevel.INFO, "one-too-many", "entry"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(buffer.headSequence()).isEqualTo(head);
+        assertThat(buffer.append(0, LogLevel.INFO, "source-0", "entry")).isEqualTo(head);
+    }
+}
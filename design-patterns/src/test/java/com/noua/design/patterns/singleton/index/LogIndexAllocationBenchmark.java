@@ -0,0 +1,65 @@
+package com.noua.design.patterns.singleton.index;
+
+import com.noua.design.patterns.singleton.buffer.OffHeapLogBuffer;
+import com.noua.design.patterns.singleton.enumeration.LogLevel;
+import com.noua.design.patterns.singleton.enumeration.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bytes the index adds to each logged message once its terms are known, which is the steady state
+ * of {@code LoggerService.log}: the buffer append alone, then append plus index. Skipped unless an iteration count is given:
+ * <pre>
+ * ./mvnw test -Dtest=LogIndexAllocationBenchmark -Dlogger.benchmark.iterations=5000000
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "logger.benchmark.iterations", matches = "\\d+")
+class LogIndexAllocationBenchmark {
+
+    private static final String[] MESSAGES = {
+            "Payment 42 failed: gateway timeout after 3 retries",
+            "Settlement batch flushed to the BANK lane",
+            "User ops@example.com acknowledged alert CRITICAL disk almost full"
+    };
+
+    @Test
+    void bytesPerIndexedMessage() {
+        int iterations = Integer.getInteger("logger.benchmark.iterations");
+        OffHeapLogBuffer buffer = new OffHeapLogBuffer(65536, 256, OverflowPolicy.OVERWRITE_OLDEST);
+        LogIndex index = new LogIndex(buffer, 32, 64, 1_000_000_000L);
+
+        double appendBytes = measure("buffer append", buffer, null, iterations);
+        double indexedBytes = measure("buffer append + index", buffer, index, iterations);
+
+        // a String and a set node per term would be well over a hundred bytes
+        assertThat(indexedBytes - appendBytes).isLessThan(16.0);
+    }
+
+    private double measure(String name, OffHeapLogBuffer buffer, LogIndex index, int iterations) {
+        run(buffer, index, iterations); // warm-up, lets the JIT settle and the posting lists reach their size
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        run(buffer, index, iterations);
+        long elapsed = System.nanoTime() - start;
+        double bytes = (double) (threads.getThreadAllocatedBytes(thread) - before) / iterations;
+        System.out.printf("%-24s %6.1f bytes/entry %6.1f ns/entry%n", name, bytes, (double) elapsed / iterations);
+        return bytes;
+    }
+
+    private static void run(OffHeapLogBuffer buffer, LogIndex index, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            String message = MESSAGES[i % MESSAGES.length];
+            long epochNanos = i * 1_000L;
+            long sequence = buffer.append(epochNanos, LogLevel.INFO, "benchmark", message);
+            if (index != null) {
+                index.add(sequence, epochNanos, message);
+            }
+        }
+    }
+}
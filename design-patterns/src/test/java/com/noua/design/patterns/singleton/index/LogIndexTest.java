@@ -0,0 +1,80 @@
+package com.noua.design.patterns.singleton.index;
+
+import com.noua.design.patterns.singleton.buffer.OffHeapLogBuffer;
+import com.noua.design.patterns.singleton.enumeration.LogLevel;
+import com.noua.design.patterns.singleton.enumeration.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogIndexTest {
+
+    private final OffHeapLogBuffer buffer = new OffHeapLogBuffer(8, 128, OverflowPolicy.OVERWRITE_OLDEST);
+    private final LogIndex index = new LogIndex(buffer, 32, 8, 1_000_000_000L);
+
+    @Test
+    void searchMatchesEveryTermCaseInsensitively() {
+        log("Payment FAILED for order 42");
+        log("payment settled, payment id 7");
+        log("Deploy failed");
+
+        assertThat(search("payment", 0, Long.MAX_VALUE)).containsExactly(0L, 1L);
+        assertThat(search("failed PAYMENT", 0, Long.MAX_VALUE)).containsExactly(0L);
+        assertThat(search("refund", 0, Long.MAX_VALUE)).isEmpty();
+    }
+
+    @Test
+    void termsAreCutToTheMaximumLength() {
+        log("reconciliation started");
+
+        assertThat(search("reconcil", 0, Long.MAX_VALUE)).containsExactly(0L);
+        assertThat(search("reconciliation", 0, Long.MAX_VALUE)).containsExactly(0L);
+    }
+
+    @Test
+    void overwrittenEntriesAreEvictedAndTheirTermsIndexedAgain() {
+        log("first");
+        for (int i = 0; i < 16; i++) {
+            log("filler");
+        }
+        log("first again");
+
+        assertThat(search("first", 0, Long.MAX_VALUE)).containsExactly(17L);
+        assertThat(search("filler", 0, Long.MAX_VALUE)).containsExactly(10L, 11L, 12L, 13L, 14L, 15L, 16L);
+    }
+
+    @Test
+    void theWalkStopsWhenTheVisitorDoesAndReturnsWhereToResume() {
+        log("payment failed");
+        log("payment settled");
+        log("payment failed again");
+        log("deploy failed");
+        log("payment failed twice");
+
+        List<Long> visited = new ArrayList<>();
+        long resume = index.search("failed payment", 0, Long.MAX_VALUE, sequence -> {
+            visited.add(sequence);
+            return visited.size() < 2;
+        });
+
+        assertThat(visited).containsExactly(0L, 2L);
+        assertThat(resume).isEqualTo(3L);
+        assertThat(index.search("failed payment", resume, 4, sequence -> true)).isEqualTo(4L);
+        assertThat(search("failed payment", resume, Long.MAX_VALUE)).containsExactly(4L);
+    }
+
+    private List<Long> search(String query, long from, long to) {
+        List<Long> sequences = new ArrayList<>();
+        index.search(query, from, to, sequences::add);
+        return sequences;
+    }
+
+    private void log(String message) {
+        long epochNanos = System.nanoTime();
+        long sequence = buffer.append(epochNanos, LogLevel.INFO, "test", message);
+        index.add(sequence, epochNanos, message);
+    }
+}
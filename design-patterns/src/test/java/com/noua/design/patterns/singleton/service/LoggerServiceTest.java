@@ -0,0 +1,82 @@
+package com.noua.design.patterns.singleton.service;
+
+import com.noua.design.patterns.singleton.buffer.OffHeapLogBuffer;
+import com.noua.design.patterns.singleton.domain.LogEntry;
+import com.noua.design.patterns.singleton.dto.LogPage;
+import com.noua.design.patterns.singleton.enumeration.LogLevel;
+import com.noua.design.patterns.singleton.enumeration.OverflowPolicy;
+import com.noua.design.patterns.singleton.index.LogIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoggerServiceTest {
+
+    /**
+     * Sequence whose writer has claimed its slot but not published it yet.
+     */
+    private final AtomicLong pending = new AtomicLong(-1);
+
+    private final OffHeapLogBuffer buffer = new OffHeapLogBuffer(8, 128, OverflowPolicy.OVERWRITE_OLDEST) {
+        @Override
+        public LogEntry get(long sequence) {
+            return sequence == pending.get() ? null : super.get(sequence);
+        }
+
+        @Override
+        public boolean isPending(long sequence) {
+            return sequence == pending.get() || super.isPending(sequence);
+        }
+    };
+    private final LoggerService logger = new LoggerService(buffer, null, new LogIndex(buffer, 32, 8, 1_000_000_000L));
+
+    @Test
+    void aPageStopsAtARecordStillBeingWritten() {
+        for (int i = 0; i < 4; i++) {
+            logger.log(LogLevel.INFO, "test", "entry " + i);
+        }
+        pending.set(1);
+
+        LogPage first = logger.getLogs(0, 10, null, null);
+        assertThat(first.entries()).hasSize(1);
+        assertThat(first.nextCursor()).isEqualTo(1L);
+
+        pending.set(-1);
+        LogPage second = logger.getLogs(first.nextCursor(), 10, null, null);
+        assertThat(second.entries()).hasSize(3);
+        assertThat(second.entries().getFirst()).contains("entry 1");
+        assertThat(second.nextCursor()).isEqualTo(4L);
+    }
+
+    @Test
+    void evictedRecordsAreSkippedRatherThanWaitedFor() {
+        for (int i = 0; i < 10; i++) {
+            logger.log(LogLevel.INFO, "test", "entry " + i);
+        }
+
+        assertThat(buffer.isPending(0)).isFalse();
+        LogPage page = logger.getLogs(0, 100, null, null);
+        assertThat(page.entries()).hasSize(8);
+        assertThat(page.entries().getFirst()).contains("entry 2");
+        assertThat(page.nextCursor()).isEqualTo(10L);
+    }
+
+    @Test
+    void searchPagesFromTheCursor() {
+        for (int i = 0; i < 6; i++) {
+            logger.log(LogLevel.INFO, "test", (i % 2 == 0 ? "payment " : "deploy ") + i);
+        }
+
+        LogPage first = logger.search("payment", 0, 2, null, null);
+        assertThat(first.entries()).hasSize(2);
+        assertThat(first.entries().getLast()).contains("payment 2");
+        assertThat(first.nextCursor()).isEqualTo(3L);
+
+        LogPage second = logger.search("payment", first.nextCursor(), 2, null, null);
+        assertThat(second.entries()).hasSize(1);
+        assertThat(second.entries().getFirst()).contains("payment 4");
+        assertThat(second.nextCursor()).isEqualTo(6L);
+    }
+}
@@ -0,0 +1,135 @@
+package com.noua.design.patterns.singleton.sink;
+
+import com.noua.design.patterns.singleton.buffer.OffHeapLogBuffer;
+import com.noua.design.patterns.singleton.domain.LogEntry;
+import com.noua.design.patterns.singleton.enumeration.LogLevel;
+import com.noua.design.patterns.singleton.enumeration.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentedLogSinkTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void persistedEntriesAreReplayedOnStart() throws InterruptedException {
+        OffHeapLogBuffer buffer = buffer();
+        SegmentedLogSink sink = sink(buffer);
+        sink.start();
+        buffer.append(1_000, LogLevel.WARN, "billing", "card declined");
+        buffer.append(2_000, LogLevel.INFO, "auth", "signed in");
+        sink.close();
+
+        OffHeapLogBuffer replayed = buffer();
+        SegmentedLogSink restarted = sink(replayed);
+        restarted.start();
+        restarted.close();
+
+        assertThat(replayed.snapshot()).containsExactly(
+                new LogEntry(1_000, LogLevel.WARN, "billing", "card declined"),
+                new LogEntry(2_000, LogLevel.INFO, "auth", "signed in"));
+    }
+
+    @Test
+    void aSegmentWithoutTheFormatHeaderIsLeftAloneInsteadOfReplayed() throws IOException, InterruptedException {
+        // a record in the first layout: int length | long epochNanos | utf-8 message
+        Path legacy = directory.resolve("segment-00000000000000000000.log");
+        ByteBuffer record = ByteBuffer.allocate(64);
+        record.putInt(Long.BYTES + 5).putLong(1_000).put("hello".getBytes());
+        Files.write(legacy, record.array());
+
+        OffHeapLogBuffer buffer = buffer();
+        SegmentedLogSink sink = sink(buffer);
+        sink.start();
+        assertThat(buffer.snapshot()).isEmpty();
+        buffer.append(2_000, LogLevel.INFO, "auth", "signed in");
+        sink.close();
+
+        assertThat(Files.readAllBytes(legacy)).isEqualTo(record.array());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.map(file -> file.getFileName().toString()).sorted().toList())
+                    .containsExactly("segment-00000000000000000000.log", "segment-00000000000000000001.log");
+        }
+    }
+
+    @Test
+    void truncateDeletesEverySegmentIncludingOnesInAnotherLayout() throws IOException, InterruptedException {
+        Path legacy = directory.resolve("segment-00000000000000000000.log");
+        Files.write(legacy, new byte[64]);
+        OffHeapLogBuffer buffer = buffer();
+        SegmentedLogSink sink = sink(buffer);
+        sink.start();
+        buffer.append(1_000, LogLevel.INFO, "auth", "signed in");
+        await(() -> sink.persistedCount() == 1);
+
+        buffer.clear();
+        sink.truncate();
+        await(() -> Files.notExists(legacy));
+        buffer.append(2_000, LogLevel.WARN, "billing", "card declined");
+        sink.close();
+
+        assertThat(segmentNames()).containsExactly("segment-00000000000000000002.log");
+        OffHeapLogBuffer replayed = buffer();
+        SegmentedLogSink restarted = sink(replayed);
+        restarted.start();
+        restarted.close();
+        assertThat(replayed.snapshot()).containsExactly(new LogEntry(2_000, LogLevel.WARN, "billing", "card declined"));
+    }
+
+    @Test
+    void segmentsRollBySizeAndOnlyTheNewestAreKept() throws IOException, InterruptedException {
+        OffHeapLogBuffer buffer = buffer();
+        // room for two records per segment
+        SegmentedLogSink sink = new SegmentedLogSink(buffer, directory, 64, 2, Duration.ofMillis(10), 64, false);
+        sink.start();
+        for (int i = 0; i < 10; i++) {
+            buffer.append(i, LogLevel.INFO, "app", "entry " + i);
+        }
+        sink.close();
+
+        assertThat(sink.persistedCount()).isEqualTo(10L);
+        assertThat(segmentNames()).containsExactly("segment-00000000000000000003.log",
+                "segment-00000000000000000004.log");
+        OffHeapLogBuffer replayed = buffer();
+        SegmentedLogSink restarted = sink(replayed);
+        restarted.start();
+        restarted.close();
+        assertThat(replayed.snapshot().stream().map(LogEntry::message).toList())
+                .containsExactly("entry 6", "entry 7", "entry 8", "entry 9");
+    }
+
+    private List<String> segmentNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() < deadline).isTrue();
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+
+    private static OffHeapLogBuffer buffer() {
+        return new OffHeapLogBuffer(16, 128, OverflowPolicy.OVERWRITE_OLDEST);
+    }
+
+    private SegmentedLogSink sink(OffHeapLogBuffer buffer) {
+        return new SegmentedLogSink(buffer, directory, 4096, 4, Duration.ofMillis(10), 64, false);
+    }
+}